@@ -3,7 +3,9 @@ package br.com.backend.controller;
 import br.com.backend.dto.AdminDashboardDTO;
 import br.com.backend.dto.AssinaturaAdminDTO;
 import br.com.backend.entity.Assinatura;
+import br.com.backend.exception.BusinessException;
 import br.com.backend.service.AssinaturaService;
+import br.com.backend.service.CryptoMigrationService;
 import br.com.backend.repository.AssinaturaRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,6 +31,7 @@ public class AdminController {
 
     private final AssinaturaService assinaturaService;
     private final AssinaturaRepository assinaturaRepository;
+    private final CryptoMigrationService cryptoMigrationService;
 
     /**
      * Dashboard principal com estatísticas
@@ -175,6 +178,41 @@ public class AdminController {
         return ResponseEntity.ok("Reembolso reprocessado com sucesso");
     }
 
+    /**
+     * Progresso da migração de valores para o formato AES-GCM
+     */
+    @GetMapping("/crypto/migracao")
+    public ResponseEntity<Map<String, Object>> progressoMigracaoCriptografia() {
+        return ResponseEntity.ok(cryptoMigrationService.progresso());
+    }
+
+    /**
+     * Inicia ou retoma a migração a partir do último checkpoint
+     */
+    @PostMapping("/crypto/migracao/iniciar")
+    public ResponseEntity<Map<String, Object>> iniciarMigracaoCriptografia() {
+        log.info("🔐 Iniciando migração de criptografia");
+        try {
+            boolean iniciada = cryptoMigrationService.iniciar();
+            Map<String, Object> progresso = cryptoMigrationService.progresso();
+            progresso.put("iniciada", iniciada);
+            return ResponseEntity.ok(progresso);
+        } catch (BusinessException e) {
+            log.warn("⚠️ Migração de criptografia não iniciada: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
+    /**
+     * Pausa a migração ao fim do lote atual
+     */
+    @PostMapping("/crypto/migracao/pausar")
+    public ResponseEntity<Map<String, Object>> pausarMigracaoCriptografia() {
+        log.info("⏸️ Pausando migração de criptografia");
+        cryptoMigrationService.pausar();
+        return ResponseEntity.ok(cryptoMigrationService.progresso());
+    }
+
     /**
      * Converte Assinatura para DTO administrativo
      */
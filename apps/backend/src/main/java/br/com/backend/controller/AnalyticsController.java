@@ -1,15 +1,20 @@
 package br.com.backend.controller;
 
 import br.com.backend.dto.AnalyticsResponseDTO;
-import br.com.backend.dto.PreenchimentoAnalyticsDTO;
 import br.com.backend.dto.CampoAnalyticsDTO;
 import br.com.backend.dto.SiteAnalyticsDTO;
 import br.com.backend.service.AdvancedAnalyticsService;
+import br.com.backend.service.FilaAnalyticsService;
+import br.com.backend.service.SerieAnalyticsService;
 import br.com.backend.security.JwtTokenUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
@@ -24,6 +29,8 @@ import java.util.Map;
 public class AnalyticsController {
 
     private final AdvancedAnalyticsService analyticsService;
+    private final FilaAnalyticsService filaAnalyticsService;
+    private final SerieAnalyticsService serieAnalyticsService;
     private final JwtTokenUtil jwtTokenUtil;
 
     /**
@@ -50,21 +57,26 @@ public class AnalyticsController {
     }
 
     /**
-     * Obtém dados de preenchimentos por período
+     * Série de preenchimentos por período, agregada por hora, dia ou semana e escrita ponto a ponto
      */
     @GetMapping("/preenchimentos")
-    public ResponseEntity<List<PreenchimentoAnalyticsDTO>> getPreenchimentosPorPeriodo(
+    public ResponseEntity<StreamingResponseBody> getPreenchimentosPorPeriodo(
             @RequestParam(defaultValue = "30") @NotBlank String periodo,
+            @RequestParam(defaultValue = "dia") String granularidade,
             @RequestHeader("Authorization") @NotBlank String token) {
         
-        log.debug("📊 [ANALYTICS] Preenchimentos por período solicitados - Período: {}", periodo);
+        log.debug("📊 [ANALYTICS] Preenchimentos por período solicitados - Período: {}, Granularidade: {}", periodo, granularidade);
         
         try {
             Long userId = extractUserIdFromToken(token);
-            List<PreenchimentoAnalyticsDTO> dados = analyticsService.getPreenchimentosPorPeriodo(userId, periodo);
+            int dias = Integer.parseInt(periodo);
+            SerieAnalyticsService.Granularidade tamanho = SerieAnalyticsService.Granularidade.de(granularidade);
+            serieAnalyticsService.validar(dias, tamanho);
             
-            log.debug("✅ [ANALYTICS] Preenchimentos obtidos com sucesso para usuário: {} - {} registros", userId, dados.size());
-            return ResponseEntity.ok(dados);
+            StreamingResponseBody corpo = saida -> serieAnalyticsService.escrever(userId, dias, tamanho, saida);
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(corpo);
             
         } catch (Exception e) {
             log.error("❌ [ANALYTICS] Erro ao obter preenchimentos: {}", e.getMessage());
@@ -147,13 +159,14 @@ public class AnalyticsController {
             @RequestParam(required = false) Long campoId,
             @RequestHeader("Authorization") @NotBlank String token) {
         
-        log.info("📊 [ANALYTICS] Rastreamento de preenchimento solicitado - Site: {}, Campo: {}", site, campoId);
-        
         try {
             Long userId = extractUserIdFromToken(token);
-            analyticsService.trackPreenchimento(userId, site, campoId);
+            if (!filaAnalyticsService.registrar(userId, site, campoId)) {
+                log.warn("⚠️ [ANALYTICS] Fila de preenchimentos cheia, evento recusado - Usuário: {}, Site: {}", userId, site);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+            }
             
-            log.info("✅ [ANALYTICS] Preenchimento rastreado com sucesso - Usuário: {}, Site: {}, Campo: {}", userId, site, campoId);
+            log.debug("📊 [ANALYTICS] Preenchimento enfileirado - Usuário: {}, Site: {}, Campo: {}", userId, site, campoId);
             return ResponseEntity.ok().build();
             
         } catch (Exception e) {
@@ -28,10 +28,12 @@ import br.com.backend.service.AssinaturaService;
 import br.com.backend.entity.CodigoLogin;
 import br.com.backend.repository.CodigoLoginRepository;
 import br.com.backend.security.JwtTokenUtil;
+import br.com.backend.service.OutboxService;
 import br.com.backend.service.SessionControlService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -44,6 +46,8 @@ public class CheckoutController {
     private final CodigoLoginRepository codigoLoginRepository;
     private final JwtTokenUtil jwtTokenUtil;
     private final SessionControlService sessionControlService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${stripe.webhook.secret:whsec_test}")
     private String stripeWebhookSecret;
@@ -509,11 +513,20 @@ public class CheckoutController {
         }
         
         try {
-            usuario = usuarioRepository.save(usuario);
+            // 4. Usuário, assinatura e eventos de domínio (outbox) na mesma transação
+            Usuario paraSalvar = usuario;
+            boolean novoUsuario = paraSalvar.getId() == null;
+            Assinatura assinatura = transactionTemplate.execute(status -> {
+                Usuario salvo = usuarioRepository.save(paraSalvar);
+                if (novoUsuario) {
+                    Map<String, Object> evento = new HashMap<>();
+                    evento.put("plano", salvo.getPlano());
+                    outboxService.registrar(UsuarioController.EVENTO_USUARIO_CRIADO, salvo.getId(), salvo.getId(), evento);
+                }
+                return assinaturaService.criarAssinatura(salvo.getId(), plano);
+            });
+            usuario = usuarioRepository.findById(assinatura.getUsuarioId()).orElseThrow();
             System.out.println("🔔 Usuário salvo - ID: " + usuario.getId() + ", Email: " + usuario.getEmail() + ", Plano: " + usuario.getPlano());
-            
-            // 4. Criar assinatura
-            Assinatura assinatura = assinaturaService.criarAssinatura(usuario.getId(), plano);
             System.out.println("🔔 Assinatura criada - ID: " + assinatura.getId() + ", Plano: " + assinatura.getPlano());
             
             // Verificar se a assinatura foi criada corretamente
@@ -1,6 +1,7 @@
 package br.com.backend.controller;
 
 import br.com.backend.dto.ErrorResponseDTO;
+import br.com.backend.entity.CampoTemplate;
 import br.com.backend.entity.HistoricoPreenchimento;
 import br.com.backend.entity.Template;
 import br.com.backend.entity.Usuario;
@@ -8,14 +9,25 @@ import br.com.backend.repository.HistoricoPreenchimentoRepository;
 import br.com.backend.repository.TemplateRepository;
 import br.com.backend.repository.UsuarioRepository;
 import br.com.backend.security.JwtTokenUtil;
+import br.com.backend.service.ContadorUsoService;
+import br.com.backend.service.CryptoService;
+import br.com.backend.service.DecryptedValueCache;
 import br.com.backend.service.PGPDecryptionService;
+import br.com.backend.service.TemplateEventService;
+import br.com.backend.service.TemplatePayloadCache;
+import br.com.backend.service.TemplateStreamService;
+import br.com.backend.service.TemplateVersionService;
 import br.com.backend.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -36,6 +48,13 @@ public class ExtensaoPublicaController {
     private final TemplateRepository templateRepository;
     private final UsuarioRepository usuarioRepository;
     private final JwtTokenUtil jwtTokenUtil;
+    private final DecryptedValueCache decryptedValueCache;
+    private final TemplateVersionService templateVersionService;
+    private final TemplateStreamService templateStreamService;
+    private final TemplatePayloadCache templatePayloadCache;
+    private final TemplateEventService templateEventService;
+    private final ContadorUsoService contadorUsoService;
+    private final CryptoService cryptoService;
     private final PGPDecryptionService pgpDecryptionService;
 
     /**
@@ -43,9 +62,9 @@ public class ExtensaoPublicaController {
      * Usado pela extensão Chrome para carregar templates
      */
     @GetMapping("/templates")
-    @Transactional(readOnly = true)
     public ResponseEntity<?> listarTemplates(
-            @RequestHeader(value = "X-Extension-Key", required = false) String key) {
+            @RequestHeader(value = "X-Extension-Key", required = false) String key,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         
         // ✅ VALIDAÇÃO: Verificar chave de extensão
         if (!EXTENSION_KEY.equals(key)) {
@@ -58,41 +77,20 @@ public class ExtensaoPublicaController {
         }
 
         try {
-            // ⚠️ SEGURANÇA: Este endpoint é apenas para extensão Chrome
-            // Retorna todos os templates ativos (não filtrar por usuário)
-            List<Template> templates = templateRepository.findByAtivoTrue();
-            log.info("🔒 [EXTENSÃO] Encontrados {} templates ativos para extensão Chrome", templates.size());
-            
-            // Mapear para formato da extensão e descriptografar dados PGP
-            List<Map<String, Object>> templatesFormatados = templates.stream()
-                .map(template -> {
-                    Map<String, Object> templateMap = new HashMap<>();
-                    templateMap.put("id", template.getId());
-                    templateMap.put("nome", template.getNome() != null ? template.getNome() : "");
-                    templateMap.put("descricao", template.getDescricao() != null ? template.getDescricao() : "");
-                    
-                    // Descriptografa campos
-                    List<Map<String, Object>> camposDescriptografados = template.getCampos().stream()
-                        .map(campo -> {
-                            Map<String, Object> campoMap = new HashMap<>();
-                            campoMap.put("nome", campo.getNome() != null ? campo.getNome() : "");
-                            // Descriptografa o valor usando PGP
-                            String valorDescriptografado = pgpDecryptionService.decryptPGPValue(campo.getValor());
-                            campoMap.put("valor", valorDescriptografado != null ? valorDescriptografado : "");
-                            campoMap.put("tipo", campo.getTipo() != null ? campo.getTipo() : "text");
-                            return campoMap;
-                        })
-                        .collect(java.util.stream.Collectors.toList());
-                    
-                    templateMap.put("campos", camposDescriptografados);
-                    templateMap.put("totalUso", template.getTotalUso() != null ? template.getTotalUso() : 0);
-                    templateMap.put("ultimoUso", template.getUltimoUso() != null ? template.getUltimoUso().toString() : "");
-                    
-                    return templateMap;
-                })
-                .collect(java.util.stream.Collectors.toList());
+            // ✅ NADA MUDOU: responde 304 sem consultar templates nem descriptografar
+            String etag = templateVersionService.etagGlobal();
+            if (templateVersionService.naoModificado(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
             
-            return ResponseEntity.ok(templatesFormatados);
+            // ⚠️ SEGURANÇA: Este endpoint é apenas para extensão Chrome
+            // Retorna todos os templates ativos (não filtrar por usuário), paginados e escritos direto na resposta
+            StreamingResponseBody corpo = templateStreamService::escreverTemplatesAtivos;
+            return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(corpo);
             
         } catch (Exception e) {
             log.error("Erro ao listar templates: {}", e.getMessage(), e);
@@ -110,7 +108,9 @@ public class ExtensaoPublicaController {
     @Transactional(readOnly = true)
     public ResponseEntity<?> listarTemplatesUsuario(
             @RequestHeader(value = "Authorization", required = false) String authHeader,
-            @RequestHeader(value = "X-Extension-Key", required = false) String extensionKey) {
+            @RequestHeader(value = "X-Extension-Key", required = false) String extensionKey,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+            @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
         
         // ✅ VALIDAÇÃO: Aceitar tanto JWT quanto chave de extensão
         if (authHeader == null && extensionKey == null) {
@@ -135,32 +135,40 @@ public class ExtensaoPublicaController {
                         Usuario usuario = usuarioRepository.findByEmail(email)
                             .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
                         
-                        List<Template> templates = templateRepository.findByUsuarioIdAndAtivoTrue(usuario.getId());
+                        String etag = templateVersionService.etagUsuario(usuario, "ext");
+                        String etagCliente = templateVersionService.etagCorrespondente(ifNoneMatch, etag);
+                        if (etagCliente != null) {
+                            return naoModificado(etagCliente);
+                        }
                         
-                        List<Map<String, Object>> templatesFormatados = templates.stream()
-                            .map(template -> {
-                                Map<String, Object> templateMap = new HashMap<>();
-                                templateMap.put("id", template.getId());
-                                templateMap.put("nome", template.getNome() != null ? template.getNome() : "");
-                                templateMap.put("descricao", template.getDescricao() != null ? template.getDescricao() : "");
+                        // Payload já serializado em cache enquanto a versão dos templates não mudar
+                        TemplatePayloadCache.Payload payload = templatePayloadCache.obter(usuario.getId(), "ext", etag, () -> {
+                            List<Template> templates = templateRepository.findAtivosComCampos(usuario.getId());
+                            Map<String, String> valores = descriptografar(templates);
+                            return templates.stream()
+                                .map(template -> {
+                                    Map<String, Object> templateMap = new HashMap<>();
+                                    templateMap.put("id", template.getId());
+                                    templateMap.put("nome", template.getNome() != null ? template.getNome() : "");
+                                    templateMap.put("descricao", template.getDescricao() != null ? template.getDescricao() : "");
                                 
-                                List<Map<String, Object>> camposList = template.getCampos().stream()
-                                    .map(campo -> {
-                                        Map<String, Object> campoMap = new HashMap<>();
-                                        campoMap.put("nome", campo.getNome() != null ? campo.getNome() : "");
-                                        campoMap.put("valor", campo.getValor() != null ? campo.getValor() : "");
-                                        campoMap.put("tipo", campo.getTipo() != null ? campo.getTipo() : "text");
-                                        return campoMap;
-                                    })
-                                    .collect(java.util.stream.Collectors.toList());
-                                templateMap.put("campos", camposList);
-                                templateMap.put("totalUso", template.getTotalUso() != null ? template.getTotalUso() : 0);
-                                templateMap.put("ultimoUso", template.getUltimoUso() != null ? template.getUltimoUso().toString() : "");
-                                return templateMap;
-                            })
-                            .collect(java.util.stream.Collectors.toList());
-                        
-                        return ResponseEntity.ok(templatesFormatados);
+                                    List<Map<String, Object>> camposList = template.getCampos().stream()
+                                        .map(campo -> {
+                                            Map<String, Object> campoMap = new HashMap<>();
+                                            campoMap.put("nome", campo.getNome() != null ? campo.getNome() : "");
+                                            campoMap.put("valor", valor(campo, valores));
+                                            campoMap.put("tipo", campo.getTipo() != null ? campo.getTipo() : "text");
+                                            return campoMap;
+                                        })
+                                        .collect(java.util.stream.Collectors.toList());
+                                    templateMap.put("campos", camposList);
+                                    templateMap.put("totalUso", template.getTotalUso() != null ? template.getTotalUso() : 0);
+                                    templateMap.put("ultimoUso", template.getUltimoUso() != null ? template.getUltimoUso().toString() : "");
+                                    return templateMap;
+                                })
+                                .collect(java.util.stream.Collectors.toList());
+                        });
+                        return respostaSerializada(payload, etag, acceptEncoding);
                     } catch (Exception e) {
                         log.error("Erro ao extrair usuário do token: {}", e.getMessage());
                         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(
@@ -199,12 +207,60 @@ public class ExtensaoPublicaController {
                     return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
                 }
                 
+                String etag = templateVersionService.etagUsuario(usuario, "jwt");
+                String etagCliente = templateVersionService.etagCorrespondente(ifNoneMatch, etag);
+                if (etagCliente != null) {
+                    return naoModificado(etagCliente);
+                }
+                
                 log.info("🔍 [DEBUG] Buscando templates para usuário ID: {}, Email: {}", usuario.getId(), email);
                 
-                List<Template> templates;
+                // Payload já serializado em cache enquanto a versão dos templates não mudar
+                TemplatePayloadCache.Payload payload;
                 try {
-                    templates = templateRepository.findByUsuarioIdAndAtivoOrderByNomeAsc(usuario.getId(), true);
-                    log.info("🔒 [DASHBOARD] Encontrados {} templates para usuário: {}", templates.size(), email);
+                    payload = templatePayloadCache.obter(usuario.getId(), "jwt", etag, () -> {
+                        List<Template> templates = templateRepository.findAtivosComCamposOrdenadosPorNome(usuario.getId());
+                        log.info("🔒 [DASHBOARD] Encontrados {} templates para usuário: {}", templates.size(), email);
+                        Map<String, String> valores = descriptografar(templates);
+                        return templates.stream()
+                            .map(template -> {
+                                try {
+                                    Map<String, Object> templateMap = new HashMap<>();
+                                    templateMap.put("id", template.getId());
+                                    templateMap.put("nome", template.getNome() != null ? template.getNome() : "");
+                                    templateMap.put("descricao", template.getDescricao() != null ? template.getDescricao() : "");
+                                    
+                                    List<Map<String, Object>> camposList = new ArrayList<>();
+                                    if (template.getCampos() != null) {
+                                        camposList = template.getCampos().stream()
+                                            .map(campo -> {
+                                                Map<String, Object> campoMap = new HashMap<>();
+                                                campoMap.put("nome", campo.getNome() != null ? campo.getNome() : "");
+                                                campoMap.put("valor", valor(campo, valores));
+                                                campoMap.put("tipo", campo.getTipo() != null ? campo.getTipo() : "text");
+                                                return campoMap;
+                                            })
+                                            .collect(java.util.stream.Collectors.toList());
+                                    }
+                                    templateMap.put("campos", camposList);
+                                    templateMap.put("totalUso", template.getTotalUso() != null ? template.getTotalUso() : 0);
+                                    templateMap.put("ultimoUso", template.getUltimoUso() != null ? template.getUltimoUso().toString() : "");
+                                    
+                                    return templateMap;
+                                } catch (Exception e) {
+                                    log.error("❌ [ERROR] Erro ao formatar template {}: {}", template.getId(), e.getMessage());
+                                    Map<String, Object> errorMap = new HashMap<>();
+                                    errorMap.put("id", template.getId());
+                                    errorMap.put("nome", template.getNome() != null ? template.getNome() : "");
+                                    errorMap.put("descricao", "");
+                                    errorMap.put("campos", new ArrayList<>());
+                                    errorMap.put("totalUso", 0);
+                                    errorMap.put("ultimoUso", "");
+                                    return errorMap;
+                                }
+                            })
+                            .collect(java.util.stream.Collectors.toList());
+                    });
                 } catch (Exception e) {
                     log.error("❌ [ERROR] Erro ao buscar templates do usuário {}: {}", usuario.getId(), e.getMessage(), e);
                     ErrorResponseDTO errorResponse = new ErrorResponseDTO(
@@ -214,56 +270,7 @@ public class ExtensaoPublicaController {
                     return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
                 }
                 
-                List<Map<String, Object>> templatesFormatados;
-                try {
-                    templatesFormatados = templates.stream()
-                        .map(template -> {
-                            try {
-                                Map<String, Object> templateMap = new HashMap<>();
-                                templateMap.put("id", template.getId());
-                                templateMap.put("nome", template.getNome() != null ? template.getNome() : "");
-                                templateMap.put("descricao", template.getDescricao() != null ? template.getDescricao() : "");
-                                
-                                List<Map<String, Object>> camposList = new ArrayList<>();
-                                if (template.getCampos() != null) {
-                                    camposList = template.getCampos().stream()
-                                        .map(campo -> {
-                                            Map<String, Object> campoMap = new HashMap<>();
-                                            campoMap.put("nome", campo.getNome() != null ? campo.getNome() : "");
-                                            campoMap.put("valor", campo.getValor() != null ? campo.getValor() : "");
-                                            campoMap.put("tipo", campo.getTipo() != null ? campo.getTipo() : "text");
-                                            return campoMap;
-                                        })
-                                        .collect(java.util.stream.Collectors.toList());
-                                }
-                                templateMap.put("campos", camposList);
-                                templateMap.put("totalUso", template.getTotalUso() != null ? template.getTotalUso() : 0);
-                                templateMap.put("ultimoUso", template.getUltimoUso() != null ? template.getUltimoUso().toString() : "");
-                                
-                                return templateMap;
-                            } catch (Exception e) {
-                                log.error("❌ [ERROR] Erro ao formatar template {}: {}", template.getId(), e.getMessage());
-                                Map<String, Object> errorMap = new HashMap<>();
-                                errorMap.put("id", template.getId());
-                                errorMap.put("nome", template.getNome() != null ? template.getNome() : "");
-                                errorMap.put("descricao", "");
-                                errorMap.put("campos", new ArrayList<>());
-                                errorMap.put("totalUso", 0);
-                                errorMap.put("ultimoUso", "");
-                                return errorMap;
-                            }
-                        })
-                        .collect(java.util.stream.Collectors.toList());
-                } catch (Exception e) {
-                    log.error("❌ [ERROR] Erro ao formatar lista de templates: {}", e.getMessage(), e);
-                    ErrorResponseDTO errorResponse = new ErrorResponseDTO(
-                        "Erro ao formatar templates: " + e.getMessage(), 
-                        "FORMATTING_ERROR"
-                    );
-                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
-                }
-                
-                return ResponseEntity.ok(templatesFormatados);
+                return respostaSerializada(payload, etag, acceptEncoding);
             }
             
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(
@@ -337,11 +344,12 @@ public class ExtensaoPublicaController {
 
             // ✅ CRIAR Campos do Formulário
             if (camposPayload != null && !camposPayload.isEmpty()) {
+                List<String> valores = criptografar(camposPayload);
                 for (int i = 0; i < camposPayload.size(); i++) {
                     Map<String, Object> campoMap = camposPayload.get(i);
                     br.com.backend.entity.CampoTemplate campo = new br.com.backend.entity.CampoTemplate();
                     campo.setNome((String) campoMap.get("nome"));
-                    campo.setValor((String) campoMap.get("valor"));
+                    campo.setValor(valores.get(i));
                     campo.setTipo((String) campoMap.get("tipo"));
                     campo.setOrdem(i);
                     campo.setAtivo(true);
@@ -355,6 +363,8 @@ public class ExtensaoPublicaController {
 
             // Salvar o template
             Template templateSalvo = templateRepository.saveAndFlush(template);
+            templateVersionService.incrementar(usuarioPadrao.getId());
+            templateEventService.publicar(usuarioPadrao.getId(), templateSalvo.getId(), TemplateEventService.TEMPLATE_ALTERADO);
             
             log.info("✅ Template criado pela extensão - ID: {}, Nome: {}", 
                      templateSalvo.getId(), templateSalvo.getNome());
@@ -365,11 +375,12 @@ public class ExtensaoPublicaController {
             templateFormatado.put("nome", templateSalvo.getNome());
             templateFormatado.put("descricao", templateSalvo.getDescricao());
             
+            Map<String, String> valores = descriptografar(List.of(templateSalvo));
             List<Map<String, Object>> camposList = templateSalvo.getCampos().stream()
                 .map(campo -> {
                     Map<String, Object> campoMap = new HashMap<>();
                     campoMap.put("nome", campo.getNome() != null ? campo.getNome() : "");
-                    campoMap.put("valor", campo.getValor() != null ? campo.getValor() : "");
+                    campoMap.put("valor", valor(campo, valores));
                     campoMap.put("tipo", campo.getTipo() != null ? campo.getTipo() : "text");
                     return campoMap;
                 })
@@ -455,15 +466,21 @@ public class ExtensaoPublicaController {
 
             // ✅ ATUALIZAR Campos do Formulário
             if (camposPayload != null && !camposPayload.isEmpty()) {
+                // Descartar do cache os valores descriptografados dos campos reescritos
+                decryptedValueCache.invalidate(template.getCampos().stream()
+                    .map(campo -> campo.getValor())
+                    .collect(java.util.stream.Collectors.toList()));
+                
                 // Limpar campos existentes
                 template.getCampos().clear();
                 
                 // Adicionar novos campos à lista existente
+                List<String> valores = criptografar(camposPayload);
                 for (int i = 0; i < camposPayload.size(); i++) {
                     Map<String, Object> campoMap = camposPayload.get(i);
                     br.com.backend.entity.CampoTemplate campo = new br.com.backend.entity.CampoTemplate();
                     campo.setNome((String) campoMap.get("nome"));
-                    campo.setValor((String) campoMap.get("valor"));
+                    campo.setValor(valores.get(i));
                     campo.setTipo((String) campoMap.get("tipo"));
                     campo.setOrdem(i + 1);
                     campo.setAtivo(true);
@@ -479,6 +496,8 @@ public class ExtensaoPublicaController {
 
             // Salvar o template atualizado
             Template templateAtualizado = templateRepository.saveAndFlush(template);
+            templateVersionService.incrementar(template.getUsuario().getId());
+            templateEventService.publicar(template.getUsuario().getId(), templateAtualizado.getId(), TemplateEventService.TEMPLATE_ALTERADO);
             
             log.info("✅ Template atualizado pela extensão - ID: {}, Nome: {}", 
                      templateAtualizado.getId(), templateAtualizado.getNome());
@@ -489,12 +508,13 @@ public class ExtensaoPublicaController {
             templateFormatado.put("nome", templateAtualizado.getNome());
             templateFormatado.put("descricao", templateAtualizado.getDescricao());
             
+            Map<String, String> valores = descriptografar(List.of(templateAtualizado));
             List<Map<String, Object>> camposList = templateAtualizado.getCampos().stream()
                 .map(campo -> {
                     Map<String, Object> campoMap = new HashMap<>();
                     campoMap.put("id", campo.getId() != null ? campo.getId() : 0);
                     campoMap.put("nome", campo.getNome() != null ? campo.getNome() : "");
-                    campoMap.put("valor", campo.getValor() != null ? campo.getValor() : "");
+                    campoMap.put("valor", valor(campo, valores));
                     campoMap.put("tipo", campo.getTipo() != null ? campo.getTipo() : "text");
                     campoMap.put("ordem", campo.getOrdem() != null ? campo.getOrdem() : 0);
                     return campoMap;
@@ -556,6 +576,8 @@ public class ExtensaoPublicaController {
             template.setAtivo(false);
             template.setDataAtualizacao(LocalDateTime.now());
             templateRepository.save(template);
+            templateVersionService.incrementar(template.getUsuario().getId());
+            templateEventService.publicar(template.getUsuario().getId(), templateId, TemplateEventService.TEMPLATE_REMOVIDO);
             
             log.info("✅ Template deletado pela extensão - ID: {}, Nome: {}", 
                      templateId, template.getNome());
@@ -599,20 +621,22 @@ public class ExtensaoPublicaController {
         }
 
         try {
-            // ✅ VALIDAÇÃO: Verificar se template existe
-            Template template = templateRepository.findById(templateId)
-                    .orElse(null);
+            // ✅ VALIDAÇÃO: Verificar se template existe (só dono e total de uso, sem carregar a entidade)
+            List<Object[]> dono = templateRepository.resumirDono(templateId);
             
-            if (template == null) {
+            if (dono.isEmpty()) {
                 ErrorResponseDTO errorResponse = new ErrorResponseDTO(
                     "Template não encontrado", 
                     "TEMPLATE_NOT_FOUND"
                 );
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
             }
+            Long usuarioId = (Long) dono.get(0)[0];
+            String email = (String) dono.get(0)[1];
+            Integer totalUso = (Integer) dono.get(0)[2];
             
             // ✅ VERIFICAR SE TEMPLATE PERTENCE AO USUÁRIO PADRÃO DA EXTENSÃO
-            if (!template.getUsuario().getEmail().equals("extensao@formsync.com")) {
+            if (!"extensao@formsync.com".equals(email)) {
                 ErrorResponseDTO errorResponse = new ErrorResponseDTO(
                     "Template não pertence ao usuário da extensão", 
                     "TEMPLATE_ACCESS_DENIED"
@@ -623,20 +647,17 @@ public class ExtensaoPublicaController {
             // ✅ ATUALIZAR ESTATÍSTICAS DO TEMPLATE
             Boolean sucesso = (Boolean) payload.get("success");
             if (sucesso != null) {
-                template.setTotalUso(template.getTotalUso() != null ? template.getTotalUso() + 1 : 1);
-                template.setUltimoUso(LocalDateTime.now());
-                template.setDataAtualizacao(LocalDateTime.now());
-                
-                templateRepository.save(template);
+                // Gravado em lote pelo ContadorUsoService; uso não muda a versão nem gera evento SSE
+                contadorUsoService.registrarUso(templateId, usuarioId);
                 
-                log.info("✅ Uso do template registrado - ID: {}, Nome: {}, Sucesso: {}", 
-                         templateId, template.getNome(), sucesso);
+                log.info("✅ Uso do template registrado - ID: {}, Sucesso: {}", templateId, sucesso);
             }
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Uso do template registrado com sucesso");
             response.put("templateId", templateId);
-            response.put("totalUso", template.getTotalUso());
+            response.put("totalUso", (totalUso != null ? totalUso : 0)
+                + contadorUsoService.pendentes(templateId));
             
             return ResponseEntity.ok(response);
 
@@ -890,6 +911,64 @@ public class ExtensaoPublicaController {
         }
     }
     
+    /**
+     * Resposta com o payload já serializado: os bytes vão direto para o corpo, sem passar pelo Jackson.
+     * O corpo gzip leva um ETag próprio, derivado do ETag da versão.
+     */
+    private ResponseEntity<byte[]> respostaSerializada(TemplatePayloadCache.Payload payload, String etag, String acceptEncoding) {
+        boolean aceitaGzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        boolean comprimido = payload.comprimido(aceitaGzip);
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+            .eTag(comprimido ? templateVersionService.etagGzip(etag) : etag)
+            .cacheControl(CacheControl.noCache())
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (comprimido) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return resposta.body(payload.corpo(aceitaGzip));
+    }
+
+    /**
+     * 304 com o ETag da representação que o cliente já tem
+     */
+    private ResponseEntity<?> naoModificado(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(etag)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .build();
+    }
+
+    /**
+     * Criptografa em lote os valores recebidos, como o TemplateService faz na criação e na atualização
+     */
+    private List<String> criptografar(List<Map<String, Object>> camposPayload) {
+        return cryptoService.encryptAll(camposPayload.stream()
+            .map(campoMap -> (String) campoMap.get("valor"))
+            .collect(java.util.stream.Collectors.toList()));
+    }
+
+    /**
+     * Descriptografa em lote os valores dos campos: "enc:" na JVM, PGP legado via PGPDecryptionService
+     */
+    private Map<String, String> descriptografar(List<Template> templates) {
+        List<String> valores = templates.stream()
+            .filter(template -> template.getCampos() != null)
+            .flatMap(template -> template.getCampos().stream())
+            .map(CampoTemplate::getValor)
+            .collect(java.util.stream.Collectors.toList());
+        Map<String, String> resultado = new HashMap<>(cryptoService.decryptAll(valores));
+        resultado.putAll(pgpDecryptionService.decryptAll(valores.stream()
+            .filter(pgpDecryptionService::isPGPValue)
+            .collect(java.util.stream.Collectors.toList())));
+        return resultado;
+    }
+
+    private String valor(CampoTemplate campo, Map<String, String> valores) {
+        String valor = valores.getOrDefault(campo.getValor(), campo.getValor());
+        return valor != null ? valor : "";
+    }
+
     /**
      * Extrai o email do token JWT usando JwtTokenUtil
      */
@@ -1,12 +1,24 @@
 package br.com.backend.controller;
 
+import br.com.backend.dto.EventoPreenchimentoDTO;
 import br.com.backend.dto.ExtensionNotificationDTO;
+import br.com.backend.entity.Usuario;
+import br.com.backend.exception.BusinessException;
+import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.security.JwtTokenUtil;
+import br.com.backend.service.IngestaoEventosService;
+import br.com.backend.service.TemplateEventService;
+import br.com.backend.service.TemplateSyncService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,6 +30,12 @@ public class ExtensionController {
     
     private static final String EXTENSION_KEY = "ext_2024_preenche_rapido_secure_key_987654321";
 
+    private final TemplateSyncService templateSyncService;
+    private final TemplateEventService templateEventService;
+    private final IngestaoEventosService ingestaoEventosService;
+    private final UsuarioRepository usuarioRepository;
+    private final JwtTokenUtil jwtTokenUtil;
+
     /**
      * Endpoint para ping da extensão
      */
@@ -84,11 +102,14 @@ public class ExtensionController {
     }
 
     /**
-     * Endpoint para forçar sincronização
+     * Sincronização incremental: retorna apenas templates alterados desde o cursor, tombstones dos
+     * removidos e o próximo cursor. Sem cursor, retorna o snapshot completo.
      */
-    @PostMapping("/sync")
+    @RequestMapping(value = "/sync", method = {RequestMethod.GET, RequestMethod.POST})
     public ResponseEntity<Map<String, Object>> sync(
-            @RequestHeader(value = "X-Extension-Key", required = false) String extensionKey) {
+            @RequestHeader(value = "X-Extension-Key", required = false) String extensionKey,
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            @RequestParam(value = "since", required = false) String since) {
         
         if (!EXTENSION_KEY.equals(extensionKey)) {
             log.warn("Tentativa de sincronização sem chave válida: {}", extensionKey);
@@ -98,26 +119,125 @@ public class ExtensionController {
             ));
         }
 
-        try {
-            log.info("🔄 Sincronização forçada solicitada pela extensão");
+        Usuario usuario = buscarUsuario(authHeader);
+        if (usuario == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
+                "error", "Token JWT inválido, expirado ou ausente",
+                "errorCode", "INVALID_TOKEN"
+            ));
+        }
 
-            // Aqui você pode implementar lógica de sincronização
-            // Por exemplo, verificar templates atualizados, limpar cache, etc.
+        try {
+            log.info("🔄 Sincronização solicitada pela extensão - usuário {}, cursor {}", usuario.getId(), since);
+            return ResponseEntity.ok(templateSyncService.sincronizar(usuario.getId(), since));
 
-            return ResponseEntity.ok(Map.of(
-                "success", true,
-                "message", "Sincronização realizada com sucesso",
-                "timestamp", System.currentTimeMillis()
+        } catch (BusinessException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "success", false,
+                "error", e.getMessage(),
+                "errorCode", "INVALID_CURSOR"
             ));
-
         } catch (Exception e) {
             log.error("❌ Erro na sincronização: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
                 "success", false,
                 "error", "Erro interno na sincronização",
-                "message", e.getMessage()
+                "message", String.valueOf(e.getMessage())
             ));
         }
     }
-}
 
+    /**
+     * Canal SSE de alterações nos templates do usuário; substitui o polling de /templates e /ping.
+     * Cada evento traz só o id do template: o cliente busca o conteúdo em /sync com o último cursor.
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<?> stream(
+            @RequestHeader(value = "X-Extension-Key", required = false) String extensionKey,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        
+        if (!EXTENSION_KEY.equals(extensionKey)) {
+            log.warn("Tentativa de conexão SSE sem chave válida: {}", extensionKey);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).contentType(MediaType.APPLICATION_JSON).body(Map.of(
+                "error", "Chave de acesso inválida ou ausente",
+                "errorCode", "INVALID_EXTENSION_KEY"
+            ));
+        }
+
+        Usuario usuario = buscarUsuario(authHeader);
+        if (usuario == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).contentType(MediaType.APPLICATION_JSON).body(Map.of(
+                "error", "Token JWT inválido, expirado ou ausente",
+                "errorCode", "INVALID_TOKEN"
+            ));
+        }
+
+        SseEmitter emitter = templateEventService.conectar(usuario.getId());
+        return ResponseEntity.ok()
+            .header("X-Accel-Buffering", "no")
+            .cacheControl(CacheControl.noStore())
+            .body(emitter);
+    }
+
+    /**
+     * Recebe em um único lote os eventos de uma sessão de preenchimento (uso de template, histórico
+     * e analytics por campo) e devolve o status de cada item na ordem enviada.
+     */
+    @PostMapping("/eventos")
+    public ResponseEntity<Map<String, Object>> registrarEventos(
+            @RequestBody List<EventoPreenchimentoDTO> eventos,
+            @RequestHeader(value = "X-Extension-Key", required = false) String extensionKey,
+            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+        
+        if (!EXTENSION_KEY.equals(extensionKey)) {
+            log.warn("Tentativa de envio de eventos sem chave válida: {}", extensionKey);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
+                "error", "Chave de acesso inválida ou ausente",
+                "errorCode", "INVALID_EXTENSION_KEY"
+            ));
+        }
+
+        Usuario usuario = buscarUsuario(authHeader);
+        if (usuario == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
+                "error", "Token JWT inválido, expirado ou ausente",
+                "errorCode", "INVALID_TOKEN"
+            ));
+        }
+
+        try {
+            return ResponseEntity.ok(ingestaoEventosService.processar(usuario.getId(), eventos));
+
+        } catch (BusinessException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
+                "success", false,
+                "error", e.getMessage(),
+                "errorCode", "INVALID_BATCH"
+            ));
+        } catch (Exception e) {
+            log.error("❌ Erro ao registrar eventos da extensão: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                "success", false,
+                "error", "Erro interno ao registrar eventos",
+                "message", String.valueOf(e.getMessage())
+            ));
+        }
+    }
+
+    private Usuario buscarUsuario(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            String token = authHeader.substring(7);
+            String email = jwtTokenUtil.extractEmail(token);
+            if (email == null || jwtTokenUtil.isTokenExpired(token)) {
+                return null;
+            }
+            return usuarioRepository.findByEmail(email).orElse(null);
+        } catch (Exception e) {
+            log.warn("❌ [JWT] Erro ao extrair usuário do token: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import br.com.backend.entity.HistoricoPreenchimento;
 import br.com.backend.entity.Usuario;
 import br.com.backend.repository.HistoricoPreenchimentoRepository;
 import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.service.ParticionamentoService;
+import br.com.backend.service.ParticionamentoService.TabelaParticionada;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -26,6 +28,7 @@ public class HistoricoController {
 
     private final HistoricoPreenchimentoRepository historicoRepository;
     private final UsuarioRepository usuarioRepository;
+    private final ParticionamentoService particionamentoService;
 
     @GetMapping
     public ResponseEntity<List<HistoricoPreenchimento>> listarHistorico() {
@@ -35,8 +38,9 @@ public class HistoricoController {
             // ✅ VALIDAÇÃO: Verificar se usuário está autenticado
             Usuario usuario = getUsuarioAutenticado();
             
-            // Buscar histórico do usuário logado
-            List<HistoricoPreenchimento> historico = historicoRepository.findByUsuarioId(usuario.getId());
+            // Buscar histórico do usuário logado dentro da janela de retenção (poda as partições expiradas)
+            List<HistoricoPreenchimento> historico = historicoRepository.findByUsuarioIdAndDataHoraGreaterThanEqual(
+                    usuario.getId(), particionamentoService.inicioRetencao(TabelaParticionada.HISTORICO_PREENCHIMENTOS));
             
             log.debug("✅ [HISTORICO] {} registros de histórico listados para usuário: {}", historico.size(), usuario.getId());
             return ResponseEntity.ok(historico);
@@ -109,11 +113,10 @@ public class HistoricoController {
             // ✅ VALIDAÇÃO: Verificar se usuário está autenticado
             Usuario usuario = getUsuarioAutenticado();
             
-            // Buscar todos os registros do usuário e deletar
-            List<HistoricoPreenchimento> historico = historicoRepository.findByUsuarioId(usuario.getId());
-            historicoRepository.deleteAll(historico);
+            // Um único DELETE por usuário, sem carregar os registros
+            int removidos = historicoRepository.deleteAllByUsuarioId(usuario.getId());
             
-            log.warn("✅ [HISTORICO] {} registros de histórico limpos para usuário: {}", historico.size(), usuario.getId());
+            log.warn("✅ [HISTORICO] {} registros de histórico limpos para usuário: {}", removidos, usuario.getId());
             return ResponseEntity.noContent().build();
             
         } catch (Exception e) {
@@ -4,10 +4,14 @@ import br.com.backend.kafka.KafkaProducerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/kafka")
@@ -25,21 +29,48 @@ public class KafkaController {
     }
 
     @GetMapping("/publish")
-    public ResponseEntity<?> publishViaGet(@RequestParam(name = "message", defaultValue = "hello-from-browser") String message,
-                                           @RequestParam(name = "topic", required = false) String topic,
-                                           @RequestParam(name = "key", required = false) String key) {
+    public CompletableFuture<ResponseEntity<?>> publishViaGet(@RequestParam(name = "message", defaultValue = "hello-from-browser") String message,
+                                                              @RequestParam(name = "topic", required = false) String topic,
+                                                              @RequestParam(name = "key", required = false) String key) {
         String t = (topic == null || topic.isBlank()) ? defaultTopic : topic;
-        producerService.send(t, key, message);
-        return ResponseEntity.accepted().body(Map.of("status", "queued", "topic", t));
+        return responder(t, producerService.send(t, key, message));
     }
 
     @PostMapping("/publish")
-    public ResponseEntity<?> publish(@RequestBody Map<String, String> body) {
+    public CompletableFuture<ResponseEntity<?>> publish(@RequestBody Map<String, String> body) {
         String topic = body.getOrDefault("topic", defaultTopic);
         String key = body.getOrDefault("key", null);
         String message = body.getOrDefault("message", "");
-        producerService.send(topic, key, message);
-        return ResponseEntity.accepted().body(Map.of("status", "queued", "topic", topic));
+        return responder(topic, producerService.send(topic, key, message));
+    }
+
+    /**
+     * Publica várias mensagens no mesmo tópico; responde depois de todas as confirmações
+     */
+    @PostMapping("/publish/batch")
+    public CompletableFuture<ResponseEntity<?>> publishBatch(@RequestBody Map<String, Object> body) {
+        String topic = String.valueOf(body.getOrDefault("topic", defaultTopic));
+        Object messages = body.get("messages");
+        if (!(messages instanceof List<?> lista) || lista.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Map.of("error", "messages deve ser uma lista não vazia")));
+        }
+        return producerService.sendAll(topic, lista, message -> null).thenApply(resultado -> ResponseEntity
+                .status(resultado.isSucesso() ? HttpStatus.OK : HttpStatus.BAD_GATEWAY)
+                .body(Map.of("status", resultado.isSucesso() ? "delivered" : "partial",
+                        "topic", topic,
+                        "total", resultado.getTotal(),
+                        "failed", resultado.getFalhas())));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> responder(String topic, CompletableFuture<SendResult<String, Object>> envio) {
+        return envio.<ResponseEntity<?>>thenApply(resultado -> ResponseEntity.ok(Map.of(
+                        "status", "delivered",
+                        "topic", topic,
+                        "partition", resultado.getRecordMetadata().partition(),
+                        "offset", resultado.getRecordMetadata().offset())))
+                .exceptionally(erro -> ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                        .body(Map.of("status", "failed", "topic", topic, "error", String.valueOf(erro.getMessage()))));
     }
 }
 
@@ -1,14 +1,18 @@
 package br.com.backend.controller;
 
 import br.com.backend.service.AdvancedAnalyticsService;
+import br.com.backend.service.FilaAnalyticsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -19,11 +23,12 @@ import java.util.Map;
 public class PublicAnalyticsController {
 
     private final AdvancedAnalyticsService analyticsService;
+    private final FilaAnalyticsService filaAnalyticsService;
 
     private static final String EXTENSION_KEY = "ext_2024_preenche_rapido_secure_key_987654321";
 
     /**
-     * Endpoint público para rastrear preenchimento
+     * Endpoint público para rastrear preenchimento; o evento é só enfileirado e gravado em lote
      */
     @PostMapping("/track")
     public ResponseEntity<Map<String, Object>> trackPreenchimento(
@@ -32,9 +37,6 @@ public class PublicAnalyticsController {
             @RequestParam @Positive Long usuarioId,
             @RequestHeader(value = "X-Extension-Key", required = false) String extensionKey) {
         
-        log.info("📊 [ANALYTICS] Rastreamento de preenchimento solicitado - Site: {}, Usuário: {}, Campo: {}", 
-                site, usuarioId, campoId);
-        
         // Verificar se a requisição vem da extensão
         if (!EXTENSION_KEY.equals(extensionKey)) {
             log.warn("🚫 [ANALYTICS] Tentativa de acesso sem chave válida para rastreamento de preenchimento");
@@ -44,33 +46,25 @@ public class PublicAnalyticsController {
             ));
         }
         
-        try {
-            analyticsService.trackPreenchimento(usuarioId, site, campoId);
-            
-            log.info("✅ [ANALYTICS] Preenchimento rastreado com sucesso - Site: {}, Usuário: {}, Campo: {}", 
-                    site, usuarioId, campoId);
-            
-            Map<String, Object> response = Map.of(
-                "message", "Preenchimento rastreado com sucesso",
-                "site", site,
-                "campoId", campoId,
-                "usuarioId", usuarioId,
-                "timestamp", java.time.LocalDateTime.now().toString()
-            );
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            log.error("❌ [ANALYTICS] Erro ao rastrear preenchimento - Site: {}, Usuário: {}, Campo: {}, Erro: {}", 
-                    site, usuarioId, campoId, e.getMessage());
-            
-            return ResponseEntity.badRequest().body(Map.of(
-                "error", "Erro ao rastrear preenchimento",
-                "message", e.getMessage(),
-                "site", site,
-                "usuarioId", usuarioId
-            ));
+        if (!filaAnalyticsService.registrar(usuarioId, site, campoId)) {
+            log.warn("⚠️ [ANALYTICS] Fila de preenchimentos cheia, evento recusado - Site: {}, Usuário: {}", site, usuarioId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                    "error", "Rastreamento temporariamente indisponível",
+                    "errorCode", "ANALYTICS_QUEUE_FULL"
+                ));
         }
+        
+        log.debug("📊 [ANALYTICS] Preenchimento enfileirado - Site: {}, Usuário: {}, Campo: {}", site, usuarioId, campoId);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Preenchimento rastreado com sucesso");
+        response.put("site", site);
+        response.put("campoId", campoId);
+        response.put("usuarioId", usuarioId);
+        response.put("timestamp", java.time.LocalDateTime.now().toString());
+        return ResponseEntity.ok(response);
     }
 
     /**
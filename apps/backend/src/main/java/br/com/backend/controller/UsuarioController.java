@@ -8,6 +8,7 @@ import br.com.backend.entity.Usuario;
 import br.com.backend.entity.Assinatura;
 import br.com.backend.repository.UsuarioRepository;
 import br.com.backend.service.AssinaturaService;
+import br.com.backend.service.OutboxService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -41,8 +42,12 @@ import br.com.backend.service.PasswordValidationService;
 @CrossOrigin(origins = {"http://localhost:4200", "http://localhost:*", "http://127.0.0.1:*", "https://formsync.com.br", "https://www.formsync.com.br", "https://d2e8aebnrgifge.cloudfront.net"}, allowCredentials = "true")
 public class UsuarioController {
 
+    // Evento de domínio gravado no outbox no cadastro (também pelo checkout)
+    public static final String EVENTO_USUARIO_CRIADO = "usuario.criado";
+
     private final UsuarioRepository usuarioRepository;
     private final AssinaturaService assinaturaService;
+    private final OutboxService outboxService;
     private final PasswordValidationService passwordValidationService;
     
     private final TemplateRepository templateRepository;
@@ -93,6 +98,9 @@ public class UsuarioController {
         // Salvar o usuário
         Usuario salvo = usuarioRepository.save(usuario);
         log.info("Usuário criado com sucesso - ID: {}, Email: {}", salvo.getId(), salvo.getEmail());
+        Map<String, Object> evento = new HashMap<>();
+        evento.put("plano", planoMapeado);
+        outboxService.registrar(EVENTO_USUARIO_CRIADO, salvo.getId(), salvo.getId(), evento);
         
         // Criar assinatura com o plano escolhido pelo usuário
         try {
@@ -0,0 +1,26 @@
+package br.com.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de preenchimento enviado em lote pela extensão.
+ * tipo: "uso" (templateId), "historico" (url) ou "campo" (site e campoId opcional).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoPreenchimentoDTO {
+    private String tipo;
+    private Long templateId;
+    private Long campoId;
+    private String url;
+    private String site;
+    // Momento do preenchimento no cliente; ausente, vale o horário de recebimento
+    private LocalDateTime dataHora;
+}
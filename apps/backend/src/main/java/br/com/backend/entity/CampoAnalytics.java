@@ -5,7 +5,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "campos_analytics")
+@Table(name = "campos_analytics", uniqueConstraints = @UniqueConstraint(
+        name = "uk_campos_analytics_usuario_campo", columnNames = {"usuario_id", "campo_template_id"}),
+        indexes = @Index(name = "idx_campos_analytics_usuario_usos", columnList = "usuario_id, quantidade_usos"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
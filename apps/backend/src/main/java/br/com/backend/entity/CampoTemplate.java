@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "campos_template")
+@Table(name = "campos_template", indexes = {
+    @Index(name = "idx_campos_template_atualizacao", columnList = "template_id, data_atualizacao")
+})
 public class CampoTemplate {
     
     @Id
@@ -194,6 +196,13 @@ public class CampoTemplate {
         this.dataAtualizacao = LocalDateTime.now();
     }
     
+    @PrePersist
+    public void prePersist() {
+        if (this.dataAtualizacao == null) {
+            this.dataAtualizacao = LocalDateTime.now();
+        }
+    }
+    
     @PreUpdate
     public void preUpdate() {
         this.dataAtualizacao = LocalDateTime.now();
@@ -0,0 +1,32 @@
+package br.com.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marca d'água da consolidação diária de analytics: maior id de preenchimentos_analytics já somado
+ */
+@Entity
+@Table(name = "consolidacao_analytics")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConsolidacaoAnalytics {
+
+    @Id
+    @Column(name = "nome", length = 100)
+    private String nome;
+
+    @Column(name = "ultimo_id", nullable = false)
+    @Builder.Default
+    private Long ultimoId = 0L;
+
+    @Column(name = "consolidados", nullable = false)
+    @Builder.Default
+    private Long consolidados = 0L;
+
+    @Column(name = "atualizado_em")
+    private LocalDateTime atualizadoEm;
+}
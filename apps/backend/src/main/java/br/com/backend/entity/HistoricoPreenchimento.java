@@ -10,7 +10,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "historico_preenchimentos")
+@Table(name = "historico_preenchimentos", indexes = {
+        @Index(name = "idx_historico_preenchimentos_usuario_data", columnList = "usuario_id, data_hora")
+})
 public class HistoricoPreenchimento {
 
     @Id
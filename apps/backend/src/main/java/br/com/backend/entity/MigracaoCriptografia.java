@@ -0,0 +1,50 @@
+package br.com.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint da migração de valores para o formato "enc:" (AES-GCM)
+ */
+@Entity
+@Table(name = "migracao_criptografia")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MigracaoCriptografia {
+
+    @Id
+    @Column(name = "nome", length = 100)
+    private String nome;
+
+    @Column(name = "ultimo_id", nullable = false)
+    @Builder.Default
+    private Long ultimoId = 0L;
+
+    @Column(name = "migrados", nullable = false)
+    @Builder.Default
+    private Long migrados = 0L;
+
+    @Column(name = "ignorados", nullable = false)
+    @Builder.Default
+    private Long ignorados = 0L;
+
+    @Column(name = "falhas", nullable = false)
+    @Builder.Default
+    private Long falhas = 0L;
+
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private String status = "PENDENTE"; // PENDENTE, EXECUTANDO, PAUSADA, CONCLUIDA, ERRO
+
+    @Column(name = "ultimo_erro", length = 500)
+    private String ultimoErro;
+
+    @Column(name = "iniciado_em")
+    private LocalDateTime iniciadoEm;
+
+    @Column(name = "atualizado_em")
+    private LocalDateTime atualizadoEm;
+}
@@ -0,0 +1,38 @@
+package br.com.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Último offset de uma partição do Kafka já aplicado ao banco por um grupo de consumidores.
+ * Mantido por OffsetsConsumidos na mesma transação da gravação do lote.
+ */
+@Entity
+@Table(name = "kafka_offsets_consumidos", uniqueConstraints = @UniqueConstraint(
+        name = "uk_kafka_offsets_consumidos", columnNames = {"grupo", "topico", "particao"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OffsetConsumido {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "grupo", nullable = false)
+    private String grupo;
+
+    @Column(name = "topico", nullable = false)
+    private String topico;
+
+    @Column(name = "particao", nullable = false)
+    private Integer particao;
+
+    @Column(name = "ultimo_offset", nullable = false)
+    private Long ultimoOffset;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+}
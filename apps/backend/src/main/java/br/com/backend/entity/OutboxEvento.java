@@ -0,0 +1,54 @@
+package br.com.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Evento de domínio gravado na mesma transação da alteração de negócio (transactional outbox).
+ * Despachado depois por OutboxService; processado_em nulo significa pendente.
+ */
+@Entity
+@Table(name = "outbox_events",
+        indexes = @Index(name = "idx_outbox_events_pendentes", columnList = "processado_em, disponivel_em, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Ex.: assinatura.cancelada, template.alterado
+    @Column(name = "tipo", nullable = false, length = 100)
+    private String tipo;
+
+    @Column(name = "agregado_id")
+    private Long agregadoId;
+
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    // JSON
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    // Próxima tentativa; avança com backoff a cada falha
+    @Column(name = "disponivel_em", nullable = false)
+    private LocalDateTime disponivelEm;
+
+    @Column(name = "tentativas", nullable = false)
+    @Builder.Default
+    private Integer tentativas = 0;
+
+    @Column(name = "processado_em")
+    private LocalDateTime processadoEm;
+
+    @Column(name = "erro", length = 500)
+    private String erro;
+}
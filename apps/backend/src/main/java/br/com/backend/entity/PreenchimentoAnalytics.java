@@ -5,7 +5,10 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "preenchimentos_analytics")
+@Table(name = "preenchimentos_analytics", indexes = {
+        @Index(name = "idx_preenchimentos_analytics_usuario_id", columnList = "usuario_id, id"),
+        @Index(name = "idx_preenchimentos_analytics_usuario_data", columnList = "usuario_id, data_preenchimento")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
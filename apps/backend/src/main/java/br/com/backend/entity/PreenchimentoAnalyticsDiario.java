@@ -0,0 +1,45 @@
+package br.com.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+
+/**
+ * Consolidação diária de preenchimentos_analytics por usuário, dia e site.
+ * Mantida de forma incremental por RollupAnalyticsService; site nulo é gravado como ''.
+ */
+@Entity
+@Table(name = "preenchimentos_analytics_diario", uniqueConstraints = @UniqueConstraint(
+        name = "uk_preenchimentos_diario_usuario_dia_site", columnNames = {"usuario_id", "dia", "site"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PreenchimentoAnalyticsDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia;
+
+    @Column(name = "site", nullable = false)
+    @Builder.Default
+    private String site = "";
+
+    @Column(name = "total_preenchimentos", nullable = false)
+    @Builder.Default
+    private Long totalPreenchimentos = 0L;
+
+    @Column(name = "total_sucessos", nullable = false)
+    @Builder.Default
+    private Long totalSucessos = 0L;
+
+    @Column(name = "tempo_economizado", nullable = false)
+    @Builder.Default
+    private Long tempoEconomizado = 0L; // em segundos
+}
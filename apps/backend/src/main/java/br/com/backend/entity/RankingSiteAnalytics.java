@@ -0,0 +1,43 @@
+package br.com.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint do ranking de sites em memória (sketch Space-Saving) de cada usuário.
+ * Gravado periodicamente por RankingSitesService; site nulo é gravado como ''.
+ */
+@Entity
+@Table(name = "ranking_sites_analytics", uniqueConstraints = @UniqueConstraint(
+        name = "uk_ranking_sites_usuario_site", columnNames = {"usuario_id", "site"}),
+        indexes = @Index(name = "idx_ranking_sites_atualizado_em", columnList = "atualizado_em"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RankingSiteAnalytics {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "site", nullable = false)
+    @Builder.Default
+    private String site = "";
+
+    @Column(name = "contagem", nullable = false)
+    @Builder.Default
+    private Long contagem = 0L;
+
+    // Quanto a contagem pode estar acima da real
+    @Column(name = "erro", nullable = false)
+    @Builder.Default
+    private Long erro = 0L;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+}
@@ -0,0 +1,33 @@
+package br.com.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+
+/**
+ * Sketch HyperLogLog dos sites distintos de um usuário em um dia, ao lado de preenchimentos_analytics_diario.
+ * Mantido por SitesUnicosService junto com a consolidação diária.
+ */
+@Entity
+@Table(name = "sites_unicos_diario", uniqueConstraints = @UniqueConstraint(
+        name = "uk_sites_unicos_diario_usuario_dia", columnNames = {"usuario_id", "dia"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SitesUnicosDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia;
+
+    // Formato de HyperLogLog.serializar(): esparso enquanto o dia tem poucos sites
+    @Column(name = "hll", nullable = false, length = 65538)
+    private byte[] hll;
+}
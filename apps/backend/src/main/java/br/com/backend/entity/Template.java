@@ -6,7 +6,9 @@ import java.util.List;
 import java.util.ArrayList;
 
 @Entity
-@Table(name = "templates")
+@Table(name = "templates", indexes = {
+    @Index(name = "idx_templates_usuario_atualizacao", columnList = "usuario_id, data_atualizacao")
+})
 public class Template {
     
     @Id
@@ -151,6 +153,13 @@ public class Template {
         campo.setTemplate(null);
     }
     
+    @PrePersist
+    public void prePersist() {
+        if (this.dataAtualizacao == null) {
+            this.dataAtualizacao = LocalDateTime.now();
+        }
+    }
+    
     @PreUpdate
     public void preUpdate() {
         this.dataAtualizacao = LocalDateTime.now();
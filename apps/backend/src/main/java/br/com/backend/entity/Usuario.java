@@ -61,4 +61,9 @@ public class Usuario {
 
     @Column(name = "user_agent_consentimento")
     private String userAgentConsentimento;
+
+    // Versão do conjunto de templates do usuário (base do ETag dos endpoints da extensão).
+    // Só é alterada por UPDATE atômico, para que salvar o usuário nunca regrida a versão.
+    @Column(name = "templates_versao", insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private Long templatesVersao;
 }
\ No newline at end of file
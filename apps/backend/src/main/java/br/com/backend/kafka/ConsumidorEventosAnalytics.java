@@ -0,0 +1,134 @@
+package br.com.backend.kafka;
+
+import br.com.backend.service.ContadorUsoService;
+import br.com.backend.service.GravadorAnalytics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Consome o tópico de analytics em lotes (um poll inteiro por chamada, app.kafka.analytics.concurrency
+ * threads por nó) e grava preenchimentos, contadores por campo e usos de template numa única transação,
+ * com JDBC batch e UPSERT agregado. O ack só sai depois do commit: erro na gravação devolve o lote ao
+ * error handler, que repete a partir do último offset confirmado (entrega pelo menos uma vez). Como os
+ * contadores são incrementos, a mesma transação grava o último offset aplicado por partição
+ * (OffsetsConsumidos) e a reentrega pula o que já foi somado. Para escalar, basta aumentar partições
+ * e consumidores do grupo.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.enabled", havingValue = "true", matchIfMissing = false)
+@RequiredArgsConstructor
+@Slf4j
+public class ConsumidorEventosAnalytics {
+
+    private final GravadorAnalytics gravadorAnalytics;
+    private final ContadorUsoService contadorUsoService;
+    private final TransactionTemplate transactionTemplate;
+    private final OffsetsConsumidos offsetsConsumidos;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.kafka.analytics.group-id:formsync-analytics}")
+    private String grupo;
+
+    private Counter consumidos;
+    private Counter invalidos;
+    private Counter duplicados;
+    private Timer tempoGravacao;
+    private DistributionSummary tamanhoLote;
+
+    @PostConstruct
+    void init() {
+        consumidos = contador("consumed");
+        invalidos = contador("invalid");
+        duplicados = contador("duplicate");
+        tempoGravacao = Timer.builder("formsync.kafka.analytics.flush")
+                .description("Tempo de gravação de um lote consumido do Kafka")
+                .register(meterRegistry);
+        tamanhoLote = DistributionSummary.builder("formsync.kafka.analytics.batch.size")
+                .description("Registros por lote entregue ao listener").register(meterRegistry);
+    }
+
+    @KafkaListener(id = "analytics-eventos",
+            topics = "${app.kafka.analytics.topic:formsync.analytics}",
+            groupId = "${app.kafka.analytics.group-id:formsync-analytics}",
+            containerFactory = "eventosAnalyticsListenerFactory")
+    public void consumir(List<ConsumerRecord<String, EventoAnalytics>> registros, Acknowledgment ack) {
+        tamanhoLote.record(registros.size());
+        List<ConsumerRecord<String, EventoAnalytics>> validos = registros.stream()
+                .filter(registro -> ler(registro) != null)
+                .collect(Collectors.toList());
+        if (validos.isEmpty()) {
+            ack.acknowledge();
+            return;
+        }
+
+        Timer.Sample inicio = Timer.start(meterRegistry);
+        int[] aplicados = new int[2];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<ConsumerRecord<String, EventoAnalytics>> novos = offsetsConsumidos.novos(grupo, validos);
+                List<GravadorAnalytics.Preenchimento> preenchimentos = new ArrayList<>();
+                List<ContadorUsoService.Uso> usos = new ArrayList<>();
+                LocalDateTime agora = LocalDateTime.now();
+                for (ConsumerRecord<String, EventoAnalytics> registro : novos) {
+                    EventoAnalytics evento = registro.value();
+                    LocalDateTime momento = evento.getDataHora() != null ? evento.getDataHora() : agora;
+                    switch (evento.getTipo()) {
+                        case PREENCHIMENTO -> preenchimentos.add(new GravadorAnalytics.Preenchimento(
+                                evento.getUsuarioId(), evento.getSite(), evento.getCampoId(), momento));
+                        case USO_TEMPLATE -> usos.add(new ContadorUsoService.Uso(evento.getTemplateId(), evento.getUsuarioId(), momento));
+                    }
+                }
+                gravadorAnalytics.gravar(preenchimentos);
+                contadorUsoService.gravarUsos(usos);
+                offsetsConsumidos.avancar(grupo, validos);
+                aplicados[0] = preenchimentos.size();
+                aplicados[1] = usos.size();
+            });
+        } finally {
+            inicio.stop(tempoGravacao);
+        }
+        ack.acknowledge();
+        consumidos.increment(aplicados[0] + aplicados[1]);
+        duplicados.increment(validos.size() - aplicados[0] - aplicados[1]);
+        log.debug("📊 [KAFKA] Lote de {} registros gravado: {} preenchimentos e {} usos de template",
+                registros.size(), aplicados[0], aplicados[1]);
+    }
+
+    /**
+     * Registro malformado não tem conserto em nova tentativa: é contado e descartado.
+     * Falha de desserialização chega como valor nulo (ErrorHandlingDeserializer).
+     */
+    private EventoAnalytics ler(ConsumerRecord<String, EventoAnalytics> registro) {
+        EventoAnalytics evento = registro.value();
+        boolean valido = evento != null && evento.getTipo() != null && evento.getUsuarioId() != null
+                && (evento.getTipo() != EventoAnalytics.Tipo.USO_TEMPLATE || evento.getTemplateId() != null);
+        if (valido) {
+            return evento;
+        }
+        invalidos.increment();
+        log.warn("⚠️ [KAFKA] Registro de analytics descartado - partição {}, offset {}", registro.partition(), registro.offset());
+        return null;
+    }
+
+    private Counter contador(String resultado) {
+        return Counter.builder("formsync.kafka.analytics.records").tag("result", resultado)
+                .description("Registros de analytics consumidos do Kafka").register(meterRegistry);
+    }
+}
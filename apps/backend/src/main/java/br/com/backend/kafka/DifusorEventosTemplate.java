@@ -0,0 +1,89 @@
+package br.com.backend.kafka;
+
+import br.com.backend.service.TemplateEventService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Difunde as alterações de template entre os nós da API pelo tópico app.kafka.template-events.topic.
+ * Cada nó consome com um grupo próprio (id aleatório, a partir do fim do tópico), então todos recebem
+ * todos os eventos e entregam às conexões SSE abertas localmente, inclusive o nó que publicou.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.enabled", havingValue = "true", matchIfMissing = false)
+@RequiredArgsConstructor
+@Slf4j
+public class DifusorEventosTemplate {
+
+    private final KafkaProducerService producerService;
+    private final TemplateEventService templateEventService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.kafka.template-events.topic:formsync.template-events}")
+    private String topico = "formsync.template-events";
+
+    private Counter publicados;
+    private Counter recebidos;
+    private Counter falhas;
+
+    @PostConstruct
+    void init() {
+        publicados = contador("published");
+        recebidos = contador("received");
+        falhas = contador("failed");
+    }
+
+    /**
+     * Publica a alteração para todos os nós. Se o broker recusar ou não confirmar, entrega ao menos
+     * às conexões deste nó; as dos outros recebem a mudança na próxima sincronização.
+     */
+    public void publicar(Long usuarioId, Long templateId, String tipo) {
+        CompletableFuture<SendResult<String, Object>> envio = producerService.sendSemBloquear(
+                topico, String.valueOf(usuarioId), new EventoTemplate(usuarioId, templateId, tipo));
+        envio.whenComplete((resultado, erro) -> {
+            if (erro == null) {
+                publicados.increment();
+                return;
+            }
+            falhas.increment();
+            log.warn("⚠️ [SSE] Evento {} do template {} não difundido, entregando só neste nó: {}",
+                    tipo, templateId, erro.getMessage());
+            templateEventService.entregarLocalmente(usuarioId, templateId, tipo);
+        });
+    }
+
+    @KafkaListener(id = "template-eventos",
+            topics = "${app.kafka.template-events.topic:formsync.template-events}",
+            groupId = "formsync-sse-#{T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest",
+            containerFactory = "eventosTemplateListenerFactory")
+    public void receber(List<ConsumerRecord<String, EventoTemplate>> registros, Acknowledgment ack) {
+        for (ConsumerRecord<String, EventoTemplate> registro : registros) {
+            EventoTemplate evento = registro.value();
+            if (evento == null || evento.getUsuarioId() == null || evento.getTipo() == null) {
+                continue;
+            }
+            recebidos.increment();
+            templateEventService.entregarLocalmente(evento.getUsuarioId(), evento.getTemplateId(), evento.getTipo());
+        }
+        ack.acknowledge();
+    }
+
+    private Counter contador(String resultado) {
+        return Counter.builder("formsync.kafka.template_events").tag("result", resultado)
+                .description("Alterações de template difundidas entre os nós").register(meterRegistry);
+    }
+}
@@ -0,0 +1,40 @@
+package br.com.backend.kafka;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de analytics publicado no tópico de eventos, com usuarioId como chave: todos os eventos de
+ * um usuário caem na mesma partição e são consumidos em ordem pelo mesmo consumidor.
+ * PREENCHIMENTO usa site e campoId (opcional); USO_TEMPLATE usa templateId.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoAnalytics {
+
+    public enum Tipo {
+        PREENCHIMENTO,
+        USO_TEMPLATE
+    }
+
+    private Tipo tipo;
+    private Long usuarioId;
+    private String site;
+    private Long campoId;
+    private Long templateId;
+    private LocalDateTime dataHora;
+
+    public static EventoAnalytics preenchimento(Long usuarioId, String site, Long campoId, LocalDateTime dataHora) {
+        return new EventoAnalytics(Tipo.PREENCHIMENTO, usuarioId, site, campoId, null, dataHora);
+    }
+
+    public static EventoAnalytics usoTemplate(Long usuarioId, Long templateId, LocalDateTime dataHora) {
+        return new EventoAnalytics(Tipo.USO_TEMPLATE, usuarioId, null, null, templateId, dataHora);
+    }
+}
@@ -0,0 +1,19 @@
+package br.com.backend.kafka;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Alteração de template difundida para todos os nós da API, que a repassam às conexões SSE
+ * abertas neles. Tipo é um dos eventos de TemplateEventService (template.alterado, template.removido).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoTemplate {
+
+    private Long usuarioId;
+    private Long templateId;
+    private String tipo;
+}
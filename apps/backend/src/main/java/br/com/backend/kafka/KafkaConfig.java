@@ -1,23 +1,248 @@
 package br.com.backend.kafka;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.backoff.ExponentialBackOff;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tópicos, produtor e fábricas de listener do Kafka. Os valores trafegam como JSON dos tipos de
+ * evento (sem cabeçalho de tipo: cada listener declara o seu). Os listeners consomem em lote, com
+ * várias threads por nó e ack manual depois da gravação; registros que não desserializam chegam
+ * com valor nulo em vez de travar a partição, e lotes que falham por outro motivo vão para <tópico>.DLT. As métricas nativas do cliente (vazão, records-lag-max)
+ * vão para o Micrometer como kafka.producer.* e kafka.consumer.*. O produtor é idempotente (acks=all,
+ * sem duplicata em nova tentativa) e agrupa registros por linger.ms/batch.size com compressão.
+ */
 @Configuration
 @ConditionalOnProperty(name = "app.kafka.enabled", havingValue = "true", matchIfMissing = false)
 public class KafkaConfig {
 
+    public static final String SUFIXO_DLT = ".DLT";
+
+    // Banco fora do ar ou sobrecarregado: o lote é repetido até conseguir gravar, nunca descartado
+    private static final List<Class<? extends Throwable>> FALHAS_TRANSITORIAS = List.of(
+            TransientDataAccessException.class,
+            RecoverableDataAccessException.class,
+            DataAccessResourceFailureException.class,
+            CannotCreateTransactionException.class);
+
     @Value("${app.kafka.topic:test-topic}")
     private String topicName;
 
+    @Value("${app.kafka.partitions:3}")
+    private int partitions;
+
+    @Value("${app.kafka.replication-factor:1}")
+    private short replicationFactor;
+
+    @Value("${app.kafka.concurrency:1}")
+    private int concurrency;
+
+    @Value("${app.kafka.analytics.topic:formsync.analytics}")
+    private String analyticsTopicName;
+
+    // Alterações de template difundidas a todos os nós para as conexões SSE
+    @Value("${app.kafka.template-events.topic:formsync.template-events}")
+    private String templateEventsTopicName;
+
+    // Teto de consumidores paralelos do grupo de analytics
+    @Value("${app.kafka.analytics.partitions:6}")
+    private int analyticsPartitions;
+
+    // Threads consumidoras por nó; acima do número de partições ficam ociosas
+    @Value("${app.kafka.analytics.concurrency:3}")
+    private int analyticsConcurrency;
+
+    // max.block.ms do produtor usado no caminho da requisição
+    @Value("${app.kafka.analytics.max-block-ms:5}")
+    private long analyticsMaxBlockMs;
+
+    // Primeira espera antes de repetir um lote com falha transitória; dobra a cada tentativa, sem limite de tentativas
+    @Value("${app.kafka.retry.interval-ms:1000}")
+    private long retryIntervalMs;
+
+    @Value("${app.kafka.retry.max-interval-ms:60000}")
+    private long retryMaxIntervalMs;
+
+    // Espera para completar um batch antes de enviar: troca alguns ms de latência por menos requisições
+    @Value("${app.kafka.producer.linger-ms:10}")
+    private int lingerMs;
+
+    @Value("${app.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${app.kafka.producer.compression:lz4}")
+    private String compression;
+
+    @Value("${app.kafka.producer.idempotence:true}")
+    private boolean idempotence;
+
+    // Teto de memória dos registros aguardando envio
+    @Value("${app.kafka.producer.buffer-memory:33554432}")
+    private long bufferMemory;
+
+    // Quanto send() espera por espaço no buffer (ou metadados) antes de falhar
+    @Value("${app.kafka.producer.max-block-ms:1000}")
+    private long maxBlockMs;
+
+    // Prazo total de entrega com novas tentativas; precisa cobrir linger.ms + request.timeout.ms
+    @Value("${app.kafka.producer.delivery-timeout-ms:60000}")
+    private int deliveryTimeoutMs;
+
     @Bean
     public NewTopic createDefaultTopic() {
-        return new NewTopic(topicName, 1, (short) 1);
+        return TopicBuilder.name(topicName).partitions(partitions).replicas(replicationFactor).build();
+    }
+
+    @Bean
+    public NewTopic createAnalyticsTopic() {
+        return TopicBuilder.name(analyticsTopicName).partitions(analyticsPartitions).replicas(replicationFactor).build();
+    }
+
+    @Bean
+    public NewTopic createDefaultDeadLetterTopic() {
+        return TopicBuilder.name(topicName + SUFIXO_DLT).partitions(partitions).replicas(replicationFactor).build();
     }
-}
 
+    @Bean
+    public NewTopic createAnalyticsDeadLetterTopic() {
+        return TopicBuilder.name(analyticsTopicName + SUFIXO_DLT).partitions(analyticsPartitions).replicas(replicationFactor).build();
+    }
+
+    // Todos os nós consomem todas as partições; o número de partições só limita a vazão
+    @Bean
+    public NewTopic createTemplateEventsTopic() {
+        return TopicBuilder.name(templateEventsTopicName).partitions(partitions).replicas(replicationFactor).build();
+    }
+
+    @Bean
+    public ProducerFactory<String, Object> producerFactory(KafkaProperties kafkaProperties, ObjectMapper objectMapper,
+                                                           MeterRegistry meterRegistry) {
+        JsonSerializer<Object> valueSerializer = new JsonSerializer<>(objectMapper);
+        valueSerializer.setAddTypeInfo(false);
+        Map<String, Object> props = kafkaProperties.buildProducerProperties(null);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+        if (idempotence) {
+            props.put(ProducerConfig.ACKS_CONFIG, "all");
+        }
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
+        props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(
+                props, new StringSerializer(), valueSerializer);
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
 
+    @Bean
+    @Primary
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
 
+    /**
+     * Produtor próprio para os eventos publicados no caminho da requisição (preenchimentos e usos):
+     * com o broker ou os metadados indisponíveis, send() falha em poucos ms em vez de prender a thread
+     * do Tomcat, e quem publica grava pelo caminho local
+     */
+    @Bean
+    public KafkaTemplate<String, Object> analyticsKafkaTemplate(ProducerFactory<String, Object> producerFactory) {
+        return new KafkaTemplate<>(producerFactory, Map.of(ProducerConfig.MAX_BLOCK_MS_CONFIG, analyticsMaxBlockMs));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, EventoAnalytics> eventosAnalyticsListenerFactory(
+            KafkaProperties kafkaProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            KafkaTemplate<String, Object> kafkaTemplate) {
+        return batchFactory(kafkaProperties, objectMapper, meterRegistry, kafkaTemplate, EventoAnalytics.class, analyticsConcurrency);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, EventoTemplate> eventosTemplateListenerFactory(
+            KafkaProperties kafkaProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            KafkaTemplate<String, Object> kafkaTemplate) {
+        return batchFactory(kafkaProperties, objectMapper, meterRegistry, kafkaTemplate, EventoTemplate.class, 1);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, JsonNode> mensagensListenerFactory(
+            KafkaProperties kafkaProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            KafkaTemplate<String, Object> kafkaTemplate) {
+        return batchFactory(kafkaProperties, objectMapper, meterRegistry, kafkaTemplate, JsonNode.class, concurrency);
+    }
+
+    private <T> ConcurrentKafkaListenerContainerFactory<String, T> batchFactory(
+            KafkaProperties kafkaProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            KafkaTemplate<String, Object> kafkaTemplate, Class<T> tipo, int threads) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        // O offset só avança pelo ack do listener, depois da gravação
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        JsonDeserializer<T> valueDeserializer = new JsonDeserializer<>(tipo, objectMapper, false);
+        DefaultKafkaConsumerFactory<String, T> consumerFactory = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new ErrorHandlingDeserializer<>(valueDeserializer));
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+
+        ConcurrentKafkaListenerContainerFactory<String, T> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(threads);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setMicrometerEnabled(true);
+        factory.setCommonErrorHandler(errorHandler(kafkaTemplate));
+        return factory;
+    }
+
+    /**
+     * Falha transitória do banco repete o lote com espera exponencial e sem limite de tentativas (o consumidor
+     * fica pausado, sem perder a partição). Qualquer outra falha não se resolve repetindo: os registros vão
+     * para o tópico <origem>.DLT, para análise e reprocessamento, e a partição segue.
+     */
+    private DefaultErrorHandler errorHandler(KafkaTemplate<String, Object> kafkaTemplate) {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (registro, erro) -> new TopicPartition(registro.topic() + SUFIXO_DLT, -1));
+        ExponentialBackOff backOff = new ExponentialBackOff(retryIntervalMs, 2.0);
+        backOff.setMaxInterval(retryMaxIntervalMs);
+        DefaultErrorHandler handler = new DefaultErrorHandler(recoverer, backOff);
+        Map<Class<? extends Throwable>, Boolean> classificacoes = new HashMap<>();
+        FALHAS_TRANSITORIAS.forEach(tipo -> classificacoes.put(tipo, true));
+        handler.setClassifications(classificacoes, false);
+        return handler;
+    }
+}
@@ -1,25 +1,28 @@
 package br.com.backend.kafka;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 @ConditionalOnProperty(name = "app.kafka.enabled", havingValue = "true", matchIfMissing = false)
+@Slf4j
 public class KafkaConsumer {
 
-    @Value("${app.kafka.topic:test-topic}")
-    private String topicName;
-
-    @KafkaListener(topics = "${app.kafka.topic:test-topic}", groupId = "${SPRING_KAFKA_CONSUMER_GROUP_ID:backend-group}")
-    public void listen(@Payload String message,
-                       @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-                       @Header(KafkaHeaders.RECEIVED_KEY) String key) {
-        System.out.printf("[KAFKA] Consumed topic=%s key=%s message=%s%n", topic, key, message);
+    @KafkaListener(topics = "${app.kafka.topic:test-topic}", groupId = "${SPRING_KAFKA_CONSUMER_GROUP_ID:backend-group}",
+            containerFactory = "mensagensListenerFactory")
+    public void listen(List<ConsumerRecord<String, JsonNode>> records, Acknowledgment ack) {
+        for (ConsumerRecord<String, JsonNode> record : records) {
+            log.info("📨 [KAFKA] Consumed topic={} partition={} key={} message={}",
+                    record.topic(), record.partition(), record.key(), record.value());
+        }
+        ack.acknowledge();
     }
 }
 
@@ -1,23 +1,134 @@
 package br.com.backend.kafka;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Envio assíncrono com confirmação de entrega. O produtor agrupa os registros (linger.ms/batch.size,
+ * compressão) e o buffer é limitado por buffer.memory: com ele cheio, o envio espera até max.block.ms
+ * e então falha, sem crescer a memória. Cada entrega registra latência e resultado por tópico em
+ * formsync.kafka.producer.send.
+ */
 @Service
 @ConditionalOnProperty(name = "app.kafka.enabled", havingValue = "true", matchIfMissing = false)
+@Slf4j
 public class KafkaProducerService {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaTemplate<String, Object> analyticsKafkaTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
 
-    public KafkaProducerService(KafkaTemplate<String, String> kafkaTemplate) {
+    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate,
+                                @Qualifier("analyticsKafkaTemplate") KafkaTemplate<String, Object> analyticsKafkaTemplate,
+                                MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
+        this.analyticsKafkaTemplate = analyticsKafkaTemplate;
+        this.meterRegistry = meterRegistry;
     }
 
-    public void send(String topic, String key, String message) {
-        kafkaTemplate.send(topic, key, message);
+    /**
+     * Publica o valor serializado como JSON; o futuro completa quando o broker confirma (ou recusa) o registro
+     */
+    public CompletableFuture<SendResult<String, Object>> send(String topic, String key, Object message) {
+        return enviar(kafkaTemplate, topic, key, message);
+    }
+
+    /**
+     * Igual a send(), para o caminho da requisição: sem espaço no buffer ou sem metadados do tópico,
+     * falha em app.kafka.analytics.max-block-ms (poucos ms) em vez de max-block-ms
+     */
+    public CompletableFuture<SendResult<String, Object>> sendSemBloquear(String topic, String key, Object message) {
+        return enviar(analyticsKafkaTemplate, topic, key, message);
     }
-}
 
+    private CompletableFuture<SendResult<String, Object>> enviar(KafkaTemplate<String, Object> template,
+                                                                  String topic, String key, Object message) {
+        long inicio = System.nanoTime();
+        CompletableFuture<SendResult<String, Object>> futuro;
+        try {
+            futuro = template.send(topic, key, message);
+        } catch (Exception e) {
+            // Buffer cheio além de max.block.ms ou metadados indisponíveis: falha no próprio futuro
+            futuro = CompletableFuture.failedFuture(e);
+        }
+        return futuro.whenComplete((resultado, erro) -> timer(topic, erro == null ? "success" : "failure")
+                .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS));
+    }
 
+    /**
+     * Publica um lote no mesmo tópico. O futuro completa depois de todas as confirmações e informa
+     * quais posições falharam, para quem chama decidir o que reenviar.
+     */
+    public <T> CompletableFuture<ResultadoLote> sendAll(String topic, List<T> messages, Function<? super T, String> key) {
+        if (messages.isEmpty()) {
+            return CompletableFuture.completedFuture(new ResultadoLote(0, Collections.emptyList()));
+        }
+        List<CompletableFuture<SendResult<String, Object>>> futuros = new ArrayList<>(messages.size());
+        for (T message : messages) {
+            futuros.add(send(topic, key.apply(message), message));
+        }
+        // Sem flush: o linger.ms fecha o último batch
+        return CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new)).handle((ignorado, erro) -> {
+            List<Integer> falhas = new ArrayList<>();
+            for (int i = 0; i < futuros.size(); i++) {
+                if (futuros.get(i).isCompletedExceptionally()) {
+                    falhas.add(i);
+                }
+            }
+            if (!falhas.isEmpty()) {
+                log.warn("⚠️ [KAFKA] {} de {} registros não entregues no tópico {}", falhas.size(), messages.size(), topic);
+            }
+            return new ResultadoLote(messages.size(), falhas);
+        });
+    }
 
+    private Timer timer(String topic, String resultado) {
+        return timers.computeIfAbsent(topic + '|' + resultado, chave -> Timer.builder("formsync.kafka.producer.send")
+                .tag("topic", topic)
+                .tag("result", resultado)
+                .description("Latência de entrega de registros ao broker")
+                .register(meterRegistry));
+    }
+
+    /**
+     * Resultado de um sendAll: total enviado e posições que falharam
+     */
+    public static final class ResultadoLote {
+        private final int total;
+        private final List<Integer> falhas;
+
+        public ResultadoLote(int total, List<Integer> falhas) {
+            this.total = total;
+            this.falhas = falhas;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<Integer> getFalhas() {
+            return falhas;
+        }
+
+        public boolean isSucesso() {
+            return falhas.isEmpty();
+        }
+    }
+}
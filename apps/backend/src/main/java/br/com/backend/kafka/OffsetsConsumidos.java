@@ -0,0 +1,97 @@
+package br.com.backend.kafka;
+
+import br.com.backend.service.DialetoBanco;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Offsets já aplicados ao banco, gravados na mesma transação dos dados consumidos. Torna a gravação
+ * idempotente por (partição, offset): a reentrega de um lote já gravado (rebalanceamento entre o commit
+ * e o ack, nova tentativa do error handler) é filtrada em vez de somar os contadores de novo.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.enabled", havingValue = "true", matchIfMissing = false)
+@RequiredArgsConstructor
+public class OffsetsConsumidos {
+
+    // Garante a linha da partição antes do bloqueio; no PostgreSQL um INSERT concorrente espera o outro terminar
+    private static final String SQL_GARANTIR_POSTGRES =
+            "INSERT INTO kafka_offsets_consumidos (grupo, topico, particao, ultimo_offset, atualizado_em) "
+            + "VALUES (?, ?, ?, -1, ?) ON CONFLICT (grupo, topico, particao) DO NOTHING";
+
+    private static final String SQL_GARANTIR_H2 =
+            "INSERT INTO kafka_offsets_consumidos (grupo, topico, particao, ultimo_offset, atualizado_em) "
+            + "SELECT ?, ?, ?, -1, ? WHERE NOT EXISTS (SELECT 1 FROM kafka_offsets_consumidos "
+            + "WHERE grupo = ? AND topico = ? AND particao = ?)";
+
+    // Dois consumidores com a mesma partição (durante um rebalanceamento) gravam um de cada vez
+    private static final String SQL_BLOQUEAR =
+            "SELECT ultimo_offset FROM kafka_offsets_consumidos WHERE grupo = ? AND topico = ? AND particao = ? FOR UPDATE";
+
+    private static final String SQL_AVANCAR =
+            "UPDATE kafka_offsets_consumidos SET ultimo_offset = ?, atualizado_em = ? "
+            + "WHERE grupo = ? AND topico = ? AND particao = ? AND ultimo_offset < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DialetoBanco dialetoBanco;
+
+    /**
+     * Bloqueia as partições do lote e devolve só os registros depois do último offset aplicado.
+     * Precisa rodar na transação que grava os dados e chama avancar().
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <V> List<ConsumerRecord<String, V>> novos(String grupo, List<ConsumerRecord<String, V>> registros) {
+        Map<String, Long> aplicados = new TreeMap<>();
+        List<ConsumerRecord<String, V>> novos = new ArrayList<>();
+        for (ConsumerRecord<String, V> registro : registros) {
+            Long ultimo = aplicados.computeIfAbsent(chave(registro),
+                    chave -> bloquear(grupo, registro.topic(), registro.partition()));
+            if (registro.offset() > ultimo) {
+                novos.add(registro);
+            }
+        }
+        return novos;
+    }
+
+    /**
+     * Registra o maior offset de cada partição do lote como aplicado
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void avancar(String grupo, List<? extends ConsumerRecord<String, ?>> registros) {
+        Map<String, ConsumerRecord<String, ?>> maiores = new TreeMap<>();
+        for (ConsumerRecord<String, ?> registro : registros) {
+            maiores.merge(chave(registro), registro, (atual, novo) -> novo.offset() > atual.offset() ? novo : atual);
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        for (ConsumerRecord<String, ?> registro : maiores.values()) {
+            jdbcTemplate.update(SQL_AVANCAR, registro.offset(), agora,
+                    grupo, registro.topic(), registro.partition(), registro.offset());
+        }
+    }
+
+    private long bloquear(String grupo, String topico, int particao) {
+        LocalDateTime agora = LocalDateTime.now();
+        if (dialetoBanco.isH2()) {
+            jdbcTemplate.update(SQL_GARANTIR_H2, grupo, topico, particao, agora, grupo, topico, particao);
+        } else {
+            jdbcTemplate.update(SQL_GARANTIR_POSTGRES, grupo, topico, particao, agora);
+        }
+        Long ultimo = jdbcTemplate.queryForObject(SQL_BLOQUEAR, Long.class, grupo, topico, particao);
+        return ultimo != null ? ultimo : -1L;
+    }
+
+    private String chave(ConsumerRecord<String, ?> registro) {
+        return registro.topic() + "-" + registro.partition();
+    }
+}
@@ -0,0 +1,73 @@
+package br.com.backend.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publica preenchimentos e usos de template no tópico de analytics quando o Kafka está habilitado.
+ * Os pods da API não guardam estado: a fila em memória e o contador de uso só repassam o evento,
+ * e a gravação em lote fica com o {@link ConsumidorEventosAnalytics}. Com o broker indisponível (recusa
+ * imediata ou falha na entrega) o evento volta para a fila ou o contador locais, que gravam direto no banco.
+ */
+@Service
+@ConditionalOnProperty(name = "app.kafka.enabled", havingValue = "true", matchIfMissing = false)
+@RequiredArgsConstructor
+@Slf4j
+public class PublicadorEventosAnalytics {
+
+    private final KafkaProducerService producerService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.kafka.analytics.topic:formsync.analytics}")
+    private String topico = "formsync.analytics";
+
+    private Counter publicados;
+    private Counter falhas;
+
+    @PostConstruct
+    void init() {
+        publicados = contador("published");
+        falhas = contador("failed");
+    }
+
+    /**
+     * Envia o evento com o usuário como chave sem prender a thread da requisição. Retorna false se o
+     * produtor recusou o envio na hora (buffer cheio ou broker indisponível), para quem chama gravar pelo
+     * caminho local; se a entrega falhar depois, seFalharEntrega faz o mesmo a partir da thread do produtor.
+     */
+    public boolean publicar(EventoAnalytics evento, Runnable seFalharEntrega) {
+        CompletableFuture<SendResult<String, Object>> envio =
+                producerService.sendSemBloquear(topico, String.valueOf(evento.getUsuarioId()), evento);
+        if (envio.isCompletedExceptionally()) {
+            falhas.increment();
+            log.warn("⚠️ [KAFKA] Produtor indisponível, evento {} do usuário {} gravado localmente",
+                    evento.getTipo(), evento.getUsuarioId());
+            return false;
+        }
+        envio.whenComplete((resultado, erro) -> {
+            if (erro == null) {
+                publicados.increment();
+                return;
+            }
+            falhas.increment();
+            log.error("❌ [KAFKA] Falha ao entregar evento {} do usuário {}, gravando localmente: {}",
+                    evento.getTipo(), evento.getUsuarioId(), erro.getMessage());
+            seFalharEntrega.run();
+        });
+        return true;
+    }
+
+    private Counter contador(String resultado) {
+        return Counter.builder("formsync.kafka.analytics.events").tag("result", resultado)
+                .description("Eventos de analytics publicados no Kafka").register(meterRegistry);
+    }
+}
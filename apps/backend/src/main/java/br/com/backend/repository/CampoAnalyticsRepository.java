@@ -1,7 +1,10 @@
 package br.com.backend.repository;
 
+import br.com.backend.dto.CampoAnalyticsDTO;
 import br.com.backend.entity.CampoAnalytics;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
@@ -9,12 +12,18 @@ import java.util.List;
 public interface CampoAnalyticsRepository extends JpaRepository<CampoAnalytics, Long> {
 
     /**
-     * Busca analytics de campos de template por usuário ordenados por quantidade de usos
+     * Campos de template mais usados pelo usuário, já com nome do campo e do template (uma única consulta, com LIMIT)
      */
-    List<CampoAnalytics> findByUsuarioIdOrderByQuantidadeUsosDesc(Long usuarioId);
+    @Query("SELECT new br.com.backend.dto.CampoAnalyticsDTO(a.campoTemplateId, c.nome, t.nome, a.quantidadeUsos, a.ultimoUso) " +
+           "FROM CampoAnalytics a " +
+           "LEFT JOIN CampoTemplate c ON c.id = a.campoTemplateId " +
+           "LEFT JOIN c.template t " +
+           "WHERE a.usuarioId = :usuarioId " +
+           "ORDER BY a.quantidadeUsos DESC, a.campoTemplateId ASC")
+    List<CampoAnalyticsDTO> findMaisUtilizados(@Param("usuarioId") Long usuarioId, Pageable pagina);
 
     /**
      * Busca analytics de um campo de template específico por usuário
      */
     CampoAnalytics findByUsuarioIdAndCampoTemplateId(Long usuarioId, Long campoTemplateId);
-}
\ No newline at end of file
+}
@@ -1,13 +1,18 @@
 package br.com.backend.repository;
 
 import br.com.backend.entity.CampoTemplate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CampoTemplateRepository extends JpaRepository<CampoTemplate, Long> {
@@ -102,6 +107,20 @@ public interface CampoTemplateRepository extends JpaRepository<CampoTemplate, Lo
      * @return Lista de campos ativos do template.
      */
     List<CampoTemplate> findByTemplateIdAndAtivoTrue(Long templateId);
+
+    /**
+     * Lê os campos de uma página de templates em uma única consulta.
+     * O stream deve ser consumido e fechado dentro de uma transação.
+     * @param templateIds IDs dos templates da página.
+     * @return Stream de campos ordenados por template e id.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "250"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM CampoTemplate c WHERE c.template.id IN :templateIds "
+            + "ORDER BY c.template.id, c.id")
+    Stream<CampoTemplate> streamByTemplateIdIn(@Param("templateIds") Collection<Long> templateIds);
     
     /**
      * Conta campos por usuário ID.
@@ -111,4 +130,13 @@ public interface CampoTemplateRepository extends JpaRepository<CampoTemplate, Lo
     @Query("SELECT COUNT(ct) FROM CampoTemplate ct JOIN ct.template t "
             + "WHERE t.usuario.id = :usuarioId")
     long countByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    /**
+     * Dentre os IDs informados, retorna os de campos de templates do usuário.
+     * @param usuarioId ID do usuário.
+     * @param ids IDs a verificar.
+     * @return IDs que pertencem ao usuário.
+     */
+    @Query("SELECT c.id FROM CampoTemplate c WHERE c.template.usuario.id = :usuarioId AND c.id IN :ids")
+    List<Long> findIdsDoUsuario(@Param("usuarioId") Long usuarioId, @Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,22 @@
+package br.com.backend.repository;
+
+import br.com.backend.entity.ConsolidacaoAnalytics;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ConsolidacaoAnalyticsRepository extends JpaRepository<ConsolidacaoAnalytics, String> {
+
+    /**
+     * Busca a marca d'água com bloqueio: só uma instância consolida por vez
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ConsolidacaoAnalytics c WHERE c.nome = :nome")
+    Optional<ConsolidacaoAnalytics> findParaAtualizar(@Param("nome") String nome);
+}
@@ -2,9 +2,27 @@ package br.com.backend.repository;
 
 import br.com.backend.entity.HistoricoPreenchimento;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface HistoricoPreenchimentoRepository extends JpaRepository<HistoricoPreenchimento, Long> {
     List<HistoricoPreenchimento> findByUsuarioId(Long usuarioId);
+
+    /**
+     * Histórico do usuário a partir de uma data: o predicado em data_hora descarta as partições mensais anteriores
+     */
+    List<HistoricoPreenchimento> findByUsuarioIdAndDataHoraGreaterThanEqual(Long usuarioId, LocalDateTime desde);
+
+    /**
+     * Remove todo o histórico do usuário num único DELETE, sem carregar as linhas
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM HistoricoPreenchimento h WHERE h.usuario.id = :usuarioId")
+    int deleteAllByUsuarioId(@Param("usuarioId") Long usuarioId);
 }
@@ -0,0 +1,9 @@
+package br.com.backend.repository;
+
+import br.com.backend.entity.MigracaoCriptografia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MigracaoCriptografiaRepository extends JpaRepository<MigracaoCriptografia, String> {
+}
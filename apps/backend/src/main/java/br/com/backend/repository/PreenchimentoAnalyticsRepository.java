@@ -1,6 +1,7 @@
 package br.com.backend.repository;
 
 import br.com.backend.entity.PreenchimentoAnalytics;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -21,12 +22,6 @@ public interface PreenchimentoAnalyticsRepository extends JpaRepository<Preenchi
     @Query("SELECT SUM(p.tempoEconomizado) FROM PreenchimentoAnalytics p WHERE p.usuarioId = :usuarioId AND p.dataPreenchimento > :dataInicio")
     Integer sumTempoEconomizadoByUsuarioIdAndDataPreenchimentoAfter(@Param("usuarioId") Long usuarioId, @Param("dataInicio") LocalDateTime dataInicio);
 
-    /**
-     * Conta sites únicos por usuário e período
-     */
-    @Query("SELECT COUNT(DISTINCT p.site) FROM PreenchimentoAnalytics p WHERE p.usuarioId = :usuarioId AND p.dataPreenchimento > :dataInicio")
-    Integer countDistinctSiteByUsuarioIdAndDataPreenchimentoAfter(@Param("usuarioId") Long usuarioId, @Param("dataInicio") LocalDateTime dataInicio);
-
     /**
      * Conta preenchimentos bem-sucedidos por usuário e período
      */
@@ -38,14 +33,20 @@ public interface PreenchimentoAnalyticsRepository extends JpaRepository<Preenchi
     List<PreenchimentoAnalytics> findByUsuarioIdAndDataPreenchimentoAfterOrderByDataPreenchimento(Long usuarioId, LocalDateTime dataInicio);
 
     /**
-     * Busca sites mais acessados por usuário com estatísticas
+     * Sites mais acessados pelo usuário: consolidação diária + cauda acima da marca d'água, agrupadas e
+     * cortadas no banco. Retorna dominio (null para preenchimentos sem site), quantidade e tempoMedio.
      */
-    @Query("SELECT p.site as dominio, COUNT(p) as quantidade, AVG(p.tempoEconomizado) as tempoMedio " +
-           "FROM PreenchimentoAnalytics p " +
-           "WHERE p.usuarioId = :usuarioId " +
-           "GROUP BY p.site " +
-           "ORDER BY COUNT(p) DESC")
-    List<Object[]> findSitesMaisAcessadosByUsuarioId(@Param("usuarioId") Long usuarioId);
+    @Query(value = "SELECT NULLIF(site, '') AS dominio, SUM(total) AS quantidade, " +
+           "CAST(SUM(tempo) AS DOUBLE PRECISION) / CAST(SUM(total) AS DOUBLE PRECISION) AS tempoMedio FROM (" +
+           "SELECT site, total_preenchimentos AS total, tempo_economizado AS tempo " +
+           "FROM preenchimentos_analytics_diario WHERE usuario_id = :usuarioId " +
+           "UNION ALL " +
+           "SELECT COALESCE(site, ''), 1, COALESCE(tempo_economizado, 0) " +
+           "FROM preenchimentos_analytics WHERE usuario_id = :usuarioId AND id > " +
+           "COALESCE((SELECT ultimo_id FROM consolidacao_analytics WHERE nome = 'preenchimentos_diario'), 0)" +
+           ") sites GROUP BY site ORDER BY SUM(total) DESC, site ASC",
+           nativeQuery = true)
+    List<Object[]> findSitesMaisAcessados(@Param("usuarioId") Long usuarioId, Pageable pagina);
 
     /**
      * Conta preenchimentos por usuário
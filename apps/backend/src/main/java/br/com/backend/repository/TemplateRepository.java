@@ -1,13 +1,20 @@
 package br.com.backend.repository;
 
 import br.com.backend.entity.Template;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TemplateRepository extends JpaRepository<Template, Long> {
@@ -38,6 +45,23 @@ public interface TemplateRepository extends JpaRepository<Template, Long> {
      */
     boolean existsByNomeAndUsuarioIdAndAtivo(String nome, Long usuarioId, Boolean ativo);
     
+    /**
+     * Verifica se o template pertence ao usuário, sem carregar a entidade.
+     * @param id ID do template.
+     * @param usuarioId ID do usuário.
+     * @param ativo Status ativo do template.
+     * @return True se existe, false caso contrário.
+     */
+    boolean existsByIdAndUsuarioIdAndAtivo(Long id, Long usuarioId, Boolean ativo);
+    
+    /**
+     * Busca dono e total de uso do template, sem carregar as entidades.
+     * @param id ID do template.
+     * @return Uma linha com id e email do dono e total de uso, ou vazia se o template não existe.
+     */
+    @Query("SELECT u.id, u.email, t.totalUso FROM Template t JOIN t.usuario u WHERE t.id = :id")
+    List<Object[]> resumirDono(@Param("id") Long id);
+    
     /**
      * Conta templates ativos por usuário.
      * @param usuarioId ID do usuário.
@@ -67,6 +91,27 @@ public interface TemplateRepository extends JpaRepository<Template, Long> {
     List<Template> findTemplatesPorPadrao(@Param("usuarioId") Long usuarioId,
             @Param("padrao") String padrao);
     
+    /**
+     * Busca templates ativos do usuário com campos carregados em uma única consulta.
+     * @param usuarioId ID do usuário.
+     * @return Lista de templates ativos com campos, ordenados por nome.
+     */
+    @Query("SELECT DISTINCT t FROM Template t LEFT JOIN FETCH t.campos c "
+            + "WHERE t.usuario.id = :usuarioId AND t.ativo = true ORDER BY t.nome ASC")
+    List<Template> findAtivosComCamposOrdenadosPorNome(@Param("usuarioId") Long usuarioId);
+    
+    /**
+     * Busca templates por padrão de nome com campos carregados em uma única consulta.
+     * @param usuarioId ID do usuário.
+     * @param padrao Padrão de busca no nome.
+     * @return Lista de templates com campos que correspondem ao padrão.
+     */
+    @Query("SELECT DISTINCT t FROM Template t LEFT JOIN FETCH t.campos c WHERE t.usuario.id = :usuarioId "
+            + "AND t.ativo = true AND LOWER(t.nome) LIKE LOWER(CONCAT('%', :padrao, '%')) "
+            + "ORDER BY t.nome ASC")
+    List<Template> findTemplatesPorPadraoComCampos(@Param("usuarioId") Long usuarioId,
+            @Param("padrao") String padrao);
+    
     /**
      * Busca template com campos carregados.
      * @param templateId ID do template.
@@ -91,6 +136,42 @@ public interface TemplateRepository extends JpaRepository<Template, Long> {
      */
     List<Template> findByAtivoTrue();
 
+    /**
+     * Lê uma página de templates ativos por keyset (id), sem carregar a tabela inteira.
+     * O stream deve ser consumido e fechado dentro de uma transação.
+     * @param ultimoId Último id da página anterior (0 na primeira).
+     * @param pagina Tamanho da página (use sempre a página 0).
+     * @return Stream de templates ativos ordenados por id.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "250"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Template t WHERE t.ativo = true AND t.id > :ultimoId ORDER BY t.id ASC")
+    Stream<Template> streamAtivosAposId(@Param("ultimoId") Long ultimoId, Pageable pagina);
+
+    /**
+     * Busca templates ativos do usuário com campos carregados (snapshot inicial da sincronização).
+     * @param usuarioId ID do usuário.
+     * @return Lista de templates ativos com campos.
+     */
+    @Query("SELECT DISTINCT t FROM Template t LEFT JOIN FETCH t.campos c "
+            + "WHERE t.usuario.id = :usuarioId AND t.ativo = true")
+    List<Template> findAtivosComCampos(@Param("usuarioId") Long usuarioId);
+    
+    /**
+     * Busca templates do usuário (inclusive removidos) alterados desde o cursor,
+     * considerando também alterações feitas apenas nos campos.
+     * @param usuarioId ID do usuário.
+     * @param desde Data do cursor de sincronização.
+     * @return Lista de templates alterados com campos.
+     */
+    @Query("SELECT DISTINCT t FROM Template t LEFT JOIN FETCH t.campos c "
+            + "WHERE t.usuario.id = :usuarioId AND (t.dataAtualizacao > :desde OR t.dataCriacao > :desde "
+            + "OR EXISTS (SELECT 1 FROM CampoTemplate c2 WHERE c2.template = t AND c2.dataAtualizacao > :desde))")
+    List<Template> findAlteradosDesde(@Param("usuarioId") Long usuarioId,
+            @Param("desde") LocalDateTime desde);
+    
     /**
      * Busca templates por usuário ID.
      * @param usuarioId ID do usuário.
@@ -105,4 +186,13 @@ public interface TemplateRepository extends JpaRepository<Template, Long> {
      */
     @Query("SELECT COUNT(t) FROM Template t WHERE t.usuario.id = :usuarioId")
     long countByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    /**
+     * Dentre os IDs informados, retorna os de templates ativos do usuário.
+     * @param usuarioId ID do usuário.
+     * @param ids IDs a verificar.
+     * @return IDs que pertencem ao usuário.
+     */
+    @Query("SELECT t.id FROM Template t WHERE t.usuario.id = :usuarioId AND t.ativo = true AND t.id IN :ids")
+    List<Long> findIdsAtivosDoUsuario(@Param("usuarioId") Long usuarioId, @Param("ids") Collection<Long> ids);
 }
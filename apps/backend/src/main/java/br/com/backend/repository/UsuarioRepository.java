@@ -2,6 +2,9 @@ package br.com.backend.repository;
 
 import br.com.backend.entity.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +15,20 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByEmail(String email);
     boolean existsByEmail(String email);
     List<Usuario> findByEmailContaining(String email);
+
+    /**
+     * Incrementa a versão do conjunto de templates do usuário.
+     * @param usuarioId ID do usuário.
+     * @return Quantidade de linhas atualizadas.
+     */
+    @Modifying
+    @Query("UPDATE Usuario u SET u.templatesVersao = COALESCE(u.templatesVersao, 0) + 1 WHERE u.id = :usuarioId")
+    int incrementarVersaoTemplates(@Param("usuarioId") Long usuarioId);
+
+    /**
+     * Resume as versões de templates de todos os usuários.
+     * @return Uma linha com quantidade de usuários, soma dos ids e soma das versões.
+     */
+    @Query("SELECT COUNT(u), COALESCE(SUM(u.id), 0), COALESCE(SUM(u.templatesVersao), 0) FROM Usuario u")
+    List<Object[]> resumirVersoesTemplates();
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ import br.com.backend.repository.TemplateRepository;
 import br.com.backend.repository.CampoTemplateRepository;
 import br.com.backend.repository.MapeamentoCampoRepository;
 import br.com.backend.repository.HistoricoPreenchimentoRepository;
+import br.com.backend.service.TemplateVersionService;
 import lombok.extern.slf4j.Slf4j;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -35,6 +36,9 @@ public class DataPrivacyService {
     @Autowired
     private CampoTemplateRepository campoTemplateRepository;
     
+    @Autowired
+    private TemplateVersionService templateVersionService;
+    
     @Autowired
     private MapeamentoCampoRepository mapeamentoCampoRepository;
     
@@ -217,6 +221,7 @@ public class DataPrivacyService {
                 template.setNome("TEMPLATE_EXCLUIDO_" + template.getId());
                 templateRepository.save(template);
             });
+            templateVersionService.incrementar(usuarioId);
             
             // Buscar campos através dos templates do usuário
             List<Template> templates = templateRepository.findByUsuarioId(usuarioId);
@@ -0,0 +1,422 @@
+package br.com.backend.security;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decodificador em memória do formato gerado por pgp_sym_encrypt (pgcrypto / RFC 4880).
+ * Suporta S2K simples, com salt e iterado, AES-128/192/256, pacotes com e sem MDC
+ * e compressão ZIP/ZLIB. Variantes fora disso lançam {@link FormatoNaoSuportadoException}
+ * para que o chamador recorra ao pgcrypto no banco.
+ */
+public final class OpenPgpSymmetricDecoder {
+
+    private static final int TAG_SKESK = 3;
+    private static final int TAG_COMPRESSED = 8;
+    private static final int TAG_SED = 9;
+    private static final int TAG_MARKER = 10;
+    private static final int TAG_LITERAL = 11;
+    private static final int TAG_SEIPD = 18;
+
+    private static final int MDC_LENGTH = 22;
+    private static final int AES_BLOCK_SIZE = 16;
+
+    // Limite de segurança para dados descomprimidos (valores de campo são pequenos)
+    private static final int MAX_DESCOMPRIMIDO = 16 * 1024 * 1024;
+
+    private OpenPgpSymmetricDecoder() {
+    }
+
+    /**
+     * Descriptografa uma mensagem OpenPGP simétrica e retorna o conteúdo do pacote literal
+     */
+    public static byte[] decrypt(byte[] mensagem, byte[] senha) throws GeneralSecurityException {
+        LeitorPacotes leitor = new LeitorPacotes(mensagem);
+
+        byte[] chave = null;
+
+        while (leitor.temMais()) {
+            Pacote pacote = leitor.proximo();
+            switch (pacote.tag) {
+                case TAG_MARKER:
+                    break;
+                case TAG_SKESK:
+                    if (chave != null) {
+                        throw new FormatoNaoSuportadoException("Múltiplos pacotes de chave de sessão");
+                    }
+                    chave = derivarChaveSessao(pacote.corpo, senha);
+                    break;
+                case TAG_SEIPD:
+                    exigirChave(chave);
+                    return lerMensagemLiteral(decifrarComMdc(pacote.corpo, chave));
+                case TAG_SED:
+                    exigirChave(chave);
+                    return lerMensagemLiteral(decifrarSemMdc(pacote.corpo, chave));
+                default:
+                    throw new FormatoNaoSuportadoException("Pacote OpenPGP não suportado: " + pacote.tag);
+            }
+        }
+
+        throw new GeneralSecurityException("Mensagem OpenPGP sem dados criptografados");
+    }
+
+    private static void exigirChave(byte[] chave) throws FormatoNaoSuportadoException {
+        if (chave == null) {
+            throw new FormatoNaoSuportadoException("Mensagem sem pacote de chave simétrica");
+        }
+    }
+
+    /**
+     * Processa o pacote SKESK (tag 3) e retorna a chave que cifra os dados
+     */
+    private static byte[] derivarChaveSessao(byte[] corpo, byte[] senha) throws GeneralSecurityException {
+        if (corpo.length < 4 || corpo[0] != 4) {
+            throw new FormatoNaoSuportadoException("Versão de SKESK não suportada");
+        }
+
+        int algoritmo = corpo[1] & 0xFF;
+        int tamanhoChave = tamanhoChave(algoritmo);
+        int modoS2k = corpo[2] & 0xFF;
+        String hash = nomeHash(corpo[3] & 0xFF);
+
+        int pos = 4;
+        byte[] salt = new byte[0];
+        long contagem = 0;
+        switch (modoS2k) {
+            case 0:
+                break;
+            case 1:
+                exigirTamanho(corpo, pos + 8);
+                salt = Arrays.copyOfRange(corpo, pos, pos + 8);
+                pos += 8;
+                break;
+            case 3:
+                exigirTamanho(corpo, pos + 9);
+                salt = Arrays.copyOfRange(corpo, pos, pos + 8);
+                int c = corpo[pos + 8] & 0xFF;
+                contagem = (16L + (c & 15)) << ((c >> 4) + 6);
+                pos += 9;
+                break;
+            default:
+                throw new FormatoNaoSuportadoException("Modo S2K não suportado: " + modoS2k);
+        }
+
+        byte[] chaveS2k = derivarS2k(hash, salt, senha, contagem, tamanhoChave);
+
+        if (pos == corpo.length) {
+            // Sem chave de sessão separada: a chave S2K cifra os dados diretamente
+            return chaveS2k;
+        }
+
+        // Chave de sessão cifrada com a chave S2K (pgcrypto sess-key=1)
+        Cipher cipher = Cipher.getInstance("AES/CFB/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(chaveS2k, "AES"), new IvParameterSpec(new byte[AES_BLOCK_SIZE]));
+        byte[] sessao = cipher.doFinal(corpo, pos, corpo.length - pos);
+        int algoritmoSessao = sessao[0] & 0xFF;
+        if (sessao.length - 1 != tamanhoChave(algoritmoSessao)) {
+            throw new BadPaddingException("Chave de sessão inválida");
+        }
+        return Arrays.copyOfRange(sessao, 1, sessao.length);
+    }
+
+    private static byte[] derivarS2k(String hash, byte[] salt, byte[] senha, long contagem, int tamanhoChave)
+            throws GeneralSecurityException {
+        MessageDigest digest = MessageDigest.getInstance(hash);
+        byte[] bloco = new byte[salt.length + senha.length];
+        System.arraycopy(salt, 0, bloco, 0, salt.length);
+        System.arraycopy(senha, 0, bloco, salt.length, senha.length);
+
+        byte[] chave = new byte[tamanhoChave];
+        int gerado = 0;
+        for (int preload = 0; gerado < tamanhoChave; preload++) {
+            digest.reset();
+            for (int i = 0; i < preload; i++) {
+                digest.update((byte) 0);
+            }
+
+            long restante = Math.max(contagem, bloco.length);
+            while (restante > 0) {
+                int n = (int) Math.min(restante, bloco.length);
+                digest.update(bloco, 0, n);
+                restante -= n;
+            }
+
+            byte[] resumo = digest.digest();
+            int copiar = Math.min(resumo.length, tamanhoChave - gerado);
+            System.arraycopy(resumo, 0, chave, gerado, copiar);
+            gerado += copiar;
+        }
+        return chave;
+    }
+
+    /**
+     * Pacote SEIPD (tag 18): CFB sem ressincronização seguido do pacote MDC (SHA-1)
+     */
+    private static byte[] decifrarComMdc(byte[] corpo, byte[] chave) throws GeneralSecurityException {
+        if (corpo.length < 1 || corpo[0] != 1) {
+            throw new FormatoNaoSuportadoException("Versão de SEIPD não suportada");
+        }
+
+        Cipher cipher = Cipher.getInstance("AES/CFB/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(chave, "AES"), new IvParameterSpec(new byte[AES_BLOCK_SIZE]));
+        byte[] claro = cipher.doFinal(corpo, 1, corpo.length - 1);
+
+        int inicioDados = AES_BLOCK_SIZE + 2;
+        if (claro.length < inicioDados + MDC_LENGTH) {
+            throw new GeneralSecurityException("Pacote SEIPD truncado");
+        }
+        verificarPrefixo(claro);
+
+        int inicioMdc = claro.length - MDC_LENGTH;
+        if ((claro[inicioMdc] & 0xFF) != 0xD3 || claro[inicioMdc + 1] != 0x14) {
+            throw new BadPaddingException("Pacote MDC ausente");
+        }
+
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+        sha1.update(claro, 0, inicioMdc + 2);
+        byte[] esperado = Arrays.copyOfRange(claro, inicioMdc + 2, claro.length);
+        if (!MessageDigest.isEqual(sha1.digest(), esperado)) {
+            throw new BadPaddingException("Falha na verificação de integridade (MDC)");
+        }
+
+        return Arrays.copyOfRange(claro, inicioDados, inicioMdc);
+    }
+
+    /**
+     * Pacote SED (tag 9, pgcrypto disable-mdc=1): CFB do OpenPGP com ressincronização
+     */
+    private static byte[] decifrarSemMdc(byte[] corpo, byte[] chave) throws GeneralSecurityException {
+        int inicioDados = AES_BLOCK_SIZE + 2;
+        if (corpo.length < inicioDados) {
+            throw new GeneralSecurityException("Pacote SED truncado");
+        }
+
+        SecretKeySpec keySpec = new SecretKeySpec(chave, "AES");
+        Cipher cipher = Cipher.getInstance("AES/CFB/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, keySpec, new IvParameterSpec(new byte[AES_BLOCK_SIZE]));
+        verificarPrefixo(cipher.doFinal(corpo, 0, inicioDados));
+
+        cipher.init(Cipher.DECRYPT_MODE, keySpec, new IvParameterSpec(Arrays.copyOfRange(corpo, 2, inicioDados)));
+        return cipher.doFinal(corpo, inicioDados, corpo.length - inicioDados);
+    }
+
+    /**
+     * Os dois bytes após o prefixo aleatório repetem os dois últimos: detecta chave incorreta
+     */
+    private static void verificarPrefixo(byte[] claro) throws BadPaddingException {
+        if (claro[AES_BLOCK_SIZE - 2] != claro[AES_BLOCK_SIZE] || claro[AES_BLOCK_SIZE - 1] != claro[AES_BLOCK_SIZE + 1]) {
+            throw new BadPaddingException("Chave de descriptografia incorreta");
+        }
+    }
+
+    /**
+     * Extrai o conteúdo do pacote literal, descomprimindo se necessário
+     */
+    private static byte[] lerMensagemLiteral(byte[] dados) throws GeneralSecurityException {
+        LeitorPacotes leitor = new LeitorPacotes(dados);
+        while (leitor.temMais()) {
+            Pacote pacote = leitor.proximo();
+            switch (pacote.tag) {
+                case TAG_MARKER:
+                    break;
+                case TAG_COMPRESSED:
+                    return lerMensagemLiteral(descomprimir(pacote.corpo));
+                case TAG_LITERAL:
+                    byte[] corpo = pacote.corpo;
+                    exigirTamanho(corpo, 2);
+                    int inicio = 2 + (corpo[1] & 0xFF) + 4;
+                    exigirTamanho(corpo, inicio);
+                    return Arrays.copyOfRange(corpo, inicio, corpo.length);
+                default:
+                    throw new FormatoNaoSuportadoException("Pacote interno não suportado: " + pacote.tag);
+            }
+        }
+        throw new GeneralSecurityException("Mensagem OpenPGP sem pacote literal");
+    }
+
+    private static byte[] descomprimir(byte[] corpo) throws GeneralSecurityException {
+        exigirTamanho(corpo, 1);
+        int algoritmo = corpo[0] & 0xFF;
+        if (algoritmo == 0) {
+            return Arrays.copyOfRange(corpo, 1, corpo.length);
+        }
+        if (algoritmo != 1 && algoritmo != 2) {
+            throw new FormatoNaoSuportadoException("Compressão não suportada: " + algoritmo);
+        }
+
+        // 1 = ZIP (deflate puro), 2 = ZLIB
+        Inflater inflater = new Inflater(algoritmo == 1);
+        try {
+            inflater.setInput(corpo, 1, corpo.length - 1);
+            ByteArrayOutputStream saida = new ByteArrayOutputStream(corpo.length * 2);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                saida.write(buffer, 0, n);
+                if (saida.size() > MAX_DESCOMPRIMIDO) {
+                    throw new GeneralSecurityException("Dados descomprimidos excedem o limite");
+                }
+            }
+            return saida.toByteArray();
+        } catch (DataFormatException e) {
+            throw new GeneralSecurityException("Dados comprimidos inválidos", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int tamanhoChave(int algoritmo) throws FormatoNaoSuportadoException {
+        switch (algoritmo) {
+            case 7:
+                return 16;
+            case 8:
+                return 24;
+            case 9:
+                return 32;
+            default:
+                throw new FormatoNaoSuportadoException("Algoritmo de cifra não suportado: " + algoritmo);
+        }
+    }
+
+    private static String nomeHash(int algoritmo) throws FormatoNaoSuportadoException {
+        switch (algoritmo) {
+            case 1:
+                return "MD5";
+            case 2:
+                return "SHA-1";
+            case 8:
+                return "SHA-256";
+            case 9:
+                return "SHA-384";
+            case 10:
+                return "SHA-512";
+            case 11:
+                return "SHA-224";
+            default:
+                throw new FormatoNaoSuportadoException("Algoritmo de hash S2K não suportado: " + algoritmo);
+        }
+    }
+
+    private static void exigirTamanho(byte[] dados, int minimo) throws GeneralSecurityException {
+        if (dados.length < minimo) {
+            throw new GeneralSecurityException("Pacote OpenPGP truncado");
+        }
+    }
+
+    private static final class Pacote {
+        private final int tag;
+        private final byte[] corpo;
+
+        private Pacote(int tag, byte[] corpo) {
+            this.tag = tag;
+            this.corpo = corpo;
+        }
+    }
+
+    /**
+     * Lê cabeçalhos nos formatos antigo e novo, incluindo tamanhos parciais
+     */
+    private static final class LeitorPacotes {
+        private final byte[] dados;
+        private int pos;
+
+        private LeitorPacotes(byte[] dados) {
+            this.dados = dados;
+        }
+
+        private boolean temMais() {
+            return pos < dados.length;
+        }
+
+        private Pacote proximo() throws GeneralSecurityException {
+            int cabecalho = lerByte();
+            if ((cabecalho & 0x80) == 0) {
+                throw new GeneralSecurityException("Cabeçalho de pacote OpenPGP inválido");
+            }
+
+            if ((cabecalho & 0x40) != 0) {
+                int tag = cabecalho & 0x3F;
+                ByteArrayOutputStream corpo = new ByteArrayOutputStream();
+                while (true) {
+                    int l1 = lerByte();
+                    if (l1 < 192) {
+                        copiar(corpo, l1);
+                        break;
+                    } else if (l1 < 224) {
+                        copiar(corpo, ((l1 - 192) << 8) + lerByte() + 192);
+                        break;
+                    } else if (l1 == 255) {
+                        copiar(corpo, lerInt32());
+                        break;
+                    }
+                    // Tamanho parcial: o corpo continua em um novo bloco
+                    copiar(corpo, 1 << (l1 & 0x1F));
+                }
+                return new Pacote(tag, corpo.toByteArray());
+            }
+
+            int tag = (cabecalho >> 2) & 0x0F;
+            int tamanho;
+            switch (cabecalho & 0x03) {
+                case 0:
+                    tamanho = lerByte();
+                    break;
+                case 1:
+                    tamanho = (lerByte() << 8) | lerByte();
+                    break;
+                case 2:
+                    tamanho = lerInt32();
+                    break;
+                default:
+                    tamanho = dados.length - pos;
+                    break;
+            }
+            ByteArrayOutputStream corpo = new ByteArrayOutputStream(tamanho);
+            copiar(corpo, tamanho);
+            return new Pacote(tag, corpo.toByteArray());
+        }
+
+        private int lerByte() throws GeneralSecurityException {
+            if (pos >= dados.length) {
+                throw new GeneralSecurityException("Pacote OpenPGP truncado");
+            }
+            return dados[pos++] & 0xFF;
+        }
+
+        private int lerInt32() throws GeneralSecurityException {
+            int valor = (lerByte() << 24) | (lerByte() << 16) | (lerByte() << 8) | lerByte();
+            if (valor < 0) {
+                throw new GeneralSecurityException("Tamanho de pacote inválido");
+            }
+            return valor;
+        }
+
+        private void copiar(ByteArrayOutputStream destino, int tamanho) throws GeneralSecurityException {
+            if (tamanho < 0 || tamanho > dados.length - pos) {
+                throw new GeneralSecurityException("Pacote OpenPGP truncado");
+            }
+            destino.write(dados, pos, tamanho);
+            pos += tamanho;
+        }
+    }
+
+    /**
+     * Variante válida do formato que este decodificador não implementa
+     */
+    public static class FormatoNaoSuportadoException extends GeneralSecurityException {
+        public FormatoNaoSuportadoException(String mensagem) {
+            super(mensagem);
+        }
+    }
+}
@@ -5,18 +5,16 @@ import br.com.backend.dto.PreenchimentoAnalyticsDTO;
 import br.com.backend.dto.CampoAnalyticsDTO;
 import br.com.backend.dto.SiteAnalyticsDTO;
 import br.com.backend.entity.PreenchimentoAnalytics;
-import br.com.backend.entity.CampoAnalytics;
-import br.com.backend.entity.CampoTemplate;
 import br.com.backend.repository.CampoTemplateRepository;
 import br.com.backend.repository.PreenchimentoAnalyticsRepository;
 import br.com.backend.repository.CampoAnalyticsRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 @Service
@@ -26,6 +24,13 @@ public class AdvancedAnalyticsService {
     private final PreenchimentoAnalyticsRepository preenchimentoRepository;
     private final CampoAnalyticsRepository campoAnalyticsRepository;
     private final CampoTemplateRepository campoTemplateRepository;
+    private final GravadorAnalytics gravadorAnalytics;
+    private final RollupAnalyticsService rollupAnalyticsService;
+    private final SerieAnalyticsService serieAnalyticsService;
+    private final RankingSitesService rankingSitesService;
+
+    // Tamanho dos rankings de campos e sites
+    private static final int TOP_K = 10;
 
     // Sem dados simulados - apenas dados reais
 
@@ -41,21 +46,13 @@ public class AdvancedAnalyticsService {
      */
     private AnalyticsResponseDTO getDadosReais(Long userId, String periodo) {
         int dias = Integer.parseInt(periodo);
-        LocalDateTime dataInicio = LocalDateTime.now().minusDays(dias);
-        
-        // Total de preenchimentos
-        Integer totalPreenchimentos = preenchimentoRepository.countByUsuarioIdAndDataPreenchimentoAfter(userId, dataInicio);
-        
-        // Tempo economizado (em segundos)
-        Integer tempoTotalSegundos = preenchimentoRepository.sumTempoEconomizadoByUsuarioIdAndDataPreenchimentoAfter(userId, dataInicio);
-        String tempoEconomizado = formatarTempo(tempoTotalSegundos != null ? tempoTotalSegundos : 0);
-        
-        // Sites únicos
-        Integer sitesUnicos = preenchimentoRepository.countDistinctSiteByUsuarioIdAndDataPreenchimentoAfter(userId, dataInicio);
         
-        // Taxa de sucesso
-        Integer totalSucessos = preenchimentoRepository.countByUsuarioIdAndDataPreenchimentoAfterAndSucessoTrue(userId, dataInicio);
-        Integer taxaSucesso = totalPreenchimentos > 0 ? (totalSucessos * 100) / totalPreenchimentos : 0;
+        // Consolidação diária + cauda ainda não consolidada, em vez de quatro agregações sobre o histórico
+        RollupAnalyticsService.Resumo resumo = rollupAnalyticsService.resumo(userId, dias);
+        Integer totalPreenchimentos = (int) resumo.getTotalPreenchimentos();
+        String tempoEconomizado = formatarTempo((int) resumo.getTempoEconomizado());
+        Integer sitesUnicos = (int) resumo.getSitesUnicos();
+        Integer taxaSucesso = totalPreenchimentos > 0 ? (int) (resumo.getTotalSucessos() * 100 / totalPreenchimentos) : 0;
         
         return new AnalyticsResponseDTO(
             totalPreenchimentos,
@@ -77,13 +74,8 @@ public class AdvancedAnalyticsService {
      * Obtém dados reais de preenchimentos
      */
     private List<PreenchimentoAnalyticsDTO> getPreenchimentosReais(Long userId, String periodo) {
-        int dias = Integer.parseInt(periodo);
-        LocalDateTime dataInicio = LocalDateTime.now().minusDays(dias);
-        
-        return preenchimentoRepository.findByUsuarioIdAndDataPreenchimentoAfterOrderByDataPreenchimento(userId, dataInicio)
-            .stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+        // Um ponto por dia, agregado no banco, em vez de uma linha por preenchimento
+        return serieAnalyticsService.listar(userId, Integer.parseInt(periodo), SerieAnalyticsService.Granularidade.DIA);
     }
 
     /**
@@ -97,11 +89,7 @@ public class AdvancedAnalyticsService {
      * Obtém dados reais de campos de template
      */
     private List<CampoAnalyticsDTO> getCamposReais(Long userId) {
-        return campoAnalyticsRepository.findByUsuarioIdOrderByQuantidadeUsosDesc(userId)
-            .stream()
-            .limit(10)
-            .map(this::convertToCampoDTO)
-            .collect(Collectors.toList());
+        return campoAnalyticsRepository.findMaisUtilizados(userId, PageRequest.of(0, TOP_K));
     }
 
     /**
@@ -115,11 +103,8 @@ public class AdvancedAnalyticsService {
      * Obtém dados reais de sites
      */
     private List<SiteAnalyticsDTO> getSitesReais(Long userId) {
-        return preenchimentoRepository.findSitesMaisAcessadosByUsuarioId(userId)
-            .stream()
-            .limit(10)
-            .map(this::convertToSiteDTO)
-            .collect(Collectors.toList());
+        // Sketch em memória do usuário, sem GROUP BY a cada consulta
+        return rankingSitesService.topSites(userId, TOP_K);
     }
 
     /**
@@ -135,6 +120,7 @@ public class AdvancedAnalyticsService {
         preenchimento.setSucesso(true);
         
         preenchimentoRepository.save(preenchimento);
+        rankingSitesService.registrar(userId, site);
         
         // Atualizar analytics do campo de template
         if (campoTemplateId != null) {
@@ -152,64 +138,10 @@ public class AdvancedAnalyticsService {
     }
 
     /**
-     * Atualiza analytics de um campo de template específico
+     * Atualiza analytics de um campo de template específico com um UPSERT atômico
      */
     private void atualizarAnalyticsCampoTemplate(Long userId, Long campoTemplateId) {
-        CampoAnalytics analytics = campoAnalyticsRepository.findByUsuarioIdAndCampoTemplateId(userId, campoTemplateId);
-        
-        if (analytics == null) {
-            analytics = new CampoAnalytics();
-            analytics.setUsuarioId(userId);
-            analytics.setCampoTemplateId(campoTemplateId);
-            analytics.setQuantidadeUsos(1);
-        } else {
-            analytics.setQuantidadeUsos(analytics.getQuantidadeUsos() + 1);
-        }
-        
-        analytics.setUltimoUso(LocalDateTime.now());
-        campoAnalyticsRepository.save(analytics);
-    }
-
-    /**
-     * Converte entidade para DTO
-     */
-    private PreenchimentoAnalyticsDTO convertToDTO(PreenchimentoAnalytics preenchimento) {
-        PreenchimentoAnalyticsDTO dto = new PreenchimentoAnalyticsDTO();
-        dto.setData(preenchimento.getDataPreenchimento());
-        dto.setQuantidade(1);
-        dto.setSite(preenchimento.getSite());
-        dto.setCampoId(preenchimento.getCampoId()); // Mantém compatibilidade
-        return dto;
-    }
-
-    /**
-     * Converte entidade de campo de template para DTO
-     */
-    private CampoAnalyticsDTO convertToCampoDTO(CampoAnalytics analytics) {
-        CampoAnalyticsDTO dto = new CampoAnalyticsDTO();
-        dto.setCampoTemplateId(analytics.getCampoTemplateId());
-        
-        campoTemplateRepository.findById(analytics.getCampoTemplateId()).ifPresent(campoTemplate -> {
-            dto.setNomeCampo(campoTemplate.getNome());
-            if (campoTemplate.getTemplate() != null) {
-                dto.setNomeTemplate(campoTemplate.getTemplate().getNome());
-            }
-        });
-        
-        dto.setQuantidadeUsos(analytics.getQuantidadeUsos());
-        dto.setUltimoUso(analytics.getUltimoUso());
-        return dto;
-    }
-
-    /**
-     * Converte resultado de site para DTO
-     */
-    private SiteAnalyticsDTO convertToSiteDTO(Object[] result) {
-        SiteAnalyticsDTO dto = new SiteAnalyticsDTO();
-        dto.setDominio((String) result[0]);
-        dto.setQuantidadePreenchimentos(((Number) result[1]).intValue());
-        dto.setTempoMedio(((Number) result[2]).doubleValue());
-        return dto;
+        gravadorAnalytics.somarUsosCampo(userId, campoTemplateId, 1);
     }
 
     /**
@@ -253,11 +185,11 @@ public class AdvancedAnalyticsService {
             }
             
             // Verificar sites mais utilizados
-            List<Object[]> sitesMaisUsados = preenchimentoRepository.findSitesMaisAcessadosByUsuarioId(userId);
+            List<SiteAnalyticsDTO> sitesMaisUsados = rankingSitesService.topSites(userId, 1);
             if (!sitesMaisUsados.isEmpty()) {
-                Object[] siteMaisUsado = sitesMaisUsados.get(0);
-                String site = (String) siteMaisUsado[0];
-                Long quantidade = (Long) siteMaisUsado[1];
+                SiteAnalyticsDTO siteMaisUsado = sitesMaisUsados.get(0);
+                String site = siteMaisUsado.getDominio();
+                Integer quantidade = siteMaisUsado.getQuantidadePreenchimentos();
                 
                 Map<String, Object> insight = new HashMap<>();
                 insight.put("titulo", "Site mais utilizado");
@@ -268,9 +200,9 @@ public class AdvancedAnalyticsService {
             }
             
             // Verificar campos de template mais utilizados
-            List<CampoAnalytics> camposMaisUsados = campoAnalyticsRepository.findByUsuarioIdOrderByQuantidadeUsosDesc(userId);
+            List<CampoAnalyticsDTO> camposMaisUsados = campoAnalyticsRepository.findMaisUtilizados(userId, PageRequest.of(0, 1));
             if (!camposMaisUsados.isEmpty()) {
-                CampoAnalytics campoMaisUsado = camposMaisUsados.get(0);
+                CampoAnalyticsDTO campoMaisUsado = camposMaisUsados.get(0);
                 
                 Map<String, Object> insight = new HashMap<>();
                 insight.put("titulo", "Campo de template mais utilizado");
@@ -5,17 +5,14 @@ import br.com.backend.dto.PreenchimentoAnalyticsDTO;
 import br.com.backend.dto.CampoAnalyticsDTO;
 import br.com.backend.dto.SiteAnalyticsDTO;
 import br.com.backend.entity.PreenchimentoAnalytics;
-import br.com.backend.entity.CampoAnalytics;
-import br.com.backend.entity.CampoTemplate;
-import br.com.backend.repository.CampoTemplateRepository;
 import br.com.backend.repository.PreenchimentoAnalyticsRepository;
 import br.com.backend.repository.CampoAnalyticsRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,28 +20,26 @@ public class AnalyticsService {
 
     private final PreenchimentoAnalyticsRepository preenchimentoRepository;
     private final CampoAnalyticsRepository campoAnalyticsRepository;
-    private final CampoTemplateRepository campoTemplateRepository;
+    private final GravadorAnalytics gravadorAnalytics;
+    private final RollupAnalyticsService rollupAnalyticsService;
+    private final SerieAnalyticsService serieAnalyticsService;
+    private final RankingSitesService rankingSitesService;
+
+    // Tamanho dos rankings de campos e sites
+    private static final int TOP_K = 10;
 
     /**
      * Obtém dados gerais de analytics do usuário
      */
     public AnalyticsResponseDTO getAnalyticsData(Long userId, String periodo) {
         int dias = Integer.parseInt(periodo);
-        LocalDateTime dataInicio = LocalDateTime.now().minusDays(dias);
-        
-        // Total de preenchimentos
-        Integer totalPreenchimentos = preenchimentoRepository.countByUsuarioIdAndDataPreenchimentoAfter(userId, dataInicio);
-        
-        // Tempo economizado (em segundos)
-        Integer tempoTotalSegundos = preenchimentoRepository.sumTempoEconomizadoByUsuarioIdAndDataPreenchimentoAfter(userId, dataInicio);
-        String tempoEconomizado = formatarTempo(tempoTotalSegundos != null ? tempoTotalSegundos : 0);
         
-        // Sites únicos
-        Integer sitesUnicos = preenchimentoRepository.countDistinctSiteByUsuarioIdAndDataPreenchimentoAfter(userId, dataInicio);
-        
-        // Taxa de sucesso
-        Integer totalSucessos = preenchimentoRepository.countByUsuarioIdAndDataPreenchimentoAfterAndSucessoTrue(userId, dataInicio);
-        Integer taxaSucesso = totalPreenchimentos > 0 ? (totalSucessos * 100) / totalPreenchimentos : 0;
+        // Consolidação diária + cauda ainda não consolidada, em vez de quatro agregações sobre o histórico
+        RollupAnalyticsService.Resumo resumo = rollupAnalyticsService.resumo(userId, dias);
+        Integer totalPreenchimentos = (int) resumo.getTotalPreenchimentos();
+        String tempoEconomizado = formatarTempo((int) resumo.getTempoEconomizado());
+        Integer sitesUnicos = (int) resumo.getSitesUnicos();
+        Integer taxaSucesso = totalPreenchimentos > 0 ? (int) (resumo.getTotalSucessos() * 100 / totalPreenchimentos) : 0;
         
         return new AnalyticsResponseDTO(
             totalPreenchimentos,
@@ -59,35 +54,23 @@ public class AnalyticsService {
      * Obtém dados de preenchimentos por período
      */
     public List<PreenchimentoAnalyticsDTO> getPreenchimentosPorPeriodo(Long userId, String periodo) {
-        int dias = Integer.parseInt(periodo);
-        LocalDateTime dataInicio = LocalDateTime.now().minusDays(dias);
-        
-        return preenchimentoRepository.findByUsuarioIdAndDataPreenchimentoAfterOrderByDataPreenchimento(userId, dataInicio)
-            .stream()
-            .map(this::convertToDTO)
-            .collect(Collectors.toList());
+        // Um ponto por dia, agregado no banco, em vez de uma linha por preenchimento
+        return serieAnalyticsService.listar(userId, Integer.parseInt(periodo), SerieAnalyticsService.Granularidade.DIA);
     }
 
     /**
      * Obtém campos de template mais utilizados
      */
     public List<CampoAnalyticsDTO> getCamposMaisUtilizados(Long userId) {
-        return campoAnalyticsRepository.findByUsuarioIdOrderByQuantidadeUsosDesc(userId)
-            .stream()
-            .limit(10) // Top 10 campos
-            .map(this::convertToCampoDTO)
-            .collect(Collectors.toList());
+        return campoAnalyticsRepository.findMaisUtilizados(userId, PageRequest.of(0, TOP_K));
     }
 
     /**
      * Obtém sites mais acessados
      */
     public List<SiteAnalyticsDTO> getSitesMaisAcessados(Long userId) {
-        return preenchimentoRepository.findSitesMaisAcessadosByUsuarioId(userId)
-            .stream()
-            .limit(10) // Top 10 sites
-            .map(this::convertToSiteDTO)
-            .collect(Collectors.toList());
+        // Sketch em memória do usuário, sem GROUP BY a cada consulta
+        return rankingSitesService.topSites(userId, TOP_K);
     }
 
     /**
@@ -103,6 +86,7 @@ public class AnalyticsService {
         preenchimento.setSucesso(true);
         
         preenchimentoRepository.save(preenchimento);
+        rankingSitesService.registrar(userId, site);
         
         // Atualizar analytics do campo de template
         if (campoTemplateId != null) {
@@ -119,65 +103,10 @@ public class AnalyticsService {
     }
 
     /**
-     * Atualiza analytics de um campo de template específico
+     * Atualiza analytics de um campo de template específico com um UPSERT atômico
      */
     private void atualizarAnalyticsCampoTemplate(Long userId, Long campoTemplateId) {
-        CampoAnalytics analytics = campoAnalyticsRepository.findByUsuarioIdAndCampoTemplateId(userId, campoTemplateId);
-        
-        if (analytics == null) {
-            analytics = new CampoAnalytics();
-            analytics.setUsuarioId(userId);
-            analytics.setCampoTemplateId(campoTemplateId);
-            analytics.setQuantidadeUsos(1);
-        } else {
-            analytics.setQuantidadeUsos(analytics.getQuantidadeUsos() + 1);
-        }
-        
-        analytics.setUltimoUso(LocalDateTime.now());
-        campoAnalyticsRepository.save(analytics);
-    }
-
-    /**
-     * Converte entidade para DTO
-     */
-    private PreenchimentoAnalyticsDTO convertToDTO(PreenchimentoAnalytics preenchimento) {
-        PreenchimentoAnalyticsDTO dto = new PreenchimentoAnalyticsDTO();
-        dto.setData(preenchimento.getDataPreenchimento());
-        dto.setQuantidade(1); // Cada registro representa 1 preenchimento
-        dto.setSite(preenchimento.getSite());
-        dto.setCampoId(preenchimento.getCampoId()); // Mantém compatibilidade
-        return dto;
-    }
-
-    /**
-     * Converte entidade de campo de template para DTO
-     */
-    private CampoAnalyticsDTO convertToCampoDTO(CampoAnalytics analytics) {
-        CampoAnalyticsDTO dto = new CampoAnalyticsDTO();
-        dto.setCampoTemplateId(analytics.getCampoTemplateId());
-        
-        // Buscar nome do campo de template e Nome do Formulário
-        campoTemplateRepository.findById(analytics.getCampoTemplateId()).ifPresent(campoTemplate -> {
-            dto.setNomeCampo(campoTemplate.getNome());
-            if (campoTemplate.getTemplate() != null) {
-                dto.setNomeTemplate(campoTemplate.getTemplate().getNome());
-            }
-        });
-        
-        dto.setQuantidadeUsos(analytics.getQuantidadeUsos());
-        dto.setUltimoUso(analytics.getUltimoUso());
-        return dto;
-    }
-
-    /**
-     * Converte resultado de site para DTO
-     */
-    private SiteAnalyticsDTO convertToSiteDTO(Object[] result) {
-        SiteAnalyticsDTO dto = new SiteAnalyticsDTO();
-        dto.setDominio((String) result[0]);
-        dto.setQuantidadePreenchimentos(((Number) result[1]).intValue());
-        dto.setTempoMedio(((Number) result[2]).doubleValue());
-        return dto;
+        gravadorAnalytics.somarUsosCampo(userId, campoTemplateId, 1);
     }
 
     /**
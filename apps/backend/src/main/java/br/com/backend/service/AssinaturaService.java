@@ -7,11 +7,14 @@ import br.com.backend.repository.AssinaturaRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -26,10 +29,15 @@ import com.stripe.exception.StripeException;
 @Slf4j
 public class AssinaturaService {
 
+    // Eventos de domínio gravados no outbox
+    public static final String EVENTO_CRIADA = "assinatura.criada";
+    public static final String EVENTO_CANCELADA = "assinatura.cancelada";
+
     private final AssinaturaRepository assinaturaRepository;
-    private final EmailService emailService;
+    private final OutboxService outboxService;
 
     @CacheEvict(value = {"assinaturas-validas", "assinaturas-ativas"}, key = "#usuarioId")
+    @Transactional
     public Assinatura criarAssinatura(Long usuarioId, String plano) {
         log.info("Criando assinatura para usuário {} com plano {}", usuarioId, plano);
         
@@ -55,6 +63,11 @@ public class AssinaturaService {
         Assinatura saved = assinaturaRepository.save(assinatura);
         
         log.debug("Assinatura após salvar - ID: {}, plano: {}, valor: {}", saved.getId(), saved.getPlano(), saved.getValor());
+
+        Map<String, Object> evento = new LinkedHashMap<>();
+        evento.put("plano", saved.getPlano());
+        evento.put("valor", saved.getValor());
+        outboxService.registrar(EVENTO_CRIADA, saved.getId(), usuarioId, evento);
         
         return saved;
     }
@@ -135,7 +148,9 @@ public class AssinaturaService {
     /**
      * Cancela uma assinatura com lógica de negócio específica
      * Seguindo a legislação brasileira (CDC Art. 49 - Direito de Arrependimento)
+     * O email de confirmação sai pelo outbox, depois do commit
      */
+    @Transactional
     public CancelamentoResponseDTO cancelarAssinatura(Long assinaturaId, CancelarAssinaturaDTO dto) {
         Assinatura assinatura = assinaturaRepository.findById(assinaturaId)
                 .orElseThrow(() -> new RuntimeException("Assinatura não encontrada"));
@@ -192,14 +207,13 @@ public class AssinaturaService {
         // Salvar novamente com campos de auditoria
         assinaturaRepository.save(assinatura);
 
-        // ✅ ENVIAR EMAIL DE CONFIRMAÇÃO DE CANCELAMENTO
-        try {
-            emailService.enviarEmailCancelamento(assinatura, dto.getMotivo(), valorReembolso, dentroDoArrependimento);
-            log.info("✅ Email de cancelamento enviado para usuário {}", assinatura.getUsuarioId());
-        } catch (Exception e) {
-            log.error("❌ Erro ao enviar email de cancelamento: {}", e.getMessage());
-            // Não falha o cancelamento se email falhar
-        }
+        // ✅ EMAIL DE CONFIRMAÇÃO DE CANCELAMENTO: gravado no outbox na mesma transação
+        Map<String, Object> evento = new LinkedHashMap<>();
+        evento.put("motivo", dto.getMotivo());
+        evento.put("valorReembolso", valorReembolso);
+        evento.put("dentroDoArrependimento", dentroDoArrependimento);
+        evento.put("tipoReembolso", tipoReembolso);
+        outboxService.registrar(EVENTO_CANCELADA, assinatura.getId(), assinatura.getUsuarioId(), evento);
 
         // Criar resposta
         String mensagem = gerarMensagemCancelamento(dataFim, tipoReembolso, valorReembolso, dentroDoArrependimento);
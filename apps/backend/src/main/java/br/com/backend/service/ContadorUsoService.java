@@ -0,0 +1,237 @@
+package br.com.backend.service;
+
+import br.com.backend.kafka.EventoAnalytics;
+import br.com.backend.kafka.PublicadorEventosAnalytics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contagem de uso de templates em memória (write-behind).
+ * O registro é só um LongAdder por template; a gravação sai em lote periódico com
+ * UPDATE total_uso = total_uso + ?, no template e nos seus campos ativos, sem ler as entidades
+ * e sem perder incrementos concorrentes. Com app.kafka.enabled=true o uso vira um evento no tópico de
+ * analytics e é somado em lote pelo consumidor ({@link #gravarUsos}); o contador em memória só fica com
+ * os usos que o broker recusar ou não confirmar.
+ * Uso não é alteração de template: a gravação não mexe em data_atualizacao, na versão (ETag e cache de
+ * payload) nem publica evento SSE, senão quem preenche formulários invalidaria o próprio cache e
+ * dispararia um sync delta a cada ciclo. totalUso/ultimoUso nas listagens versionadas acompanham a
+ * próxima alteração real; o valor corrente sai do registro de uso.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContadorUsoService {
+
+    private static final String SQL_TEMPLATES =
+            "UPDATE templates SET total_uso = COALESCE(total_uso, 0) + ?, ultimo_uso = ? WHERE id = ?";
+
+    // Um preenchimento usa todos os campos ativos do template
+    private static final String SQL_CAMPOS =
+            "UPDATE campos_template SET total_uso = COALESCE(total_uso, 0) + ?, ultimo_uso = ? "
+            + "WHERE template_id = ? AND ativo = true";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<PublicadorEventosAnalytics> publicadorEventos;
+
+    private final ConcurrentHashMap<Long, Contador> pendentes = new ConcurrentHashMap<>();
+
+    // Contadores retirados no último flush: quem já tinha a referência pode ter incrementado depois da leitura
+    private final List<Contador> retirados = new ArrayList<>();
+
+    private Counter registrados;
+    private Counter gravados;
+
+    @PostConstruct
+    void init() {
+        registrados = Counter.builder("formsync.usage.recorded")
+                .description("Usos de template registrados em memória").register(meterRegistry);
+        gravados = Counter.builder("formsync.usage.flushed")
+                .description("Usos de template gravados no banco").register(meterRegistry);
+        Gauge.builder("formsync.usage.pending_templates", pendentes, Map::size)
+                .description("Templates com uso ainda não gravado").register(meterRegistry);
+    }
+
+    /**
+     * Registra um uso do template; O(1) e sem lock no caminho da requisição
+     */
+    public void registrarUso(Long templateId, Long usuarioId) {
+        registrados.increment();
+        PublicadorEventosAnalytics publicador = publicadorEventos.getIfAvailable();
+        // Uso não é analytics descartável: sem confirmação do broker ele volta para o contador local
+        if (publicador != null && publicador.publicar(EventoAnalytics.usoTemplate(usuarioId, templateId, LocalDateTime.now()),
+                () -> contar(templateId, usuarioId))) {
+            return;
+        }
+        contar(templateId, usuarioId);
+    }
+
+    private void contar(Long templateId, Long usuarioId) {
+        pendentes.computeIfAbsent(templateId, id -> new Contador(id, usuarioId)).registrar();
+    }
+
+    /**
+     * Usos registrados e ainda não gravados do template
+     */
+    public long pendentes(Long templateId) {
+        Contador contador = pendentes.get(templateId);
+        return contador != null ? contador.usos.sum() : 0L;
+    }
+
+    /**
+     * Grava os usos acumulados em lote; em caso de erro os valores voltam para o próximo ciclo
+     */
+    @Scheduled(fixedDelayString = "${app.usage.flush-interval:5000}")
+    public synchronized void gravar() {
+        Map<Long, Lote> lote = new LinkedHashMap<>();
+
+        for (Contador contador : retirados) {
+            acumular(lote, contador, contador.usos.sum() - contador.gravados);
+        }
+        retirados.clear();
+
+        for (Long templateId : pendentes.keySet()) {
+            Contador contador = pendentes.remove(templateId);
+            if (contador == null) {
+                continue;
+            }
+            long usos = contador.usos.sum();
+            contador.gravados = usos;
+            retirados.add(contador);
+            acumular(lote, contador, usos);
+        }
+
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> persistir(lote.values()));
+            long total = lote.values().stream().mapToLong(item -> item.usos).sum();
+            gravados.increment(total);
+            log.debug("📈 [USO] {} usos de {} templates gravados", total, lote.size());
+        } catch (Exception e) {
+            log.error("❌ [USO] Erro ao gravar uso de {} templates, nova tentativa no próximo ciclo: {}",
+                    lote.size(), e.getMessage());
+            for (Lote item : lote.values()) {
+                Contador contador = pendentes.computeIfAbsent(item.templateId, id -> new Contador(id, item.usuarioId));
+                contador.usos.add(item.usos);
+                contador.ultimoUso = Math.max(contador.ultimoUso, item.ultimoUso);
+            }
+        }
+    }
+
+    /**
+     * Soma usos já recebidos (lote do consumidor Kafka) direto no banco, na transação de quem chama
+     */
+    public void gravarUsos(List<Uso> usos) {
+        if (usos.isEmpty()) {
+            return;
+        }
+        Map<Long, Lote> lote = new LinkedHashMap<>();
+        for (Uso uso : usos) {
+            Lote item = lote.computeIfAbsent(uso.templateId, id -> new Lote(id, uso.usuarioId));
+            item.usos++;
+            item.ultimoUso = Math.max(item.ultimoUso, uso.dataHora.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        persistir(lote.values());
+        gravados.increment(usos.size());
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        gravar();
+        // Segunda passada para o resíduo dos contadores retirados na primeira
+        gravar();
+    }
+
+    private void persistir(Iterable<Lote> itens) {
+        List<Object[]> templates = new ArrayList<>();
+        List<Object[]> campos = new ArrayList<>();
+        for (Lote item : itens) {
+            Timestamp ultimoUso = Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(item.ultimoUso), ZoneId.systemDefault()));
+            templates.add(new Object[]{item.usos, ultimoUso, item.templateId});
+            campos.add(new Object[]{item.usos, ultimoUso, item.templateId});
+        }
+
+        jdbcTemplate.batchUpdate(SQL_TEMPLATES, templates);
+        jdbcTemplate.batchUpdate(SQL_CAMPOS, campos);
+    }
+
+    private void acumular(Map<Long, Lote> lote, Contador contador, long usos) {
+        if (usos <= 0) {
+            return;
+        }
+        Lote item = lote.computeIfAbsent(contador.templateId, id -> new Lote(id, contador.usuarioId));
+        item.usos += usos;
+        item.ultimoUso = Math.max(item.ultimoUso, contador.ultimoUso);
+    }
+
+    /**
+     * Um uso de template recebido de outro nó
+     */
+    public static final class Uso {
+        private final Long templateId;
+        private final Long usuarioId;
+        private final LocalDateTime dataHora;
+
+        public Uso(Long templateId, Long usuarioId, LocalDateTime dataHora) {
+            this.templateId = templateId;
+            this.usuarioId = usuarioId;
+            this.dataHora = dataHora;
+        }
+    }
+
+    private static final class Contador {
+        private final Long templateId;
+        private final Long usuarioId;
+        private final LongAdder usos = new LongAdder();
+        private volatile long ultimoUso;
+        // Só lido e escrito pela thread de gravação
+        private long gravados;
+
+        private Contador(Long templateId, Long usuarioId) {
+            this.templateId = templateId;
+            this.usuarioId = usuarioId;
+        }
+
+        private void registrar() {
+            usos.increment();
+            ultimoUso = System.currentTimeMillis();
+        }
+    }
+
+    private static final class Lote {
+        private final Long templateId;
+        private final Long usuarioId;
+        private long usos;
+        private long ultimoUso;
+
+        private Lote(Long templateId, Long usuarioId) {
+            this.templateId = templateId;
+            this.usuarioId = usuarioId;
+        }
+    }
+}
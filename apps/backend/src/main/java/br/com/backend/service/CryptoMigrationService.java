@@ -0,0 +1,395 @@
+package br.com.backend.service;
+
+import br.com.backend.entity.MigracaoCriptografia;
+import br.com.backend.exception.BusinessException;
+import br.com.backend.repository.MigracaoCriptografiaRepository;
+import br.com.backend.security.EncryptionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Migra campos_template.valor dos formatos pgcrypto (\x), AES-CBC legado e texto puro
+ * para o formato "enc:" (AES-GCM) em segundo plano, em lotes paginados por id,
+ * com limite de linhas por segundo e checkpoint para retomar de onde parou.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CryptoMigrationService {
+
+    private static final String NOME = "campos_template.valor";
+
+    private static final String SQL_LOTE =
+            "SELECT id, valor FROM campos_template WHERE id > ? ORDER BY id LIMIT ?";
+
+    // Só grava se o valor não mudou desde a leitura, para não sobrescrever edições concorrentes
+    private static final String SQL_ATUALIZAR =
+            "UPDATE campos_template SET valor = ? WHERE id = ? AND valor = ?";
+
+    private static final String SQL_MAIOR_ID = "SELECT COALESCE(MAX(id), 0) FROM campos_template";
+
+    // Os valores gravados mudam, então os ETags dos donos dos campos do lote precisam mudar também
+    private static final String SQL_INCREMENTAR_VERSOES =
+            "UPDATE usuarios SET templates_versao = COALESCE(templates_versao, 0) + 1 WHERE id IN ("
+            + "SELECT t.usuario_id FROM templates t JOIN campos_template c ON c.template_id = t.id "
+            + "WHERE c.id BETWEEN ? AND ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MigracaoCriptografiaRepository migracaoRepository;
+    private final CryptoService cryptoService;
+    private final PGPDecryptionService pgpDecryptionService;
+    private final EncryptionService encryptionService;
+    private final DecryptedValueCache decryptedValueCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.crypto.migration.enabled:false}")
+    private boolean autoStart;
+
+    @Value("${app.crypto.migration.chunk-size:500}")
+    private int chunkSize = 500;
+
+    @Value("${app.crypto.migration.rows-per-second:1000}")
+    private int rowsPerSecond = 1000;
+
+    @Value("${app.crypto.migration.include-cbc:true}")
+    private boolean includeCbc = true;
+
+    @Value("${app.crypto.migration.include-plaintext:true}")
+    private boolean includePlaintext = true;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "crypto-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean executando = new AtomicBoolean(false);
+    private volatile boolean pararSolicitado;
+    private final AtomicLong ultimoIdProcessado = new AtomicLong();
+
+    private Counter migrados;
+    private Counter ignorados;
+    private Counter falhas;
+    private Counter conflitos;
+
+    @PostConstruct
+    public void registrarMetricas() {
+        migrados = contador("migrated");
+        ignorados = contador("skipped");
+        falhas = contador("failed");
+        conflitos = contador("conflict");
+        Gauge.builder("formsync.crypto.migration.last_id", ultimoIdProcessado, AtomicLong::get)
+                .description("Último id de campos_template processado pela migração").register(meterRegistry);
+        Gauge.builder("formsync.crypto.migration.running", executando, e -> e.get() ? 1 : 0)
+                .description("Migração de criptografia em execução").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciarAutomaticamente() {
+        if (!autoStart) {
+            return;
+        }
+        MigracaoCriptografia migracao = migracaoRepository.findById(NOME).orElse(null);
+        if (migracao != null && "CONCLUIDA".equals(migracao.getStatus())) {
+            log.info("🔐 Migração de criptografia já concluída, nada a fazer");
+            return;
+        }
+        try {
+            iniciar();
+        } catch (BusinessException e) {
+            log.warn("⚠️ Migração de criptografia não iniciada: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Inicia (ou retoma a partir do checkpoint) a migração em segundo plano.
+     * Retorna false se já estiver em execução.
+     */
+    public boolean iniciar() {
+        if (!cryptoService.isEnabled()) {
+            throw new BusinessException("Criptografia AES-GCM desabilitada: configure app.crypto.secret");
+        }
+        if (!executando.compareAndSet(false, true)) {
+            return false;
+        }
+        pararSolicitado = false;
+        executor.submit(this::executarComControle);
+        return true;
+    }
+
+    /**
+     * Solicita a pausa; o lote em andamento termina e o checkpoint fica salvo
+     */
+    public void pausar() {
+        pararSolicitado = true;
+    }
+
+    public boolean isExecutando() {
+        return executando.get();
+    }
+
+    /**
+     * Progresso atual da migração
+     */
+    public Map<String, Object> progresso() {
+        MigracaoCriptografia migracao = carregarCheckpoint();
+        Long maiorId = jdbcTemplate.queryForObject(SQL_MAIOR_ID, Long.class);
+        long total = maiorId != null ? maiorId : 0L;
+
+        Map<String, Object> progresso = new LinkedHashMap<>();
+        progresso.put("status", migracao.getStatus());
+        progresso.put("executando", executando.get());
+        progresso.put("ultimoId", migracao.getUltimoId());
+        progresso.put("maiorId", total);
+        progresso.put("percentual", total == 0 ? 100.0
+                : Math.min(100.0, Math.round(migracao.getUltimoId() * 10000.0 / total) / 100.0));
+        progresso.put("migrados", migracao.getMigrados());
+        progresso.put("ignorados", migracao.getIgnorados());
+        progresso.put("falhas", migracao.getFalhas());
+        progresso.put("linhasPorSegundo", rowsPerSecond);
+        progresso.put("tamanhoLote", chunkSize);
+        progresso.put("ultimoErro", migracao.getUltimoErro());
+        progresso.put("iniciadoEm", migracao.getIniciadoEm());
+        progresso.put("atualizadoEm", migracao.getAtualizadoEm());
+        return progresso;
+    }
+
+    private void executarComControle() {
+        try {
+            executar();
+        } finally {
+            executando.set(false);
+        }
+    }
+
+    /**
+     * Processa lotes a partir do checkpoint até terminar a tabela ou receber pedido de pausa
+     */
+    public void executar() {
+        MigracaoCriptografia migracao = carregarCheckpoint();
+        migracao.setStatus("EXECUTANDO");
+        migracao.setUltimoErro(null);
+        if (migracao.getIniciadoEm() == null) {
+            migracao.setIniciadoEm(LocalDateTime.now());
+        }
+        migracao.setAtualizadoEm(LocalDateTime.now());
+        migracao = migracaoRepository.save(migracao);
+        log.info("🔐 Migração de criptografia iniciada a partir do id {}", migracao.getUltimoId());
+
+        try {
+            while (!pararSolicitado) {
+                long inicio = System.nanoTime();
+                List<Linha> linhas = jdbcTemplate.query(SQL_LOTE,
+                        (rs, i) -> new Linha(rs.getLong("id"), rs.getString("valor")),
+                        migracao.getUltimoId(), chunkSize);
+
+                if (linhas.isEmpty()) {
+                    migracao.setStatus("CONCLUIDA");
+                    break;
+                }
+
+                migracao = processarLote(migracao, linhas);
+                aguardarLimite(linhas.size(), System.nanoTime() - inicio);
+            }
+
+            if (pararSolicitado && !"CONCLUIDA".equals(migracao.getStatus())) {
+                migracao.setStatus("PAUSADA");
+            }
+            log.info("✅ Migração de criptografia {}: {} migrados, {} ignorados, {} falhas",
+                    migracao.getStatus(), migracao.getMigrados(), migracao.getIgnorados(), migracao.getFalhas());
+        } catch (Exception e) {
+            migracao.setStatus("ERRO");
+            migracao.setUltimoErro(e.getMessage() != null && e.getMessage().length() > 500
+                    ? e.getMessage().substring(0, 500) : e.getMessage());
+            log.error("❌ Erro na migração de criptografia no id {}: {}", migracao.getUltimoId(), e.getMessage(), e);
+        }
+
+        migracao.setAtualizadoEm(LocalDateTime.now());
+        migracaoRepository.save(migracao);
+    }
+
+    /**
+     * Converte um lote e grava as atualizações junto com o checkpoint em uma única transação
+     */
+    private MigracaoCriptografia processarLote(MigracaoCriptografia migracao, List<Linha> linhas) {
+        List<Linha> pgp = new ArrayList<>();
+        List<Linha> pendentes = new ArrayList<>();
+        List<String> textosPuros = new ArrayList<>();
+        long ignoradosLote = 0;
+        long falhasLote = 0;
+
+        for (Linha linha : linhas) {
+            String valor = linha.valor;
+            if (valor == null || valor.isBlank() || cryptoService.isEncrypted(valor)) {
+                ignoradosLote++;
+            } else if (pgpDecryptionService.isPGPValue(valor)) {
+                pgp.add(linha);
+            } else {
+                String cbc = decryptCbc(valor);
+                if (cbc != null) {
+                    pendentes.add(linha);
+                    textosPuros.add(cbc);
+                } else if (includePlaintext) {
+                    pendentes.add(linha);
+                    textosPuros.add(valor);
+                } else {
+                    ignoradosLote++;
+                }
+            }
+        }
+
+        if (!pgp.isEmpty()) {
+            Map<String, String> descriptografados = pgpDecryptionService.decryptAll(
+                    pgp.stream().map(linha -> linha.valor).toList());
+            for (Linha linha : pgp) {
+                String texto = descriptografados.get(linha.valor);
+                if (texto == null || texto.equals(linha.valor)) {
+                    falhasLote++;
+                    log.warn("⚠️ Migração: valor PGP do campo {} não pôde ser descriptografado", linha.id);
+                } else {
+                    pendentes.add(linha);
+                    textosPuros.add(texto);
+                }
+            }
+        }
+
+        List<String> cifrados = cryptoService.encryptAll(textosPuros);
+        List<Object[]> atualizacoes = new ArrayList<>(pendentes.size());
+        for (int i = 0; i < pendentes.size(); i++) {
+            if (!cryptoService.isEncrypted(cifrados.get(i))) {
+                falhasLote++;
+                continue;
+            }
+            atualizacoes.add(new Object[]{cifrados.get(i), pendentes.get(i).id, pendentes.get(i).valor});
+        }
+
+        long ultimoId = linhas.get(linhas.size() - 1).id;
+        long ignoradosFinal = ignoradosLote;
+        long falhasFinal = falhasLote;
+        MigracaoCriptografia atual = migracao;
+        MigracaoCriptografia salva = transactionTemplate.execute(status -> {
+            long migradosLote = 0;
+            long conflitosLote = 0;
+            if (!atualizacoes.isEmpty()) {
+                for (int afetadas : jdbcTemplate.batchUpdate(SQL_ATUALIZAR, atualizacoes)) {
+                    // Alguns drivers retornam SUCCESS_NO_INFO (-2) em lote
+                    if (afetadas != 0) {
+                        migradosLote++;
+                    } else {
+                        conflitosLote++;
+                    }
+                }
+                jdbcTemplate.update(SQL_INCREMENTAR_VERSOES, linhas.get(0).id, ultimoId);
+            }
+            migrados.increment(migradosLote);
+            conflitos.increment(conflitosLote);
+
+            atual.setUltimoId(ultimoId);
+            atual.setMigrados(atual.getMigrados() + migradosLote);
+            atual.setIgnorados(atual.getIgnorados() + ignoradosFinal + conflitosLote);
+            atual.setFalhas(atual.getFalhas() + falhasFinal);
+            atual.setAtualizadoEm(LocalDateTime.now());
+            return migracaoRepository.save(atual);
+        });
+
+        ignorados.increment(ignoradosLote);
+        falhas.increment(falhasLote);
+        ultimoIdProcessado.set(ultimoId);
+        decryptedValueCache.invalidate(pendentes.stream().map(linha -> linha.valor).toList());
+        return salva;
+    }
+
+    /**
+     * Tenta abrir um valor AES-CBC legado (EncryptionService). Retorna null se não for desse formato.
+     * Exige Base64 em blocos de 16 bytes, padding válido e UTF-8 íntegro para não confundir texto puro.
+     */
+    private String decryptCbc(String valor) {
+        if (!includeCbc || valor.length() < 24 || valor.length() % 4 != 0) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.getDecoder().decode(valor);
+            if (bytes.length % 16 != 0) {
+                return null;
+            }
+            String texto = encryptionService.decrypt(valor);
+            return texto != null && texto.indexOf('\uFFFD') < 0 ? texto : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void aguardarLimite(int linhas, long decorridoNanos) {
+        if (rowsPerSecond <= 0) {
+            return;
+        }
+        long esperadoNanos = linhas * 1_000_000_000L / rowsPerSecond;
+        long restanteMs = TimeUnit.NANOSECONDS.toMillis(esperadoNanos - decorridoNanos);
+        if (restanteMs > 0) {
+            try {
+                Thread.sleep(restanteMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pararSolicitado = true;
+            }
+        }
+    }
+
+    private MigracaoCriptografia carregarCheckpoint() {
+        return migracaoRepository.findById(NOME)
+                .orElseGet(() -> MigracaoCriptografia.builder().nome(NOME).build());
+    }
+
+    private Counter contador(String resultado) {
+        return Counter.builder("formsync.crypto.migration.rows").tag("result", resultado)
+                .description("Linhas de campos_template processadas pela migração de criptografia")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        pararSolicitado = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("⚠️ Migração de criptografia não terminou o lote atual antes do desligamento");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Linha {
+        private final long id;
+        private final String valor;
+
+        private Linha(long id, String valor) {
+            this.id = id;
+            this.valor = valor;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package br.com.backend.service;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -8,19 +9,28 @@ import jakarta.annotation.PostConstruct;
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class CryptoService {
 
     private static final String PREFIX = "enc:";
     private static final int GCM_TAG_BITS = 128;
+    private static final int GCM_TAG_LENGTH = GCM_TAG_BITS / 8;
     private static final int GCM_IV_LENGTH = 12;
+    private static final int IV_PREFIX_LENGTH = 4;
 
     @Value("${app.crypto.enabled:true}")
     private boolean cryptoEnabled;
@@ -28,8 +38,17 @@ public class CryptoService {
     @Value("${app.crypto.secret:}")
     private String cryptoSecret;
 
+    private final DecryptedValueCache decryptedValueCache;
+
     private SecretKeySpec keySpec;
-    private final SecureRandom secureRandom = new SecureRandom();
+
+    // IV = prefixo aleatório por chave (4 bytes) + contador de 64 bits com início aleatório.
+    // Nunca se repete para a mesma chave dentro do processo e não disputa o SecureRandom.
+    private final byte[] ivPrefix = new byte[IV_PREFIX_LENGTH];
+    private final AtomicLong ivCounter = new AtomicLong();
+
+    // Cipher e buffers confinados à thread: nada de Cipher.getInstance nem cópias por valor
+    private final ThreadLocal<Pipeline> pipeline = ThreadLocal.withInitial(Pipeline::new);
 
     @PostConstruct
     public void init() {
@@ -50,6 +69,10 @@ public class CryptoService {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
             byte[] keyBytes = digest.digest(cryptoSecret.getBytes(StandardCharsets.UTF_8));
             keySpec = new SecretKeySpec(keyBytes, "AES");
+
+            SecureRandom secureRandom = new SecureRandom();
+            secureRandom.nextBytes(ivPrefix);
+            ivCounter.set(secureRandom.nextLong());
             log.info("Criptografia inicializada com sucesso");
         } catch (Exception e) {
             cryptoEnabled = false;
@@ -57,54 +80,166 @@ public class CryptoService {
         }
     }
 
+    public boolean isEnabled() {
+        return cryptoEnabled;
+    }
+
+    public boolean isEncrypted(String value) {
+        return value != null && value.startsWith(PREFIX);
+    }
+
     public String encryptIfEnabled(String plaintext) {
         if (!cryptoEnabled || plaintext == null || plaintext.isBlank()) {
             return plaintext;
         }
-        try {
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            secureRandom.nextBytes(iv);
-
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-            GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_BITS, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec, spec);
-            byte[] ciphertext = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
-
-            ByteBuffer buffer = ByteBuffer.allocate(iv.length + ciphertext.length);
-            buffer.put(iv);
-            buffer.put(ciphertext);
-            String encoded = Base64.getEncoder().encodeToString(buffer.array());
-            return PREFIX + encoded;
-        } catch (Exception e) {
-            // Em caso de falha, retorna o texto puro para não quebrar fluxo
-            return plaintext;
-        }
+        return pipeline.get().encrypt(plaintext);
     }
 
     public String decryptIfEncrypted(String maybeEncrypted) {
         if (maybeEncrypted == null || !maybeEncrypted.startsWith(PREFIX) || !cryptoEnabled) {
             return maybeEncrypted;
         }
-        try {
-            String data = maybeEncrypted.substring(PREFIX.length());
-            byte[] all = Base64.getDecoder().decode(data);
-            ByteBuffer buffer = ByteBuffer.wrap(all);
-
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            buffer.get(iv);
-            byte[] ciphertext = new byte[buffer.remaining()];
-            buffer.get(ciphertext);
-
-            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-            GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_BITS, iv);
-            cipher.init(Cipher.DECRYPT_MODE, keySpec, spec);
-            byte[] plaintext = cipher.doFinal(ciphertext);
-            return new String(plaintext, StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            // Em caso de falha de descriptografia, retorna valor original
-            return maybeEncrypted;
+        return decryptedValueCache.get(maybeEncrypted, valor -> pipeline.get().decrypt(valor));
+    }
+
+    /**
+     * Criptografa vários valores reaproveitando o mesmo Cipher e buffers da thread.
+     * Retorna os valores na mesma ordem; nulos e vazios são mantidos como estão.
+     */
+    public List<String> encryptAll(List<String> plaintexts) {
+        if (plaintexts == null) {
+            return null;
         }
+
+        List<String> resultado = new ArrayList<>(plaintexts.size());
+        if (!cryptoEnabled) {
+            resultado.addAll(plaintexts);
+            return resultado;
+        }
+
+        Pipeline atual = pipeline.get();
+        for (String plaintext : plaintexts) {
+            resultado.add(plaintext == null || plaintext.isBlank() ? plaintext : atual.encrypt(plaintext));
+        }
+        return resultado;
     }
-}
 
+    /**
+     * Descriptografa vários valores reaproveitando o mesmo Cipher e buffers da thread.
+     * Retorna um mapa valor original -> valor descriptografado; valores não criptografados
+     * (ou que falharem) são mapeados para eles mesmos.
+     */
+    public Map<String, String> decryptAll(Collection<String> values) {
+        Map<String, String> resultado = new HashMap<>();
+        if (values == null || values.isEmpty()) {
+            return resultado;
+        }
+
+        Pipeline atual = null;
+        for (String valor : values) {
+            if (valor == null || resultado.containsKey(valor)) {
+                continue;
+            }
+            if (!cryptoEnabled || !valor.startsWith(PREFIX)) {
+                resultado.put(valor, valor);
+                continue;
+            }
+
+            String decrypted = decryptedValueCache.get(valor);
+            if (decrypted == null) {
+                if (atual == null) {
+                    atual = pipeline.get();
+                }
+                decrypted = atual.decrypt(valor);
+                if (!decrypted.equals(valor)) {
+                    decryptedValueCache.put(valor, decrypted);
+                }
+            }
+            resultado.put(valor, decrypted);
+        }
+        return resultado;
+    }
+
+    private void nextIv(byte[] destino) {
+        System.arraycopy(ivPrefix, 0, destino, 0, IV_PREFIX_LENGTH);
+        long contador = ivCounter.getAndIncrement();
+        for (int i = GCM_IV_LENGTH - 1; i >= IV_PREFIX_LENGTH; i--) {
+            destino[i] = (byte) contador;
+            contador >>>= 8;
+        }
+    }
 
+    /**
+     * Estado de criptografia de uma thread: Cipher reutilizável e buffers que só crescem
+     */
+    private final class Pipeline {
+        private final Cipher cipher;
+        private final byte[] iv = new byte[GCM_IV_LENGTH];
+        private byte[] base64 = new byte[512];
+        private byte[] dados = new byte[384];
+        private byte[] texto = new byte[384];
+
+        private Pipeline() {
+            try {
+                cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            } catch (Exception e) {
+                throw new IllegalStateException("AES/GCM indisponível", e);
+            }
+        }
+
+        private String encrypt(String plaintext) {
+            byte[] entrada = plaintext.getBytes(StandardCharsets.UTF_8);
+            try {
+                nextIv(iv);
+                cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(GCM_TAG_BITS, iv));
+
+                // IV || ciphertext || tag escritos direto no array final, sem ByteBuffer intermediário
+                byte[] saida = new byte[GCM_IV_LENGTH + cipher.getOutputSize(entrada.length)];
+                System.arraycopy(iv, 0, saida, 0, GCM_IV_LENGTH);
+                cipher.doFinal(entrada, 0, entrada.length, saida, GCM_IV_LENGTH);
+
+                if (base64.length < 4 * ((saida.length + 2) / 3)) {
+                    base64 = new byte[4 * ((saida.length + 2) / 3)];
+                }
+                int tamanho = Base64.getEncoder().encode(saida, base64);
+                return PREFIX + new String(base64, 0, tamanho, StandardCharsets.ISO_8859_1);
+            } catch (Exception e) {
+                // Em caso de falha, retorna o texto puro para não quebrar fluxo
+                return plaintext;
+            } finally {
+                Arrays.fill(entrada, (byte) 0);
+            }
+        }
+
+        private String decrypt(String maybeEncrypted) {
+            int tamanhoTexto = 0;
+            try {
+                byte[] codificado = new byte[maybeEncrypted.length() - PREFIX.length()];
+                for (int i = 0; i < codificado.length; i++) {
+                    codificado[i] = (byte) maybeEncrypted.charAt(PREFIX.length() + i);
+                }
+
+                if (dados.length < codificado.length) {
+                    dados = new byte[codificado.length];
+                }
+                int tamanho = Base64.getDecoder().decode(codificado, dados);
+                if (tamanho < GCM_IV_LENGTH + GCM_TAG_LENGTH) {
+                    return maybeEncrypted;
+                }
+
+                if (texto.length < tamanho) {
+                    texto = new byte[tamanho];
+                }
+                cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(GCM_TAG_BITS, dados, 0, GCM_IV_LENGTH));
+                tamanhoTexto = cipher.doFinal(dados, GCM_IV_LENGTH, tamanho - GCM_IV_LENGTH, texto, 0);
+                return new String(texto, 0, tamanhoTexto, StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                // Em caso de falha de descriptografia, retorna valor original
+                return maybeEncrypted;
+            } finally {
+                // Não deixa texto claro para trás no buffer reutilizado
+                Arrays.fill(texto, 0, tamanhoTexto, (byte) 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package br.com.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache LRU com TTL de valores descriptografados, indexado pelo SHA-256 do texto cifrado.
+ * O texto claro fica em char[] que é zerado sempre que a entrada sai do cache.
+ */
+@Component
+@Slf4j
+public class DecryptedValueCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // LinkedHashMap em ordem de acesso = LRU; acesso sempre sob o monitor do próprio mapa
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictionsSize;
+    private final Counter evictionsExpired;
+    private final Counter evictionsInvalidated;
+
+    public DecryptedValueCache(MeterRegistry meterRegistry,
+                               @Value("${app.crypto.cache.enabled:true}") boolean enabled,
+                               @Value("${app.crypto.cache.max-entries:10000}") int maxEntries,
+                               @Value("${app.crypto.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+
+        this.hits = Counter.builder("formsync.crypto.cache.requests").tag("result", "hit")
+                .description("Consultas ao cache de valores descriptografados").register(meterRegistry);
+        this.misses = Counter.builder("formsync.crypto.cache.requests").tag("result", "miss")
+                .description("Consultas ao cache de valores descriptografados").register(meterRegistry);
+        this.evictionsSize = Counter.builder("formsync.crypto.cache.evictions").tag("cause", "size")
+                .description("Entradas removidas do cache de valores descriptografados").register(meterRegistry);
+        this.evictionsExpired = Counter.builder("formsync.crypto.cache.evictions").tag("cause", "expired")
+                .description("Entradas removidas do cache de valores descriptografados").register(meterRegistry);
+        this.evictionsInvalidated = Counter.builder("formsync.crypto.cache.evictions").tag("cause", "invalidated")
+                .description("Entradas removidas do cache de valores descriptografados").register(meterRegistry);
+        Gauge.builder("formsync.crypto.cache.size", this, DecryptedValueCache::size)
+                .description("Entradas no cache de valores descriptografados").register(meterRegistry);
+    }
+
+    /**
+     * Retorna o valor em cache ou descriptografa e armazena.
+     * Resultados iguais à entrada (falha de descriptografia) não são armazenados.
+     */
+    public String get(String ciphertext, Function<String, String> decryptor) {
+        if (!enabled || ciphertext == null) {
+            return decryptor.apply(ciphertext);
+        }
+
+        String cached = get(ciphertext);
+        if (cached != null) {
+            return cached;
+        }
+
+        String plaintext = decryptor.apply(ciphertext);
+        if (plaintext != null && !plaintext.equals(ciphertext)) {
+            put(ciphertext, plaintext);
+        }
+        return plaintext;
+    }
+
+    /**
+     * Busca um valor descriptografado; retorna null se ausente ou expirado
+     */
+    public String get(String ciphertext) {
+        if (!enabled || ciphertext == null) {
+            return null;
+        }
+
+        String chave = chave(ciphertext);
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(chave);
+            if (entrada == null) {
+                misses.increment();
+                return null;
+            }
+            if (entrada.expirada(System.nanoTime(), ttlNanos)) {
+                entradas.remove(chave);
+                entrada.zerar();
+                evictionsExpired.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return new String(entrada.valor);
+        }
+    }
+
+    public void put(String ciphertext, String plaintext) {
+        if (!enabled || ciphertext == null || plaintext == null) {
+            return;
+        }
+
+        String chave = chave(ciphertext);
+        Entrada nova = new Entrada(plaintext.toCharArray(), System.nanoTime());
+        synchronized (entradas) {
+            Entrada anterior = entradas.put(chave, nova);
+            if (anterior != null) {
+                anterior.zerar();
+            }
+            Iterator<Entrada> iterator = entradas.values().iterator();
+            while (entradas.size() > maxEntries && iterator.hasNext()) {
+                Entrada maisAntiga = iterator.next();
+                iterator.remove();
+                maisAntiga.zerar();
+                evictionsSize.increment();
+            }
+        }
+    }
+
+    /**
+     * Remove valores cujo texto cifrado foi reescrito ou removido
+     */
+    public void invalidate(Collection<String> ciphertexts) {
+        if (!enabled || ciphertexts == null || ciphertexts.isEmpty()) {
+            return;
+        }
+
+        int removidas = 0;
+        synchronized (entradas) {
+            for (String ciphertext : ciphertexts) {
+                if (ciphertext == null) {
+                    continue;
+                }
+                Entrada entrada = entradas.remove(chave(ciphertext));
+                if (entrada != null) {
+                    entrada.zerar();
+                    removidas++;
+                }
+            }
+        }
+        evictionsInvalidated.increment(removidas);
+        log.debug("Cache de valores descriptografados: {} entradas invalidadas", removidas);
+    }
+
+    public void clear() {
+        synchronized (entradas) {
+            entradas.values().forEach(Entrada::zerar);
+            evictionsInvalidated.increment(entradas.size());
+            entradas.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    /**
+     * Remove e zera periodicamente as entradas expiradas que não foram mais consultadas
+     */
+    @Scheduled(fixedDelayString = "${app.crypto.cache.cleanup-interval:60000}")
+    public void removerExpiradas() {
+        if (!enabled) {
+            return;
+        }
+
+        long agora = System.nanoTime();
+        int removidas = 0;
+        synchronized (entradas) {
+            Iterator<Map.Entry<String, Entrada>> iterator = entradas.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Entrada entrada = iterator.next().getValue();
+                if (entrada.expirada(agora, ttlNanos)) {
+                    iterator.remove();
+                    entrada.zerar();
+                    removidas++;
+                }
+            }
+        }
+        if (removidas > 0) {
+            evictionsExpired.increment(removidas);
+            log.debug("Cache de valores descriptografados: {} entradas expiradas removidas", removidas);
+        }
+    }
+
+    private String chave(String ciphertext) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(ciphertext.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private static final class Entrada {
+        private final char[] valor;
+        private final long criadoEm;
+
+        private Entrada(char[] valor, long criadoEm) {
+            this.valor = valor;
+            this.criadoEm = criadoEm;
+        }
+
+        private boolean expirada(long agora, long ttlNanos) {
+            return agora - criadoEm > ttlNanos;
+        }
+
+        private void zerar() {
+            Arrays.fill(valor, '\0');
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package br.com.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Banco conectado, para os poucos comandos que mudam entre PostgreSQL e H2 (perfis dev e test),
+ * como UPSERT (ON CONFLICT no PostgreSQL, MERGE no H2)
+ */
+@Component
+@RequiredArgsConstructor
+public class DialetoBanco {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Resolvido na primeira consulta a partir dos metadados da conexão
+    private volatile Boolean h2;
+
+    public boolean isH2() {
+        Boolean resultado = h2;
+        if (resultado == null) {
+            String banco = jdbcTemplate.execute((ConnectionCallback<String>) conexao ->
+                    conexao.getMetaData().getDatabaseProductName());
+            resultado = "H2".equalsIgnoreCase(banco);
+            h2 = resultado;
+        }
+        return resultado;
+    }
+}
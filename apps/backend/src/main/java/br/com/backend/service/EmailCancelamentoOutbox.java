@@ -0,0 +1,40 @@
+package br.com.backend.service;
+
+import br.com.backend.entity.Assinatura;
+import br.com.backend.repository.AssinaturaRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Email de confirmação de cancelamento, enviado pelo outbox depois do commit do cancelamento
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EmailCancelamentoOutbox implements ManipuladorOutbox {
+
+    private final AssinaturaRepository assinaturaRepository;
+    private final EmailService emailService;
+
+    @Override
+    public String getTipo() {
+        return AssinaturaService.EVENTO_CANCELADA;
+    }
+
+    @Override
+    public void processar(OutboxService.Evento evento) {
+        Optional<Assinatura> assinatura = assinaturaRepository.findById(evento.getAgregadoId());
+        if (assinatura.isEmpty()) {
+            log.warn("⚠️ [OUTBOX] Assinatura {} não encontrada, email de cancelamento ignorado", evento.getAgregadoId());
+            return;
+        }
+        JsonNode payload = evento.getPayload();
+        emailService.enviarEmailCancelamento(assinatura.get(), payload.path("motivo").asText(null),
+                payload.path("valorReembolso").asDouble(), payload.path("dentroDoArrependimento").asBoolean());
+        log.info("✅ Email de cancelamento enviado para usuário {}", assinatura.get().getUsuarioId());
+    }
+}
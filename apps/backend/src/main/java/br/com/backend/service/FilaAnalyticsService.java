@@ -0,0 +1,249 @@
+package br.com.backend.service;
+
+import br.com.backend.kafka.EventoAnalytics;
+import br.com.backend.kafka.PublicadorEventosAnalytics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rastreamento de preenchimentos fora da thread da requisição: os eventos entram numa fila
+ * limitada e uma única thread escritora grava em lote (JDBC batch) a cada batch-size eventos
+ * ou flush-interval-ms, o que vier primeiro. Com a fila cheia vale a política configurada.
+ * Com app.kafka.enabled=true o evento vai direto para o tópico de analytics; a fila só recebe o que
+ * o produtor recusar ou não conseguir entregar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FilaAnalyticsService {
+
+    /**
+     * O que fazer quando a fila está cheia
+     */
+    public enum PoliticaFila {
+        // Recusa o evento novo; a requisição recebe 503
+        DESCARTAR_NOVO,
+        // Descarta o evento mais antigo da fila para aceitar o novo
+        DESCARTAR_ANTIGO,
+        // Espera até offer-timeout-ms por espaço e então recusa
+        BLOQUEAR
+    }
+
+    private final GravadorAnalytics gravadorAnalytics;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<PublicadorEventosAnalytics> publicadorEventos;
+
+    @Value("${app.analytics.queue.capacity:10000}")
+    private int capacidade = 10_000;
+
+    @Value("${app.analytics.queue.batch-size:500}")
+    private int tamanhoLote = 500;
+
+    @Value("${app.analytics.queue.flush-interval-ms:200}")
+    private long intervaloGravacaoMs = 200;
+
+    @Value("${app.analytics.queue.overflow-policy:DESCARTAR_NOVO}")
+    private PoliticaFila politica = PoliticaFila.DESCARTAR_NOVO;
+
+    @Value("${app.analytics.queue.offer-timeout-ms:5}")
+    private long esperaMaximaMs = 5;
+
+    @Value("${app.analytics.queue.shutdown-timeout-ms:10000}")
+    private long esperaEncerramentoMs = 10_000;
+
+    private BlockingQueue<GravadorAnalytics.Preenchimento> fila;
+    private Thread escritor;
+    private volatile boolean ativo;
+
+    private Counter aceitos;
+    private Counter descartados;
+    private Counter gravados;
+    private Counter falhas;
+    private Timer tempoGravacao;
+
+    @PostConstruct
+    void init() {
+        fila = new ArrayBlockingQueue<>(capacidade);
+        aceitos = contador("accepted");
+        descartados = contador("dropped");
+        gravados = contador("flushed");
+        falhas = contador("failed");
+        tempoGravacao = Timer.builder("formsync.analytics.queue.flush")
+                .description("Tempo de gravação de um lote de preenchimentos")
+                .register(meterRegistry);
+        Gauge.builder("formsync.analytics.queue.depth", this, FilaAnalyticsService::pendentes)
+                .description("Preenchimentos aguardando gravação").register(meterRegistry);
+
+        ativo = true;
+        escritor = new Thread(this::executar, "analytics-writer");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Enfileira (ou publica) um preenchimento; retorna false se foi recusado pela política de fila cheia
+     */
+    public boolean registrar(Long usuarioId, String site, Long campoId) {
+        GravadorAnalytics.Preenchimento preenchimento =
+                new GravadorAnalytics.Preenchimento(usuarioId, site, campoId, LocalDateTime.now());
+        if (!ativo) {
+            descartados.increment();
+            return false;
+        }
+
+        PublicadorEventosAnalytics publicador = publicadorEventos.getIfAvailable();
+        if (publicador != null && publicador.publicar(EventoAnalytics.preenchimento(
+                usuarioId, site, campoId, preenchimento.getDataHora()), () -> {
+                    // Entrega falhou depois de aceita: segue pela fila local, descartando só se ela estiver cheia
+                    if (!enfileirar(preenchimento)) {
+                        descartados.increment();
+                    }
+                })) {
+            aceitos.increment();
+            return true;
+        }
+
+        boolean aceito = enfileirar(preenchimento);
+        if (aceito) {
+            aceitos.increment();
+        } else {
+            descartados.increment();
+        }
+        return aceito;
+    }
+
+    private boolean enfileirar(GravadorAnalytics.Preenchimento preenchimento) {
+        return switch (politica) {
+            case DESCARTAR_NOVO -> fila.offer(preenchimento);
+            case DESCARTAR_ANTIGO -> {
+                while (!fila.offer(preenchimento)) {
+                    if (fila.poll() != null) {
+                        descartados.increment();
+                    }
+                }
+                yield true;
+            }
+            case BLOQUEAR -> {
+                try {
+                    yield fila.offer(preenchimento, esperaMaximaMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    yield false;
+                }
+            }
+        };
+    }
+
+    /**
+     * Eventos ainda na fila
+     */
+    public int pendentes() {
+        return fila != null ? fila.size() : 0;
+    }
+
+    /**
+     * Para de aceitar eventos e espera a thread escritora gravar o que restou na fila
+     */
+    @PreDestroy
+    public void encerrar() {
+        ativo = false;
+        if (escritor == null) {
+            return;
+        }
+        try {
+            escritor.join(esperaEncerramentoMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (escritor.isAlive()) {
+            log.warn("⚠️ [ANALYTICS] Encerramento sem gravar {} preenchimentos pendentes", fila.size());
+        } else {
+            log.info("✅ [ANALYTICS] Fila de preenchimentos gravada no encerramento");
+        }
+    }
+
+    private void executar() {
+        List<GravadorAnalytics.Preenchimento> lote = new ArrayList<>(tamanhoLote);
+        while (ativo) {
+            try {
+                montarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            gravar(lote);
+        }
+
+        // Encerramento: o que sobrou na fila sai em lotes, sem esperar o intervalo
+        do {
+            fila.drainTo(lote, tamanhoLote - lote.size());
+            gravar(lote);
+        } while (!fila.isEmpty());
+    }
+
+    /**
+     * Junta eventos até completar o lote ou vencer o intervalo contado a partir do primeiro
+     */
+    private void montarLote(List<GravadorAnalytics.Preenchimento> lote) throws InterruptedException {
+        GravadorAnalytics.Preenchimento primeiro = fila.poll(intervaloGravacaoMs, TimeUnit.MILLISECONDS);
+        if (primeiro == null) {
+            return;
+        }
+        lote.add(primeiro);
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloGravacaoMs);
+        while (lote.size() < tamanhoLote && ativo) {
+            fila.drainTo(lote, tamanhoLote - lote.size());
+            long restante = limite - System.nanoTime();
+            if (lote.size() >= tamanhoLote || restante <= 0) {
+                return;
+            }
+            GravadorAnalytics.Preenchimento proximo = fila.poll(restante, TimeUnit.NANOSECONDS);
+            if (proximo == null) {
+                return;
+            }
+            lote.add(proximo);
+        }
+    }
+
+    private void gravar(List<GravadorAnalytics.Preenchimento> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        Timer.Sample inicio = Timer.start(meterRegistry);
+        try {
+            transactionTemplate.executeWithoutResult(status -> gravadorAnalytics.gravar(lote));
+            gravados.increment(lote.size());
+            log.debug("📊 [ANALYTICS] {} preenchimentos gravados em lote", lote.size());
+        } catch (Exception e) {
+            // Analytics tolera perda: sem nova tentativa para não acumular atrás de um banco indisponível
+            falhas.increment(lote.size());
+            log.error("❌ [ANALYTICS] Erro ao gravar lote de {} preenchimentos: {}", lote.size(), e.getMessage());
+        } finally {
+            inicio.stop(tempoGravacao);
+            lote.clear();
+        }
+    }
+
+    private Counter contador(String resultado) {
+        return Counter.builder("formsync.analytics.queue.events").tag("result", resultado)
+                .description("Preenchimentos rastreados pela fila de analytics").register(meterRegistry);
+    }
+}
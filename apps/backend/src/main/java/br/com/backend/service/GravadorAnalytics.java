@@ -0,0 +1,190 @@
+package br.com.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Gravação em lote de preenchimentos (preenchimentos_analytics) e dos contadores por campo
+ * (campos_analytics) com JDBC batch. Os contadores usam UPSERT atômico (ON CONFLICT no PostgreSQL,
+ * MERGE no H2): sem leitura prévia, sem atualização perdida e sem linha duplicada no primeiro uso.
+ * Não abre transação: quem chama decide o escopo (o ranking de sites em memória só é atualizado após o commit).
+ */
+@Component
+@RequiredArgsConstructor
+public class GravadorAnalytics {
+
+    // Estimativa de 30 segundos por preenchimento, a mesma de AdvancedAnalyticsService.trackPreenchimento
+    public static final int TEMPO_ECONOMIZADO_SEGUNDOS = 30;
+
+    private static final String SQL_PREENCHIMENTO =
+            "INSERT INTO preenchimentos_analytics (usuario_id, site, campo_id, data_preenchimento, "
+            + "tempo_economizado, sucesso, created_at) VALUES (?, ?, ?, ?, ?, true, ?)";
+
+    // Soma atômica por par usuário/campo, apoiada na restrição única uk_campos_analytics_usuario_campo
+    private static final String SQL_CAMPO_UPSERT_POSTGRES =
+            "INSERT INTO campos_analytics (usuario_id, campo_template_id, quantidade_usos, ultimo_uso, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (usuario_id, campo_template_id) DO UPDATE SET "
+            + "quantidade_usos = campos_analytics.quantidade_usos + EXCLUDED.quantidade_usos, "
+            + "ultimo_uso = GREATEST(campos_analytics.ultimo_uso, EXCLUDED.ultimo_uso), "
+            + "updated_at = EXCLUDED.updated_at";
+
+    // H2 (perfis dev e test) não tem ON CONFLICT DO UPDATE; MERGE ... USING tem o mesmo efeito
+    private static final String SQL_CAMPO_UPSERT_H2 =
+            "MERGE INTO campos_analytics c USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS INTEGER), "
+            + "CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP))) "
+            + "AS d(usuario_id, campo_template_id, quantidade_usos, ultimo_uso, created_at, updated_at) "
+            + "ON c.usuario_id = d.usuario_id AND c.campo_template_id = d.campo_template_id "
+            + "WHEN MATCHED THEN UPDATE SET quantidade_usos = c.quantidade_usos + d.quantidade_usos, "
+            + "ultimo_uso = GREATEST(c.ultimo_uso, d.ultimo_uso), updated_at = d.updated_at "
+            + "WHEN NOT MATCHED THEN INSERT (usuario_id, campo_template_id, quantidade_usos, ultimo_uso, created_at, updated_at) "
+            + "VALUES (d.usuario_id, d.campo_template_id, d.quantidade_usos, d.ultimo_uso, d.created_at, d.updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DialetoBanco dialetoBanco;
+    private final RankingSitesService rankingSitesService;
+
+    /**
+     * Insere os preenchimentos e soma os usos de cada par usuário/campo, agregados antes do UPSERT
+     */
+    public void gravar(List<Preenchimento> preenchimentos) {
+        if (preenchimentos.isEmpty()) {
+            return;
+        }
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> linhas = new ArrayList<>(preenchimentos.size());
+        Map<ChaveCampo, UsoCampo> usosCampo = new LinkedHashMap<>();
+        for (Preenchimento preenchimento : preenchimentos) {
+            Timestamp momento = Timestamp.valueOf(preenchimento.dataHora);
+            linhas.add(new Object[]{preenchimento.usuarioId, preenchimento.site, preenchimento.campoId, momento,
+                    TEMPO_ECONOMIZADO_SEGUNDOS, agora});
+            if (preenchimento.campoId != null) {
+                usosCampo.computeIfAbsent(new ChaveCampo(preenchimento.usuarioId, preenchimento.campoId),
+                        chave -> new UsoCampo()).registrar(momento);
+            }
+        }
+        jdbcTemplate.batchUpdate(SQL_PREENCHIMENTO, linhas);
+
+        somarUsosCampos(usosCampo, agora);
+        rankingSitesService.registrar(preenchimentos);
+    }
+
+    /**
+     * Soma ao contador do campo um delta já agregado (vários usos viram um único comando atômico)
+     */
+    public void somarUsosCampo(Long usuarioId, Long campoTemplateId, int quantidade) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        UsoCampo uso = new UsoCampo();
+        uso.quantidade = quantidade;
+        uso.ultimoUso = agora;
+        somarUsosCampos(Map.of(new ChaveCampo(usuarioId, campoTemplateId), uso), agora);
+    }
+
+    /**
+     * Um UPSERT por par usuário/campo com o delta já agregado, todos no mesmo batch
+     */
+    private void somarUsosCampos(Map<ChaveCampo, UsoCampo> usosCampo, Timestamp agora) {
+        if (usosCampo.isEmpty()) {
+            return;
+        }
+        List<Object[]> linhas = new ArrayList<>(usosCampo.size());
+        for (Map.Entry<ChaveCampo, UsoCampo> entrada : usosCampo.entrySet()) {
+            ChaveCampo chave = entrada.getKey();
+            UsoCampo uso = entrada.getValue();
+            linhas.add(new Object[]{chave.usuarioId, chave.campoId, uso.quantidade, uso.ultimoUso, agora, agora});
+        }
+        // Ordem fixa de chaves: lotes concorrentes travam as linhas na mesma sequência e não entram em deadlock
+        linhas.sort(Comparator.comparing((Object[] linha) -> (Long) linha[0]).thenComparing(linha -> (Long) linha[1]));
+        if (dialetoBanco.isH2()) {
+            // MERGE do H2 não é atômico entre sessões: quem perde a corrida do primeiro uso repete a linha e cai no UPDATE
+            for (Object[] linha : linhas) {
+                try {
+                    jdbcTemplate.update(SQL_CAMPO_UPSERT_H2, linha);
+                } catch (DuplicateKeyException e) {
+                    jdbcTemplate.update(SQL_CAMPO_UPSERT_H2, linha);
+                }
+            }
+            return;
+        }
+        jdbcTemplate.batchUpdate(SQL_CAMPO_UPSERT_POSTGRES, linhas);
+    }
+
+    /**
+     * Um preenchimento rastreado; campoId é opcional
+     */
+    public static final class Preenchimento {
+        private final Long usuarioId;
+        private final String site;
+        private final Long campoId;
+        private final LocalDateTime dataHora;
+
+        public Preenchimento(Long usuarioId, String site, Long campoId, LocalDateTime dataHora) {
+            this.usuarioId = usuarioId;
+            this.site = site;
+            this.campoId = campoId;
+            this.dataHora = dataHora;
+        }
+
+        public Long getUsuarioId() {
+            return usuarioId;
+        }
+
+        public String getSite() {
+            return site;
+        }
+
+        public LocalDateTime getDataHora() {
+            return dataHora;
+        }
+    }
+
+    private static final class ChaveCampo {
+        private final Long usuarioId;
+        private final Long campoId;
+
+        private ChaveCampo(Long usuarioId, Long campoId) {
+            this.usuarioId = usuarioId;
+            this.campoId = campoId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ChaveCampo outra)) {
+                return false;
+            }
+            return usuarioId.equals(outra.usuarioId) && campoId.equals(outra.campoId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(usuarioId, campoId);
+        }
+    }
+
+    private static final class UsoCampo {
+        private int quantidade;
+        private Timestamp ultimoUso;
+
+        private void registrar(Timestamp momento) {
+            quantidade++;
+            if (ultimoUso == null || momento.after(ultimoUso)) {
+                ultimoUso = momento;
+            }
+        }
+    }
+}
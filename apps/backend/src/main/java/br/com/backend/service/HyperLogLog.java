@@ -0,0 +1,159 @@
+package br.com.backend.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sketch HyperLogLog para contar valores distintos com 2^precisao registradores e erro padrão de
+ * aproximadamente 1,04 / sqrt(2^precisao) (0,81% com precisão 14). Enquanto poucos registradores
+ * estão ocupados a representação é esparsa (só os pares índice/valor); passando de 1/4 do tamanho
+ * denso, vira um registrador por byte. Dois sketches de mesma precisão se unem pelo máximo de cada
+ * registrador. Não é thread-safe.
+ */
+public class HyperLogLog {
+
+    private static final byte ESPARSO = 0;
+    private static final byte DENSO = 1;
+
+    private final int precisao;
+    private final int tamanho;
+    private Map<Integer, Byte> esparso = new HashMap<>();
+    private byte[] registradores;
+
+    public HyperLogLog(int precisao) {
+        if (precisao < 4 || precisao > 16) {
+            throw new IllegalArgumentException("Precisão do HyperLogLog deve estar entre 4 e 16: " + precisao);
+        }
+        this.precisao = precisao;
+        this.tamanho = 1 << precisao;
+    }
+
+    /**
+     * Reconstrói um sketch gravado por {@link #serializar()}
+     */
+    public static HyperLogLog ler(byte[] dados) {
+        ByteBuffer buffer = ByteBuffer.wrap(dados);
+        byte formato = buffer.get();
+        HyperLogLog hll = new HyperLogLog(buffer.get());
+        if (formato == DENSO) {
+            hll.esparso = null;
+            hll.registradores = new byte[hll.tamanho];
+            buffer.get(hll.registradores);
+        } else {
+            while (buffer.hasRemaining()) {
+                int par = buffer.getInt();
+                hll.esparso.put(par >>> 8, (byte) (par & 0xFF));
+            }
+        }
+        return hll;
+    }
+
+    public void adicionar(String valor) {
+        long hash = hash(valor);
+        int indice = (int) (hash >>> (64 - precisao));
+        // Bit de guarda: o posto nunca passa de 64 - precisao + 1
+        long resto = (hash << precisao) | (1L << (precisao - 1));
+        atualizar(indice, (byte) (Long.numberOfLeadingZeros(resto) + 1));
+    }
+
+    /**
+     * Une outro sketch a este (mesma precisão)
+     */
+    public void mesclar(HyperLogLog outro) {
+        if (outro.precisao != precisao) {
+            throw new IllegalArgumentException("Precisões diferentes: " + outro.precisao + " e " + precisao);
+        }
+        if (outro.registradores != null) {
+            for (int i = 0; i < tamanho; i++) {
+                if (outro.registradores[i] != 0) {
+                    atualizar(i, outro.registradores[i]);
+                }
+            }
+        } else {
+            outro.esparso.forEach(this::atualizar);
+        }
+    }
+
+    /**
+     * Quantidade estimada de valores distintos
+     */
+    public long estimar() {
+        double soma = 0;
+        int zerados = 0;
+        if (registradores != null) {
+            for (byte registrador : registradores) {
+                soma += 1.0 / (1L << registrador);
+                if (registrador == 0) {
+                    zerados++;
+                }
+            }
+        } else {
+            zerados = tamanho - esparso.size();
+            soma = zerados;
+            for (byte registrador : esparso.values()) {
+                soma += 1.0 / (1L << registrador);
+            }
+        }
+        double estimativa = 0.7213 / (1 + 1.079 / tamanho) * tamanho * tamanho / soma;
+        // Poucos valores: contagem linear sobre os registradores vazios é mais precisa
+        if (estimativa <= 2.5 * tamanho && zerados > 0) {
+            estimativa = tamanho * Math.log((double) tamanho / zerados);
+        }
+        return Math.round(estimativa);
+    }
+
+    /**
+     * Formato, precisão e registradores: pares de 4 bytes (índice, valor) no esparso, 2^precisao bytes no denso
+     */
+    public byte[] serializar() {
+        if (registradores != null) {
+            return ByteBuffer.allocate(2 + tamanho).put(DENSO).put((byte) precisao).put(registradores).array();
+        }
+        List<Integer> indices = new ArrayList<>(esparso.keySet());
+        Collections.sort(indices);
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 4 * indices.size()).put(ESPARSO).put((byte) precisao);
+        for (Integer indice : indices) {
+            buffer.putInt(indice << 8 | (esparso.get(indice) & 0xFF));
+        }
+        return buffer.array();
+    }
+
+    public int getPrecisao() {
+        return precisao;
+    }
+
+    private void atualizar(int indice, byte posto) {
+        if (registradores != null) {
+            if (posto > registradores[indice]) {
+                registradores[indice] = posto;
+            }
+            return;
+        }
+        esparso.merge(indice, posto, (atual, novo) -> atual >= novo ? atual : novo);
+        if (esparso.size() * 4 > tamanho) {
+            registradores = new byte[tamanho];
+            esparso.forEach((i, valor) -> registradores[i] = valor);
+            esparso = null;
+        }
+    }
+
+    // FNV-1a de 64 bits seguido da finalização do MurmurHash3 para espalhar os bits altos
+    private static long hash(String valor) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53ec34fL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
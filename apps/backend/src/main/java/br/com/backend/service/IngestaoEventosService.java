@@ -0,0 +1,198 @@
+package br.com.backend.service;
+
+import br.com.backend.dto.EventoPreenchimentoDTO;
+import br.com.backend.exception.BusinessException;
+import br.com.backend.repository.CampoTemplateRepository;
+import br.com.backend.repository.TemplateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Ingestão em lote dos eventos de uma sessão de preenchimento da extensão: uso de template,
+ * histórico e analytics por campo. Um lote substitui as chamadas avulsas a /templates/{id}/uso,
+ * /historico/registrar e /analytics/track; tudo é gravado com JDBC batch numa única transação
+ * e cada item recebe o seu próprio status.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IngestaoEventosService {
+
+    public static final String TIPO_USO = "uso";
+    public static final String TIPO_HISTORICO = "historico";
+    public static final String TIPO_CAMPO = "campo";
+
+    // Mesmo limite das colunas url e site (varchar 255)
+    private static final int TAMANHO_MAXIMO_TEXTO = 255;
+
+    private static final String SQL_HISTORICO =
+            "INSERT INTO historico_preenchimentos (usuario_id, url, data_hora) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TemplateRepository templateRepository;
+    private final CampoTemplateRepository campoTemplateRepository;
+    private final ContadorUsoService contadorUsoService;
+    private final GravadorAnalytics gravadorAnalytics;
+
+    @Value("${app.ingestion.max-batch-size:500}")
+    private int tamanhoMaximoLote = 500;
+
+    /**
+     * Valida e grava o lote; itens inválidos são recusados sem afetar os demais
+     */
+    public Map<String, Object> processar(Long usuarioId, List<EventoPreenchimentoDTO> eventos) {
+        if (eventos == null || eventos.isEmpty()) {
+            throw new BusinessException("Lote de eventos vazio");
+        }
+        if (eventos.size() > tamanhoMaximoLote) {
+            throw new BusinessException("Lote com " + eventos.size() + " eventos excede o limite de " + tamanhoMaximoLote);
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<Map<String, Object>> resultados = new ArrayList<>(eventos.size());
+        Set<Long> templatesValidos = buscarTemplatesDoUsuario(usuarioId, eventos);
+        Set<Long> camposValidos = buscarCamposDoUsuario(usuarioId, eventos);
+
+        List<Object[]> historicos = new ArrayList<>();
+        List<GravadorAnalytics.Preenchimento> preenchimentos = new ArrayList<>();
+        List<Long> usosTemplate = new ArrayList<>();
+        List<Map<String, Object>> aceitos = new ArrayList<>();
+
+        for (int i = 0; i < eventos.size(); i++) {
+            EventoPreenchimentoDTO evento = eventos.get(i);
+            String erro = validar(evento, templatesValidos, camposValidos);
+            Map<String, Object> resultado = new LinkedHashMap<>();
+            resultado.put("indice", i);
+            resultado.put("tipo", evento != null ? evento.getTipo() : null);
+            resultados.add(resultado);
+            if (erro != null) {
+                resultado.put("status", "erro");
+                resultado.put("errorCode", erro);
+                continue;
+            }
+
+            resultado.put("status", "ok");
+            aceitos.add(resultado);
+            LocalDateTime momento = momento(evento, agora);
+            switch (evento.getTipo()) {
+                case TIPO_USO -> usosTemplate.add(evento.getTemplateId());
+                case TIPO_HISTORICO -> historicos.add(new Object[]{usuarioId, evento.getUrl(), Timestamp.valueOf(momento)});
+                case TIPO_CAMPO -> preenchimentos.add(new GravadorAnalytics.Preenchimento(
+                        usuarioId, evento.getSite(), evento.getCampoId(), momento));
+                default -> throw new IllegalStateException("Tipo não tratado: " + evento.getTipo());
+            }
+        }
+
+        if (!aceitos.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!historicos.isEmpty()) {
+                        jdbcTemplate.batchUpdate(SQL_HISTORICO, historicos);
+                    }
+                    gravadorAnalytics.gravar(preenchimentos);
+                });
+                // Uso de template segue pelo contador em memória, só depois do commit do restante do lote
+                for (Long templateId : usosTemplate) {
+                    contadorUsoService.registrarUso(templateId, usuarioId);
+                }
+            } catch (Exception e) {
+                log.error("❌ [INGESTAO] Erro ao gravar lote de {} eventos do usuário {}: {}",
+                        aceitos.size(), usuarioId, e.getMessage());
+                for (Map<String, Object> resultado : aceitos) {
+                    resultado.put("status", "erro");
+                    resultado.put("errorCode", "PERSISTENCE_ERROR");
+                }
+                aceitos.clear();
+            }
+        }
+
+        int processados = aceitos.size();
+        log.info("📥 [INGESTAO] Lote do usuário {}: {} de {} eventos gravados", usuarioId, processados, eventos.size());
+
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("success", processados == eventos.size());
+        resposta.put("total", eventos.size());
+        resposta.put("processados", processados);
+        resposta.put("rejeitados", eventos.size() - processados);
+        resposta.put("resultados", resultados);
+        return resposta;
+    }
+
+    private String validar(EventoPreenchimentoDTO evento, Set<Long> templatesValidos, Set<Long> camposValidos) {
+        if (evento == null || evento.getTipo() == null) {
+            return "TIPO_INVALIDO";
+        }
+        switch (evento.getTipo()) {
+            case TIPO_USO:
+                if (evento.getTemplateId() == null) {
+                    return "TEMPLATE_OBRIGATORIO";
+                }
+                return templatesValidos.contains(evento.getTemplateId()) ? null : "TEMPLATE_NAO_ENCONTRADO";
+            case TIPO_HISTORICO:
+                return validarTexto(evento.getUrl(), "URL");
+            case TIPO_CAMPO:
+                String erro = validarTexto(evento.getSite(), "SITE");
+                if (erro != null) {
+                    return erro;
+                }
+                if (evento.getCampoId() != null && !camposValidos.contains(evento.getCampoId())) {
+                    return "CAMPO_NAO_ENCONTRADO";
+                }
+                return null;
+            default:
+                return "TIPO_INVALIDO";
+        }
+    }
+
+    private String validarTexto(String valor, String nome) {
+        if (valor == null || valor.isBlank()) {
+            return nome + "_OBRIGATORIO";
+        }
+        return valor.length() > TAMANHO_MAXIMO_TEXTO ? nome + "_MUITO_LONGO" : null;
+    }
+
+    /**
+     * Horário informado pelo cliente, sem aceitar datas no futuro
+     */
+    private LocalDateTime momento(EventoPreenchimentoDTO evento, LocalDateTime agora) {
+        LocalDateTime dataHora = evento.getDataHora();
+        return dataHora == null || dataHora.isAfter(agora) ? agora : dataHora;
+    }
+
+    // Uma consulta por lote para validar a posse de todos os templates e campos citados
+    private Set<Long> buscarTemplatesDoUsuario(Long usuarioId, List<EventoPreenchimentoDTO> eventos) {
+        Set<Long> ids = new HashSet<>();
+        for (EventoPreenchimentoDTO evento : eventos) {
+            if (evento != null && TIPO_USO.equals(evento.getTipo()) && evento.getTemplateId() != null) {
+                ids.add(evento.getTemplateId());
+            }
+        }
+        return ids.isEmpty() ? Set.of() : new HashSet<>(templateRepository.findIdsAtivosDoUsuario(usuarioId, ids));
+    }
+
+    private Set<Long> buscarCamposDoUsuario(Long usuarioId, List<EventoPreenchimentoDTO> eventos) {
+        Set<Long> ids = new HashSet<>();
+        for (EventoPreenchimentoDTO evento : eventos) {
+            if (evento != null && TIPO_CAMPO.equals(evento.getTipo())) {
+                ids.add(evento.getCampoId());
+            }
+        }
+        ids.removeIf(Objects::isNull);
+        return ids.isEmpty() ? Set.of() : new HashSet<>(campoTemplateRepository.findIdsDoUsuario(usuarioId, ids));
+    }
+}
@@ -0,0 +1,12 @@
+package br.com.backend.service;
+
+/**
+ * Destino em processo de um tipo de evento do outbox. Roda na transação do lote reivindicado;
+ * uma exceção agenda nova tentativa do evento com backoff.
+ */
+public interface ManipuladorOutbox {
+
+    String getTipo();
+
+    void processar(OutboxService.Evento evento) throws Exception;
+}
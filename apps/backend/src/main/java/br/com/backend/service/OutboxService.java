@@ -0,0 +1,373 @@
+package br.com.backend.service;
+
+import br.com.backend.kafka.KafkaProducerService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox: {@link #registrar} grava o evento na transação da alteração de negócio e o
+ * despacho acontece depois, fora da requisição. Cada nó reivindica um lote de pendentes com
+ * FOR UPDATE SKIP LOCKED numa transação curta que empurra disponivel_em para o fim de um lease e faz
+ * commit; o envio (SMTP, Kafka) roda sem transação nem conexão presa, e o resultado é gravado numa
+ * segunda transação curta, só se o lease ainda for deste nó. Nós concorrentes pegam lotes disjuntos e
+ * o lote de um nó que cai volta a ficar disponível quando o lease vence (entrega pelo menos uma vez).
+ * O destino é o {@link ManipuladorOutbox} do tipo, quando existe; senão o tópico app.outbox.topic,
+ * com o Kafka habilitado. Tipos sem destino nem são gravados.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private static final String SQL_INSERIR =
+            "INSERT INTO outbox_events (tipo, agregado_id, usuario_id, payload, criado_em, disponivel_em, tentativas) "
+            + "VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String SQL_REIVINDICAR =
+            "SELECT id, tipo, agregado_id, usuario_id, payload, criado_em, tentativas FROM outbox_events "
+            + "WHERE processado_em IS NULL AND disponivel_em <= ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SQL_ARRENDAR = "UPDATE outbox_events SET disponivel_em = ? WHERE id = ?";
+
+    // Só quem ainda tem o lease grava o resultado; se venceu, outro nó já reivindicou o evento
+    private static final String SQL_PROCESSADO =
+            "UPDATE outbox_events SET processado_em = ?, erro = ? WHERE id = ? AND disponivel_em = ?";
+
+    private static final String SQL_REAGENDAR =
+            "UPDATE outbox_events SET tentativas = ?, disponivel_em = ?, erro = ? WHERE id = ? AND disponivel_em = ?";
+
+    private static final String SQL_LIMPAR = "DELETE FROM outbox_events WHERE processado_em < ?";
+
+    private static final int TAMANHO_MAXIMO_ERRO = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<KafkaProducerService> producerService;
+    private final MeterRegistry meterRegistry;
+    private final List<ManipuladorOutbox> listaManipuladores;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int tamanhoLote = 100;
+
+    @Value("${app.outbox.max-attempts:10}")
+    private int maximoTentativas = 10;
+
+    // Primeira espera após uma falha; dobra a cada tentativa até max-backoff-ms
+    @Value("${app.outbox.backoff-ms:1000}")
+    private long backoffMs = 1000;
+
+    @Value("${app.outbox.max-backoff-ms:600000}")
+    private long maximoBackoffMs = 600_000;
+
+    @Value("${app.outbox.topic:formsync.domain-events}")
+    private String topico = "formsync.domain-events";
+
+    @Value("${app.outbox.send-timeout-ms:30000}")
+    private long esperaEnvioMs = 30_000;
+
+    // Tempo que um lote reivindicado fica reservado ao nó; precisa cobrir manipuladores e send-timeout-ms
+    @Value("${app.outbox.lease-ms:120000}")
+    private long leaseMs = 120_000;
+
+    @Value("${app.outbox.retention-days:7}")
+    private int retencaoDias = 7;
+
+    private Map<String, ManipuladorOutbox> manipuladores;
+    private Counter despachados;
+    private Counter reagendados;
+    private Counter descartados;
+    private Timer tempoLote;
+
+    @PostConstruct
+    void init() {
+        manipuladores = listaManipuladores.stream()
+                .collect(Collectors.toMap(ManipuladorOutbox::getTipo, Function.identity()));
+        despachados = contador("dispatched");
+        reagendados = contador("retried");
+        descartados = contador("dead");
+        tempoLote = Timer.builder("formsync.outbox.batch")
+                .description("Tempo de despacho de um lote do outbox").register(meterRegistry);
+    }
+
+    /**
+     * Grava o evento na transação corrente; sem transação é erro, pois o evento se perderia num rollback
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(String tipo, Long agregadoId, Long usuarioId, Map<String, ?> payload) {
+        if (!manipuladores.containsKey(tipo) && producerService.getIfAvailable() == null) {
+            return;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Payload inválido para o evento " + tipo, e);
+        }
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(SQL_INSERIR, tipo, agregadoId, usuarioId, json, agora, agora);
+    }
+
+    /**
+     * Despacha lotes até esvaziar os pendentes disponíveis
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void despachar() {
+        try {
+            int processados;
+            do {
+                processados = despacharLote();
+            } while (processados == tamanhoLote);
+        } catch (Exception e) {
+            log.error("❌ [OUTBOX] Erro ao despachar eventos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reivindica um lote com lease, processa fora de transação e marca o resultado; retorna quantos eventos reivindicou
+     */
+    public int despacharLote() {
+        Timer.Sample inicio = Timer.start(meterRegistry);
+        try {
+            LocalDateTime agora = LocalDateTime.now();
+            LocalDateTime lease = agora.plusNanos(leaseMs * 1_000_000).truncatedTo(ChronoUnit.MILLIS);
+            List<Evento> lote = transactionTemplate.execute(status -> reivindicar(agora, lease));
+            if (lote == null || lote.isEmpty()) {
+                return 0;
+            }
+
+            Map<Evento, Exception> falhas = new LinkedHashMap<>();
+            List<Evento> paraKafka = new ArrayList<>();
+            for (Evento evento : lote) {
+                ManipuladorOutbox manipulador = manipuladores.get(evento.tipo);
+                if (manipulador == null) {
+                    paraKafka.add(evento);
+                    continue;
+                }
+                try {
+                    manipulador.processar(evento);
+                } catch (Exception e) {
+                    falhas.put(evento, e);
+                }
+            }
+            publicar(paraKafka, falhas);
+            transactionTemplate.executeWithoutResult(status -> marcar(lote, falhas, LocalDateTime.now(), lease));
+            return lote.size();
+        } finally {
+            inicio.stop(tempoLote);
+        }
+    }
+
+    /**
+     * Remove os eventos já processados além da retenção
+     */
+    @Scheduled(cron = "${app.outbox.cleanup-cron:0 45 3 * * *}")
+    public void limpar() {
+        int removidos = jdbcTemplate.update(SQL_LIMPAR, Timestamp.valueOf(LocalDateTime.now().minusDays(retencaoDias)));
+        if (removidos > 0) {
+            log.info("🗑️ [OUTBOX] {} eventos processados removidos pela retenção", removidos);
+        }
+    }
+
+    private List<Evento> reivindicar(LocalDateTime agora, LocalDateTime lease) {
+        List<Evento> lote = jdbcTemplate.query(SQL_REIVINDICAR, (rs, i) -> new Evento(
+                rs.getLong("id"),
+                rs.getString("tipo"),
+                rs.getObject("agregado_id", Long.class),
+                rs.getObject("usuario_id", Long.class),
+                ler(rs.getLong("id"), rs.getString("payload")),
+                rs.getTimestamp("criado_em").toLocalDateTime(),
+                rs.getInt("tentativas")), Timestamp.valueOf(agora), tamanhoLote);
+        if (!lote.isEmpty()) {
+            Timestamp fim = Timestamp.valueOf(lease);
+            List<Object[]> arrendados = new ArrayList<>(lote.size());
+            for (Evento evento : lote) {
+                arrendados.add(new Object[]{fim, evento.id});
+            }
+            jdbcTemplate.batchUpdate(SQL_ARRENDAR, arrendados);
+        }
+        return lote;
+    }
+
+    private void publicar(List<Evento> eventos, Map<Evento, Exception> falhas) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        KafkaProducerService producer = producerService.getIfAvailable();
+        if (producer == null) {
+            // Gravado com o Kafka habilitado e despachado com ele desligado: fica para quando voltar
+            eventos.forEach(evento -> falhas.put(evento, new IllegalStateException("Kafka desabilitado")));
+            return;
+        }
+        List<Map<String, Object>> mensagens = new ArrayList<>(eventos.size());
+        for (Evento evento : eventos) {
+            mensagens.add(mensagem(evento));
+        }
+        try {
+            KafkaProducerService.ResultadoLote resultado = producer.sendAll(topico, mensagens,
+                    mensagem -> String.valueOf(mensagem.get("usuarioId"))).get(esperaEnvioMs, TimeUnit.MILLISECONDS);
+            for (Integer posicao : resultado.getFalhas()) {
+                falhas.put(eventos.get(posicao), new IllegalStateException("Entrega ao Kafka falhou"));
+            }
+        } catch (Exception e) {
+            eventos.forEach(evento -> falhas.put(evento, e));
+        }
+    }
+
+    private Map<String, Object> mensagem(Evento evento) {
+        // O id do outbox vai junto: quem consome descarta repetições de uma entrega pelo menos uma vez
+        Map<String, Object> mensagem = new LinkedHashMap<>();
+        mensagem.put("id", evento.id);
+        mensagem.put("tipo", evento.tipo);
+        mensagem.put("agregadoId", evento.agregadoId);
+        mensagem.put("usuarioId", evento.usuarioId);
+        mensagem.put("criadoEm", evento.criadoEm);
+        mensagem.put("payload", evento.getPayload());
+        return mensagem;
+    }
+
+    private void marcar(List<Evento> lote, Map<Evento, Exception> falhas, LocalDateTime agora, LocalDateTime lease) {
+        List<Object[]> processados = new ArrayList<>();
+        List<Object[]> reagendar = new ArrayList<>();
+        Timestamp momento = Timestamp.valueOf(agora);
+        Timestamp arrendamento = Timestamp.valueOf(lease);
+        for (Evento evento : lote) {
+            Exception falha = falhas.get(evento);
+            if (falha == null) {
+                processados.add(new Object[]{momento, null, evento.id, arrendamento});
+                continue;
+            }
+            String erro = resumir(falha);
+            int tentativas = evento.tentativas + 1;
+            if (tentativas >= maximoTentativas) {
+                // Desiste: processado com erro, para não travar o outbox
+                processados.add(new Object[]{momento, erro, evento.id, arrendamento});
+                descartados.increment();
+                log.error("❌ [OUTBOX] Evento {} ({}) descartado após {} tentativas: {}", evento.id, evento.tipo, tentativas, erro);
+            } else {
+                long espera = Math.min(maximoBackoffMs, backoffMs << Math.min(tentativas - 1, 30));
+                reagendar.add(new Object[]{tentativas, Timestamp.valueOf(agora.plusNanos(espera * 1_000_000)), erro, evento.id,
+                        arrendamento});
+                reagendados.increment();
+                log.warn("⚠️ [OUTBOX] Evento {} ({}) falhou, nova tentativa em {} ms: {}", evento.id, evento.tipo, espera, erro);
+            }
+        }
+        int perdidos = 0;
+        if (!processados.isEmpty()) {
+            perdidos += naoAtualizados(jdbcTemplate.batchUpdate(SQL_PROCESSADO, processados));
+        }
+        if (!reagendar.isEmpty()) {
+            perdidos += naoAtualizados(jdbcTemplate.batchUpdate(SQL_REAGENDAR, reagendar));
+        }
+        if (perdidos > 0) {
+            log.warn("⚠️ [OUTBOX] Lease vencido para {} eventos do lote; ficam com o nó que os reivindicou depois", perdidos);
+        }
+        despachados.increment(lote.size() - falhas.size());
+    }
+
+    private static int naoAtualizados(int[] linhas) {
+        int perdidos = 0;
+        for (int atualizadas : linhas) {
+            // SUCCESS_NO_INFO (-2) conta como atualizado
+            if (atualizadas == 0) {
+                perdidos++;
+            }
+        }
+        return perdidos;
+    }
+
+    private JsonNode ler(long id, String payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            // Só gravamos JSON do ObjectMapper; um payload corrompido não deve travar o lote inteiro
+            log.error("❌ [OUTBOX] Payload inválido no evento {}: {}", id, e.getMessage());
+            return MissingNode.getInstance();
+        }
+    }
+
+    private static String resumir(Exception e) {
+        String mensagem = e.getClass().getSimpleName() + ": " + e.getMessage();
+        return mensagem.length() > TAMANHO_MAXIMO_ERRO ? mensagem.substring(0, TAMANHO_MAXIMO_ERRO) : mensagem;
+    }
+
+    private Counter contador(String resultado) {
+        return Counter.builder("formsync.outbox.events").tag("result", resultado)
+                .description("Eventos do outbox despachados").register(meterRegistry);
+    }
+
+    /**
+     * Evento reivindicado do outbox
+     */
+    public static final class Evento {
+        private final Long id;
+        private final String tipo;
+        private final Long agregadoId;
+        private final Long usuarioId;
+        private final JsonNode payload;
+        private final LocalDateTime criadoEm;
+        private final int tentativas;
+
+        private Evento(Long id, String tipo, Long agregadoId, Long usuarioId, JsonNode payload,
+                       LocalDateTime criadoEm, int tentativas) {
+            this.id = id;
+            this.tipo = tipo;
+            this.agregadoId = agregadoId;
+            this.usuarioId = usuarioId;
+            this.payload = payload;
+            this.criadoEm = criadoEm;
+            this.tentativas = tentativas;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getTipo() {
+            return tipo;
+        }
+
+        public Long getAgregadoId() {
+            return agregadoId;
+        }
+
+        public Long getUsuarioId() {
+            return usuarioId;
+        }
+
+        public int getTentativas() {
+            return tentativas;
+        }
+
+        public JsonNode getPayload() {
+            return payload;
+        }
+    }
+}
@@ -1,79 +1,176 @@
 package br.com.backend.service;
 
+import br.com.backend.security.OpenPgpSymmetricDecoder;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class PGPDecryptionService {
 
-    @Value("${spring.datasource.url:}")
-    private String databaseUrl;
+    private static final String PGP_PREFIX = "\\x";
 
-    @Value("${spring.datasource.username:}")
-    private String databaseUsername;
+    private static final String[] FIELDS_TO_DECRYPT = {"valor", "value", "descricao", "description", "placeholder", "valorPadrao"};
 
-    @Value("${spring.datasource.password:}")
-    private String databasePassword;
+    private static final String SQL_DECRYPT = "SELECT pgp_sym_decrypt(?, ?) as decrypted_value";
+
+    // Descriptografa o lote inteiro em uma única ida ao banco, preservando a posição de cada valor
+    private static final String SQL_DECRYPT_BATCH =
+            "SELECT t.ord, pgp_sym_decrypt(decode(t.val, 'hex'), ?) as decrypted_value "
+            + "FROM unnest(?::text[]) WITH ORDINALITY AS t(val, ord)";
+
+    private final DataSource dataSource;
+    private final DecryptedValueCache decryptedValueCache;
 
     @Value("${app.encryption.key:defaultSecretKey123}")
     private String encryptionKey;
 
+    @Value("${app.encryption.pgp.local-decryption:true}")
+    private boolean localDecryption = true;
+
     /**
-     * Descriptografa um valor PGP usando PostgreSQL
+     * Descriptografa um valor PGP, localmente quando possível e via PostgreSQL como fallback
      */
     public String decryptPGPValue(String encryptedValue) {
-        if (encryptedValue == null || encryptedValue.trim().isEmpty()) {
+        if (!isPGPValue(encryptedValue)) {
             return encryptedValue;
         }
 
-        // Se não começa com \x, provavelmente não está criptografado
-        if (!encryptedValue.startsWith("\\x")) {
+        return decryptedValueCache.get(encryptedValue, valor -> {
+            String decrypted = decryptLocally(valor);
+            return decrypted != null ? decrypted : decryptViaDatabase(valor);
+        });
+    }
+
+    /**
+     * Descriptografa um valor PGP usando PostgreSQL
+     */
+    private String decryptViaDatabase(String encryptedValue) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL_DECRYPT)) {
+            // Converte o valor hexadecimal para bytes
+            byte[] encryptedBytes = hexStringToByteArray(encryptedValue.substring(PGP_PREFIX.length()));
+            statement.setBytes(1, encryptedBytes);
+            statement.setString(2, encryptionKey);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    String decrypted = resultSet.getString("decrypted_value");
+                    log.debug("Valor PGP descriptografado com sucesso");
+                    return decrypted;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Erro ao descriptografar valor PGP: {}", e.getMessage());
+            // Em caso de erro, retorna o valor original
             return encryptedValue;
         }
 
-        // Verifica se a configuração do banco está disponível
-        if (databaseUrl == null || databaseUrl.trim().isEmpty() || 
-            databaseUsername == null || databaseUsername.trim().isEmpty() || 
-            databasePassword == null || databasePassword.trim().isEmpty()) {
-            log.warn("Configuração do banco de dados não disponível para descriptografia PGP. Retornando valor original.");
-            return encryptedValue;
+        return encryptedValue;
+    }
+
+    /**
+     * Descriptografa vários valores PGP; os que não puderem ser tratados localmente
+     * seguem em uma única consulta ao banco.
+     * Retorna um mapa valor original -> valor descriptografado; valores não criptografados
+     * (ou que falharem) são mapeados para eles mesmos.
+     */
+    public Map<String, String> decryptAll(Collection<String> encryptedValues) {
+        Map<String, String> resultado = new HashMap<>();
+        if (encryptedValues == null || encryptedValues.isEmpty()) {
+            return resultado;
         }
 
-        try (Connection connection = DriverManager.getConnection(databaseUrl, databaseUsername, databasePassword)) {
-            String sql = "SELECT pgp_sym_decrypt(?, ?) as decrypted_value";
-            
-            try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                // Converte o valor hexadecimal para bytes
-                byte[] encryptedBytes = hexStringToByteArray(encryptedValue.substring(2)); // Remove \x
-                statement.setBytes(1, encryptedBytes);
-                statement.setString(2, encryptionKey);
-                
+        Set<String> pendentes = new LinkedHashSet<>();
+        for (String valor : encryptedValues) {
+            if (valor == null) {
+                continue;
+            }
+            if (isPGPValue(valor)) {
+                pendentes.add(valor);
+            } else {
+                resultado.put(valor, valor);
+            }
+        }
+
+        // Só os valores fora do cache que o decodificador local não suporta vão ao banco
+        List<String> ordenados = new ArrayList<>();
+        for (String valor : pendentes) {
+            String decrypted = decryptedValueCache.get(valor);
+            if (decrypted == null) {
+                decrypted = decryptLocally(valor);
+                decryptedValueCache.put(valor, decrypted);
+            }
+            if (decrypted != null) {
+                resultado.put(valor, decrypted);
+            } else {
+                ordenados.add(valor);
+            }
+        }
+
+        if (ordenados.isEmpty()) {
+            return resultado;
+        }
+
+        String[] hexValues = new String[ordenados.size()];
+        for (int i = 0; i < ordenados.size(); i++) {
+            hexValues[i] = ordenados.get(i).substring(PGP_PREFIX.length());
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL_DECRYPT_BATCH)) {
+            Array array = connection.createArrayOf("text", hexValues);
+            try {
+                statement.setString(1, encryptionKey);
+                statement.setArray(2, array);
+
                 try (ResultSet resultSet = statement.executeQuery()) {
-                    if (resultSet.next()) {
+                    while (resultSet.next()) {
+                        int indice = resultSet.getInt("ord") - 1;
                         String decrypted = resultSet.getString("decrypted_value");
-                        log.debug("Valor PGP descriptografado com sucesso");
-                        return decrypted;
+                        String original = ordenados.get(indice);
+                        resultado.put(original, decrypted != null ? decrypted : original);
+                        decryptedValueCache.put(original, decrypted);
                     }
                 }
+            } finally {
+                array.free();
             }
+            log.debug("Lote de {} valores PGP descriptografado com sucesso", ordenados.size());
         } catch (Exception e) {
-            log.warn("Erro ao descriptografar valor PGP: {}", e.getMessage());
-            // Em caso de erro, retorna o valor original
-            return encryptedValue;
+            // Um único valor inválido aborta a consulta inteira: recorre ao caminho valor a valor
+            log.warn("Erro ao descriptografar lote PGP ({} valores), usando fallback individual: {}",
+                    ordenados.size(), e.getMessage());
+            for (String valor : ordenados) {
+                String decrypted = decryptViaDatabase(valor);
+                resultado.put(valor, decrypted);
+                if (!valor.equals(decrypted)) {
+                    decryptedValueCache.put(valor, decrypted);
+                }
+            }
         }
 
-        return encryptedValue;
+        for (String valor : ordenados) {
+            resultado.putIfAbsent(valor, valor);
+        }
+        return resultado;
     }
 
     /**
@@ -84,15 +181,70 @@ public class PGPDecryptionService {
             return obj;
         }
 
+        // Coleta todos os valores criptografados (inclusive dos campos aninhados) para um único lote
+        List<String> valoresCriptografados = new ArrayList<>();
+        coletarValores(obj, valoresCriptografados);
+        Map<String, String> descriptografados = decryptAll(valoresCriptografados);
+
+        return aplicarDescriptografia(obj, descriptografados);
+    }
+
+    /**
+     * Verifica se o valor está no formato hexadecimal gerado pelo pgcrypto
+     */
+    public boolean isPGPValue(String value) {
+        return value != null && !value.trim().isEmpty() && value.startsWith(PGP_PREFIX);
+    }
+
+    /**
+     * Descriptografa o pacote pgp_sym_encrypt na própria JVM.
+     * Retorna null quando o formato não é suportado ou a descriptografia local falha.
+     */
+    private String decryptLocally(String encryptedValue) {
+        if (!localDecryption) {
+            return null;
+        }
+        try {
+            byte[] encryptedBytes = hexStringToByteArray(encryptedValue.substring(PGP_PREFIX.length()));
+            byte[] decrypted = OpenPgpSymmetricDecoder.decrypt(encryptedBytes, encryptionKey.getBytes(StandardCharsets.UTF_8));
+            return new String(decrypted, StandardCharsets.UTF_8);
+        } catch (OpenPgpSymmetricDecoder.FormatoNaoSuportadoException e) {
+            log.debug("Formato PGP não suportado localmente, usando PostgreSQL: {}", e.getMessage());
+            return null;
+        } catch (Exception e) {
+            log.debug("Falha na descriptografia PGP local, usando PostgreSQL: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void coletarValores(Map<String, Object> obj, List<String> destino) {
+        for (String field : FIELDS_TO_DECRYPT) {
+            Object value = obj.get(field);
+            if (value instanceof String && isPGPValue((String) value)) {
+                destino.add((String) value);
+            }
+        }
+
+        Object campos = obj.get("campos");
+        if (campos instanceof List) {
+            for (Object campo : (List<?>) campos) {
+                if (campo instanceof Map) {
+                    coletarValores((Map<String, Object>) campo, destino);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> aplicarDescriptografia(Map<String, Object> obj, Map<String, String> descriptografados) {
         Map<String, Object> decryptedObj = new HashMap<>(obj);
 
         // Descriptografa campos específicos que podem estar criptografados
-        String[] fieldsToDecrypt = {"valor", "value", "descricao", "description", "placeholder", "valorPadrao"};
-        
-        for (String field : fieldsToDecrypt) {
+        for (String field : FIELDS_TO_DECRYPT) {
             Object value = decryptedObj.get(field);
             if (value instanceof String) {
-                decryptedObj.put(field, decryptPGPValue((String) value));
+                decryptedObj.put(field, descriptografados.getOrDefault(value, (String) value));
             }
         }
 
@@ -102,7 +254,7 @@ public class PGPDecryptionService {
             List<Map<String, Object>> decryptedCampos = new ArrayList<>();
             for (Object campo : (List<?>) campos) {
                 if (campo instanceof Map) {
-                    decryptedCampos.add(decryptObject((Map<String, Object>) campo));
+                    decryptedCampos.add(aplicarDescriptografia((Map<String, Object>) campo, descriptografados));
                 } else {
                     decryptedCampos.add((Map<String, Object>) campo);
                 }
@@ -126,4 +278,3 @@ public class PGPDecryptionService {
         return data;
     }
 }
-
@@ -0,0 +1,290 @@
+package br.com.backend.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Partições mensais (RANGE pela data do evento) de preenchimentos_analytics e historico_preenchimentos,
+ * criadas pela migração V13 no PostgreSQL. Um job diário cria as partições dos próximos meses e aplica a
+ * retenção removendo partições inteiras (DROP TABLE), sem DELETE linha a linha. Partições de analytics
+ * só saem depois de consolidadas. Linhas que caíram na partição padrão (job atrasado além de months-ahead,
+ * eventos com data retroativa) são movidas para a partição mensal quando ela é criada; o que sobrar na
+ * padrão aparece em formsync.partitions.default.rows e num aviso no log.
+ * No H2 (dev e test) não há partições: a retenção vira um DELETE por data.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ParticionamentoService {
+
+    // Sem retenção: nenhuma partição expira e as consultas não cortam por data
+    public static final LocalDateTime SEM_RETENCAO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final DateTimeFormatter SUFIXO = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String SQL_PARTICIONADA =
+            "SELECT COUNT(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid "
+            + "WHERE c.relname = ? AND pg_table_is_visible(c.oid)";
+
+    private static final String SQL_PARTICOES =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+            + "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ? AND pg_table_is_visible(p.oid)";
+
+    private static final String SQL_CRIAR = "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')";
+
+    private static final String SQL_EXISTE = "SELECT COUNT(*) FROM pg_class WHERE relname = ? AND pg_table_is_visible(oid)";
+
+    // Meses com linhas na partição padrão, para criar as partições que faltam
+    private static final String SQL_MESES_NA_PADRAO = "SELECT DISTINCT CAST(date_trunc('month', %s) AS DATE) FROM %s";
+
+    private static final String SQL_TEM_NO_INTERVALO = "SELECT COUNT(*) FROM (SELECT 1 FROM %s WHERE %s >= ? AND %s < ? LIMIT 1) linhas";
+
+    // CREATE ... PARTITION OF falha se a padrão já tem linhas do intervalo: a partição nasce solta,
+    // recebe as linhas, que saem da padrão, e só então é anexada (os índices da tabela mãe são criados no ATTACH)
+    private static final String SQL_CRIAR_SOLTA = "CREATE TABLE %s (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS)";
+    private static final String SQL_COPIAR_DA_PADRAO = "INSERT INTO %s SELECT * FROM %s WHERE %s >= ? AND %s < ?";
+    private static final String SQL_REMOVER_DA_PADRAO = "DELETE FROM %s WHERE %s >= ? AND %s < ?";
+    private static final String SQL_ANEXAR = "ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')";
+
+    private static final String SQL_LINHAS_NA_PADRAO = "SELECT COUNT(*) FROM %s";
+
+    private static final String SQL_NAO_CONSOLIDADOS =
+            "SELECT COUNT(*) FROM (SELECT 1 FROM %s WHERE id > " + RollupAnalyticsService.SQL_MARCA + " LIMIT 1) pendentes";
+
+    /**
+     * Tabelas de eventos particionadas por mês
+     */
+    public enum TabelaParticionada {
+        PREENCHIMENTOS_ANALYTICS("preenchimentos_analytics", "data_preenchimento", true),
+        HISTORICO_PREENCHIMENTOS("historico_preenchimentos", "data_hora", false);
+
+        private final String tabela;
+        private final String coluna;
+        // Linhas ainda não somadas à consolidação diária não podem sair
+        private final boolean consolidada;
+
+        TabelaParticionada(String tabela, String coluna, boolean consolidada) {
+            this.tabela = tabela;
+            this.coluna = coluna;
+            this.consolidada = consolidada;
+        }
+
+        public String getTabela() {
+            return tabela;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DialetoBanco dialetoBanco;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<TabelaParticionada, AtomicLong> linhasNaPadrao = new EnumMap<>(TabelaParticionada.class);
+
+    @Value("${app.partitions.months-ahead:3}")
+    private int mesesAFrente = 3;
+
+    // Meses completos mantidos além do mês corrente; 0 desliga a retenção
+    @Value("${app.partitions.analytics-retention-months:13}")
+    private int retencaoAnalyticsMeses = 13;
+
+    @Value("${app.partitions.historico-retention-months:24}")
+    private int retencaoHistoricoMeses = 24;
+
+    @PostConstruct
+    void init() {
+        for (TabelaParticionada tabela : TabelaParticionada.values()) {
+            AtomicLong linhas = new AtomicLong();
+            linhasNaPadrao.put(tabela, linhas);
+            Gauge.builder("formsync.partitions.default.rows", linhas, AtomicLong::get)
+                    .tag("table", tabela.tabela)
+                    .description("Linhas na partição padrão (sem partição mensal)").register(meterRegistry);
+        }
+    }
+
+    /**
+     * Cria as partições futuras e remove as expiradas de todas as tabelas
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.partitions.cron:0 30 3 * * *}")
+    public void manter() {
+        for (TabelaParticionada tabela : TabelaParticionada.values()) {
+            try {
+                if (dialetoBanco.isH2()) {
+                    removerLinhasExpiradas(tabela);
+                } else if (particionada(tabela)) {
+                    criarParticoes(tabela);
+                    removerParticoesExpiradas(tabela);
+                } else {
+                    log.warn("⚠️ [PARTICOES] {} não é particionada (aplique a migração V13)", tabela.tabela);
+                }
+            } catch (Exception e) {
+                log.error("❌ [PARTICOES] Erro na manutenção de {}: {}", tabela.tabela, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Primeiro instante mantido pela retenção da tabela: usado como predicado de data para podar partições
+     */
+    public LocalDateTime inicioRetencao(TabelaParticionada tabela) {
+        int meses = tabela == TabelaParticionada.PREENCHIMENTOS_ANALYTICS ? retencaoAnalyticsMeses : retencaoHistoricoMeses;
+        if (meses <= 0) {
+            return SEM_RETENCAO;
+        }
+        return LocalDate.now().withDayOfMonth(1).minusMonths(meses).atStartOfDay();
+    }
+
+    private boolean particionada(TabelaParticionada tabela) {
+        Integer particionadas = jdbcTemplate.queryForObject(SQL_PARTICIONADA, Integer.class, tabela.tabela);
+        return particionadas != null && particionadas > 0;
+    }
+
+    private void criarParticoes(TabelaParticionada tabela) {
+        String padrao = particaoPadrao(tabela);
+        boolean temPadrao = existe(padrao);
+
+        Set<LocalDate> meses = new TreeSet<>();
+        LocalDate mes = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= mesesAFrente; i++, mes = mes.plusMonths(1)) {
+            meses.add(mes);
+        }
+        if (temPadrao) {
+            meses.addAll(jdbcTemplate.queryForList(String.format(SQL_MESES_NA_PADRAO, tabela.coluna, padrao), LocalDate.class));
+        }
+
+        for (LocalDate inicio : meses) {
+            String particao = nomeParticao(tabela, inicio);
+            if (existe(particao)) {
+                continue;
+            }
+            try {
+                if (temPadrao && temNaPadrao(tabela, padrao, inicio)) {
+                    moverDaPadrao(tabela, padrao, particao, inicio);
+                } else {
+                    jdbcTemplate.execute(String.format(SQL_CRIAR, particao, tabela.tabela, inicio, inicio.plusMonths(1)));
+                }
+            } catch (Exception e) {
+                log.error("❌ [PARTICOES] Erro ao criar a partição {}: {}", particao, e.getMessage());
+            }
+        }
+
+        if (temPadrao) {
+            verificarPadrao(tabela, padrao);
+        }
+    }
+
+    private void moverDaPadrao(TabelaParticionada tabela, String padrao, String particao, LocalDate inicio) {
+        Timestamp de = Timestamp.valueOf(inicio.atStartOfDay());
+        Timestamp ate = Timestamp.valueOf(inicio.plusMonths(1).atStartOfDay());
+        Integer movidas = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(String.format(SQL_CRIAR_SOLTA, particao, tabela.tabela));
+            int copiadas = jdbcTemplate.update(String.format(SQL_COPIAR_DA_PADRAO, particao, padrao, tabela.coluna, tabela.coluna), de, ate);
+            jdbcTemplate.update(String.format(SQL_REMOVER_DA_PADRAO, padrao, tabela.coluna, tabela.coluna), de, ate);
+            jdbcTemplate.execute(String.format(SQL_ANEXAR, tabela.tabela, particao, inicio, inicio.plusMonths(1)));
+            return copiadas;
+        });
+        log.info("📦 [PARTICOES] Partição {} criada com {} linhas movidas de {}", particao, movidas, padrao);
+    }
+
+    private void verificarPadrao(TabelaParticionada tabela, String padrao) {
+        Long linhas = jdbcTemplate.queryForObject(String.format(SQL_LINHAS_NA_PADRAO, padrao), Long.class);
+        long total = linhas != null ? linhas : 0L;
+        linhasNaPadrao.get(tabela).set(total);
+        if (total > 0) {
+            log.warn("⚠️ [PARTICOES] {} tem {} linhas fora das partições mensais", padrao, total);
+        }
+    }
+
+    private boolean temNaPadrao(TabelaParticionada tabela, String padrao, LocalDate inicio) {
+        Integer linhas = jdbcTemplate.queryForObject(String.format(SQL_TEM_NO_INTERVALO, padrao, tabela.coluna, tabela.coluna),
+                Integer.class, Timestamp.valueOf(inicio.atStartOfDay()), Timestamp.valueOf(inicio.plusMonths(1).atStartOfDay()));
+        return linhas != null && linhas > 0;
+    }
+
+    private boolean existe(String relacao) {
+        Integer encontradas = jdbcTemplate.queryForObject(SQL_EXISTE, Integer.class, relacao);
+        return encontradas != null && encontradas > 0;
+    }
+
+    private void removerParticoesExpiradas(TabelaParticionada tabela) {
+        LocalDateTime corte = inicioRetencao(tabela);
+        if (corte.equals(SEM_RETENCAO)) {
+            return;
+        }
+        List<String> particoes = jdbcTemplate.queryForList(SQL_PARTICOES, String.class, tabela.tabela);
+        for (String particao : particoes) {
+            LocalDate inicio = mesDaParticao(tabela, particao);
+            // Partição padrão ou criada fora do padrão de nomes: nunca sai automaticamente
+            if (inicio == null || inicio.plusMonths(1).atStartOfDay().isAfter(corte)) {
+                continue;
+            }
+            if (tabela.consolidada && pendentesDeConsolidacao(particao)) {
+                log.warn("⚠️ [PARTICOES] {} expirou mas ainda tem linhas não consolidadas", particao);
+                continue;
+            }
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + particao);
+            log.info("🗑️ [PARTICOES] Partição {} removida pela retenção", particao);
+        }
+    }
+
+    private void removerLinhasExpiradas(TabelaParticionada tabela) {
+        LocalDateTime corte = inicioRetencao(tabela);
+        if (corte.equals(SEM_RETENCAO)) {
+            return;
+        }
+        String sql = "DELETE FROM " + tabela.tabela + " WHERE " + tabela.coluna + " < ?"
+                + (tabela.consolidada ? " AND id <= " + RollupAnalyticsService.SQL_MARCA : "");
+        int removidas = jdbcTemplate.update(sql, Timestamp.valueOf(corte));
+        if (removidas > 0) {
+            log.info("🗑️ [PARTICOES] {} linhas de {} removidas pela retenção", removidas, tabela.tabela);
+        }
+    }
+
+    private boolean pendentesDeConsolidacao(String particao) {
+        Integer pendentes = jdbcTemplate.queryForObject(String.format(SQL_NAO_CONSOLIDADOS, particao), Integer.class);
+        return pendentes != null && pendentes > 0;
+    }
+
+    private static String particaoPadrao(TabelaParticionada tabela) {
+        return tabela.tabela + "_padrao";
+    }
+
+    private static String nomeParticao(TabelaParticionada tabela, LocalDate mes) {
+        return tabela.tabela + "_p" + SUFIXO.format(mes);
+    }
+
+    private static LocalDate mesDaParticao(TabelaParticionada tabela, String particao) {
+        String prefixo = tabela.tabela + "_p";
+        if (!particao.startsWith(prefixo)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(particao.substring(prefixo.length()) + "_01", DateTimeFormatter.ofPattern("yyyy_MM_dd"));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
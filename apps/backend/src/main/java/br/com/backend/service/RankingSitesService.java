@@ -0,0 +1,279 @@
+package br.com.backend.service;
+
+import br.com.backend.dto.SiteAnalyticsDTO;
+import br.com.backend.repository.PreenchimentoAnalyticsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ranking de sites mais acessados servido da memória: um sketch Space-Saving por usuário ativo,
+ * atualizado pela gravação de preenchimentos e lido em O(K), sem GROUP BY a cada consulta.
+ * Cada sketch tem ceil(1 / erro) contadores, e a contagem de um site fica no máximo
+ * erro × (preenchimentos do usuário) acima da real. Até max-usuarios sketches ficam em memória
+ * (os menos usados saem primeiro). Um usuário fora da memória é reconstruído da consolidação diária
+ * na primeira leitura. A gravação só atualiza os sketches do nó que gravou, então cada sketch também é
+ * reconstruído na leitura depois de refresh-interval-ms: com vários pods (ou o consumidor Kafka em outro
+ * nó) o ranking fica no máximo esse tempo atrasado. O estado é gravado em ranking_sites_analytics a cada
+ * checkpoint-interval e no encerramento, e só é lido quando a primeira reconstrução de um usuário falha.
+ * Não há aquecimento na subida: um sketch carregado antes da primeira leitura venceria antes de ser usado.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RankingSitesService {
+
+    private static final String SQL_REMOVER_CHECKPOINT = "DELETE FROM ranking_sites_analytics WHERE usuario_id = ?";
+
+    private static final String SQL_GRAVAR_CHECKPOINT =
+            "INSERT INTO ranking_sites_analytics (usuario_id, site, contagem, erro, atualizado_em) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SQL_LER_CHECKPOINT =
+            "SELECT site, contagem, erro FROM ranking_sites_analytics WHERE usuario_id = ? ORDER BY contagem DESC";
+
+    private final PreenchimentoAnalyticsRepository preenchimentoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Erro máximo da contagem, como fração dos preenchimentos do usuário
+    @Value("${app.analytics.top-sites.error:0.01}")
+    private double erroMaximo = 0.01;
+
+    @Value("${app.analytics.top-sites.max-users:10000}")
+    private int maxUsuarios = 10_000;
+
+    // Idade máxima de um sketch antes de ser reconstruído do banco; 0 desliga
+    @Value("${app.analytics.top-sites.refresh-interval-ms:300000}")
+    private long intervaloReconstrucaoMs = 300_000;
+
+    private int capacidade;
+    // Ordem de acesso: o usuário lido ou atualizado há mais tempo sai primeiro
+    private Map<Long, Entrada> sketches;
+    private final Set<Long> alterados = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() {
+        if (erroMaximo <= 0 || erroMaximo >= 1) {
+            throw new IllegalStateException("app.analytics.top-sites.error deve estar entre 0 e 1: " + erroMaximo);
+        }
+        capacidade = (int) Math.ceil(1 / erroMaximo);
+        sketches = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> maisAntigo) {
+                return size() > maxUsuarios;
+            }
+        };
+        Gauge.builder("formsync.analytics.top_sites.users", this, RankingSitesService::usuariosEmMemoria)
+                .description("Usuários com ranking de sites em memória").register(meterRegistry);
+    }
+
+    /**
+     * Soma um preenchimento ao ranking do usuário
+     */
+    public void registrar(Long usuarioId, String site) {
+        registrar(List.of(new GravadorAnalytics.Preenchimento(usuarioId, site, null, LocalDateTime.now())));
+    }
+
+    /**
+     * Soma os preenchimentos aos rankings; dentro de uma transação, só depois do commit
+     */
+    public void registrar(List<GravadorAnalytics.Preenchimento> preenchimentos) {
+        if (preenchimentos.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    aplicar(preenchimentos);
+                }
+            });
+        } else {
+            aplicar(preenchimentos);
+        }
+    }
+
+    /**
+     * Os {@code k} sites com mais preenchimentos do usuário (k limitado à capacidade do sketch)
+     */
+    public List<SiteAnalyticsDTO> topSites(Long usuarioId, int k) {
+        SpaceSaving sketch = obter(usuarioId);
+        List<SpaceSaving.Contador> top;
+        synchronized (sketch) {
+            top = sketch.top(k);
+        }
+        List<SiteAnalyticsDTO> sites = new ArrayList<>(top.size());
+        for (SpaceSaving.Contador contador : top) {
+            sites.add(new SiteAnalyticsDTO(contador.getItem().isEmpty() ? null : contador.getItem(),
+                    (int) contador.getContagem(), (double) GravadorAnalytics.TEMPO_ECONOMIZADO_SEGUNDOS));
+        }
+        return sites;
+    }
+
+    /**
+     * Grava o estado dos sketches alterados desde o último checkpoint
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.top-sites.checkpoint-interval:300000}")
+    public void checkpoint() {
+        int gravados = 0;
+        for (Long usuarioId : List.copyOf(alterados)) {
+            alterados.remove(usuarioId);
+            SpaceSaving sketch = emMemoria(usuarioId);
+            if (sketch == null) {
+                continue;
+            }
+            List<SpaceSaving.Contador> contadores;
+            synchronized (sketch) {
+                contadores = sketch.top(sketch.getCapacidade());
+            }
+            try {
+                gravarCheckpoint(usuarioId, contadores);
+                gravados++;
+            } catch (Exception e) {
+                alterados.add(usuarioId);
+                log.error("❌ [ANALYTICS] Erro ao gravar checkpoint do ranking de sites do usuário {}: {}",
+                        usuarioId, e.getMessage());
+            }
+        }
+        if (gravados > 0) {
+            log.debug("📊 [ANALYTICS] Checkpoint do ranking de sites: {} usuários", gravados);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        checkpoint();
+    }
+
+    private void aplicar(List<GravadorAnalytics.Preenchimento> preenchimentos) {
+        for (GravadorAnalytics.Preenchimento preenchimento : preenchimentos) {
+            SpaceSaving sketch = emMemoria(preenchimento.getUsuarioId());
+            // Fora da memória: a reconstrução já lê este preenchimento do banco
+            if (sketch == null) {
+                continue;
+            }
+            synchronized (sketch) {
+                sketch.registrar(chave(preenchimento.getSite()), 1);
+            }
+            alterados.add(preenchimento.getUsuarioId());
+        }
+    }
+
+    private SpaceSaving obter(Long usuarioId) {
+        Entrada entrada;
+        synchronized (sketches) {
+            entrada = sketches.get(usuarioId);
+        }
+        if (entrada != null && !expirada(entrada)) {
+            return entrada.sketch;
+        }
+        // Consulta fora do lock; se outra thread reconstruiu antes, vale a dela
+        SpaceSaving reconstruido;
+        try {
+            reconstruido = reconstruir(usuarioId);
+        } catch (RuntimeException e) {
+            if (entrada == null) {
+                // Sem a consolidação, o checkpoint é o melhor estado disponível até a próxima leitura
+                log.warn("⚠️ [ANALYTICS] Ranking de sites do usuário {} restaurado do checkpoint: {}", usuarioId, e.getMessage());
+                SpaceSaving restaurado = lerCheckpoint(usuarioId);
+                synchronized (sketches) {
+                    Entrada atual = sketches.putIfAbsent(usuarioId, new Entrada(restaurado, 0L));
+                    return atual != null ? atual.sketch : restaurado;
+                }
+            }
+            log.warn("⚠️ [ANALYTICS] Ranking de sites do usuário {} não reconstruído, servindo o sketch em memória: {}",
+                    usuarioId, e.getMessage());
+            return entrada.sketch;
+        }
+        synchronized (sketches) {
+            Entrada atual = sketches.get(usuarioId);
+            if (atual != null && atual != entrada && !expirada(atual)) {
+                return atual.sketch;
+            }
+            sketches.put(usuarioId, new Entrada(reconstruido, System.currentTimeMillis()));
+            return reconstruido;
+        }
+    }
+
+    private SpaceSaving emMemoria(Long usuarioId) {
+        synchronized (sketches) {
+            Entrada entrada = sketches.get(usuarioId);
+            return entrada != null ? entrada.sketch : null;
+        }
+    }
+
+    private boolean expirada(Entrada entrada) {
+        return intervaloReconstrucaoMs > 0 && System.currentTimeMillis() - entrada.construidoEm >= intervaloReconstrucaoMs;
+    }
+
+    // Contagens exatas dos sites mais acessados (consolidação + cauda): os que ficam de fora têm contagem menor
+    private SpaceSaving reconstruir(Long usuarioId) {
+        SpaceSaving sketch = new SpaceSaving(capacidade);
+        for (Object[] site : preenchimentoRepository.findSitesMaisAcessados(usuarioId, PageRequest.of(0, capacidade))) {
+            sketch.restaurar(chave((String) site[0]), ((Number) site[1]).longValue(), 0);
+        }
+        return sketch;
+    }
+
+    private SpaceSaving lerCheckpoint(Long usuarioId) {
+        SpaceSaving sketch = new SpaceSaving(capacidade);
+        jdbcTemplate.query(SQL_LER_CHECKPOINT, rs -> {
+            sketch.restaurar(rs.getString("site"), rs.getLong("contagem"), rs.getLong("erro"));
+        }, usuarioId);
+        return sketch;
+    }
+
+    private void gravarCheckpoint(Long usuarioId, List<SpaceSaving.Contador> contadores) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> linhas = new ArrayList<>(contadores.size());
+        for (SpaceSaving.Contador contador : contadores) {
+            linhas.add(new Object[]{usuarioId, contador.getItem(), contador.getContagem(), contador.getErro(), agora});
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(SQL_REMOVER_CHECKPOINT, usuarioId);
+            jdbcTemplate.batchUpdate(SQL_GRAVAR_CHECKPOINT, linhas);
+        });
+    }
+
+    private int usuariosEmMemoria() {
+        synchronized (sketches) {
+            return sketches.size();
+        }
+    }
+
+    private static String chave(String site) {
+        return site != null ? site : "";
+    }
+
+    private static final class Entrada {
+        private final SpaceSaving sketch;
+        // Instante da reconstrução a partir do banco; 0 para um sketch restaurado só do checkpoint
+        private final long construidoEm;
+
+        private Entrada(SpaceSaving sketch, long construidoEm) {
+            this.sketch = sketch;
+            this.construidoEm = construidoEm;
+        }
+    }
+}
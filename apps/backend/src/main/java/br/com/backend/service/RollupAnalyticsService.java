@@ -0,0 +1,223 @@
+package br.com.backend.service;
+
+import br.com.backend.entity.ConsolidacaoAnalytics;
+import br.com.backend.repository.ConsolidacaoAnalyticsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consolidação diária de preenchimentos_analytics em preenchimentos_analytics_diario.
+ * Um job incremental soma, em lotes, as linhas acima da marca d'água (último id consolidado);
+ * o painel lê a consolidação e só a cauda ainda não consolidada da tabela bruta, então o custo
+ * não cresce com o histórico.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RollupAnalyticsService {
+
+    public static final String NOME = "preenchimentos_diario";
+
+    // Maior id do lote, só entre linhas gravadas há mais de lag-seconds (transações ainda abertas ficam para depois)
+    private static final String SQL_LIMITE_LOTE =
+            "SELECT MAX(id) FROM (SELECT id FROM preenchimentos_analytics WHERE id > ? AND created_at < ? "
+            + "ORDER BY id LIMIT ?) lote";
+
+    private static final String SQL_AGREGAR =
+            "SELECT usuario_id, CAST(data_preenchimento AS DATE) AS dia, COALESCE(site, '') AS site, COUNT(*) AS total, "
+            + "SUM(CASE WHEN sucesso THEN 1 ELSE 0 END) AS sucessos, COALESCE(SUM(tempo_economizado), 0) AS tempo "
+            + "FROM preenchimentos_analytics WHERE id > ? AND id <= ? "
+            + "GROUP BY usuario_id, CAST(data_preenchimento AS DATE), COALESCE(site, '')";
+
+    private static final String SQL_SOMAR_POSTGRES =
+            "INSERT INTO preenchimentos_analytics_diario (usuario_id, dia, site, total_preenchimentos, total_sucessos, "
+            + "tempo_economizado) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (usuario_id, dia, site) DO UPDATE SET "
+            + "total_preenchimentos = preenchimentos_analytics_diario.total_preenchimentos + EXCLUDED.total_preenchimentos, "
+            + "total_sucessos = preenchimentos_analytics_diario.total_sucessos + EXCLUDED.total_sucessos, "
+            + "tempo_economizado = preenchimentos_analytics_diario.tempo_economizado + EXCLUDED.tempo_economizado";
+
+    private static final String SQL_SOMAR_H2 =
+            "MERGE INTO preenchimentos_analytics_diario p USING (VALUES (CAST(? AS BIGINT), CAST(? AS DATE), "
+            + "CAST(? AS VARCHAR(255)), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT))) "
+            + "AS d(usuario_id, dia, site, total_preenchimentos, total_sucessos, tempo_economizado) "
+            + "ON p.usuario_id = d.usuario_id AND p.dia = d.dia AND p.site = d.site "
+            + "WHEN MATCHED THEN UPDATE SET total_preenchimentos = p.total_preenchimentos + d.total_preenchimentos, "
+            + "total_sucessos = p.total_sucessos + d.total_sucessos, "
+            + "tempo_economizado = p.tempo_economizado + d.tempo_economizado "
+            + "WHEN NOT MATCHED THEN INSERT (usuario_id, dia, site, total_preenchimentos, total_sucessos, tempo_economizado) "
+            + "VALUES (d.usuario_id, d.dia, d.site, d.total_preenchimentos, d.total_sucessos, d.tempo_economizado)";
+
+    // Marca d'água lida no mesmo comando: a consolidação e a cauda vêm do mesmo snapshot, sem contar linha duas vezes
+    static final String SQL_MARCA = "COALESCE((SELECT ultimo_id FROM consolidacao_analytics WHERE nome = '" + NOME + "'), 0)";
+
+    // Consolidação + cauda bruta acima da marca d'água, numa única consulta
+    private static final String SQL_TOTAIS =
+            "SELECT COALESCE(SUM(total), 0), COALESCE(SUM(sucessos), 0), COALESCE(SUM(tempo), 0) FROM ("
+            + "SELECT total_preenchimentos AS total, total_sucessos AS sucessos, tempo_economizado AS tempo "
+            + "FROM preenchimentos_analytics_diario WHERE usuario_id = ? AND dia >= ? "
+            + "UNION ALL "
+            + "SELECT COUNT(*), SUM(CASE WHEN sucesso THEN 1 ELSE 0 END), SUM(tempo_economizado) "
+            + "FROM preenchimentos_analytics WHERE usuario_id = ? AND id > " + SQL_MARCA + " AND data_preenchimento >= ?"
+            + ") totais";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ConsolidacaoAnalyticsRepository consolidacaoRepository;
+    private final DialetoBanco dialetoBanco;
+    private final SitesUnicosService sitesUnicosService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.analytics.rollup.chunk-size:5000}")
+    private int tamanhoLote = 5000;
+
+    @Value("${app.analytics.rollup.lag-seconds:60}")
+    private long atrasoSegundos = 60;
+
+    private final AtomicLong marcaDagua = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("formsync.analytics.rollup.watermark", marcaDagua, AtomicLong::get)
+                .description("Maior id de preenchimentos_analytics já consolidado").register(meterRegistry);
+    }
+
+    /**
+     * Soma à consolidação diária tudo o que entrou desde a última execução, em lotes de chunk-size linhas
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.rollup.interval:60000}")
+    public void consolidar() {
+        long total = 0;
+        try {
+            garantirMarcaDagua(NOME);
+            garantirMarcaDagua(SitesUnicosService.NOME);
+            Integer linhas;
+            while ((linhas = transactionTemplate.execute(status -> consolidarLote())) != null && linhas > 0) {
+                total += linhas;
+            }
+            // Dias consolidados antes dos sketches de sites únicos existirem
+            while (Boolean.TRUE.equals(transactionTemplate.execute(status -> sitesUnicosService.preencherLote()))) {
+                log.debug("📊 [ANALYTICS] Lote de sketches de sites únicos preenchido");
+            }
+        } catch (Exception e) {
+            log.error("❌ [ANALYTICS] Erro na consolidação diária, nova tentativa no próximo ciclo: {}", e.getMessage());
+        }
+        if (total > 0) {
+            log.info("📊 [ANALYTICS] {} grupos diários atualizados, marca d'água em {}", total, marcaDagua.get());
+        }
+    }
+
+    /**
+     * Totais do usuário nos últimos {@code dias} dias corridos, incluindo hoje
+     */
+    public Resumo resumo(Long usuarioId, int dias) {
+        LocalDate inicio = LocalDate.now().minusDays(Math.max(dias, 1) - 1L);
+        Date dia = Date.valueOf(inicio);
+        Timestamp momento = Timestamp.valueOf(inicio.atStartOfDay());
+
+        Resumo resumo = jdbcTemplate.queryForObject(SQL_TOTAIS, (rs, i) -> new Resumo(
+                rs.getLong(1), rs.getLong(2), rs.getLong(3), 0L),
+                usuarioId, dia, usuarioId, momento);
+        return new Resumo(resumo.totalPreenchimentos, resumo.totalSucessos, resumo.tempoEconomizado,
+                sitesUnicosService.contar(usuarioId, inicio));
+    }
+
+    /**
+     * Um lote dentro da transação: trava a marca d'água, agrega, soma, recalcula os sketches de sites dos dias e avança a marca
+     */
+    private Integer consolidarLote() {
+        ConsolidacaoAnalytics consolidacao = consolidacaoRepository.findParaAtualizar(NOME).orElseThrow();
+        long marca = consolidacao.getUltimoId();
+        marcaDagua.set(marca);
+
+        Timestamp corte = Timestamp.valueOf(LocalDateTime.now().minusSeconds(atrasoSegundos));
+        Long limite = jdbcTemplate.queryForObject(SQL_LIMITE_LOTE, Long.class, marca, corte, tamanhoLote);
+        if (limite == null) {
+            return 0;
+        }
+
+        List<Object[]> grupos = jdbcTemplate.query(SQL_AGREGAR, (rs, i) -> new Object[]{
+                rs.getLong("usuario_id"), rs.getDate("dia"), rs.getString("site"),
+                rs.getLong("total"), rs.getLong("sucessos"), rs.getLong("tempo")}, marca, limite);
+        if (dialetoBanco.isH2()) {
+            jdbcTemplate.batchUpdate(SQL_SOMAR_H2, grupos);
+        } else {
+            jdbcTemplate.batchUpdate(SQL_SOMAR_POSTGRES, grupos);
+        }
+        Set<SitesUnicosService.Dia> dias = new HashSet<>();
+        for (Object[] grupo : grupos) {
+            dias.add(new SitesUnicosService.Dia((Long) grupo[0], ((Date) grupo[1]).toLocalDate()));
+        }
+        sitesUnicosService.atualizar(dias);
+
+        long linhas = grupos.stream().mapToLong(grupo -> (Long) grupo[3]).sum();
+        consolidacao.setUltimoId(limite);
+        consolidacao.setConsolidados(consolidacao.getConsolidados() + linhas);
+        consolidacao.setAtualizadoEm(LocalDateTime.now());
+        consolidacaoRepository.save(consolidacao);
+        marcaDagua.set(limite);
+        return grupos.size();
+    }
+
+    private void garantirMarcaDagua(String nome) {
+        if (consolidacaoRepository.existsById(nome)) {
+            return;
+        }
+        try {
+            consolidacaoRepository.save(ConsolidacaoAnalytics.builder().nome(nome).build());
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Marca d'água da consolidação criada por outra instância");
+        }
+    }
+
+    /**
+     * Totais de preenchimento de um período
+     */
+    public static final class Resumo {
+        private final long totalPreenchimentos;
+        private final long totalSucessos;
+        private final long tempoEconomizado;
+        private final long sitesUnicos;
+
+        private Resumo(long totalPreenchimentos, long totalSucessos, long tempoEconomizado, long sitesUnicos) {
+            this.totalPreenchimentos = totalPreenchimentos;
+            this.totalSucessos = totalSucessos;
+            this.tempoEconomizado = tempoEconomizado;
+            this.sitesUnicos = sitesUnicos;
+        }
+
+        public long getTotalPreenchimentos() {
+            return totalPreenchimentos;
+        }
+
+        public long getTotalSucessos() {
+            return totalSucessos;
+        }
+
+        public long getTempoEconomizado() {
+            return tempoEconomizado;
+        }
+
+        public long getSitesUnicos() {
+            return sitesUnicos;
+        }
+    }
+}
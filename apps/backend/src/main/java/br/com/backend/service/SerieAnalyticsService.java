@@ -0,0 +1,157 @@
+package br.com.backend.service;
+
+import br.com.backend.dto.PreenchimentoAnalyticsDTO;
+import br.com.backend.exception.BusinessException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiConsumer;
+
+/**
+ * Série temporal de preenchimentos agregada no servidor (hora, dia ou semana), em vez de uma linha por
+ * preenchimento. Dia e semana saem da consolidação diária mais a cauda não consolidada; hora agrupa a
+ * tabela bruta com DATE_TRUNC. Os pontos são entregues um a um, sem montar a lista de eventos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SerieAnalyticsService {
+
+    /**
+     * Tamanho de cada ponto da série
+     */
+    public enum Granularidade {
+        HORA, DIA, SEMANA;
+
+        public static Granularidade de(String valor) {
+            if (valor == null || valor.isBlank()) {
+                return DIA;
+            }
+            return switch (valor.trim().toLowerCase(Locale.ROOT)) {
+                case "hora", "hour" -> HORA;
+                case "dia", "day" -> DIA;
+                case "semana", "week" -> SEMANA;
+                default -> throw new BusinessException("Granularidade inválida: " + valor + " (use hora, dia ou semana)");
+            };
+        }
+    }
+
+    private static final String SQL_DIAS =
+            "SELECT dia, SUM(total) AS total FROM ("
+            + "SELECT dia, total_preenchimentos AS total FROM preenchimentos_analytics_diario WHERE usuario_id = ? AND dia >= ? "
+            + "UNION ALL "
+            + "SELECT CAST(data_preenchimento AS DATE) AS dia, COUNT(*) AS total FROM preenchimentos_analytics "
+            + "WHERE usuario_id = ? AND id > " + RollupAnalyticsService.SQL_MARCA + " AND data_preenchimento >= ? "
+            + "GROUP BY CAST(data_preenchimento AS DATE)"
+            + ") serie GROUP BY dia ORDER BY dia";
+
+    private static final String SQL_HORAS =
+            "SELECT DATE_TRUNC('hour', data_preenchimento) AS hora, COUNT(*) AS total FROM preenchimentos_analytics "
+            + "WHERE usuario_id = ? AND data_preenchimento >= ? "
+            + "GROUP BY DATE_TRUNC('hour', data_preenchimento) ORDER BY hora";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Por hora a consulta lê a tabela bruta: o período fica limitado
+    @Value("${app.analytics.series.max-hour-days:31}")
+    private int maxDiasPorHora = 31;
+
+    /**
+     * Escreve a série como array JSON de {data, quantidade}, ponto a ponto
+     */
+    public void escrever(Long usuarioId, int dias, Granularidade granularidade, OutputStream saida) throws IOException {
+        try (JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)) {
+            gerador.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            gerador.writeStartArray();
+            percorrer(usuarioId, dias, granularidade, (inicio, quantidade) -> {
+                try {
+                    gerador.writeStartObject();
+                    gerador.writeStringField("data", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(inicio));
+                    gerador.writeNumberField("quantidade", quantidade);
+                    gerador.writeEndObject();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            gerador.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Mesma série em lista, para quem precisa do resultado inteiro (poucos pontos)
+     */
+    public List<PreenchimentoAnalyticsDTO> listar(Long usuarioId, int dias, Granularidade granularidade) {
+        List<PreenchimentoAnalyticsDTO> pontos = new ArrayList<>();
+        percorrer(usuarioId, dias, granularidade, (inicio, quantidade) ->
+                pontos.add(new PreenchimentoAnalyticsDTO(inicio, quantidade.intValue(), null, null)));
+        return pontos;
+    }
+
+    /**
+     * Valida o período antes de começar a escrever a resposta
+     */
+    public void validar(int dias, Granularidade granularidade) {
+        if (dias < 1) {
+            throw new BusinessException("Período inválido: " + dias);
+        }
+        if (granularidade == Granularidade.HORA && dias > maxDiasPorHora) {
+            throw new BusinessException("Granularidade por hora aceita no máximo " + maxDiasPorHora + " dias");
+        }
+    }
+
+    private void percorrer(Long usuarioId, int dias, Granularidade granularidade, BiConsumer<LocalDateTime, Long> ponto) {
+        validar(dias, granularidade);
+        LocalDate inicio = LocalDate.now().minusDays(dias - 1L);
+        Timestamp momento = Timestamp.valueOf(inicio.atStartOfDay());
+
+        if (granularidade == Granularidade.HORA) {
+            jdbcTemplate.query(SQL_HORAS, rs -> {
+                ponto.accept(rs.getTimestamp("hora").toLocalDateTime(), rs.getLong("total"));
+            }, usuarioId, momento);
+            return;
+        }
+
+        if (granularidade == Granularidade.DIA) {
+            jdbcTemplate.query(SQL_DIAS, rs -> {
+                ponto.accept(rs.getDate("dia").toLocalDate().atStartOfDay(), rs.getLong("total"));
+            }, usuarioId, Date.valueOf(inicio), usuarioId, momento);
+            return;
+        }
+
+        // Semana (segunda a domingo): os dias chegam em ordem, então basta acumular até a semana mudar
+        LocalDate[] semanaAtual = new LocalDate[1];
+        long[] acumulado = new long[1];
+        jdbcTemplate.query(SQL_DIAS, rs -> {
+            LocalDate semana = rs.getDate("dia").toLocalDate().with(DayOfWeek.MONDAY);
+            if (semanaAtual[0] != null && !semana.equals(semanaAtual[0])) {
+                ponto.accept(semanaAtual[0].atStartOfDay(), acumulado[0]);
+                acumulado[0] = 0;
+            }
+            semanaAtual[0] = semana;
+            acumulado[0] += rs.getLong("total");
+        }, usuarioId, Date.valueOf(inicio), usuarioId, momento);
+        if (semanaAtual[0] != null) {
+            ponto.accept(semanaAtual[0].atStartOfDay(), acumulado[0]);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package br.com.backend.service;
+
+import br.com.backend.entity.ConsolidacaoAnalytics;
+import br.com.backend.repository.ConsolidacaoAnalyticsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Sites distintos do usuário em um período. Cada (usuário, dia) consolidado tem um sketch HyperLogLog
+ * em sites_unicos_diario, recalculado a partir de preenchimentos_analytics_diario na mesma transação
+ * da consolidação. Um período une os sketches dos dias e os sites da cauda não consolidada em Java,
+ * com custo proporcional aos dias e não aos preenchimentos. A contagem exata (COUNT DISTINCT) continua
+ * disponível com app.analytics.distinct-sites.exact=true e é usada enquanto os dias antigos ainda não
+ * têm sketch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SitesUnicosService {
+
+    // Marca d'água do preenchimento dos dias consolidados antes dos sketches existirem
+    public static final String NOME = "sites_unicos_diario";
+
+    private static final int USUARIOS_POR_CONSULTA = 500;
+
+    private static final String SQL_SITES_DIAS =
+            "SELECT usuario_id, dia, site FROM preenchimentos_analytics_diario "
+            + "WHERE usuario_id IN (%s) AND dia >= ? AND dia <= ? AND site <> ''";
+
+    private static final String SQL_GRAVAR_POSTGRES =
+            "INSERT INTO sites_unicos_diario (usuario_id, dia, hll) VALUES (?, ?, ?) "
+            + "ON CONFLICT (usuario_id, dia) DO UPDATE SET hll = EXCLUDED.hll";
+
+    private static final String SQL_GRAVAR_H2 =
+            "MERGE INTO sites_unicos_diario (usuario_id, dia, hll) KEY (usuario_id, dia) VALUES (?, ?, ?)";
+
+    private static final String SQL_LIMITE_PENDENTES =
+            "SELECT MAX(id) FROM (SELECT id FROM preenchimentos_analytics_diario WHERE id > ? ORDER BY id LIMIT ?) lote";
+
+    private static final String SQL_DIAS_PENDENTES =
+            "SELECT DISTINCT d.usuario_id, d.dia FROM preenchimentos_analytics_diario d WHERE d.id > ? AND d.id <= ? "
+            + "AND NOT EXISTS (SELECT 1 FROM sites_unicos_diario s WHERE s.usuario_id = d.usuario_id AND s.dia = d.dia)";
+
+    // Sketches do período + sites da cauda acima da marca d'água, no mesmo snapshot
+    private static final String SQL_SKETCHES =
+            "SELECT hll, CAST(NULL AS VARCHAR(255)) AS site FROM sites_unicos_diario WHERE usuario_id = ? AND dia >= ? "
+            + "UNION ALL "
+            + "SELECT NULL, site FROM preenchimentos_analytics WHERE usuario_id = ? AND id > " + RollupAnalyticsService.SQL_MARCA
+            + " AND data_preenchimento >= ? AND site IS NOT NULL AND site <> '' GROUP BY site";
+
+    private static final String SQL_EXATO =
+            "SELECT COUNT(DISTINCT site) FROM ("
+            + "SELECT site FROM preenchimentos_analytics_diario WHERE usuario_id = ? AND dia >= ? AND site <> '' "
+            + "UNION "
+            + "SELECT site FROM preenchimentos_analytics WHERE usuario_id = ? AND id > " + RollupAnalyticsService.SQL_MARCA
+            + " AND data_preenchimento >= ? AND site IS NOT NULL AND site <> ''"
+            + ") sites";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConsolidacaoAnalyticsRepository consolidacaoRepository;
+    private final DialetoBanco dialetoBanco;
+
+    // 2^precision registradores por sketch; erro padrão 1,04 / sqrt(2^precision)
+    @Value("${app.analytics.distinct-sites.precision:14}")
+    private int precisao = 14;
+
+    @Value("${app.analytics.distinct-sites.exact:false}")
+    private boolean exato = false;
+
+    @Value("${app.analytics.rollup.chunk-size:5000}")
+    private int tamanhoLote = 5000;
+
+    // Só depois que todos os dias consolidados têm sketch
+    private volatile boolean sketchesCompletos;
+
+    /**
+     * Sites distintos do usuário desde {@code inicio} (inclusive)
+     */
+    public long contar(Long usuarioId, LocalDate inicio) {
+        Date dia = Date.valueOf(inicio);
+        Timestamp momento = Timestamp.valueOf(inicio.atStartOfDay());
+        if (!exato && sketchesCompletos) {
+            try {
+                return estimar(usuarioId, dia, momento);
+            } catch (IllegalArgumentException e) {
+                log.warn("⚠️ [ANALYTICS] Sketch de sites inválido para o usuário {}, contagem exata: {}", usuarioId, e.getMessage());
+            }
+        }
+        Long sitesUnicos = jdbcTemplate.queryForObject(SQL_EXATO, Long.class, usuarioId, dia, usuarioId, momento);
+        return sitesUnicos != null ? sitesUnicos : 0L;
+    }
+
+    /**
+     * Recalcula o sketch dos dias a partir da consolidação. Chamado na transação que consolida,
+     * depois de somar os grupos do lote.
+     */
+    public void atualizar(Collection<Dia> dias) {
+        if (dias.isEmpty()) {
+            return;
+        }
+        Map<Dia, HyperLogLog> sketches = new HashMap<>();
+        Set<Long> usuarios = new LinkedHashSet<>();
+        LocalDate primeiro = LocalDate.MAX;
+        LocalDate ultimo = LocalDate.MIN;
+        for (Dia dia : dias) {
+            sketches.put(dia, new HyperLogLog(precisao));
+            usuarios.add(dia.usuarioId);
+            primeiro = dia.dia.isBefore(primeiro) ? dia.dia : primeiro;
+            ultimo = dia.dia.isAfter(ultimo) ? dia.dia : ultimo;
+        }
+
+        List<Long> ids = new ArrayList<>(usuarios);
+        for (int inicio = 0; inicio < ids.size(); inicio += USUARIOS_POR_CONSULTA) {
+            List<Long> grupo = ids.subList(inicio, Math.min(inicio + USUARIOS_POR_CONSULTA, ids.size()));
+            List<Object> parametros = new ArrayList<>(grupo);
+            parametros.add(Date.valueOf(primeiro));
+            parametros.add(Date.valueOf(ultimo));
+            String sql = String.format(SQL_SITES_DIAS, String.join(", ", Collections.nCopies(grupo.size(), "?")));
+            jdbcTemplate.query(sql, rs -> {
+                HyperLogLog sketch = sketches.get(new Dia(rs.getLong("usuario_id"), rs.getDate("dia").toLocalDate()));
+                if (sketch != null) {
+                    sketch.adicionar(rs.getString("site"));
+                }
+            }, parametros.toArray());
+        }
+
+        List<Object[]> linhas = new ArrayList<>(sketches.size());
+        sketches.forEach((dia, sketch) -> linhas.add(new Object[]{dia.usuarioId, Date.valueOf(dia.dia), sketch.serializar()}));
+        jdbcTemplate.batchUpdate(dialetoBanco.isH2() ? SQL_GRAVAR_H2 : SQL_GRAVAR_POSTGRES, linhas);
+    }
+
+    /**
+     * Um lote do preenchimento dos dias consolidados sem sketch, dentro da transação.
+     * Trava a marca d'água da consolidação para não concorrer com ela. Retorna false quando não há mais.
+     */
+    public boolean preencherLote() {
+        consolidacaoRepository.findParaAtualizar(RollupAnalyticsService.NOME).orElseThrow();
+        ConsolidacaoAnalytics marca = consolidacaoRepository.findParaAtualizar(NOME).orElseThrow();
+
+        Long limite = jdbcTemplate.queryForObject(SQL_LIMITE_PENDENTES, Long.class, marca.getUltimoId(), tamanhoLote);
+        if (limite == null) {
+            if (!sketchesCompletos) {
+                log.info("📊 [ANALYTICS] Sketches de sites únicos completos, {} dias preenchidos", marca.getConsolidados());
+            }
+            sketchesCompletos = true;
+            return false;
+        }
+
+        List<Dia> dias = jdbcTemplate.query(SQL_DIAS_PENDENTES, (rs, i) ->
+                new Dia(rs.getLong("usuario_id"), rs.getDate("dia").toLocalDate()), marca.getUltimoId(), limite);
+        atualizar(dias);
+
+        marca.setUltimoId(limite);
+        marca.setConsolidados(marca.getConsolidados() + dias.size());
+        marca.setAtualizadoEm(LocalDateTime.now());
+        consolidacaoRepository.save(marca);
+        return true;
+    }
+
+    private long estimar(Long usuarioId, Date dia, Timestamp momento) {
+        HyperLogLog uniao = new HyperLogLog(precisao);
+        jdbcTemplate.query(SQL_SKETCHES, rs -> {
+            byte[] sketch = rs.getBytes("hll");
+            if (sketch != null) {
+                uniao.mesclar(HyperLogLog.ler(sketch));
+            } else {
+                uniao.adicionar(rs.getString("site"));
+            }
+        }, usuarioId, dia, usuarioId, momento);
+        return uniao.estimar();
+    }
+
+    /**
+     * Usuário e dia de um sketch
+     */
+    public static final class Dia {
+        private final Long usuarioId;
+        private final LocalDate dia;
+
+        public Dia(Long usuarioId, LocalDate dia) {
+            this.usuarioId = usuarioId;
+            this.dia = dia;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Dia outro)) {
+                return false;
+            }
+            return usuarioId.equals(outro.usuarioId) && dia.equals(outro.dia);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(usuarioId, dia);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.backend.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Sketch Space-Saving para os itens mais frequentes de um fluxo, com no máximo {@code capacidade}
+ * contadores. Quando um item novo chega com o sketch cheio, ele herda o menor contador, que vira o
+ * seu erro. Garantias para um fluxo de N eventos: contagem - erro <= frequência real <= contagem,
+ * erro <= N / capacidade, e todo item com frequência maior que N / capacidade está no sketch.
+ * Não é thread-safe: quem usa sincroniza.
+ */
+public class SpaceSaving {
+
+    private static final Comparator<Contador> ORDEM =
+            Comparator.comparingLong((Contador contador) -> contador.contagem).thenComparing(contador -> contador.item);
+
+    private final int capacidade;
+    private final Map<String, Contador> contadores = new HashMap<>();
+    // Menor contagem primeiro: substituição em O(log capacidade) e top-K em O(K)
+    private final TreeSet<Contador> ordem = new TreeSet<>(ORDEM);
+    private long total;
+
+    public SpaceSaving(int capacidade) {
+        if (capacidade < 1) {
+            throw new IllegalArgumentException("Capacidade do sketch deve ser positiva: " + capacidade);
+        }
+        this.capacidade = capacidade;
+    }
+
+    /**
+     * Soma {@code quantidade} ocorrências do item
+     */
+    public void registrar(String item, long quantidade) {
+        Contador contador = contadores.get(item);
+        if (contador != null) {
+            ordem.remove(contador);
+            contador.contagem += quantidade;
+        } else if (contadores.size() < capacidade) {
+            contador = new Contador(item, quantidade, 0);
+            contadores.put(item, contador);
+        } else {
+            Contador menor = ordem.pollFirst();
+            contadores.remove(menor.item);
+            contador = new Contador(item, menor.contagem + quantidade, menor.contagem);
+            contadores.put(item, contador);
+        }
+        ordem.add(contador);
+        total += quantidade;
+    }
+
+    /**
+     * Carrega um contador já conhecido (checkpoint ou consolidação), em ordem decrescente de contagem.
+     * Além da capacidade o item é descartado: os anteriores já têm contagem maior ou igual.
+     */
+    public void restaurar(String item, long contagem, long erro) {
+        if (contadores.size() >= capacidade || contadores.containsKey(item)) {
+            return;
+        }
+        Contador contador = new Contador(item, contagem, erro);
+        contadores.put(item, contador);
+        ordem.add(contador);
+        total += contagem;
+    }
+
+    /**
+     * Os {@code k} itens de maior contagem, do maior para o menor (cópias)
+     */
+    public List<Contador> top(int k) {
+        List<Contador> resultado = new ArrayList<>(Math.min(k, contadores.size()));
+        Iterator<Contador> iterador = ordem.descendingIterator();
+        while (iterador.hasNext() && resultado.size() < k) {
+            Contador contador = iterador.next();
+            resultado.add(new Contador(contador.item, contador.contagem, contador.erro));
+        }
+        return resultado;
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    /**
+     * Eventos contados desde a criação ou restauração
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Contagem estimada de um item e o quanto ela pode estar acima da real
+     */
+    public static final class Contador {
+        private final String item;
+        private long contagem;
+        private final long erro;
+
+        private Contador(String item, long contagem, long erro) {
+            this.item = item;
+            this.contagem = contagem;
+            this.erro = erro;
+        }
+
+        public String getItem() {
+            return item;
+        }
+
+        public long getContagem() {
+            return contagem;
+        }
+
+        public long getErro() {
+            return erro;
+        }
+    }
+}
@@ -33,6 +33,9 @@ public class TemplateCsvService {
     private final TemplateRepository templateRepository;
     private final CampoTemplateRepository campoTemplateRepository;
     private final PlanoLimiteService planoLimiteService;
+    private final TemplateVersionService templateVersionService;
+    private final TemplateEventService templateEventService;
+    private final CryptoService cryptoService;
     
     public PlanoLimiteService getPlanoLimiteService() {
         return planoLimiteService;
@@ -62,6 +65,9 @@ public class TemplateCsvService {
                     .sum();
             
             planoLimiteService.validarCriacaoTemplatesCsv(usuario, quantidadeTemplates, totalCamposNovos);
+            templateVersionService.incrementar(usuario.getId());
+            templatesCriados.forEach(template -> templateEventService.publicar(
+                    usuario.getId(), template.getId(), TemplateEventService.TEMPLATE_ALTERADO));
         }
         
         return templatesCriados;
@@ -268,7 +274,7 @@ public class TemplateCsvService {
                 if (!nomeCampo.isEmpty() && !valorCampo.isEmpty()) {
                     CampoTemplate campo = new CampoTemplate();
                     campo.setNome(nomeCampo);
-                    campo.setValor(valorCampo);
+                    campo.setValor(cryptoService.encryptIfEnabled(valorCampo));
                     campo.setTipo(tipoCampo.isEmpty() ? "text" : tipoCampo);
                     campo.setOrdem((i - 2) / 3); // Ordem baseada na posição no CSV
                     campo.setAtivo(true);
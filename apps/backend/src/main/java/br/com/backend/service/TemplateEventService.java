@@ -0,0 +1,310 @@
+package br.com.backend.service;
+
+import br.com.backend.kafka.DifusorEventosTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Canal SSE que avisa a extensão quando um template do usuário muda, para que ela busque
+ * só o delta em /extension/sync em vez de consultar os templates periodicamente.
+ * Cada conexão tem uma fila limitada drenada por um pool pequeno: um cliente lento nunca
+ * segura quem publica; se a fila encher, o cliente recebe "resync" e faz uma sincronização completa.
+ * As conexões ficam no nó que as abriu. Com app.kafka.enabled=true as alterações são difundidas a
+ * todos os nós ({@link DifusorEventosTemplate}), então a API pode rodar em vários pods sem afinidade.
+ * Sem Kafka, só o nó que fez a alteração avisa: rode um único nó ou use sessão fixa (sticky) no balanceador.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateEventService {
+
+    public static final String TEMPLATE_ALTERADO = "template.alterado";
+    public static final String TEMPLATE_REMOVIDO = "template.removido";
+    public static final String RESYNC = "resync";
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<DifusorEventosTemplate> difusorEventos;
+
+    @Value("${app.sse.timeout-ms:1800000}")
+    private long timeoutMs = 1_800_000;
+
+    @Value("${app.sse.queue-capacity:64}")
+    private int capacidadeFila = 64;
+
+    @Value("${app.sse.max-connections-per-user:5}")
+    private int maxConexoesPorUsuario = 5;
+
+    @Value("${app.sse.sender-threads:2}")
+    private int threadsEnvio = 2;
+
+    private final Map<Long, Set<Conexao>> conexoes = new ConcurrentHashMap<>();
+    private final AtomicInteger totalConexoes = new AtomicInteger();
+    private final AtomicLong sequencia = new AtomicLong();
+
+    private ExecutorService executor;
+    private Counter enviados;
+    private Counter descartados;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger contador = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threadsEnvio, r -> {
+            Thread thread = new Thread(r, "sse-sender-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        enviados = Counter.builder("formsync.sse.events").tag("result", "sent")
+                .description("Eventos SSE de templates").register(meterRegistry);
+        descartados = Counter.builder("formsync.sse.events").tag("result", "dropped")
+                .description("Eventos SSE de templates").register(meterRegistry);
+        Gauge.builder("formsync.sse.connections", totalConexoes, AtomicInteger::get)
+                .description("Conexões SSE abertas").register(meterRegistry);
+    }
+
+    /**
+     * Abre uma conexão SSE para o usuário; as mais antigas são fechadas acima do limite por usuário
+     */
+    public SseEmitter conectar(Long usuarioId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Conexao conexao = new Conexao(usuarioId, emitter, capacidadeFila);
+
+        // compute/computeIfPresent atômicos: uma conexão nova nunca cai num conjunto que acabou de ser removido
+        Set<Conexao> doUsuario = conexoes.compute(usuarioId, (id, atual) -> {
+            Set<Conexao> conjunto = atual != null ? atual : new CopyOnWriteArraySet<>();
+            conjunto.add(conexao);
+            return conjunto;
+        });
+        totalConexoes.incrementAndGet();
+        Iterator<Conexao> iterator = doUsuario.iterator();
+        while (doUsuario.size() > maxConexoesPorUsuario && iterator.hasNext()) {
+            Conexao maisAntiga = iterator.next();
+            if (maisAntiga != conexao) {
+                encerrar(maisAntiga, null);
+            }
+        }
+
+        emitter.onCompletion(() -> remover(conexao));
+        emitter.onTimeout(() -> remover(conexao));
+        emitter.onError(erro -> remover(conexao));
+
+        enfileirar(conexao, new Evento("conectado", null));
+        log.info("📡 [SSE] Usuário {} conectado ({} conexões abertas)", usuarioId, totalConexoes.get());
+        return emitter;
+    }
+
+    /**
+     * Publica a alteração de um template; dentro de uma transação, só sai depois do commit.
+     * Com Kafka, a alteração passa por todos os nós; sem Kafka, só as conexões deste nó são avisadas.
+     */
+    public void publicar(Long usuarioId, Long templateId, String tipo) {
+        if (usuarioId == null) {
+            return;
+        }
+        DifusorEventosTemplate difusor = difusorEventos.getIfAvailable();
+        if (difusor == null && !conexoes.containsKey(usuarioId)) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    difundir(difusor, usuarioId, templateId, tipo);
+                }
+            });
+        } else {
+            difundir(difusor, usuarioId, templateId, tipo);
+        }
+    }
+
+    /**
+     * Entrega uma alteração às conexões abertas neste nó (chamado pelo difusor ao consumir o tópico)
+     */
+    public void entregarLocalmente(Long usuarioId, Long templateId, String tipo) {
+        distribuir(usuarioId, new Evento(tipo, templateId));
+    }
+
+    /**
+     * Mantém as conexões vivas atrás de proxies e detecta clientes que já foram embora
+     */
+    @Scheduled(fixedDelayString = "${app.sse.heartbeat-interval:25000}")
+    public void enviarHeartbeats() {
+        for (Set<Conexao> doUsuario : conexoes.values()) {
+            for (Conexao conexao : doUsuario) {
+                if (conexao.fila.isEmpty()) {
+                    enfileirar(conexao, Evento.HEARTBEAT);
+                }
+            }
+        }
+    }
+
+    public int conexoesAbertas() {
+        return totalConexoes.get();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        for (Set<Conexao> doUsuario : conexoes.values()) {
+            for (Conexao conexao : doUsuario) {
+                encerrar(conexao, null);
+            }
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void difundir(DifusorEventosTemplate difusor, Long usuarioId, Long templateId, String tipo) {
+        if (difusor != null) {
+            difusor.publicar(usuarioId, templateId, tipo);
+        } else {
+            entregarLocalmente(usuarioId, templateId, tipo);
+        }
+    }
+
+    private void distribuir(Long usuarioId, Evento evento) {
+        Set<Conexao> doUsuario = conexoes.get(usuarioId);
+        if (doUsuario == null) {
+            return;
+        }
+        for (Conexao conexao : doUsuario) {
+            enfileirar(conexao, evento);
+        }
+    }
+
+    private void enfileirar(Conexao conexao, Evento evento) {
+        if (!conexao.fila.offer(evento)) {
+            // Fila cheia: os eventos pendentes perdem o sentido, o cliente precisa de uma sincronização completa
+            descartados.increment(conexao.fila.size() + 1);
+            conexao.fila.clear();
+            conexao.fila.offer(new Evento(RESYNC, null));
+        }
+        agendar(conexao);
+    }
+
+    private void agendar(Conexao conexao) {
+        if (conexao.agendada.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> drenar(conexao));
+            } catch (Exception e) {
+                conexao.agendada.set(false);
+            }
+        }
+    }
+
+    /**
+     * Escreve os eventos pendentes da conexão; só uma thread drena cada conexão por vez
+     */
+    private void drenar(Conexao conexao) {
+        try {
+            Evento evento;
+            while ((evento = conexao.fila.poll()) != null) {
+                if (evento == Evento.HEARTBEAT) {
+                    conexao.emitter.send(SseEmitter.event().comment("heartbeat"));
+                    continue;
+                }
+                conexao.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(sequencia.incrementAndGet()))
+                        .name(evento.tipo)
+                        .data(evento.dados()));
+                enviados.increment();
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Conexão SSE do usuário {} encerrada: {}", conexao.usuarioId, e.getMessage());
+            encerrar(conexao, e);
+            return;
+        } finally {
+            conexao.agendada.set(false);
+        }
+
+        // Evento que chegou entre o último poll e a liberação da flag
+        if (!conexao.fila.isEmpty()) {
+            agendar(conexao);
+        }
+    }
+
+    private void encerrar(Conexao conexao, Throwable erro) {
+        remover(conexao);
+        try {
+            if (erro != null) {
+                conexao.emitter.completeWithError(erro);
+            } else {
+                conexao.emitter.complete();
+            }
+        } catch (Exception e) {
+            log.debug("Erro ao encerrar conexão SSE: {}", e.getMessage());
+        }
+    }
+
+    private void remover(Conexao conexao) {
+        conexoes.computeIfPresent(conexao.usuarioId, (id, atual) -> {
+            if (atual.remove(conexao)) {
+                totalConexoes.decrementAndGet();
+            }
+            return atual.isEmpty() ? null : atual;
+        });
+    }
+
+    private static final class Conexao {
+        private final Long usuarioId;
+        private final SseEmitter emitter;
+        private final Queue<Evento> fila;
+        private final AtomicBoolean agendada = new AtomicBoolean(false);
+
+        private Conexao(Long usuarioId, SseEmitter emitter, int capacidade) {
+            this.usuarioId = usuarioId;
+            this.emitter = emitter;
+            this.fila = new ArrayBlockingQueue<>(capacidade);
+        }
+    }
+
+    private static final class Evento {
+        private static final Evento HEARTBEAT = new Evento("heartbeat", null);
+
+        private final String tipo;
+        private final Long templateId;
+        private final long timestamp = System.currentTimeMillis();
+
+        private Evento(String tipo, Long templateId) {
+            this.tipo = tipo;
+            this.templateId = templateId;
+        }
+
+        private Map<String, Object> dados() {
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("tipo", tipo);
+            if (templateId != null) {
+                dados.put("templateId", templateId);
+            }
+            dados.put("timestamp", timestamp);
+            return dados;
+        }
+    }
+}
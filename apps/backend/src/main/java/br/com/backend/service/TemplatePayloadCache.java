@@ -0,0 +1,211 @@
+package br.com.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache LRU do JSON já serializado (e opcionalmente em gzip) da listagem de templates de cada usuário.
+ * A entrada só vale para o ETag com que foi gerada, então uma versão nova nunca recebe payload antigo;
+ * o total de bytes guardados respeita um orçamento global.
+ */
+@Component
+@Slf4j
+public class TemplatePayloadCache {
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final boolean gzip;
+    private final int gzipMinBytes;
+
+    // LinkedHashMap em ordem de acesso = LRU; acesso sempre sob o monitor do próprio mapa
+    private final LinkedHashMap<String, Payload> entradas = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictionsSize;
+    private final Counter evictionsInvalidated;
+
+    public TemplatePayloadCache(MeterRegistry meterRegistry,
+                                ObjectMapper objectMapper,
+                                @Value("${app.templates.payload-cache.enabled:true}") boolean enabled,
+                                @Value("${app.templates.payload-cache.max-bytes:33554432}") long maxBytes,
+                                @Value("${app.templates.payload-cache.gzip:true}") boolean gzip,
+                                @Value("${app.templates.payload-cache.gzip-min-bytes:1024}") int gzipMinBytes) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.gzip = gzip;
+        this.gzipMinBytes = gzipMinBytes;
+
+        this.hits = Counter.builder("formsync.templates.payload.cache.requests").tag("result", "hit")
+                .description("Consultas ao cache de payloads de templates").register(meterRegistry);
+        this.misses = Counter.builder("formsync.templates.payload.cache.requests").tag("result", "miss")
+                .description("Consultas ao cache de payloads de templates").register(meterRegistry);
+        this.evictionsSize = Counter.builder("formsync.templates.payload.cache.evictions").tag("cause", "size")
+                .description("Payloads removidos do cache de templates").register(meterRegistry);
+        this.evictionsInvalidated = Counter.builder("formsync.templates.payload.cache.evictions").tag("cause", "invalidated")
+                .description("Payloads removidos do cache de templates").register(meterRegistry);
+        Gauge.builder("formsync.templates.payload.cache.bytes", this, TemplatePayloadCache::bytes)
+                .description("Bytes guardados no cache de payloads de templates").register(meterRegistry);
+        Gauge.builder("formsync.templates.payload.cache.size", this, TemplatePayloadCache::size)
+                .description("Payloads no cache de templates").register(meterRegistry);
+        Gauge.builder("formsync.templates.payload.cache.hit_ratio", this, TemplatePayloadCache::hitRatio)
+                .description("Proporção de acertos do cache de payloads de templates").register(meterRegistry);
+    }
+
+    /**
+     * Retorna o payload do usuário para o ETag informado ou serializa o corpo montado e armazena
+     */
+    public Payload obter(Long usuarioId, String variante, String etag, Supplier<Object> corpo) {
+        String chave = usuarioId + ":" + variante;
+        if (enabled) {
+            synchronized (entradas) {
+                Payload atual = entradas.get(chave);
+                if (atual != null && atual.etag.equals(etag)) {
+                    hits.increment();
+                    return atual;
+                }
+            }
+            misses.increment();
+        }
+
+        Payload novo = serializar(etag, corpo.get());
+        if (enabled) {
+            armazenar(chave, novo);
+        }
+        return novo;
+    }
+
+    /**
+     * Descarta os payloads do usuário; chamado a cada alteração nos templates dele
+     */
+    public void invalidar(Long usuarioId) {
+        if (!enabled || usuarioId == null) {
+            return;
+        }
+
+        String prefixo = usuarioId + ":";
+        int removidas = 0;
+        synchronized (entradas) {
+            Iterator<Map.Entry<String, Payload>> iterator = entradas.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Payload> entrada = iterator.next();
+                if (entrada.getKey().startsWith(prefixo)) {
+                    bytes -= entrada.getValue().tamanho();
+                    iterator.remove();
+                    removidas++;
+                }
+            }
+        }
+        evictionsInvalidated.increment(removidas);
+    }
+
+    public void clear() {
+        synchronized (entradas) {
+            evictionsInvalidated.increment(entradas.size());
+            entradas.clear();
+            bytes = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    public long bytes() {
+        synchronized (entradas) {
+            return bytes;
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private void armazenar(String chave, Payload payload) {
+        // Um payload maior que um quarto do orçamento expulsaria quase todo o resto: não vale guardar
+        if (payload.tamanho() > maxBytes / 4) {
+            log.debug("Payload de templates {} com {} bytes não cabe no cache", chave, payload.tamanho());
+            return;
+        }
+
+        synchronized (entradas) {
+            Payload anterior = entradas.put(chave, payload);
+            if (anterior != null) {
+                bytes -= anterior.tamanho();
+            }
+            bytes += payload.tamanho();
+
+            Iterator<Payload> iterator = entradas.values().iterator();
+            while (bytes > maxBytes && iterator.hasNext()) {
+                Payload maisAntigo = iterator.next();
+                iterator.remove();
+                bytes -= maisAntigo.tamanho();
+                evictionsSize.increment();
+            }
+        }
+    }
+
+    private Payload serializar(String etag, Object corpo) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(corpo);
+            byte[] comprimido = null;
+            if (gzip && json.length >= gzipMinBytes) {
+                ByteArrayOutputStream saida = new ByteArrayOutputStream(json.length / 4);
+                try (GZIPOutputStream gzipStream = new GZIPOutputStream(saida)) {
+                    gzipStream.write(json);
+                }
+                comprimido = saida.toByteArray();
+            }
+            return new Payload(etag, json, comprimido);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao serializar templates", e);
+        }
+    }
+
+    /**
+     * JSON serializado de uma versão dos templates, com a variante gzip quando houver
+     */
+    public static final class Payload {
+        private final String etag;
+        private final byte[] json;
+        private final byte[] gzip;
+
+        private Payload(String etag, byte[] json, byte[] gzip) {
+            this.etag = etag;
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        public boolean comprimido(boolean aceitaGzip) {
+            return aceitaGzip && gzip != null;
+        }
+
+        public byte[] corpo(boolean aceitaGzip) {
+            return comprimido(aceitaGzip) ? gzip : json;
+        }
+
+        private long tamanho() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+}
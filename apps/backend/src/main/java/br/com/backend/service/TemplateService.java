@@ -19,7 +19,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -41,6 +43,24 @@ public class TemplateService {
     @Autowired
     private PlanoLimiteService planoLimiteService;
     
+    @Autowired
+    private DecryptedValueCache decryptedValueCache;
+    
+    @Autowired
+    private CryptoService cryptoService;
+    
+    @Autowired
+    private TemplateVersionService templateVersionService;
+    
+    @Autowired
+    private TemplateEventService templateEventService;
+    
+    @Autowired
+    private ContadorUsoService contadorUsoService;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
     /**
      * Cria um Novo Formulário
      */
@@ -76,16 +96,14 @@ public class TemplateService {
         
         // Adiciona os campos se fornecidos
         if (templateDTO.getCampos() != null && !templateDTO.getCampos().isEmpty()) {
-            for (CampoTemplateDTO campoDTO : templateDTO.getCampos()) {
-                CampoTemplate campo = new CampoTemplate(campoDTO.getNome(), campoDTO.getValor(), template);
-                campo.setTipo(campoDTO.getTipo());
-                campo.setOrdem(campoDTO.getOrdem());
-                template.adicionarCampo(campo);
-            }
+            adicionarCampos(template, templateDTO.getCampos());
         }
         
         // Salva novamente com os campos
         template = templateRepository.save(template);
+        templateVersionService.incrementar(usuario.getId());
+        templateEventService.publicar(usuario.getId(), template.getId(), TemplateEventService.TEMPLATE_ALTERADO);
+        registrarEvento(TemplateEventService.TEMPLATE_ALTERADO, template);
         
         return converterParaDTO(template);
     }
@@ -121,20 +139,23 @@ public class TemplateService {
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
             planoLimiteService.validarAdicaoCampos(usuario, templateId, quantidadeCamposNovos);
             
+            // Descarta do cache os valores descriptografados dos campos reescritos
+            decryptedValueCache.invalidate(template.getCampos().stream()
+                .map(CampoTemplate::getValor)
+                .collect(Collectors.toList()));
+            
             // Remove campos existentes
             template.getCampos().clear();
             
             // Adiciona novos campos
-            for (CampoTemplateDTO campoDTO : templateDTO.getCampos()) {
-                CampoTemplate campo = new CampoTemplate(campoDTO.getNome(), campoDTO.getValor(), template);
-                campo.setTipo(campoDTO.getTipo());
-                campo.setOrdem(campoDTO.getOrdem());
-                template.adicionarCampo(campo);
-            }
+            adicionarCampos(template, templateDTO.getCampos());
         }
         
         template.setDataAtualizacao(LocalDateTime.now());
         template = templateRepository.save(template);
+        templateVersionService.incrementar(usuarioId);
+        templateEventService.publicar(usuarioId, template.getId(), TemplateEventService.TEMPLATE_ALTERADO);
+        registrarEvento(TemplateEventService.TEMPLATE_ALTERADO, template);
         
         return converterParaDTO(template);
     }
@@ -152,21 +173,19 @@ public class TemplateService {
     /**
      * Lista todos os templates do usuário
      */
+    @Transactional(readOnly = true)
     public List<TemplateDTO> listarTemplates(Long usuarioId) {
-        List<Template> templates = templateRepository.findByUsuarioIdAndAtivoOrderByNomeAsc(usuarioId, true);
-        return templates.stream()
-            .map(this::converterParaDTO)
-            .collect(Collectors.toList());
+        List<Template> templates = templateRepository.findAtivosComCamposOrdenadosPorNome(usuarioId);
+        return converterParaDTOs(templates);
     }
     
     /**
      * Busca templates por padrão de nome
      */
+    @Transactional(readOnly = true)
     public List<TemplateDTO> buscarTemplatesPorPadrao(Long usuarioId, String padrao) {
-        List<Template> templates = templateRepository.findTemplatesPorPadrao(usuarioId, padrao);
-        return templates.stream()
-            .map(this::converterParaDTO)
-            .collect(Collectors.toList());
+        List<Template> templates = templateRepository.findTemplatesPorPadraoComCampos(usuarioId, padrao);
+        return converterParaDTOs(templates);
     }
     
     /**
@@ -180,18 +199,31 @@ public class TemplateService {
         template.setAtivo(false);
         template.setDataAtualizacao(LocalDateTime.now());
         templateRepository.save(template);
+        templateVersionService.incrementar(usuarioId);
+        templateEventService.publicar(usuarioId, templateId, TemplateEventService.TEMPLATE_REMOVIDO);
+        registrarEvento(TemplateEventService.TEMPLATE_REMOVIDO, template);
     }
     
     /**
-     * Incrementa o uso de um template
+     * Evento de domínio do template no outbox, na transação da alteração (o SSE continua local ao nó)
+     */
+    private void registrarEvento(String tipo, Template template) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("nome", template.getNome());
+        payload.put("ativo", template.getAtivo());
+        payload.put("totalCampos", template.getCampos() != null ? template.getCampos().size() : 0);
+        outboxService.registrar(tipo, template.getId(), template.getUsuario().getId(), payload);
+    }
+    
+    /**
+     * Incrementa o uso de um template; a gravação é feita em lote pelo ContadorUsoService
      */
-    @Transactional
     public void incrementarUsoTemplate(Long templateId, Long usuarioId) {
-        Template template = templateRepository.findTemplateComCampos(templateId, usuarioId)
-            .orElseThrow(() -> new ResourceNotFoundException("Template não encontrado"));
+        if (!templateRepository.existsByIdAndUsuarioIdAndAtivo(templateId, usuarioId, true)) {
+            throw new ResourceNotFoundException("Template não encontrado");
+        }
         
-        template.incrementarUso();
-        templateRepository.save(template);
+        contadorUsoService.registrarUso(templateId, usuarioId);
     }
     
     /**
@@ -206,11 +238,14 @@ public class TemplateService {
         // Busca mapeamentos existentes para o site
         List<MapeamentoCampo> mapeamentos = mapeamentoCampoRepository.findByUrlSiteAndAtivoOrderByConfiancaDesc(urlSite, true);
         
+        Map<String, String> valores = descriptografarValores(template);
+        
         // Mapeia Campos do Formulário para campos do site
         List<PreenchimentoAutomaticoDTO.CampoPreenchimentoDTO> camposPreenchimento = template.getCampos().stream()
             .map(campo -> {
                 PreenchimentoAutomaticoDTO.CampoPreenchimentoDTO campoPreenchimento = 
-                    new PreenchimentoAutomaticoDTO.CampoPreenchimentoDTO(campo.getNome(), campo.getValor(), null);
+                    new PreenchimentoAutomaticoDTO.CampoPreenchimentoDTO(campo.getNome(),
+                        valores.getOrDefault(campo.getValor(), campo.getValor()), null);
                 
                 // Busca mapeamento mais confiável para este campo
                 Optional<MapeamentoCampo> mapeamento = mapeamentos.stream()
@@ -232,10 +267,53 @@ public class TemplateService {
         return preenchimentoDTO;
     }
     
+    /**
+     * Adiciona os campos ao template, criptografando todos os valores em uma única chamada
+     */
+    private void adicionarCampos(Template template, List<CampoTemplateDTO> camposDTO) {
+        List<String> valores = cryptoService.encryptAll(camposDTO.stream()
+            .map(CampoTemplateDTO::getValor)
+            .collect(Collectors.toList()));
+        
+        for (int i = 0; i < camposDTO.size(); i++) {
+            CampoTemplateDTO campoDTO = camposDTO.get(i);
+            CampoTemplate campo = new CampoTemplate(campoDTO.getNome(), campoDTO.getTipo(), template);
+            campo.setValor(valores.get(i));
+            campo.setOrdem(campoDTO.getOrdem());
+            template.adicionarCampo(campo);
+        }
+    }
+    
+    /**
+     * Descriptografa todos os valores dos campos do template em uma única chamada
+     */
+    private Map<String, String> descriptografarValores(Template template) {
+        return cryptoService.decryptAll(template.getCampos().stream()
+            .map(CampoTemplate::getValor)
+            .collect(Collectors.toList()));
+    }
+    
+    /**
+     * Converte uma lista de templates (com campos já carregados) descriptografando todos os valores de uma vez
+     */
+    private List<TemplateDTO> converterParaDTOs(List<Template> templates) {
+        Map<String, String> valores = cryptoService.decryptAll(templates.stream()
+            .flatMap(template -> template.getCampos().stream())
+            .map(CampoTemplate::getValor)
+            .collect(Collectors.toList()));
+        return templates.stream()
+            .map(template -> converterParaDTO(template, valores))
+            .collect(Collectors.toList());
+    }
+    
     /**
      * Converte Template para DTO
      */
     private TemplateDTO converterParaDTO(Template template) {
+        return converterParaDTO(template, template.getCampos() != null ? descriptografarValores(template) : Map.of());
+    }
+    
+    private TemplateDTO converterParaDTO(Template template, Map<String, String> valores) {
         TemplateDTO dto = new TemplateDTO();
         dto.setId(template.getId());
         dto.setNome(template.getNome());
@@ -250,7 +328,7 @@ public class TemplateService {
         // Converte campos
         if (template.getCampos() != null) {
             List<CampoTemplateDTO> camposDTO = template.getCampos().stream()
-                .map(this::converterCampoParaDTO)
+                .map(campo -> converterCampoParaDTO(campo, valores))
                 .collect(Collectors.toList());
             dto.setCampos(camposDTO);
         }
@@ -261,11 +339,11 @@ public class TemplateService {
     /**
      * Converte CampoTemplate para DTO
      */
-    private CampoTemplateDTO converterCampoParaDTO(CampoTemplate campo) {
+    private CampoTemplateDTO converterCampoParaDTO(CampoTemplate campo, Map<String, String> valores) {
         CampoTemplateDTO dto = new CampoTemplateDTO();
         dto.setId(campo.getId());
         dto.setNome(campo.getNome());
-        dto.setValor(campo.getValor());
+        dto.setValor(valores.getOrDefault(campo.getValor(), campo.getValor()));
         dto.setTipo(campo.getTipo());
         dto.setOrdem(campo.getOrdem());
         dto.setTemplateId(campo.getTemplate().getId());
@@ -0,0 +1,186 @@
+package br.com.backend.service;
+
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.Template;
+import br.com.backend.repository.CampoTemplateRepository;
+import br.com.backend.repository.TemplateRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Listagem global de templates ativos escrita direto na resposta.
+ * Lê páginas por keyset (id), descriptografa e serializa uma página por vez com JsonGenerator,
+ * de modo que a memória usada não depende do tamanho da tabela.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateStreamService {
+
+    private final TemplateRepository templateRepository;
+    private final CampoTemplateRepository campoTemplateRepository;
+    private final CryptoService cryptoService;
+    private final PGPDecryptionService pgpDecryptionService;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.templates.stream.page-size:500}")
+    private int tamanhoPagina = 500;
+
+    /**
+     * Escreve o array JSON com todos os templates ativos no formato da extensão
+     */
+    public void escreverTemplatesAtivos(OutputStream saida) throws IOException {
+        // Uma transação curta por página: a conexão não fica presa enquanto o cliente lê a resposta
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+
+        long inicio = System.currentTimeMillis();
+        int total = 0;
+        try (JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)) {
+            // Quem fecha o stream da resposta é o Spring MVC
+            gerador.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            gerador.writeStartArray();
+
+            long ultimoId = 0L;
+            List<TemplateLinha> pagina;
+            do {
+                long aPartirDe = ultimoId;
+                pagina = leitura.execute(status -> lerPagina(aPartirDe));
+                Map<String, String> valores = descriptografar(pagina);
+                for (TemplateLinha template : pagina) {
+                    escrever(gerador, template, valores);
+                }
+                gerador.flush();
+
+                total += pagina.size();
+                if (!pagina.isEmpty()) {
+                    ultimoId = pagina.get(pagina.size() - 1).id;
+                }
+            } while (pagina.size() == tamanhoPagina);
+
+            gerador.writeEndArray();
+        }
+
+        log.info("🔒 [EXTENSÃO] {} templates ativos enviados para extensão Chrome em {} ms",
+                total, System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Lê uma página de templates e seus campos (duas consultas) e libera as entidades do contexto
+     */
+    private List<TemplateLinha> lerPagina(long ultimoId) {
+        Map<Long, TemplateLinha> porId = new LinkedHashMap<>();
+        try (Stream<Template> templates = templateRepository.streamAtivosAposId(ultimoId, PageRequest.of(0, tamanhoPagina))) {
+            templates.forEach(template -> porId.put(template.getId(), new TemplateLinha(template)));
+        }
+
+        if (!porId.isEmpty()) {
+            try (Stream<CampoTemplate> campos = campoTemplateRepository.streamByTemplateIdIn(porId.keySet())) {
+                campos.forEach(campo -> {
+                    TemplateLinha template = porId.get(campo.getTemplate().getId());
+                    if (template != null) {
+                        template.campos.add(new CampoLinha(campo));
+                    }
+                });
+            }
+        }
+
+        // Com open-in-view o contexto de persistência dura a requisição inteira: não deixa as páginas acumularem
+        entityManager.clear();
+        return new ArrayList<>(porId.values());
+    }
+
+    /**
+     * Descriptografa em lote os valores da página: "enc:" na JVM, PGP legado via PGPDecryptionService
+     */
+    private Map<String, String> descriptografar(List<TemplateLinha> pagina) {
+        List<String> valores = new ArrayList<>();
+        for (TemplateLinha template : pagina) {
+            for (CampoLinha campo : template.campos) {
+                valores.add(campo.valor);
+            }
+        }
+        Map<String, String> resultado = new HashMap<>(cryptoService.decryptAll(valores));
+        resultado.putAll(pgpDecryptionService.decryptAll(valores.stream()
+                .filter(pgpDecryptionService::isPGPValue)
+                .toList()));
+        return resultado;
+    }
+
+    private void escrever(JsonGenerator gerador, TemplateLinha template, Map<String, String> valores) throws IOException {
+        gerador.writeStartObject();
+        gerador.writeNumberField("id", template.id);
+        gerador.writeStringField("nome", template.nome != null ? template.nome : "");
+        gerador.writeStringField("descricao", template.descricao != null ? template.descricao : "");
+
+        gerador.writeArrayFieldStart("campos");
+        for (CampoLinha campo : template.campos) {
+            String valor = valores.getOrDefault(campo.valor, campo.valor);
+            gerador.writeStartObject();
+            gerador.writeStringField("nome", campo.nome != null ? campo.nome : "");
+            gerador.writeStringField("valor", valor != null ? valor : "");
+            gerador.writeStringField("tipo", campo.tipo != null ? campo.tipo : "text");
+            gerador.writeEndObject();
+        }
+        gerador.writeEndArray();
+
+        gerador.writeNumberField("totalUso", template.totalUso != null ? template.totalUso : 0);
+        gerador.writeStringField("ultimoUso", template.ultimoUso != null ? template.ultimoUso.toString() : "");
+        gerador.writeEndObject();
+    }
+
+    /**
+     * Cópia mínima do template, desacoplada do contexto de persistência
+     */
+    private static final class TemplateLinha {
+        private final Long id;
+        private final String nome;
+        private final String descricao;
+        private final Integer totalUso;
+        private final LocalDateTime ultimoUso;
+        private final List<CampoLinha> campos = new ArrayList<>();
+
+        private TemplateLinha(Template template) {
+            this.id = template.getId();
+            this.nome = template.getNome();
+            this.descricao = template.getDescricao();
+            this.totalUso = template.getTotalUso();
+            this.ultimoUso = template.getUltimoUso();
+        }
+    }
+
+    private static final class CampoLinha {
+        private final String nome;
+        private final String valor;
+        private final String tipo;
+
+        private CampoLinha(CampoTemplate campo) {
+            this.nome = campo.getNome();
+            this.valor = campo.getValor();
+            this.tipo = campo.getTipo();
+        }
+    }
+}
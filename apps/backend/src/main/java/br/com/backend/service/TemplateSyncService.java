@@ -0,0 +1,148 @@
+package br.com.backend.service;
+
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.Template;
+import br.com.backend.exception.BusinessException;
+import br.com.backend.repository.TemplateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Sincronização incremental dos templates da extensão.
+ * O cursor é o instante da consulta anterior; a resposta traz apenas templates criados ou alterados
+ * desde então (com a lista completa de campos ativos) e tombstones dos removidos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateSyncService {
+
+    private final TemplateRepository templateRepository;
+    private final CryptoService cryptoService;
+    private final PGPDecryptionService pgpDecryptionService;
+
+    // Sobreposição do cursor para não perder transações que gravaram antes mas confirmaram depois da consulta;
+    // itens repetidos na janela são inofensivos porque o cliente aplica as mudanças por id
+    @Value("${app.sync.cursor-overlap-seconds:5}")
+    private long cursorOverlapSeconds = 5;
+
+    /**
+     * Retorna as alterações desde o cursor; sem cursor, retorna o snapshot completo dos templates ativos
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> sincronizar(Long usuarioId, String cursor) {
+        LocalDateTime inicio = LocalDateTime.now();
+        LocalDateTime desde = lerCursor(cursor);
+
+        List<Template> templates = desde == null
+                ? templateRepository.findAtivosComCampos(usuarioId)
+                : templateRepository.findAlteradosDesde(usuarioId, desde);
+
+        List<Template> alterados = new ArrayList<>();
+        List<Map<String, Object>> removidos = new ArrayList<>();
+        for (Template template : templates) {
+            if (Boolean.TRUE.equals(template.getAtivo())) {
+                alterados.add(template);
+            } else {
+                Map<String, Object> tombstone = new HashMap<>();
+                tombstone.put("id", template.getId());
+                tombstone.put("dataAtualizacao", texto(template.getDataAtualizacao()));
+                removidos.add(tombstone);
+            }
+        }
+
+        Map<String, String> valores = descriptografar(alterados);
+        List<Map<String, Object>> templatesFormatados = alterados.stream()
+                .sorted(Comparator.comparing(Template::getId))
+                .map(template -> formatar(template, valores))
+                .collect(Collectors.toList());
+
+        log.info("🔄 [SYNC] Usuário {}: {} alterados, {} removidos desde {}",
+                usuarioId, templatesFormatados.size(), removidos.size(), desde != null ? desde : "o início");
+
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("success", true);
+        resposta.put("completo", desde == null);
+        resposta.put("cursor", gerarCursor(inicio.minusSeconds(cursorOverlapSeconds)));
+        resposta.put("templates", templatesFormatados);
+        resposta.put("removidos", removidos);
+        resposta.put("timestamp", System.currentTimeMillis());
+        return resposta;
+    }
+
+    private Map<String, Object> formatar(Template template, Map<String, String> valores) {
+        Map<String, Object> templateMap = new HashMap<>();
+        templateMap.put("id", template.getId());
+        templateMap.put("nome", template.getNome() != null ? template.getNome() : "");
+        templateMap.put("descricao", template.getDescricao() != null ? template.getDescricao() : "");
+
+        List<Map<String, Object>> campos = template.getCampos().stream()
+                .filter(campo -> !Boolean.FALSE.equals(campo.getAtivo()))
+                .sorted(Comparator.comparing(CampoTemplate::getOrdem, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(campo -> {
+                    Map<String, Object> campoMap = new HashMap<>();
+                    campoMap.put("id", campo.getId());
+                    campoMap.put("nome", campo.getNome() != null ? campo.getNome() : "");
+                    String valor = valores.getOrDefault(campo.getValor(), campo.getValor());
+                    campoMap.put("valor", valor != null ? valor : "");
+                    campoMap.put("tipo", campo.getTipo() != null ? campo.getTipo() : "text");
+                    campoMap.put("ordem", campo.getOrdem() != null ? campo.getOrdem() : 0);
+                    return campoMap;
+                })
+                .collect(Collectors.toList());
+
+        templateMap.put("campos", campos);
+        templateMap.put("totalUso", template.getTotalUso() != null ? template.getTotalUso() : 0);
+        templateMap.put("ultimoUso", texto(template.getUltimoUso()));
+        templateMap.put("dataAtualizacao", texto(template.getDataAtualizacao()));
+        return templateMap;
+    }
+
+    /**
+     * Descriptografa em lote os valores de todos os templates alterados
+     */
+    private Map<String, String> descriptografar(List<Template> templates) {
+        List<String> valores = templates.stream()
+                .flatMap(template -> template.getCampos().stream())
+                .map(CampoTemplate::getValor)
+                .collect(Collectors.toList());
+        Map<String, String> resultado = new HashMap<>(cryptoService.decryptAll(valores));
+        resultado.putAll(pgpDecryptionService.decryptAll(valores.stream()
+                .filter(pgpDecryptionService::isPGPValue)
+                .collect(Collectors.toList())));
+        return resultado;
+    }
+
+    private LocalDateTime lerCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(cursor.trim())), ZoneId.systemDefault());
+        } catch (NumberFormatException e) {
+            throw new BusinessException("Cursor de sincronização inválido");
+        }
+    }
+
+    private String gerarCursor(LocalDateTime instante) {
+        return String.valueOf(instante.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private String texto(LocalDateTime data) {
+        return data != null ? data.toString() : "";
+    }
+}
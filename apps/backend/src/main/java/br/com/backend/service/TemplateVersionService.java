@@ -0,0 +1,96 @@
+package br.com.backend.service;
+
+import br.com.backend.entity.Usuario;
+import br.com.backend.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Versão do conjunto de templates por usuário, usada como ETag forte nos endpoints da extensão.
+ * A versão fica na própria linha do usuário, então o 304 sai sem consultar templates nem descriptografar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TemplateVersionService {
+
+    // A representação gzip é outro conteúdo: precisa de um validador forte próprio (RFC 9110, 8.8.3)
+    private static final String SUFIXO_GZIP = "-gz";
+
+    private final UsuarioRepository usuarioRepository;
+    private final TemplatePayloadCache templatePayloadCache;
+
+    /**
+     * Invalida os ETags do usuário; deve rodar na mesma transação da alteração do template
+     */
+    @Transactional
+    public void incrementar(Long usuarioId) {
+        if (usuarioId != null) {
+            usuarioRepository.incrementarVersaoTemplates(usuarioId);
+            // Só libera memória: um payload regravado antes do commit fica preso ao ETag antigo e nunca é servido
+            templatePayloadCache.invalidar(usuarioId);
+        }
+    }
+
+    /**
+     * ETag dos templates do usuário; a variante diferencia representações da mesma versão
+     */
+    public String etagUsuario(Usuario usuario, String variante) {
+        long versao = usuario.getTemplatesVersao() != null ? usuario.getTemplatesVersao() : 0L;
+        return "\"tpl-" + usuario.getId() + "-" + versao + "-" + variante + "\"";
+    }
+
+    /**
+     * ETag da representação gzip de um payload com o ETag informado
+     */
+    public String etagGzip(String etag) {
+        return etag.substring(0, etag.length() - 1) + SUFIXO_GZIP + "\"";
+    }
+
+    /**
+     * ETag da listagem de todos os templates ativos. Quantidade e soma dos ids identificam o conjunto de
+     * usuários: ids nunca se repetem e um usuário novo tem id maior que todos os removidos, então trocar
+     * usuários sempre muda a soma. Com o mesmo conjunto, qualquer alteração aumenta a soma das versões.
+     */
+    @Transactional(readOnly = true)
+    public String etagGlobal() {
+        List<Object[]> resumo = usuarioRepository.resumirVersoesTemplates();
+        Object[] linha = resumo.isEmpty() ? new Object[]{0L, 0L, 0L} : resumo.get(0);
+        return "\"tpl-all-" + linha[0] + "-" + linha[1] + "-" + linha[2] + "\"";
+    }
+
+    /**
+     * Verifica se o If-None-Match do cliente já corresponde ao ETag atual (em qualquer codificação)
+     */
+    public boolean naoModificado(String ifNoneMatch, String etag) {
+        return etagCorrespondente(ifNoneMatch, etag) != null;
+    }
+
+    /**
+     * ETag atual que o If-None-Match do cliente menciona: o da identidade ou o da variante gzip,
+     * para o 304 repetir o validador da representação que o cliente tem; null se nenhum corresponde
+     */
+    public String etagCorrespondente(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return null;
+        }
+        String gzip = etagGzip(etag);
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(etag)) {
+                return etag;
+            }
+            if (valor.equals(gzip)) {
+                return gzip;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,6 @@
+-- Migração V10: Índice para o ranking de campos mais utilizados
+-- Descrição: /api/v1/analytics/campos lê só os N campos com mais usos do usuário (ORDER BY ... LIMIT),
+-- sem carregar todas as linhas de campos_analytics
+
+CREATE INDEX IF NOT EXISTS idx_campos_analytics_usuario_usos
+    ON campos_analytics(usuario_id, quantidade_usos DESC);
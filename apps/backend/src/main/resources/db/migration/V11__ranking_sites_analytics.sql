@@ -0,0 +1,15 @@
+-- Migração V11: Checkpoint do ranking de sites em memória
+-- Descrição: /api/v1/analytics/sites passa a ser servido por um sketch Space-Saving por usuário, mantido
+-- em memória; esta tabela guarda o estado periodicamente para aquecer o sketch após um reinício
+
+CREATE TABLE IF NOT EXISTS ranking_sites_analytics (
+    id BIGSERIAL PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    site VARCHAR(255) NOT NULL DEFAULT '',
+    contagem BIGINT NOT NULL DEFAULT 0,
+    erro BIGINT NOT NULL DEFAULT 0,
+    atualizado_em TIMESTAMP NOT NULL,
+    CONSTRAINT uk_ranking_sites_usuario_site UNIQUE (usuario_id, site)
+);
+
+CREATE INDEX IF NOT EXISTS idx_ranking_sites_atualizado_em ON ranking_sites_analytics(atualizado_em);
@@ -0,0 +1,11 @@
+-- Migração V12: Sites distintos por dia em sketches HyperLogLog
+-- Descrição: o total de sites únicos do painel passa a unir um sketch por (usuário, dia) em vez de
+-- COUNT(DISTINCT site) sobre o período; os dias já consolidados são preenchidos pelo job de consolidação
+
+CREATE TABLE IF NOT EXISTS sites_unicos_diario (
+    id BIGSERIAL PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    dia DATE NOT NULL,
+    hll BYTEA NOT NULL,
+    CONSTRAINT uk_sites_unicos_diario_usuario_dia UNIQUE (usuario_id, dia)
+);
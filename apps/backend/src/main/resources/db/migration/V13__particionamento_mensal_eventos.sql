@@ -0,0 +1,115 @@
+-- Migração V13: Particionamento mensal dos eventos de preenchimento
+-- Descrição: preenchimentos_analytics e historico_preenchimentos passam a ser particionadas por mês
+-- (RANGE na data do evento). ParticionamentoService cria as partições dos próximos meses e aplica a
+-- retenção removendo partições inteiras. A chave primária passa a incluir a coluna de partição; os ids
+-- continuam vindo de uma sequência única, então seguem crescentes entre partições (marca d'água da
+-- consolidação). Partições: <tabela>_pAAAA_MM; <tabela>_padrao recebe datas fora do intervalo criado.
+-- Execute numa janela de manutenção: as linhas existentes são copiadas para a nova tabela.
+
+-- Tabelas de origem (criadas pelo JPA nos ambientes antigos)
+CREATE TABLE IF NOT EXISTS preenchimentos_analytics (
+    id BIGSERIAL PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    site VARCHAR(255),
+    campo_id BIGINT,
+    data_preenchimento TIMESTAMP NOT NULL,
+    tempo_economizado INTEGER,
+    sucesso BOOLEAN NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS historico_preenchimentos (
+    id BIGSERIAL PRIMARY KEY,
+    usuario_id BIGINT NOT NULL REFERENCES usuarios(id),
+    url VARCHAR(255) NOT NULL,
+    data_hora TIMESTAMP NOT NULL
+);
+
+-- preenchimentos_analytics
+ALTER TABLE preenchimentos_analytics RENAME TO preenchimentos_analytics_legado;
+DROP INDEX IF EXISTS idx_preenchimentos_analytics_usuario_id;
+DROP INDEX IF EXISTS idx_preenchimentos_analytics_usuario_data;
+
+CREATE SEQUENCE IF NOT EXISTS preenchimentos_analytics_seq;
+SELECT setval('preenchimentos_analytics_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM preenchimentos_analytics_legado), false);
+
+CREATE TABLE preenchimentos_analytics (
+    id BIGINT NOT NULL DEFAULT nextval('preenchimentos_analytics_seq'),
+    usuario_id BIGINT NOT NULL,
+    site VARCHAR(255),
+    campo_id BIGINT,
+    data_preenchimento TIMESTAMP NOT NULL,
+    tempo_economizado INTEGER,
+    sucesso BOOLEAN NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, data_preenchimento)
+) PARTITION BY RANGE (data_preenchimento);
+
+ALTER SEQUENCE preenchimentos_analytics_seq OWNED BY preenchimentos_analytics.id;
+
+DO $$
+DECLARE
+    mes DATE;
+    ultimo DATE := date_trunc('month', CURRENT_DATE + INTERVAL '3 months');
+BEGIN
+    SELECT COALESCE(date_trunc('month', MIN(data_preenchimento)), date_trunc('month', CURRENT_DATE))
+      INTO mes FROM preenchimentos_analytics_legado;
+    WHILE mes <= ultimo LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF preenchimentos_analytics FOR VALUES FROM (%L) TO (%L)',
+                       'preenchimentos_analytics_p' || to_char(mes, 'YYYY_MM'), mes, (mes + INTERVAL '1 month')::date);
+        mes := mes + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+CREATE TABLE IF NOT EXISTS preenchimentos_analytics_padrao PARTITION OF preenchimentos_analytics DEFAULT;
+
+INSERT INTO preenchimentos_analytics (id, usuario_id, site, campo_id, data_preenchimento, tempo_economizado, sucesso, created_at)
+SELECT id, usuario_id, site, campo_id, data_preenchimento, tempo_economizado, sucesso, created_at
+  FROM preenchimentos_analytics_legado;
+
+DROP TABLE preenchimentos_analytics_legado;
+
+CREATE INDEX IF NOT EXISTS idx_preenchimentos_analytics_usuario_id ON preenchimentos_analytics(usuario_id, id);
+CREATE INDEX IF NOT EXISTS idx_preenchimentos_analytics_usuario_data ON preenchimentos_analytics(usuario_id, data_preenchimento);
+
+-- historico_preenchimentos
+ALTER TABLE historico_preenchimentos RENAME TO historico_preenchimentos_legado;
+
+CREATE SEQUENCE IF NOT EXISTS historico_preenchimentos_seq;
+SELECT setval('historico_preenchimentos_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM historico_preenchimentos_legado), false);
+
+CREATE TABLE historico_preenchimentos (
+    id BIGINT NOT NULL DEFAULT nextval('historico_preenchimentos_seq'),
+    usuario_id BIGINT NOT NULL REFERENCES usuarios(id),
+    url VARCHAR(255) NOT NULL,
+    data_hora TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, data_hora)
+) PARTITION BY RANGE (data_hora);
+
+ALTER SEQUENCE historico_preenchimentos_seq OWNED BY historico_preenchimentos.id;
+
+DO $$
+DECLARE
+    mes DATE;
+    ultimo DATE := date_trunc('month', CURRENT_DATE + INTERVAL '3 months');
+BEGIN
+    SELECT COALESCE(date_trunc('month', MIN(data_hora)), date_trunc('month', CURRENT_DATE))
+      INTO mes FROM historico_preenchimentos_legado;
+    WHILE mes <= ultimo LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF historico_preenchimentos FOR VALUES FROM (%L) TO (%L)',
+                       'historico_preenchimentos_p' || to_char(mes, 'YYYY_MM'), mes, (mes + INTERVAL '1 month')::date);
+        mes := mes + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+CREATE TABLE IF NOT EXISTS historico_preenchimentos_padrao PARTITION OF historico_preenchimentos DEFAULT;
+
+INSERT INTO historico_preenchimentos (id, usuario_id, url, data_hora)
+SELECT id, usuario_id, url, data_hora FROM historico_preenchimentos_legado;
+
+DROP TABLE historico_preenchimentos_legado;
+
+CREATE INDEX IF NOT EXISTS idx_historico_preenchimentos_usuario_data ON historico_preenchimentos(usuario_id, data_hora);
+
+COMMENT ON TABLE preenchimentos_analytics IS 'Eventos de preenchimento, particionados por mês de data_preenchimento';
+COMMENT ON TABLE historico_preenchimentos IS 'Histórico de preenchimentos, particionado por mês de data_hora';
@@ -0,0 +1,21 @@
+-- Migração V14: Transactional outbox de eventos de domínio
+-- Descrição: efeitos colaterais (emails, publicação no Kafka) saem do caminho da requisição. O evento é gravado
+-- na mesma transação da alteração e despachado por OutboxService, que reivindica lotes com
+-- FOR UPDATE SKIP LOCKED: vários nós despacham em paralelo sem entregar o mesmo evento duas vezes
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    tipo VARCHAR(100) NOT NULL,
+    agregado_id BIGINT,
+    usuario_id BIGINT,
+    payload TEXT NOT NULL,
+    criado_em TIMESTAMP NOT NULL,
+    disponivel_em TIMESTAMP NOT NULL,
+    tentativas INTEGER NOT NULL DEFAULT 0,
+    processado_em TIMESTAMP,
+    erro VARCHAR(500)
+);
+
+-- Só os pendentes interessam ao despacho; os processados saem pela retenção
+CREATE INDEX IF NOT EXISTS idx_outbox_events_pendentes ON outbox_events(disponivel_em, id) WHERE processado_em IS NULL;
+CREATE INDEX IF NOT EXISTS idx_outbox_events_processado_em ON outbox_events(processado_em) WHERE processado_em IS NOT NULL;
@@ -0,0 +1,14 @@
+-- Migração V15: Offsets do Kafka gravados junto com os dados consumidos
+-- Descrição: o consumidor de analytics grava, na mesma transação dos contadores, o último offset aplicado
+-- por (grupo, tópico, partição). Um lote reentregue (rebalanceamento entre o commit no banco e o ack,
+-- nova tentativa do error handler) pula os registros já aplicados em vez de somar de novo
+
+CREATE TABLE IF NOT EXISTS kafka_offsets_consumidos (
+    id BIGSERIAL PRIMARY KEY,
+    grupo VARCHAR(255) NOT NULL,
+    topico VARCHAR(255) NOT NULL,
+    particao INTEGER NOT NULL,
+    ultimo_offset BIGINT NOT NULL,
+    atualizado_em TIMESTAMP NOT NULL,
+    CONSTRAINT uk_kafka_offsets_consumidos UNIQUE (grupo, topico, particao)
+);
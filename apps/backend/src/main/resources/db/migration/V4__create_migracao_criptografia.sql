@@ -0,0 +1,17 @@
+-- Migração V4: Checkpoint da migração de valores para o formato "enc:" (AES-GCM)
+-- Descrição: Guarda o último id processado de campos_template para retomar a migração
+
+CREATE TABLE IF NOT EXISTS migracao_criptografia (
+    nome VARCHAR(100) PRIMARY KEY,
+    ultimo_id BIGINT NOT NULL DEFAULT 0,
+    migrados BIGINT NOT NULL DEFAULT 0,
+    ignorados BIGINT NOT NULL DEFAULT 0,
+    falhas BIGINT NOT NULL DEFAULT 0,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDENTE',
+    ultimo_erro VARCHAR(500),
+    iniciado_em TIMESTAMP,
+    atualizado_em TIMESTAMP
+);
+
+COMMENT ON TABLE migracao_criptografia IS 'Checkpoint da migração de campos_template.valor para AES-GCM';
+COMMENT ON COLUMN migracao_criptografia.ultimo_id IS 'Maior id de campos_template já processado (paginação por chave)';
@@ -0,0 +1,7 @@
+-- Migração V5: Versão do conjunto de templates por usuário
+-- Descrição: Base do ETag de /api/v1/public/templates e /templates/usuario (304 sem consultar templates)
+
+ALTER TABLE usuarios
+ADD COLUMN IF NOT EXISTS templates_versao BIGINT DEFAULT 0;
+
+COMMENT ON COLUMN usuarios.templates_versao IS 'Incrementada a cada criação, alteração, remoção ou uso de template do usuário';
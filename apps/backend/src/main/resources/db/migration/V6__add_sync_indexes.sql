@@ -0,0 +1,8 @@
+-- Migração V6: Índices para a sincronização incremental da extensão
+-- Descrição: /api/v1/public/extension/sync filtra por usuário/template e data_atualizacao
+
+CREATE INDEX IF NOT EXISTS idx_templates_usuario_atualizacao ON templates(usuario_id, data_atualizacao);
+CREATE INDEX IF NOT EXISTS idx_campos_template_atualizacao ON campos_template(template_id, data_atualizacao);
+
+-- Templates antigos sem data de atualização passam a usar a data de criação
+UPDATE templates SET data_atualizacao = data_criacao WHERE data_atualizacao IS NULL;
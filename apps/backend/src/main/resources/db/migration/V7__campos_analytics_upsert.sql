@@ -0,0 +1,33 @@
+-- Migração V7: Contadores de campos_analytics com UPSERT atômico
+-- Descrição: os contadores passam a ser somados com INSERT ... ON CONFLICT (usuario_id, campo_template_id),
+-- o que exige uma restrição única no par. Primeiros usos concorrentes podiam ter criado linhas duplicadas.
+
+CREATE TABLE IF NOT EXISTS campos_analytics (
+    id BIGSERIAL PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    campo_template_id BIGINT NOT NULL,
+    quantidade_usos INTEGER NOT NULL,
+    ultimo_uso TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+-- Consolida os duplicados na linha mais antiga de cada par
+UPDATE campos_analytics c
+SET quantidade_usos = d.total, ultimo_uso = d.ultimo
+FROM (
+    SELECT MIN(id) AS id, SUM(quantidade_usos) AS total, MAX(ultimo_uso) AS ultimo
+    FROM campos_analytics
+    GROUP BY usuario_id, campo_template_id
+    HAVING COUNT(*) > 1
+) d
+WHERE c.id = d.id;
+
+DELETE FROM campos_analytics c
+USING campos_analytics m
+WHERE c.usuario_id = m.usuario_id
+  AND c.campo_template_id = m.campo_template_id
+  AND c.id > m.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_campos_analytics_usuario_campo
+    ON campos_analytics(usuario_id, campo_template_id);
@@ -0,0 +1,39 @@
+-- Migração V8: Consolidação diária de analytics de preenchimento
+-- Descrição: o painel de analytics passa a somar linhas por (usuário, dia, site) em vez de agregar
+-- preenchimentos_analytics inteira; consolidacao_analytics guarda a marca d'água (último id somado)
+
+CREATE TABLE IF NOT EXISTS preenchimentos_analytics_diario (
+    id BIGSERIAL PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    dia DATE NOT NULL,
+    site VARCHAR(255) NOT NULL DEFAULT '',
+    total_preenchimentos BIGINT NOT NULL DEFAULT 0,
+    total_sucessos BIGINT NOT NULL DEFAULT 0,
+    tempo_economizado BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_preenchimentos_diario_usuario_dia_site UNIQUE (usuario_id, dia, site)
+);
+
+CREATE TABLE IF NOT EXISTS consolidacao_analytics (
+    nome VARCHAR(100) PRIMARY KEY,
+    ultimo_id BIGINT NOT NULL DEFAULT 0,
+    consolidados BIGINT NOT NULL DEFAULT 0,
+    atualizado_em TIMESTAMP
+);
+
+-- Tabela de origem (criada pelo JPA nos ambientes antigos)
+CREATE TABLE IF NOT EXISTS preenchimentos_analytics (
+    id BIGSERIAL PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    site VARCHAR(255),
+    campo_id BIGINT,
+    data_preenchimento TIMESTAMP NOT NULL,
+    tempo_economizado INTEGER,
+    sucesso BOOLEAN NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+-- A cauda ainda não consolidada é lida por usuário a partir da marca d'água
+CREATE INDEX IF NOT EXISTS idx_preenchimentos_analytics_usuario_id ON preenchimentos_analytics(usuario_id, id);
+
+COMMENT ON TABLE preenchimentos_analytics_diario IS 'Preenchimentos consolidados por usuário, dia e site';
+COMMENT ON COLUMN consolidacao_analytics.ultimo_id IS 'Maior id de preenchimentos_analytics já somado à consolidação diária';
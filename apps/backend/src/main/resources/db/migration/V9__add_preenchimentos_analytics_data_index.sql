@@ -0,0 +1,5 @@
+-- Migração V9: Índice para a série de preenchimentos por hora
+-- Descrição: /api/v1/analytics/preenchimentos?granularidade=hora agrupa a tabela bruta por usuário e período
+
+CREATE INDEX IF NOT EXISTS idx_preenchimentos_analytics_usuario_data
+    ON preenchimentos_analytics(usuario_id, data_preenchimento);
@@ -0,0 +1,73 @@
+package br.com.backend;
+
+import br.com.backend.service.GravadorAnalytics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Primeiros usos concorrentes do mesmo campo não podem duplicar a linha nem perder incrementos
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class CampoAnalyticsUpsertIntegrationTest {
+
+    private static final long USUARIO_ID = 9_001L;
+    private static final long CAMPO_ID = 9_002L;
+    private static final int THREADS = 8;
+    private static final int USOS_POR_THREAD = 100;
+
+    @Autowired
+    private GravadorAnalytics gravadorAnalytics;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void somaUsosConcorrentesNumaUnicaLinha() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < USOS_POR_THREAD; i++) {
+                        gravadorAnalytics.somarUsosCampo(USUARIO_ID, CAMPO_ID, 1);
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Deltas agregados: três preenchimentos do mesmo campo viram um único UPSERT
+        LocalDateTime agora = LocalDateTime.now();
+        gravadorAnalytics.gravar(List.of(
+            new GravadorAnalytics.Preenchimento(USUARIO_ID, "exemplo.com", CAMPO_ID, agora),
+            new GravadorAnalytics.Preenchimento(USUARIO_ID, "exemplo.com", CAMPO_ID, agora),
+            new GravadorAnalytics.Preenchimento(USUARIO_ID, "exemplo.com", CAMPO_ID, agora)));
+
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM campos_analytics WHERE usuario_id = ? AND campo_template_id = ?",
+            Integer.class, USUARIO_ID, CAMPO_ID));
+        Assertions.assertEquals(THREADS * USOS_POR_THREAD + 3, jdbcTemplate.queryForObject(
+            "SELECT quantidade_usos FROM campos_analytics WHERE usuario_id = ? AND campo_template_id = ?",
+            Integer.class, USUARIO_ID, CAMPO_ID));
+    }
+}
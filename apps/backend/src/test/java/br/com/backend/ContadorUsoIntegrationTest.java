@@ -0,0 +1,115 @@
+package br.com.backend;
+
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.Template;
+import br.com.backend.entity.Usuario;
+import br.com.backend.repository.CampoTemplateRepository;
+import br.com.backend.repository.TemplateRepository;
+import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.service.ContadorUsoService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "app.usage.flush-interval=3600000")
+public class ContadorUsoIntegrationTest {
+
+    private static final int THREADS = 8;
+    private static final int USOS_POR_THREAD = 500;
+
+    @Autowired
+    private ContadorUsoService contadorUsoService;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private TemplateRepository templateRepository;
+    @Autowired
+    private CampoTemplateRepository campoTemplateRepository;
+
+    @Test
+    void naoPerdeIncrementosConcorrentesDuranteAGravacao() throws Exception {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("Uso").email("uso@exemplo.com").senha("x").plano("PESSOAL").build());
+        Template template = new Template("Uso", usuario);
+        CampoTemplate ativo = new CampoTemplate("nome", "text", null);
+        template.adicionarCampo(ativo);
+        CampoTemplate inativo = new CampoTemplate("antigo", "text", null);
+        inativo.setAtivo(false);
+        template.adicionarCampo(inativo);
+        template = templateRepository.save(template);
+        Long templateId = template.getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicBoolean registrando = new AtomicBoolean(true);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < USOS_POR_THREAD; i++) {
+                        contadorUsoService.registrarUso(templateId, usuario.getId());
+                    }
+                    return null;
+                }));
+            }
+
+            // Gravações concorrentes com os registros
+            Thread gravador = new Thread(() -> {
+                while (registrando.get()) {
+                    contadorUsoService.gravar();
+                }
+            });
+            gravador.start();
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+            registrando.set(false);
+            gravador.join();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        contadorUsoService.encerrar();
+
+        int esperado = THREADS * USOS_POR_THREAD;
+        Template gravado = templateRepository.findById(templateId).orElseThrow();
+        Assertions.assertEquals(esperado, gravado.getTotalUso());
+        Assertions.assertNotNull(gravado.getUltimoUso());
+        Assertions.assertEquals(esperado, campoTemplateRepository.findById(ativo.getId()).orElseThrow().getTotalUso());
+        Assertions.assertEquals(0, campoTemplateRepository.findById(inativo.getId()).orElseThrow().getTotalUso());
+        Assertions.assertEquals(0, contadorUsoService.pendentes(templateId));
+    }
+
+    @Test
+    void gravarUsoNaoContaComoAlteracaoDoTemplate() {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("Uso versão").email("uso-versao@exemplo.com").senha("x").plano("PESSOAL").build());
+        Template template = templateRepository.save(new Template("Uso versão", usuario));
+        Long versao = usuarioRepository.findById(usuario.getId()).orElseThrow().getTemplatesVersao();
+        LocalDateTime dataAtualizacao = templateRepository.findById(template.getId()).orElseThrow().getDataAtualizacao();
+
+        contadorUsoService.registrarUso(template.getId(), usuario.getId());
+        contadorUsoService.encerrar();
+
+        Template gravado = templateRepository.findById(template.getId()).orElseThrow();
+        Assertions.assertEquals(1, gravado.getTotalUso());
+        Assertions.assertEquals(dataAtualizacao, gravado.getDataAtualizacao());
+        Assertions.assertEquals(versao, usuarioRepository.findById(usuario.getId()).orElseThrow().getTemplatesVersao());
+    }
+}
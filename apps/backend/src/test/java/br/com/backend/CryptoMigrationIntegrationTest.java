@@ -0,0 +1,174 @@
+package br.com.backend;
+
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.MigracaoCriptografia;
+import br.com.backend.entity.Template;
+import br.com.backend.entity.Usuario;
+import br.com.backend.repository.CampoTemplateRepository;
+import br.com.backend.repository.MigracaoCriptografiaRepository;
+import br.com.backend.repository.TemplateRepository;
+import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.security.JwtTokenUtil;
+import br.com.backend.service.CryptoMigrationService;
+import br.com.backend.service.CryptoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "app.crypto.secret=migracaoTestSecret",
+    "app.encryption.key=fixtureSecretKey123",
+    "app.crypto.migration.chunk-size=2",
+    "app.crypto.migration.rows-per-second=0"
+})
+public class CryptoMigrationIntegrationTest {
+
+    private static final String EXTENSION_KEY = "ext_2024_preenche_rapido_secure_key_987654321";
+
+    @Autowired
+    private CryptoMigrationService cryptoMigrationService;
+    @Autowired
+    private CryptoService cryptoService;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private TemplateRepository templateRepository;
+    @Autowired
+    private CampoTemplateRepository campoTemplateRepository;
+    @Autowired
+    private MigracaoCriptografiaRepository migracaoRepository;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void migraTodosOsFormatosParaGcmERetomaSemRetrabalho() throws Exception {
+        String[] pgp = lerFixture("padrao-pgcrypto");
+
+        Map<String, String> esperado = new LinkedHashMap<>();
+        esperado.put("texto", "joao@exemplo.com");
+        esperado.put("pgp", pgp[0]);
+        esperado.put("gcm", "já migrado");
+
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("Migração").email("migracao@exemplo.com").senha("x").plano("PESSOAL").build());
+        Template template = new Template("Migração", usuario);
+        template.adicionarCampo(campo("texto", "joao@exemplo.com"));
+        template.adicionarCampo(campo("pgp", pgp[1]));
+        template.adicionarCampo(campo("gcm", cryptoService.encryptIfEnabled("já migrado")));
+        template.adicionarCampo(campo("vazio", null));
+        templateRepository.save(template);
+
+        cryptoMigrationService.executar();
+
+        for (CampoTemplate campo : campoTemplateRepository.findByTemplateId(template.getId())) {
+            if (campo.getValor() == null) {
+                continue;
+            }
+            Assertions.assertTrue(cryptoService.isEncrypted(campo.getValor()), campo.getNome());
+            Assertions.assertEquals(esperado.get(campo.getNome()), cryptoService.decryptIfEncrypted(campo.getValor()));
+        }
+
+        // A extensão continua recebendo os valores em claro depois da migração, com JWT e com chave de extensão
+        String token = "Bearer " + jwtTokenUtil.generateToken(usuario.getEmail());
+        mockMvc.perform(get("/api/v1/public/templates/usuario").header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].campos[*].valor",
+                containsInAnyOrder("joao@exemplo.com", pgp[0], "já migrado", "")));
+        mockMvc.perform(get("/api/v1/public/templates/usuario").header("Authorization", token)
+                .header("X-Extension-Key", EXTENSION_KEY))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].campos[*].valor",
+                containsInAnyOrder("joao@exemplo.com", pgp[0], "já migrado", "")));
+
+        MigracaoCriptografia migracao = migracaoRepository.findById("campos_template.valor").orElseThrow();
+        Assertions.assertEquals("CONCLUIDA", migracao.getStatus());
+        Assertions.assertEquals(2L, migracao.getMigrados());
+        Assertions.assertEquals(0L, migracao.getFalhas());
+
+        // Retomar após concluir não reprocessa nada
+        cryptoMigrationService.executar();
+        Assertions.assertEquals(2L, migracaoRepository.findById("campos_template.valor").orElseThrow().getMigrados());
+        Assertions.assertEquals(100.0, cryptoMigrationService.progresso().get("percentual"));
+    }
+
+    @Test
+    void extensaoGravaValoresCriptografados() throws Exception {
+        MvcResult criado = mockMvc.perform(post("/api/v1/public/templates")
+                .header("X-Extension-Key", EXTENSION_KEY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"nome\":\"Extensão cripto\",\"campos\":[{\"nome\":\"email\",\"valor\":\"ana@exemplo.com\",\"tipo\":\"email\"}]}"))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.campos[0].valor").value("ana@exemplo.com"))
+            .andReturn();
+        Long templateId = objectMapper.readTree(criado.getResponse().getContentAsString(StandardCharsets.UTF_8))
+            .get("id").asLong();
+        assertCriptografado(templateId, "ana@exemplo.com");
+
+        mockMvc.perform(put("/api/v1/public/templates/" + templateId)
+                .header("X-Extension-Key", EXTENSION_KEY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"nome\":\"Extensão cripto\",\"campos\":[{\"nome\":\"email\",\"valor\":\"bia@exemplo.com\",\"tipo\":\"email\"}]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.campos[0].valor").value("bia@exemplo.com"));
+        assertCriptografado(templateId, "bia@exemplo.com");
+    }
+
+    private void assertCriptografado(Long templateId, String esperado) {
+        List<CampoTemplate> campos = campoTemplateRepository.findByTemplateId(templateId);
+        Assertions.assertEquals(1, campos.size());
+        Assertions.assertTrue(cryptoService.isEncrypted(campos.get(0).getValor()), campos.get(0).getValor());
+        Assertions.assertEquals(esperado, cryptoService.decryptIfEncrypted(campos.get(0).getValor()));
+    }
+
+    private CampoTemplate campo(String nome, String valor) {
+        CampoTemplate campo = new CampoTemplate(nome, "text", null);
+        campo.setValor(valor);
+        return campo;
+    }
+
+    // Retorna {texto, valor gravado} de uma fixture gerada no formato do pgcrypto
+    private String[] lerFixture(String nome) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream("/pgp/fixtures.tsv"), StandardCharsets.UTF_8))) {
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                String[] colunas = linha.split("\t");
+                if (colunas[0].equals(nome)) {
+                    return new String[]{
+                        new String(Base64.getDecoder().decode(colunas[2]), StandardCharsets.UTF_8), colunas[3]};
+                }
+            }
+        }
+        throw new IllegalStateException("Fixture não encontrada: " + nome);
+    }
+}
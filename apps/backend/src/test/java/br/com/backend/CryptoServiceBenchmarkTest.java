@@ -0,0 +1,165 @@
+package br.com.backend;
+
+import br.com.backend.service.CryptoService;
+import br.com.backend.service.DecryptedValueCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Pipeline AES/GCM do CryptoService: compatibilidade com o formato anterior e
+ * custo por operação (ns/op e bytes alocados/op) antes e depois da API em lote.
+ * O benchmark roda com: mvn test -Dtest=CryptoServiceBenchmarkTest -Dbenchmark=true
+ */
+public class CryptoServiceBenchmarkTest {
+
+    private static final String SEGREDO = "benchmarkSecret";
+    private static final int CAMPOS = 20;
+    private static final int ITERACOES = 20_000;
+
+    private CryptoService service;
+    private SecretKeySpec keySpec;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @BeforeEach
+    void setup() throws Exception {
+        // Cache desabilitado para medir a descriptografia em si
+        service = new CryptoService(new DecryptedValueCache(new SimpleMeterRegistry(), false, 0, 0));
+        ReflectionTestUtils.setField(service, "cryptoEnabled", true);
+        ReflectionTestUtils.setField(service, "cryptoSecret", SEGREDO);
+        service.init();
+
+        byte[] keyBytes = MessageDigest.getInstance("SHA-256").digest(SEGREDO.getBytes(StandardCharsets.UTF_8));
+        keySpec = new SecretKeySpec(keyBytes, "AES");
+    }
+
+    @Test
+    void loteCompativelComFormatoAnterior() throws Exception {
+        List<String> valores = gerarValores();
+        List<String> cifrados = service.encryptAll(valores);
+
+        Map<String, String> decifrados = service.decryptAll(cifrados);
+        for (int i = 0; i < valores.size(); i++) {
+            Assertions.assertEquals(valores.get(i), decifrados.get(cifrados.get(i)));
+            Assertions.assertEquals(valores.get(i), decryptLegado(cifrados.get(i)));
+        }
+
+        String legado = encryptLegado("valor gravado pela versão anterior");
+        Assertions.assertEquals("valor gravado pela versão anterior", service.decryptIfEncrypted(legado));
+    }
+
+    @Test
+    void ivNaoSeRepete() {
+        Set<String> ivs = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            // Os 12 bytes do IV correspondem exatamente aos 16 primeiros caracteres Base64
+            Assertions.assertTrue(ivs.add(service.encryptIfEnabled("x").substring(4, 20)), "IV repetido");
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void compararPipelineAnteriorELote() throws Exception {
+        List<String> valores = gerarValores();
+        List<String> cifrados = service.encryptAll(valores);
+
+        medir("encrypt anterior", () -> {
+            List<String> resultado = new ArrayList<>(CAMPOS);
+            for (String valor : valores) {
+                resultado.add(encryptLegado(valor));
+            }
+            return resultado;
+        });
+        medir("encryptAll", () -> service.encryptAll(valores));
+        medir("decrypt anterior", () -> {
+            List<String> resultado = new ArrayList<>(CAMPOS);
+            for (String valor : cifrados) {
+                resultado.add(decryptLegado(valor));
+            }
+            return resultado;
+        });
+        medir("decryptAll", () -> service.decryptAll(cifrados));
+    }
+
+    private void medir(String nome, Supplier<Object> operacao) {
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < ITERACOES / 4; i++) {
+            operacao.get();
+        }
+
+        Object sumidouro = null;
+        long bytesInicio = threadMXBean.getThreadAllocatedBytes(threadId);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ITERACOES; i++) {
+            sumidouro = operacao.get();
+        }
+        long nanos = System.nanoTime() - inicio;
+        long bytes = threadMXBean.getThreadAllocatedBytes(threadId) - bytesInicio;
+
+        Assertions.assertNotNull(sumidouro);
+        long operacoes = (long) ITERACOES * CAMPOS;
+        System.out.printf("📊 %-16s %8.0f ns/op %8d bytes/op%n", nome, (double) nanos / operacoes, bytes / operacoes);
+    }
+
+    private List<String> gerarValores() {
+        List<String> valores = new ArrayList<>(CAMPOS);
+        for (int i = 0; i < CAMPOS; i++) {
+            valores.add("campo-" + i + "@exemplo.com.br");
+        }
+        return valores;
+    }
+
+    // Implementação anterior: Cipher.getInstance, SecureRandom e ByteBuffer a cada valor
+    private String encryptLegado(String plaintext) {
+        try {
+            byte[] iv = new byte[12];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+            byte[] ciphertext = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.allocate(iv.length + ciphertext.length);
+            buffer.put(iv);
+            buffer.put(ciphertext);
+            return "enc:" + Base64.getEncoder().encodeToString(buffer.array());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String decryptLegado(String encrypted) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encrypted.substring(4)));
+            byte[] iv = new byte[12];
+            buffer.get(iv);
+            byte[] ciphertext = new byte[buffer.remaining()];
+            buffer.get(ciphertext);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+            return new String(cipher.doFinal(ciphertext), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package br.com.backend;
+
+import br.com.backend.service.DecryptedValueCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Comportamento LRU, TTL e invalidação do cache de valores descriptografados
+ */
+public class DecryptedValueCacheTest {
+
+    @Test
+    void reutilizaValorDescriptografado() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DecryptedValueCache cache = new DecryptedValueCache(registry, true, 10, 300);
+        AtomicInteger chamadas = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals("claro", cache.get("\\xabc", valor -> {
+                chamadas.incrementAndGet();
+                return "claro";
+            }));
+        }
+
+        Assertions.assertEquals(1, chamadas.get());
+        Assertions.assertEquals(2.0, registry.get("formsync.crypto.cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void naoArmazenaFalhaDeDescriptografia() {
+        DecryptedValueCache cache = new DecryptedValueCache(new SimpleMeterRegistry(), true, 10, 300);
+
+        cache.get("\\xabc", valor -> valor);
+
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    void removeMenosRecentementeUsadoAoExcederLimite() {
+        DecryptedValueCache cache = new DecryptedValueCache(new SimpleMeterRegistry(), true, 2, 300);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        Assertions.assertEquals("1", cache.get("a"));
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    void expiraEInvalidaEntradas() {
+        DecryptedValueCache cache = new DecryptedValueCache(new SimpleMeterRegistry(), true, 10, 0);
+        cache.put("a", "1");
+        cache.removerExpiradas();
+        Assertions.assertEquals(0, cache.size());
+
+        cache = new DecryptedValueCache(new SimpleMeterRegistry(), true, 10, 300);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.invalidate(List.of("a"));
+        Assertions.assertNull(cache.get("a"));
+        Assertions.assertEquals("2", cache.get("b"));
+    }
+}
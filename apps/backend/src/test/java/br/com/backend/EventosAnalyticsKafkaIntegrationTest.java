@@ -0,0 +1,220 @@
+package br.com.backend;
+
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.Template;
+import br.com.backend.entity.Usuario;
+import br.com.backend.kafka.ConsumidorEventosAnalytics;
+import br.com.backend.kafka.EventoAnalytics;
+import br.com.backend.kafka.KafkaProducerService;
+import br.com.backend.repository.TemplateRepository;
+import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.service.ContadorUsoService;
+import br.com.backend.service.FilaAnalyticsService;
+import br.com.backend.service.TemplateEventService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Preenchimentos e usos de template passando pelo tópico de analytics num broker embutido:
+ * nada fica em memória no lado que publica, o consumidor em lote grava tudo e confirma os offsets
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 2, topics = {EventosAnalyticsKafkaIntegrationTest.TOPICO, EventosAnalyticsKafkaIntegrationTest.TOPICO_ENVIO})
+@TestPropertySource(properties = {
+    "app.kafka.enabled=true",
+    "app.kafka.analytics.topic=" + EventosAnalyticsKafkaIntegrationTest.TOPICO,
+    "app.kafka.partitions=2",
+    "app.kafka.analytics.partitions=2",
+    "app.kafka.analytics.concurrency=2",
+    // Os primeiros envios esperam os metadados do tópico em vez de cair no caminho local
+    "app.kafka.analytics.max-block-ms=5000",
+    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.consumer.auto-offset-reset=earliest",
+    "app.usage.flush-interval=3600000"
+})
+public class EventosAnalyticsKafkaIntegrationTest {
+
+    static final String TOPICO = "formsync.analytics.teste";
+    // Sem consumidor: só para medir o envio
+    static final String TOPICO_ENVIO = "formsync.envio.teste";
+    private static final int PREENCHIMENTOS = 20;
+    private static final int USOS = 5;
+
+    @Autowired
+    private FilaAnalyticsService filaAnalyticsService;
+    @Autowired
+    private ContadorUsoService contadorUsoService;
+    @Autowired
+    private KafkaProducerService producerService;
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private TemplateRepository templateRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ConsumidorEventosAnalytics consumidor;
+    @Autowired
+    private TemplateEventService templateEventService;
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Test
+    void consumidorGravaEventosPublicadosEmLote() throws Exception {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("Kafka").email("kafka@exemplo.com").senha("x").plano("PESSOAL").build());
+        Template template = new Template("Kafka", usuario);
+        template.adicionarCampo(new CampoTemplate("email", "email", null));
+        template = templateRepository.save(template);
+        Long templateId = template.getId();
+        Long campoId = template.getCampos().get(0).getId();
+        double consumidosAntes = registros("consumed");
+        double invalidosAntes = registros("invalid");
+
+        for (int i = 0; i < PREENCHIMENTOS; i++) {
+            Assertions.assertTrue(filaAnalyticsService.registrar(usuario.getId(), "site" + (i % 2) + ".com", campoId));
+        }
+        for (int i = 0; i < USOS; i++) {
+            contadorUsoService.registrarUso(templateId, usuario.getId());
+        }
+        // Registro malformado é descartado sem travar a partição
+        kafkaTemplate.send(TOPICO, String.valueOf(usuario.getId()), "{\"tipo\":\"DESCONHECIDO\"}");
+
+        Assertions.assertEquals(0, filaAnalyticsService.pendentes());
+        Assertions.assertEquals(0, contadorUsoService.pendentes(templateId));
+
+        aguardar(() -> contar("SELECT COUNT(*) FROM preenchimentos_analytics WHERE usuario_id = ?", usuario.getId()) == PREENCHIMENTOS
+            && contar("SELECT total_uso FROM templates WHERE id = ?", templateId) == USOS);
+
+        Assertions.assertEquals(PREENCHIMENTOS / 2, contar(
+            "SELECT COUNT(*) FROM preenchimentos_analytics WHERE usuario_id = ? AND site = 'site0.com'", usuario.getId()));
+        Assertions.assertEquals(PREENCHIMENTOS, contar(
+            "SELECT quantidade_usos FROM campos_analytics WHERE usuario_id = ? AND campo_template_id = " + campoId, usuario.getId()));
+        Assertions.assertEquals(USOS, contar("SELECT total_uso FROM campos_template WHERE id = ?", campoId));
+
+        // Ack manual: todos os registros, inclusive o descartado, confirmados depois da gravação
+        aguardar(() -> offsetsConfirmados() == PREENCHIMENTOS + USOS + 1);
+        Assertions.assertEquals(PREENCHIMENTOS + USOS, registros("consumed") - consumidosAntes);
+        Assertions.assertEquals(1, registros("invalid") - invalidosAntes);
+        Assertions.assertFalse(meterRegistry.find("kafka.consumer.fetch.manager.records.lag.max").meters().isEmpty());
+    }
+
+    @Test
+    void reentregaDeLoteJaGravadoNaoSomaDeNovo() {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("Reentrega").email("reentrega@exemplo.com").senha("x").plano("PESSOAL").build());
+        Template template = templateRepository.save(new Template("Reentrega", usuario));
+        LocalDateTime agora = LocalDateTime.now();
+
+        // Mesmo lote entregue duas vezes, como num rebalanceamento entre o commit no banco e o ack
+        List<ConsumerRecord<String, EventoAnalytics>> lote = new ArrayList<>();
+        for (long offset = 0; offset < 3; offset++) {
+            lote.add(new ConsumerRecord<>("formsync.analytics.reentrega", 0, offset, String.valueOf(usuario.getId()),
+                EventoAnalytics.usoTemplate(usuario.getId(), template.getId(), agora)));
+        }
+        double duplicadosAntes = registros("duplicate");
+        consumidor.consumir(lote, () -> { });
+        consumidor.consumir(lote, () -> { });
+        Assertions.assertEquals(3, contar("SELECT total_uso FROM templates WHERE id = ?", template.getId()));
+        Assertions.assertEquals(3, registros("duplicate") - duplicadosAntes);
+
+        // Lote seguinte com sobreposição: só os offsets novos contam
+        List<ConsumerRecord<String, EventoAnalytics>> seguinte = new ArrayList<>();
+        for (long offset = 2; offset < 5; offset++) {
+            seguinte.add(new ConsumerRecord<>("formsync.analytics.reentrega", 0, offset, String.valueOf(usuario.getId()),
+                EventoAnalytics.usoTemplate(usuario.getId(), template.getId(), agora)));
+        }
+        consumidor.consumir(seguinte, () -> { });
+        Assertions.assertEquals(5, contar("SELECT total_uso FROM templates WHERE id = ?", template.getId()));
+    }
+
+    @Test
+    void alteracaoDeTemplateChegaAsConexoesPeloTopicoDeDifusao() throws Exception {
+        // O grupo de cada nó começa do fim do tópico: só publica depois de receber as partições
+        ContainerTestUtils.waitForAssignment(listenerRegistry.getListenerContainer("template-eventos"),
+            embeddedKafka.getPartitionsPerTopic());
+        double recebidosAntes = meterRegistry.get("formsync.kafka.template_events").tag("result", "received").counter().count();
+        double enviadosAntes = meterRegistry.get("formsync.sse.events").tag("result", "sent").counter().count();
+
+        templateEventService.conectar(424242L);
+        templateEventService.publicar(424242L, 7L, TemplateEventService.TEMPLATE_ALTERADO);
+
+        // "conectado" e a alteração que voltou do tópico
+        aguardar(() -> meterRegistry.get("formsync.sse.events").tag("result", "sent").counter().count() - enviadosAntes >= 2);
+        Assertions.assertEquals(1, meterRegistry.get("formsync.kafka.template_events")
+            .tag("result", "received").counter().count() - recebidosAntes);
+    }
+
+    @Test
+    void sendAllConfirmaEntregaDoLoteEMedePorTopico() throws Exception {
+        List<EventoAnalytics> eventos = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            eventos.add(EventoAnalytics.preenchimento((long) (i % 10), "site" + i + ".com", null, LocalDateTime.now()));
+        }
+
+        KafkaProducerService.ResultadoLote resultado = producerService
+            .sendAll(TOPICO_ENVIO, eventos, evento -> String.valueOf(evento.getUsuarioId()))
+            .get(30, TimeUnit.SECONDS);
+
+        Assertions.assertTrue(resultado.isSucesso());
+        Assertions.assertEquals(1_000, resultado.getTotal());
+        Assertions.assertEquals(1_000, meterRegistry.get("formsync.kafka.producer.send")
+            .tag("topic", TOPICO_ENVIO).tag("result", "success").timer().count());
+    }
+
+    private double registros(String resultado) {
+        return meterRegistry.get("formsync.kafka.analytics.records").tag("result", resultado).counter().count();
+    }
+
+    private long offsetsConfirmados() {
+        try (AdminClient admin = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafka.getBrokersAsString()))) {
+            return admin.listConsumerGroupOffsets("formsync-analytics").partitionsToOffsetAndMetadata().get()
+                .values().stream().mapToLong(OffsetAndMetadata::offset).sum();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 30_000;
+        while (!condicao.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < limite, "eventos não consumidos a tempo");
+            Thread.sleep(100);
+        }
+    }
+
+    private long contar(String sql, Long id) {
+        Long valor = jdbcTemplate.queryForObject(sql, Long.class, id);
+        return valor != null ? valor : 0L;
+    }
+}
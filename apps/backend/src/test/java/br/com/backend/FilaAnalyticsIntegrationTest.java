@@ -0,0 +1,77 @@
+package br.com.backend;
+
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.Template;
+import br.com.backend.entity.Usuario;
+import br.com.backend.repository.TemplateRepository;
+import br.com.backend.repository.UsuarioRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "app.analytics.queue.batch-size=7",
+    "app.analytics.queue.flush-interval-ms=50"
+})
+public class FilaAnalyticsIntegrationTest {
+
+    private static final String EXTENSION_KEY = "ext_2024_preenche_rapido_secure_key_987654321";
+    private static final int EVENTOS = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private TemplateRepository templateRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void gravaPreenchimentosEnfileiradosEmLote() throws Exception {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("Fila").email("fila@exemplo.com").senha("x").plano("PESSOAL").build());
+        Template template = new Template("Fila", usuario);
+        template.adicionarCampo(new CampoTemplate("email", "email", null));
+        template = templateRepository.save(template);
+        Long campoId = template.getCampos().get(0).getId();
+
+        for (int i = 0; i < EVENTOS; i++) {
+            mockMvc.perform(post("/api/v1/public/analytics/track")
+                    .header("X-Extension-Key", EXTENSION_KEY)
+                    .param("site", "exemplo.com")
+                    .param("campoId", String.valueOf(campoId))
+                    .param("usuarioId", String.valueOf(usuario.getId())))
+                .andExpect(status().isOk());
+        }
+
+        long limite = System.currentTimeMillis() + 5000;
+        Integer quantidade = null;
+        while (System.currentTimeMillis() < limite) {
+            quantidade = jdbcTemplate.query(
+                "SELECT quantidade_usos FROM campos_analytics WHERE usuario_id = ? AND campo_template_id = ?",
+                rs -> rs.next() ? rs.getInt(1) : null, usuario.getId(), campoId);
+            if (quantidade != null && quantidade == EVENTOS) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        Assertions.assertEquals(EVENTOS, quantidade);
+        Assertions.assertEquals(EVENTOS, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM preenchimentos_analytics WHERE usuario_id = ?", Integer.class, usuario.getId()));
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM campos_analytics WHERE usuario_id = ?", Integer.class, usuario.getId()));
+    }
+}
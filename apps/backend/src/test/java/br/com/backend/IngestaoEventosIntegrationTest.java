@@ -0,0 +1,95 @@
+package br.com.backend;
+
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.Template;
+import br.com.backend.entity.Usuario;
+import br.com.backend.repository.TemplateRepository;
+import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.security.JwtTokenUtil;
+import br.com.backend.service.ContadorUsoService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = "app.usage.flush-interval=3600000")
+public class IngestaoEventosIntegrationTest {
+
+    private static final String EXTENSION_KEY = "ext_2024_preenche_rapido_secure_key_987654321";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private TemplateRepository templateRepository;
+    @Autowired
+    private ContadorUsoService contadorUsoService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Test
+    void gravaLoteEDevolveStatusPorItem() throws Exception {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("Lote").email("lote@exemplo.com").senha("x").plano("PESSOAL").build());
+        Template template = new Template("Lote", usuario);
+        CampoTemplate campo = new CampoTemplate("email", "email", null);
+        template.adicionarCampo(campo);
+        template = templateRepository.save(template);
+        Long campoId = template.getCampos().get(0).getId();
+
+        String lote = "["
+            + "{\"tipo\":\"uso\",\"templateId\":" + template.getId() + "},"
+            + "{\"tipo\":\"historico\",\"url\":\"https://exemplo.com/cadastro\"},"
+            + "{\"tipo\":\"campo\",\"site\":\"exemplo.com\",\"campoId\":" + campoId + "},"
+            + "{\"tipo\":\"campo\",\"site\":\"exemplo.com\",\"campoId\":" + campoId + "},"
+            + "{\"tipo\":\"uso\",\"templateId\":999999},"
+            + "{\"tipo\":\"desconhecido\"}"
+            + "]";
+
+        mockMvc.perform(post("/api/v1/public/extension/eventos")
+                .header("X-Extension-Key", EXTENSION_KEY)
+                .header("Authorization", "Bearer " + jwtTokenUtil.generateToken(usuario.getEmail()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(lote))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.processados").value(4))
+            .andExpect(jsonPath("$.rejeitados").value(2))
+            .andExpect(jsonPath("$.resultados[0].status").value("ok"))
+            .andExpect(jsonPath("$.resultados[4].errorCode").value("TEMPLATE_NAO_ENCONTRADO"))
+            .andExpect(jsonPath("$.resultados[5].errorCode").value("TIPO_INVALIDO"));
+
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM historico_preenchimentos WHERE usuario_id = ?", Integer.class, usuario.getId()));
+        Assertions.assertEquals(2, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM preenchimentos_analytics WHERE usuario_id = ?", Integer.class, usuario.getId()));
+        Assertions.assertEquals(2, jdbcTemplate.queryForObject(
+            "SELECT quantidade_usos FROM campos_analytics WHERE usuario_id = ? AND campo_template_id = ?",
+            Integer.class, usuario.getId(), campoId));
+        Assertions.assertEquals(1, contadorUsoService.pendentes(template.getId()));
+    }
+
+    @Test
+    void recusaLoteSemToken() throws Exception {
+        mockMvc.perform(post("/api/v1/public/extension/eventos")
+                .header("X-Extension-Key", EXTENSION_KEY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"tipo\":\"historico\",\"url\":\"https://exemplo.com\"}]"))
+            .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,122 @@
+package br.com.backend;
+
+import br.com.backend.security.OpenPgpSymmetricDecoder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Compatibilidade do decodificador OpenPGP local com o formato de pgp_sym_encrypt
+ */
+public class OpenPgpSymmetricDecoderTest {
+
+    private static final String NAO_SUPORTADO = "nao-suportado-cast5";
+
+    @Test
+    void descriptografaTodasAsVariantesSuportadas() throws Exception {
+        for (Fixture fixture : carregarFixtures()) {
+            if (NAO_SUPORTADO.equals(fixture.nome)) {
+                continue;
+            }
+            byte[] resultado = OpenPgpSymmetricDecoder.decrypt(fixture.cifrado, fixture.senha);
+            Assertions.assertEquals(fixture.texto, new String(resultado, StandardCharsets.UTF_8), fixture.nome);
+        }
+    }
+
+    @Test
+    void rejeitaChaveIncorreta() throws Exception {
+        Fixture fixture = buscarFixture("padrao-pgcrypto");
+        Assertions.assertThrows(GeneralSecurityException.class,
+                () -> OpenPgpSymmetricDecoder.decrypt(fixture.cifrado, "chaveErrada".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void rejeitaDadosAdulterados() throws Exception {
+        Fixture fixture = buscarFixture("padrao-pgcrypto");
+        byte[] adulterado = fixture.cifrado.clone();
+        adulterado[adulterado.length - 1] ^= 0x01;
+        Assertions.assertThrows(GeneralSecurityException.class,
+                () -> OpenPgpSymmetricDecoder.decrypt(adulterado, fixture.senha));
+    }
+
+    @Test
+    void sinalizaCifraNaoSuportadaParaFallback() throws Exception {
+        Fixture fixture = buscarFixture(NAO_SUPORTADO);
+        Assertions.assertThrows(OpenPgpSymmetricDecoder.FormatoNaoSuportadoException.class,
+                () -> OpenPgpSymmetricDecoder.decrypt(fixture.cifrado, fixture.senha));
+    }
+
+    /**
+     * Vazão da descriptografia local; execute com -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void medirVazaoDescriptografiaLocal() throws Exception {
+        Fixture fixture = buscarFixture("padrao-pgcrypto");
+        int iteracoes = 5_000;
+
+        for (int i = 0; i < 500; i++) {
+            OpenPgpSymmetricDecoder.decrypt(fixture.cifrado, fixture.senha);
+        }
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < iteracoes; i++) {
+            OpenPgpSymmetricDecoder.decrypt(fixture.cifrado, fixture.senha);
+        }
+        long nanos = System.nanoTime() - inicio;
+
+        System.out.printf("📊 PGP local: %.0f valores/s (%.1f µs/valor)%n",
+                iteracoes / (nanos / 1e9), nanos / 1e3 / iteracoes);
+    }
+
+    private Fixture buscarFixture(String nome) throws Exception {
+        return carregarFixtures().stream()
+                .filter(f -> f.nome.equals(nome))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private List<Fixture> carregarFixtures() throws Exception {
+        List<Fixture> fixtures = new ArrayList<>();
+        try (InputStream in = getClass().getResourceAsStream("/pgp/fixtures.tsv");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                if (linha.isBlank() || linha.startsWith("#")) {
+                    continue;
+                }
+                String[] colunas = linha.split("\t");
+                fixtures.add(new Fixture(
+                        colunas[0],
+                        colunas[1].getBytes(StandardCharsets.UTF_8),
+                        new String(Base64.getDecoder().decode(colunas[2]), StandardCharsets.UTF_8),
+                        HexFormat.of().parseHex(colunas[3].substring(2))));
+            }
+        }
+        return fixtures;
+    }
+
+    private static class Fixture {
+        private final String nome;
+        private final byte[] senha;
+        private final String texto;
+        private final byte[] cifrado;
+
+        private Fixture(String nome, byte[] senha, String texto, byte[] cifrado) {
+            this.nome = nome;
+            this.senha = senha;
+            this.texto = texto;
+            this.cifrado = cifrado;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package br.com.backend;
+
+import br.com.backend.dto.CancelarAssinaturaDTO;
+import br.com.backend.entity.Assinatura;
+import br.com.backend.service.AssinaturaService;
+import br.com.backend.service.ManipuladorOutbox;
+import br.com.backend.service.OutboxService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbox: evento gravado na transação da alteração, despacho concorrente sem entrega duplicada
+ * e nova tentativa após falha do destino
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "app.outbox.poll-interval-ms=3600000",
+    "app.outbox.batch-size=10",
+    "app.outbox.backoff-ms=0"
+})
+public class OutboxIntegrationTest {
+
+    private static final String TIPO_TESTE = "teste.evento";
+    private static final int EVENTOS = 200;
+    private static final int THREADS = 4;
+
+    // Entregas por id do evento; o agregado 1 falha na primeira tentativa
+    private static final Map<Long, AtomicInteger> ENTREGAS = new ConcurrentHashMap<>();
+    private static final Set<Long> FALHARAM = ConcurrentHashMap.newKeySet();
+    // O manipulador roda fora de transação e com o lease do evento já gravado
+    private static final Set<Long> EM_TRANSACAO = ConcurrentHashMap.newKeySet();
+    private static final Set<Long> SEM_LEASE = ConcurrentHashMap.newKeySet();
+
+    @TestConfiguration
+    static class ManipuladorTeste {
+        @Bean
+        ManipuladorOutbox manipuladorTeste(JdbcTemplate jdbcTemplate) {
+            return new ManipuladorOutbox() {
+                @Override
+                public String getTipo() {
+                    return TIPO_TESTE;
+                }
+
+                @Override
+                public void processar(OutboxService.Evento evento) {
+                    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                        EM_TRANSACAO.add(evento.getId());
+                    }
+                    Timestamp disponivelEm = jdbcTemplate.queryForObject(
+                        "SELECT disponivel_em FROM outbox_events WHERE id = ?", Timestamp.class, evento.getId());
+                    if (!disponivelEm.toLocalDateTime().isAfter(LocalDateTime.now())) {
+                        SEM_LEASE.add(evento.getId());
+                    }
+                    if (evento.getAgregadoId() == 1L && FALHARAM.add(evento.getId())) {
+                        throw new IllegalStateException("falha simulada");
+                    }
+                    ENTREGAS.computeIfAbsent(evento.getId(), id -> new AtomicInteger()).incrementAndGet();
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private AssinaturaService assinaturaService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cancelamentoGravaEventoNaMesmaTransacao() {
+        Assinatura assinatura = assinaturaService.criarAssinatura(7_501L, "PESSOAL");
+        CancelarAssinaturaDTO dto = new CancelarAssinaturaDTO();
+        dto.setMotivo("Cancelamento pelo teste do outbox");
+        dto.setSolicitarReembolso(false);
+        assinaturaService.cancelarAssinatura(assinatura.getId(), dto);
+
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM outbox_events WHERE tipo = ? AND agregado_id = ? AND processado_em IS NULL",
+            Integer.class, AssinaturaService.EVENTO_CANCELADA, assinatura.getId()));
+
+        // Cancelar de novo falha e não deixa evento
+        Assertions.assertThrows(RuntimeException.class, () -> assinaturaService.cancelarAssinatura(assinatura.getId(), dto));
+        Assertions.assertThrows(IllegalTransactionStateException.class,
+            () -> outboxService.registrar(TIPO_TESTE, 1L, 1L, Map.of()));
+
+        outboxService.despachar();
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM outbox_events WHERE tipo = ? AND agregado_id = ? AND processado_em IS NOT NULL",
+            Integer.class, AssinaturaService.EVENTO_CANCELADA, assinatura.getId()));
+    }
+
+    @Test
+    void despachoConcorrenteEntregaCadaEventoUmaVez() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < EVENTOS; i++) {
+                outboxService.registrar(TIPO_TESTE, (long) (i % 20), 7_502L, Map.of("indice", i));
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    while (outboxService.despacharLote() > 0) {
+                        // até esvaziar
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM outbox_events WHERE tipo = ? AND processado_em IS NULL", Integer.class, TIPO_TESTE));
+        Assertions.assertEquals(EVENTOS, ENTREGAS.size());
+        Assertions.assertTrue(EM_TRANSACAO.isEmpty(), "processados em transação: " + EM_TRANSACAO);
+        Assertions.assertTrue(SEM_LEASE.isEmpty(), "processados sem lease: " + SEM_LEASE);
+        ENTREGAS.forEach((id, entregas) -> Assertions.assertEquals(1, entregas.get(), "evento " + id));
+
+        // Os que falharam uma vez foram reagendados e entregues na tentativa seguinte
+        Assertions.assertEquals(EVENTOS / 20, FALHARAM.size());
+        Assertions.assertEquals(EVENTOS / 20, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM outbox_events WHERE tipo = ? AND tentativas = 1", Integer.class, TIPO_TESTE));
+    }
+}
@@ -0,0 +1,154 @@
+package br.com.backend;
+
+import br.com.backend.security.OpenPgpSymmetricDecoder;
+import br.com.backend.service.DecryptedValueCache;
+import br.com.backend.service.PGPDecryptionService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark da descriptografia PGP valor a valor, em lote e local, e compatibilidade
+ * do decodificador local com a saída real do pgcrypto.
+ * Requer um PostgreSQL com a extensão pgcrypto; execute com:
+ * mvn test -Dtest=PGPDecryptionBenchmarkTest -Dbenchmark.pg.url=jdbc:postgresql://localhost:5432/formsync
+ *   -Dbenchmark.pg.user=postgres -Dbenchmark.pg.password=postgres
+ */
+@EnabledIfSystemProperty(named = "benchmark.pg.url", matches = ".+")
+public class PGPDecryptionBenchmarkTest {
+
+    private static final String CHAVE = "benchmarkSecretKey123";
+    private static final int[] TAMANHOS = {10, 100, 1000};
+    private static final int REPETICOES = 5;
+
+    private static HikariDataSource dataSource;
+    private static PGPDecryptionService service;
+
+    @BeforeAll
+    static void setup() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(System.getProperty("benchmark.pg.url"));
+        dataSource.setUsername(System.getProperty("benchmark.pg.user", "postgres"));
+        dataSource.setPassword(System.getProperty("benchmark.pg.password", ""));
+        dataSource.setMaximumPoolSize(5);
+
+        // Cache desabilitado para medir a descriptografia em si
+        service = new PGPDecryptionService(dataSource, new DecryptedValueCache(new SimpleMeterRegistry(), false, 0, 0));
+        ReflectionTestUtils.setField(service, "encryptionKey", CHAVE);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    void compararDescriptografiaIndividualELote() throws Exception {
+        for (int tamanho : TAMANHOS) {
+            List<String> valores = gerarValoresCriptografados(tamanho);
+
+            // Caminho SQL (pgcrypto no banco)
+            ReflectionTestUtils.setField(service, "localDecryption", false);
+            service.decryptAll(valores);
+
+            long inicioIndividual = System.nanoTime();
+            for (int r = 0; r < REPETICOES; r++) {
+                for (String valor : valores) {
+                    service.decryptPGPValue(valor);
+                }
+            }
+            long individualMs = (System.nanoTime() - inicioIndividual) / 1_000_000 / REPETICOES;
+
+            long inicioLote = System.nanoTime();
+            Map<String, String> resultado = null;
+            for (int r = 0; r < REPETICOES; r++) {
+                resultado = service.decryptAll(valores);
+            }
+            long loteMs = (System.nanoTime() - inicioLote) / 1_000_000 / REPETICOES;
+
+            for (int i = 0; i < tamanho; i++) {
+                Assertions.assertEquals("valor-" + i, resultado.get(valores.get(i)));
+            }
+
+            // Caminho local (decodificador OpenPGP na JVM)
+            ReflectionTestUtils.setField(service, "localDecryption", true);
+            service.decryptAll(valores);
+
+            long inicioLocal = System.nanoTime();
+            for (int r = 0; r < REPETICOES; r++) {
+                resultado = service.decryptAll(valores);
+            }
+            long localMs = (System.nanoTime() - inicioLocal) / 1_000_000 / REPETICOES;
+
+            for (int i = 0; i < tamanho; i++) {
+                Assertions.assertEquals("valor-" + i, resultado.get(valores.get(i)));
+            }
+
+            System.out.printf("📊 PGP %4d campos: individual=%d ms, lote=%d ms, local=%d ms%n",
+                    tamanho, individualMs, loteMs, localMs);
+        }
+    }
+
+    @Test
+    void decodificadorLocalCompativelComPgcrypto() throws Exception {
+        String[] opcoes = {
+            "",
+            "cipher-algo=aes256",
+            "cipher-algo=aes192, s2k-digest-algo=sha256",
+            "s2k-mode=1",
+            "s2k-mode=0",
+            "compress-algo=1",
+            "compress-algo=2",
+            "disable-mdc=1",
+            "sess-key=1",
+            "unicode-mode=1"
+        };
+        String texto = "São Paulo – ação ✓ " + "x".repeat(5000);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT pgp_sym_encrypt(?, ?, ?)")) {
+            for (String opcao : opcoes) {
+                statement.setString(1, texto);
+                statement.setString(2, CHAVE);
+                statement.setString(3, opcao);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    byte[] resultado = OpenPgpSymmetricDecoder.decrypt(resultSet.getBytes(1), CHAVE.getBytes(StandardCharsets.UTF_8));
+                    Assertions.assertEquals(texto, new String(resultado, StandardCharsets.UTF_8), opcao);
+                }
+            }
+        }
+    }
+
+    private List<String> gerarValoresCriptografados(int quantidade) throws Exception {
+        List<String> valores = new ArrayList<>(quantidade);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT pgp_sym_encrypt(?, ?)")) {
+            for (int i = 0; i < quantidade; i++) {
+                statement.setString(1, "valor-" + i);
+                statement.setString(2, CHAVE);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    valores.add("\\x" + HexFormat.of().formatHex(resultSet.getBytes(1)));
+                }
+            }
+        }
+        return valores;
+    }
+}
@@ -0,0 +1,88 @@
+package br.com.backend;
+
+import br.com.backend.entity.HistoricoPreenchimento;
+import br.com.backend.entity.Usuario;
+import br.com.backend.repository.HistoricoPreenchimentoRepository;
+import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.service.ParticionamentoService;
+import br.com.backend.service.ParticionamentoService.TabelaParticionada;
+import br.com.backend.service.RollupAnalyticsService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Retenção dos eventos de preenchimento. No H2 não há partições, então vale o DELETE por data;
+ * analytics ainda não consolidados nunca saem.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "app.analytics.rollup.interval=3600000",
+    "app.analytics.rollup.lag-seconds=0",
+    "app.partitions.analytics-retention-months=1",
+    "app.partitions.historico-retention-months=1"
+})
+public class ParticionamentoIntegrationTest {
+
+    private static final long USUARIO_ANALYTICS_ID = 7_401L;
+
+    @Autowired
+    private ParticionamentoService particionamentoService;
+    @Autowired
+    private RollupAnalyticsService rollupAnalyticsService;
+    @Autowired
+    private HistoricoPreenchimentoRepository historicoRepository;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void retencaoRemoveEventosExpiradosJaConsolidados() throws Exception {
+        LocalDateTime agora = LocalDateTime.now();
+        inserirAnalytics(agora.minusMonths(3));
+        inserirAnalytics(agora);
+        Thread.sleep(5);
+        rollupAnalyticsService.consolidar();
+        // Expirado, mas ainda fora da consolidação
+        inserirAnalytics(agora.minusMonths(3));
+
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("Retenção").email("retencao@exemplo.com").senha("x").plano("PESSOAL").build());
+        historicoRepository.save(HistoricoPreenchimento.builder()
+            .usuario(usuario).url("https://antigo.com").dataHora(agora.minusMonths(3)).build());
+        historicoRepository.save(HistoricoPreenchimento.builder()
+            .usuario(usuario).url("https://recente.com").dataHora(agora).build());
+
+        particionamentoService.manter();
+
+        Assertions.assertEquals(2, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM preenchimentos_analytics WHERE usuario_id = ?", Integer.class, USUARIO_ANALYTICS_ID));
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM preenchimentos_analytics WHERE usuario_id = ? AND data_preenchimento < ?",
+            Integer.class, USUARIO_ANALYTICS_ID, Timestamp.valueOf(agora.minusMonths(2))));
+
+        List<HistoricoPreenchimento> historico = historicoRepository.findByUsuarioIdAndDataHoraGreaterThanEqual(
+            usuario.getId(), particionamentoService.inicioRetencao(TabelaParticionada.HISTORICO_PREENCHIMENTOS));
+        Assertions.assertEquals(1, historico.size());
+        Assertions.assertEquals("https://recente.com", historico.get(0).getUrl());
+
+        Assertions.assertEquals(1, historicoRepository.deleteAllByUsuarioId(usuario.getId()));
+        Assertions.assertTrue(historicoRepository.findByUsuarioId(usuario.getId()).isEmpty());
+    }
+
+    private void inserirAnalytics(LocalDateTime dataPreenchimento) {
+        jdbcTemplate.update("INSERT INTO preenchimentos_analytics (usuario_id, site, campo_id, data_preenchimento, "
+                + "tempo_economizado, sucesso, created_at) VALUES (?, 'exemplo.com', NULL, ?, 30, true, ?)",
+            USUARIO_ANALYTICS_ID, Timestamp.valueOf(dataPreenchimento), Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
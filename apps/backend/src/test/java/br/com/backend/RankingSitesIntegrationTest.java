@@ -0,0 +1,135 @@
+package br.com.backend;
+
+import br.com.backend.dto.SiteAnalyticsDTO;
+import br.com.backend.service.GravadorAnalytics;
+import br.com.backend.service.RankingSitesService;
+import br.com.backend.service.SpaceSaving;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Ranking de sites em memória: limites de erro do sketch, reconstrução a partir do banco,
+ * atualização só após o commit, reconstrução periódica e checkpoint
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "app.analytics.top-sites.refresh-interval-ms=200")
+public class RankingSitesIntegrationTest {
+
+    private static final long USUARIO_ID = 7_201L;
+
+    @Autowired
+    private RankingSitesService rankingSitesService;
+    @Autowired
+    private GravadorAnalytics gravadorAnalytics;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sketchRespeitaLimitesDeErro() {
+        int capacidade = 20;
+        int eventos = 20_000;
+        SpaceSaving sketch = new SpaceSaving(capacidade);
+        Map<String, Long> reais = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < eventos; i++) {
+            // Distribuição concentrada: poucos sites frequentes e uma cauda longa
+            String site = "site" + (int) Math.floor(Math.pow(random.nextDouble(), 3) * 500) + ".com";
+            sketch.registrar(site, 1);
+            reais.merge(site, 1L, Long::sum);
+        }
+
+        List<SpaceSaving.Contador> contadores = sketch.top(capacidade);
+        Assertions.assertEquals(capacidade, contadores.size());
+        Assertions.assertEquals(eventos, sketch.getTotal());
+        for (SpaceSaving.Contador contador : contadores) {
+            long real = reais.get(contador.getItem());
+            Assertions.assertTrue(contador.getContagem() >= real);
+            Assertions.assertTrue(contador.getContagem() - contador.getErro() <= real);
+            Assertions.assertTrue(contador.getErro() <= eventos / capacidade);
+        }
+        List<String> monitorados = contadores.stream().map(SpaceSaving.Contador::getItem).collect(Collectors.toList());
+        reais.forEach((site, real) -> {
+            if (real > eventos / capacidade) {
+                Assertions.assertTrue(monitorados.contains(site), site + " com " + real + " fora do sketch");
+            }
+        });
+    }
+
+    @Test
+    void rankingReconstruidoEAtualizadoAposCommit() {
+        inserir("a.com", 3);
+        inserir("b.com", 2);
+        Assertions.assertEquals(List.of("a.com", "b.com"), dominios(rankingSitesService.topSites(USUARIO_ID, 10)));
+
+        transactionTemplate.executeWithoutResult(status -> gravadorAnalytics.gravar(preenchimentos("c.com", 4)));
+        transactionTemplate.executeWithoutResult(status -> {
+            gravadorAnalytics.gravar(preenchimentos("d.com", 10));
+            status.setRollbackOnly();
+        });
+
+        List<SiteAnalyticsDTO> top = rankingSitesService.topSites(USUARIO_ID, 10);
+        Assertions.assertEquals(List.of("c.com", "a.com", "b.com"), dominios(top));
+        Assertions.assertEquals(4, top.get(0).getQuantidadePreenchimentos());
+        Assertions.assertEquals(List.of("c.com"), dominios(rankingSitesService.topSites(USUARIO_ID, 1)));
+
+        rankingSitesService.checkpoint();
+        Assertions.assertEquals(4L, jdbcTemplate.queryForObject(
+            "SELECT contagem FROM ranking_sites_analytics WHERE usuario_id = ? AND site = 'c.com'", Long.class, USUARIO_ID));
+        Assertions.assertEquals(3, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM ranking_sites_analytics WHERE usuario_id = ?", Integer.class, USUARIO_ID));
+    }
+
+    @Test
+    void sketchReconstruidoDepoisDoIntervaloVeGravacoesDeOutrosNos() throws Exception {
+        long usuarioId = 7_202L;
+        inserir(usuarioId, "a.com", 2);
+        Assertions.assertEquals(List.of("a.com"), dominios(rankingSitesService.topSites(usuarioId, 10)));
+
+        // Gravado por outro nó: este sketch não vê até ser reconstruído
+        inserir(usuarioId, "b.com", 5);
+        Assertions.assertEquals(List.of("a.com"), dominios(rankingSitesService.topSites(usuarioId, 10)));
+
+        Thread.sleep(250);
+        Assertions.assertEquals(List.of("b.com", "a.com"), dominios(rankingSitesService.topSites(usuarioId, 10)));
+    }
+
+    private List<String> dominios(List<SiteAnalyticsDTO> sites) {
+        return sites.stream().map(SiteAnalyticsDTO::getDominio).collect(Collectors.toList());
+    }
+
+    private List<GravadorAnalytics.Preenchimento> preenchimentos(String site, int quantidade) {
+        return new ArrayList<>(Collections.nCopies(quantidade,
+            new GravadorAnalytics.Preenchimento(USUARIO_ID, site, null, LocalDateTime.now())));
+    }
+
+    private void inserir(String site, int quantidade) {
+        inserir(USUARIO_ID, site, quantidade);
+    }
+
+    private void inserir(long usuarioId, String site, int quantidade) {
+        for (int i = 0; i < quantidade; i++) {
+            jdbcTemplate.update("INSERT INTO preenchimentos_analytics (usuario_id, site, campo_id, data_preenchimento, "
+                    + "tempo_economizado, sucesso, created_at) VALUES (?, ?, NULL, ?, 30, true, ?)",
+                usuarioId, site, Timestamp.valueOf(LocalDateTime.now()), Timestamp.valueOf(LocalDateTime.now()));
+        }
+    }
+}
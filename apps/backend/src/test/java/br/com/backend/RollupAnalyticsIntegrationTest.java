@@ -0,0 +1,76 @@
+package br.com.backend;
+
+import br.com.backend.service.RollupAnalyticsService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * O resumo do painel tem que bater com a agregação direta antes, durante e depois da consolidação
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "app.analytics.rollup.interval=3600000",
+    "app.analytics.rollup.lag-seconds=0",
+    "app.analytics.rollup.chunk-size=3"
+})
+public class RollupAnalyticsIntegrationTest {
+
+    private static final long USUARIO_ID = 7_001L;
+
+    @Autowired
+    private RollupAnalyticsService rollupAnalyticsService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void resumoCombinaConsolidacaoECauda() throws Exception {
+        LocalDateTime agora = LocalDateTime.now();
+        inserir("a.com", agora.minusDays(40), true);
+        inserir("a.com", agora.minusDays(5), true);
+        inserir("b.com", agora.minusDays(5), false);
+        inserir(null, agora.minusDays(2), true);
+        inserir("a.com", agora.minusHours(1), true);
+
+        RollupAnalyticsService.Resumo antes = rollupAnalyticsService.resumo(USUARIO_ID, 30);
+        assertResumo(antes, 4, 3, 2);
+
+        Thread.sleep(5);
+        rollupAnalyticsService.consolidar();
+        Assertions.assertTrue(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM preenchimentos_analytics_diario WHERE usuario_id = ?", Integer.class, USUARIO_ID) > 0);
+        assertResumo(rollupAnalyticsService.resumo(USUARIO_ID, 30), 4, 3, 2);
+
+        // Cauda de hoje ainda não consolidada
+        inserir("c.com", agora, true);
+        assertResumo(rollupAnalyticsService.resumo(USUARIO_ID, 30), 5, 4, 3);
+        assertResumo(rollupAnalyticsService.resumo(USUARIO_ID, 365), 6, 5, 3);
+
+        Thread.sleep(5);
+        rollupAnalyticsService.consolidar();
+        assertResumo(rollupAnalyticsService.resumo(USUARIO_ID, 30), 5, 4, 3);
+        assertResumo(rollupAnalyticsService.resumo(USUARIO_ID, 7), 5, 4, 3);
+    }
+
+    private void assertResumo(RollupAnalyticsService.Resumo resumo, long total, long sucessos, long sites) {
+        Assertions.assertEquals(total, resumo.getTotalPreenchimentos());
+        Assertions.assertEquals(sucessos, resumo.getTotalSucessos());
+        Assertions.assertEquals(total * 30, resumo.getTempoEconomizado());
+        Assertions.assertEquals(sites, resumo.getSitesUnicos());
+    }
+
+    private void inserir(String site, LocalDateTime dataPreenchimento, boolean sucesso) {
+        jdbcTemplate.update("INSERT INTO preenchimentos_analytics (usuario_id, site, campo_id, data_preenchimento, "
+                + "tempo_economizado, sucesso, created_at) VALUES (?, ?, NULL, ?, 30, ?, ?)",
+            USUARIO_ID, site, Timestamp.valueOf(dataPreenchimento), sucesso,
+            Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.backend;
+
+import br.com.backend.dto.PreenchimentoAnalyticsDTO;
+import br.com.backend.service.RollupAnalyticsService;
+import br.com.backend.service.SerieAnalyticsService;
+import br.com.backend.service.SerieAnalyticsService.Granularidade;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "app.analytics.rollup.interval=3600000",
+    "app.analytics.rollup.lag-seconds=0"
+})
+public class SerieAnalyticsIntegrationTest {
+
+    private static final long USUARIO_ID = 7_101L;
+
+    @Autowired
+    private SerieAnalyticsService serieAnalyticsService;
+    @Autowired
+    private RollupAnalyticsService rollupAnalyticsService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void agregaPorHoraDiaESemana() throws Exception {
+        LocalDateTime horaAtual = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        inserir(horaAtual.minusDays(3));
+        inserir(horaAtual);
+        inserir(horaAtual);
+        Thread.sleep(5);
+        rollupAnalyticsService.consolidar();
+        // Cauda ainda não consolidada
+        inserir(horaAtual);
+
+        List<PreenchimentoAnalyticsDTO> dias = serieAnalyticsService.listar(USUARIO_ID, 7, Granularidade.DIA);
+        Assertions.assertEquals(2, dias.size());
+        Assertions.assertEquals(horaAtual.minusDays(3).toLocalDate().atStartOfDay(), dias.get(0).getData());
+        Assertions.assertEquals(1, dias.get(0).getQuantidade());
+        Assertions.assertEquals(LocalDate.now().atStartOfDay(), dias.get(1).getData());
+        Assertions.assertEquals(3, dias.get(1).getQuantidade());
+
+        List<PreenchimentoAnalyticsDTO> horas = serieAnalyticsService.listar(USUARIO_ID, 1, Granularidade.HORA);
+        Assertions.assertEquals(1, horas.size());
+        Assertions.assertEquals(horaAtual, horas.get(0).getData());
+        Assertions.assertEquals(3, horas.get(0).getQuantidade());
+
+        List<PreenchimentoAnalyticsDTO> semanas = serieAnalyticsService.listar(USUARIO_ID, 30, Granularidade.SEMANA);
+        Assertions.assertEquals(4, semanas.stream().mapToInt(PreenchimentoAnalyticsDTO::getQuantidade).sum());
+        semanas.forEach(semana -> Assertions.assertEquals(DayOfWeek.MONDAY, semana.getData().getDayOfWeek()));
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        serieAnalyticsService.escrever(USUARIO_ID, 7, Granularidade.DIA, saida);
+        JsonNode json = objectMapper.readTree(saida.toByteArray());
+        Assertions.assertEquals(2, json.size());
+        Assertions.assertEquals(3, json.get(1).get("quantidade").asInt());
+        Assertions.assertEquals(LocalDate.now() + "T00:00:00", json.get(1).get("data").asText());
+    }
+
+    private void inserir(LocalDateTime dataPreenchimento) {
+        jdbcTemplate.update("INSERT INTO preenchimentos_analytics (usuario_id, site, campo_id, data_preenchimento, "
+                + "tempo_economizado, sucesso, created_at) VALUES (?, 'exemplo.com', NULL, ?, 30, true, ?)",
+            USUARIO_ID, Timestamp.valueOf(dataPreenchimento), Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,106 @@
+package br.com.backend;
+
+import br.com.backend.service.HyperLogLog;
+import br.com.backend.service.RollupAnalyticsService;
+import br.com.backend.service.SitesUnicosService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Sites únicos por sketches HyperLogLog diários: erro do sketch, união de períodos e preenchimento
+ * dos dias consolidados antes dos sketches
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "app.analytics.rollup.interval=3600000",
+    "app.analytics.rollup.lag-seconds=0"
+})
+public class SitesUnicosIntegrationTest {
+
+    private static final long USUARIO_ID = 7_301L;
+
+    @Autowired
+    private SitesUnicosService sitesUnicosService;
+    @Autowired
+    private RollupAnalyticsService rollupAnalyticsService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sketchEstimaComErroProximoDeUmPorCento() {
+        HyperLogLog primeiro = new HyperLogLog(14);
+        HyperLogLog segundo = new HyperLogLog(14);
+        for (int i = 0; i < 60_000; i++) {
+            primeiro.adicionar("site" + i + ".com");
+        }
+        for (int i = 40_000; i < 100_000; i++) {
+            segundo.adicionar("site" + i + ".com");
+        }
+        assertErro(60_000, primeiro.estimar());
+
+        HyperLogLog uniao = HyperLogLog.ler(primeiro.serializar());
+        uniao.mesclar(HyperLogLog.ler(segundo.serializar()));
+        assertErro(100_000, uniao.estimar());
+        Assertions.assertEquals(2 + (1 << 14), uniao.serializar().length);
+
+        // Poucos sites: representação esparsa, contagem praticamente exata
+        HyperLogLog poucos = new HyperLogLog(14);
+        for (int i = 0; i < 5; i++) {
+            poucos.adicionar("site" + i + ".com");
+            poucos.adicionar("site" + i + ".com");
+        }
+        Assertions.assertEquals(2 + 5 * 4, poucos.serializar().length);
+        Assertions.assertEquals(5, HyperLogLog.ler(poucos.serializar()).estimar());
+    }
+
+    @Test
+    void periodoUneSketchesDiariosECauda() throws Exception {
+        LocalDateTime agora = LocalDateTime.now();
+        for (int i = 0; i < 30; i++) {
+            inserir("site" + i + ".com", agora.minusDays(2));
+            inserir("site" + (i + 20) + ".com", agora.minusDays(1));
+        }
+        inserir("antigo.com", agora.minusDays(60));
+        Thread.sleep(5);
+        rollupAnalyticsService.consolidar();
+        Assertions.assertEquals(3, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM sites_unicos_diario WHERE usuario_id = ?", Integer.class, USUARIO_ID));
+
+        // Cauda ainda não consolidada
+        inserir("novo.com", agora);
+        inserir("site0.com", agora);
+        Assertions.assertEquals(51, sitesUnicosService.contar(USUARIO_ID, LocalDate.now().minusDays(29)));
+        Assertions.assertEquals(52, sitesUnicosService.contar(USUARIO_ID, LocalDate.now().minusDays(364)));
+        Assertions.assertEquals(32, sitesUnicosService.contar(USUARIO_ID, LocalDate.now().minusDays(1)));
+
+        // Dias consolidados sem sketch são preenchidos pelo job
+        jdbcTemplate.update("DELETE FROM sites_unicos_diario WHERE usuario_id = ?", USUARIO_ID);
+        jdbcTemplate.update("UPDATE consolidacao_analytics SET ultimo_id = 0 WHERE nome = ?", SitesUnicosService.NOME);
+        Thread.sleep(5);
+        rollupAnalyticsService.consolidar();
+        Assertions.assertEquals(4, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM sites_unicos_diario WHERE usuario_id = ?", Integer.class, USUARIO_ID));
+        Assertions.assertEquals(52, sitesUnicosService.contar(USUARIO_ID, LocalDate.now().minusDays(364)));
+    }
+
+    private void assertErro(long esperado, long estimado) {
+        double erro = Math.abs(estimado - esperado) / (double) esperado;
+        Assertions.assertTrue(erro < 0.025, "estimado " + estimado + " para " + esperado);
+    }
+
+    private void inserir(String site, LocalDateTime dataPreenchimento) {
+        jdbcTemplate.update("INSERT INTO preenchimentos_analytics (usuario_id, site, campo_id, data_preenchimento, "
+                + "tempo_economizado, sucesso, created_at) VALUES (?, ?, NULL, ?, 30, true, ?)",
+            USUARIO_ID, site, Timestamp.valueOf(dataPreenchimento), Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,144 @@
+package br.com.backend;
+
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.Template;
+import br.com.backend.entity.Usuario;
+import br.com.backend.repository.TemplateRepository;
+import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.security.JwtTokenUtil;
+import br.com.backend.service.ContadorUsoService;
+import br.com.backend.service.TemplateService;
+import br.com.backend.service.TemplateVersionService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class TemplateEtagIntegrationTest {
+
+    private static final String EXTENSION_KEY = "ext_2024_preenche_rapido_secure_key_987654321";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private TemplateRepository templateRepository;
+    @Autowired
+    private TemplateService templateService;
+    @Autowired
+    private ContadorUsoService contadorUsoService;
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+    @Autowired
+    private TemplateVersionService templateVersionService;
+
+    @Test
+    void respondeNaoModificadoAteAlgumTemplateMudar() throws Exception {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("ETag").email("etag@exemplo.com").senha("x").plano("PESSOAL").build());
+        Template template = new Template("ETag", usuario);
+        CampoTemplate campo = new CampoTemplate("email", "email", null);
+        campo.setValor("etag@exemplo.com");
+        template.adicionarCampo(campo);
+        template = templateRepository.save(template);
+
+        String etag = listar(null, 200);
+        Assertions.assertNotNull(etag);
+        Assertions.assertEquals(etag, listar(etag, 304));
+
+        // Salvar o usuário não pode regredir a versão dos templates
+        usuario = usuarioRepository.findById(usuario.getId()).orElseThrow();
+        usuario.setNome("ETag alterado");
+        usuarioRepository.save(usuario);
+        Assertions.assertEquals(etag, listar(etag, 304));
+
+        templateService.incrementarUsoTemplate(template.getId(), usuario.getId());
+        contadorUsoService.gravar();
+        String novoEtag = listar(etag, 200);
+        Assertions.assertNotEquals(etag, novoEtag);
+        Assertions.assertEquals(novoEtag, listar(novoEtag, 304));
+    }
+
+    @Test
+    void trocarUsuarioComAsMesmasVersoesMudaEtagGlobal() throws Exception {
+        Usuario removido = usuarioRepository.save(Usuario.builder()
+            .nome("Removido").email("etag-removido@exemplo.com").senha("x").plano("PESSOAL").build());
+        Usuario ativo = usuarioRepository.save(Usuario.builder()
+            .nome("Ativo").email("etag-ativo@exemplo.com").senha("x").plano("PESSOAL").build());
+        templateVersionService.incrementar(removido.getId());
+        templateVersionService.incrementar(removido.getId());
+        String etag = listar(null, 200);
+
+        // Mesma quantidade de usuários e mesma soma de versões, conteúdo diferente
+        usuarioRepository.deleteById(removido.getId());
+        usuarioRepository.save(Usuario.builder()
+            .nome("Novo").email("etag-novo@exemplo.com").senha("x").plano("PESSOAL").build());
+        templateVersionService.incrementar(ativo.getId());
+        templateVersionService.incrementar(ativo.getId());
+
+        Assertions.assertNotEquals(etag, listar(etag, 200));
+    }
+
+    @Test
+    void representacaoGzipTemEtagProprio() throws Exception {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("ETag gzip").email("etag-gzip@exemplo.com").senha("x").plano("PESSOAL").build());
+        Template template = new Template("ETag gzip", usuario);
+        // Acima de app.templates.payload-cache.gzip-min-bytes
+        for (int i = 0; i < 40; i++) {
+            CampoTemplate campo = new CampoTemplate("campo" + i, "text", null);
+            campo.setValor("valor bem comprido do campo número " + i);
+            template.adicionarCampo(campo);
+        }
+        templateRepository.save(template);
+        String token = "Bearer " + jwtTokenUtil.generateToken(usuario.getEmail());
+
+        MockHttpServletResponse gzip = mockMvc.perform(get("/api/v1/public/templates/usuario")
+                .header("Authorization", token).header("Accept-Encoding", "gzip"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Encoding", "gzip"))
+            .andReturn().getResponse();
+        MockHttpServletResponse identidade = mockMvc.perform(get("/api/v1/public/templates/usuario")
+                .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("Content-Encoding"))
+            .andReturn().getResponse();
+
+        String etagGzip = gzip.getHeader("ETag");
+        String etagIdentidade = identidade.getHeader("ETag");
+        Assertions.assertNotEquals(etagIdentidade, etagGzip);
+        Assertions.assertTrue(etagGzip.endsWith("-gz\""), etagGzip);
+
+        // Qualquer uma das duas formas valida, e o 304 repete a que o cliente tem
+        mockMvc.perform(get("/api/v1/public/templates/usuario")
+                .header("Authorization", token).header("Accept-Encoding", "gzip").header("If-None-Match", etagGzip))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", etagGzip));
+        mockMvc.perform(get("/api/v1/public/templates/usuario")
+                .header("Authorization", token).header("If-None-Match", etagIdentidade))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", etagIdentidade));
+    }
+
+    private String listar(String ifNoneMatch, int statusEsperado) throws Exception {
+        var requisicao = get("/api/v1/public/templates").header("X-Extension-Key", EXTENSION_KEY);
+        if (ifNoneMatch != null) {
+            requisicao.header("If-None-Match", ifNoneMatch);
+        }
+        return mockMvc.perform(requisicao)
+            .andExpect(status().is(statusEsperado))
+            .andReturn().getResponse().getHeader("ETag");
+    }
+}
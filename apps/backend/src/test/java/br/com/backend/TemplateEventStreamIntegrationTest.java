@@ -0,0 +1,84 @@
+package br.com.backend;
+
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.Template;
+import br.com.backend.entity.Usuario;
+import br.com.backend.repository.TemplateRepository;
+import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.security.JwtTokenUtil;
+import br.com.backend.service.ContadorUsoService;
+import br.com.backend.service.TemplateService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class TemplateEventStreamIntegrationTest {
+
+    private static final String EXTENSION_KEY = "ext_2024_preenche_rapido_secure_key_987654321";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private TemplateRepository templateRepository;
+    @Autowired
+    private TemplateService templateService;
+    @Autowired
+    private ContadorUsoService contadorUsoService;
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Test
+    void recebeEventoDepoisDoCommitDaAlteracao() throws Exception {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("SSE").email("sse@exemplo.com").senha("x").plano("PESSOAL").build());
+        Template template = new Template("SSE", usuario);
+        CampoTemplate campo = new CampoTemplate("email", "email", null);
+        campo.setValor("sse@exemplo.com");
+        template.adicionarCampo(campo);
+        template = templateRepository.save(template);
+
+        MvcResult conexao = mockMvc.perform(get("/api/v1/public/extension/stream")
+                .header("X-Extension-Key", EXTENSION_KEY)
+                .header("Authorization", "Bearer " + jwtTokenUtil.generateToken(usuario.getEmail())))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        templateService.incrementarUsoTemplate(template.getId(), usuario.getId());
+        contadorUsoService.gravar();
+
+        String eventos = aguardar(conexao, "event:template.alterado");
+        Assertions.assertTrue(eventos.contains("event:conectado"), eventos);
+        Assertions.assertTrue(eventos.contains("\"templateId\":" + template.getId()), eventos);
+    }
+
+    @Test
+    void recusaConexaoSemToken() throws Exception {
+        mockMvc.perform(get("/api/v1/public/extension/stream").header("X-Extension-Key", EXTENSION_KEY))
+            .andExpect(status().isUnauthorized());
+    }
+
+    private String aguardar(MvcResult conexao, String trecho) throws Exception {
+        long limite = System.currentTimeMillis() + 5000;
+        String conteudo = conexao.getResponse().getContentAsString();
+        while (!conteudo.contains(trecho) && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+            conteudo = conexao.getResponse().getContentAsString();
+        }
+        Assertions.assertTrue(conteudo.contains(trecho), conteudo);
+        return conteudo;
+    }
+}
@@ -0,0 +1,92 @@
+package br.com.backend;
+
+import br.com.backend.service.TemplatePayloadCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Validade por ETag, orçamento de memória e gzip do cache de payloads de templates
+ */
+public class TemplatePayloadCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void reutilizaPayloadEnquantoOEtagNaoMuda() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TemplatePayloadCache cache = new TemplatePayloadCache(registry, objectMapper, true, 1_000_000, false, 1024);
+        AtomicInteger montagens = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            byte[] corpo = cache.obter(1L, "ext", "\"v1\"", () -> {
+                montagens.incrementAndGet();
+                return List.of(Map.of("id", 1));
+            }).corpo(false);
+            Assertions.assertEquals("[{\"id\":1}]", new String(corpo, StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals(1, montagens.get());
+
+        cache.obter(1L, "ext", "\"v2\"", () -> {
+            montagens.incrementAndGet();
+            return List.of();
+        });
+        Assertions.assertEquals(2, montagens.get());
+        Assertions.assertEquals(0.5, registry.get("formsync.templates.payload.cache.hit_ratio").gauge().value());
+    }
+
+    @Test
+    void invalidaApenasOsPayloadsDoUsuario() {
+        TemplatePayloadCache cache = new TemplatePayloadCache(new SimpleMeterRegistry(), objectMapper, true, 1_000_000, false, 1024);
+        cache.obter(1L, "ext", "\"a\"", List::of);
+        cache.obter(1L, "jwt", "\"a\"", List::of);
+        cache.obter(11L, "ext", "\"a\"", List::of);
+
+        cache.invalidar(1L);
+
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(2, cache.bytes());
+    }
+
+    @Test
+    void respeitaOrcamentoDeBytes() {
+        TemplatePayloadCache cache = new TemplatePayloadCache(new SimpleMeterRegistry(), objectMapper, true, 400, false, 1024);
+        String texto = "x".repeat(90);
+        for (long usuario = 1; usuario <= 10; usuario++) {
+            cache.obter(usuario, "ext", "\"a\"", () -> texto);
+        }
+
+        Assertions.assertTrue(cache.bytes() <= 400);
+        Assertions.assertEquals(4, cache.size());
+
+        // Maior que um quarto do orçamento: é servido, mas não fica em cache
+        cache.obter(99L, "ext", "\"a\"", () -> "y".repeat(200));
+        Assertions.assertEquals(4, cache.size());
+    }
+
+    @Test
+    void comprimePayloadsGrandes() throws Exception {
+        TemplatePayloadCache cache = new TemplatePayloadCache(new SimpleMeterRegistry(), objectMapper, true, 1_000_000, true, 1024);
+        String texto = "campo ".repeat(1000);
+
+        TemplatePayloadCache.Payload payload = cache.obter(1L, "ext", "\"a\"", () -> texto);
+
+        Assertions.assertTrue(payload.comprimido(true));
+        Assertions.assertFalse(payload.comprimido(false));
+        Assertions.assertTrue(payload.corpo(true).length < payload.corpo(false).length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload.corpo(true)))) {
+            Assertions.assertArrayEquals(payload.corpo(false), gzip.readAllBytes());
+        }
+
+        TemplatePayloadCache.Payload pequeno = cache.obter(2L, "ext", "\"a\"", () -> "curto");
+        Assertions.assertFalse(pequeno.comprimido(true));
+    }
+}
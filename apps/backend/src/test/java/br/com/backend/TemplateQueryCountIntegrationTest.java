@@ -0,0 +1,114 @@
+package br.com.backend;
+
+import br.com.backend.dto.TemplateDTO;
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.Template;
+import br.com.backend.entity.Usuario;
+import br.com.backend.repository.TemplateRepository;
+import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.service.TemplateService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A listagem de templates não pode disparar uma consulta por template (N+1)
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "app.usage.flush-interval=3600000"
+})
+public class TemplateQueryCountIntegrationTest {
+
+    private static final int TEMPLATES = 10;
+    private static final String EXTENSION_KEY = "ext_2024_preenche_rapido_secure_key_987654321";
+
+    @Autowired
+    private TemplateService templateService;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private TemplateRepository templateRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void listaTemplatesComCamposEmNoMaximoDuasConsultas() {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("Consultas").email("consultas@exemplo.com").senha("x").plano("EMPRESARIAL").build());
+        for (int i = 0; i < TEMPLATES; i++) {
+            Template template = new Template("Cadastro " + i, usuario);
+            for (int c = 0; c < 3; c++) {
+                CampoTemplate campo = new CampoTemplate("campo" + c, "text", null);
+                campo.setValor("valor-" + i + "-" + c);
+                template.adicionarCampo(campo);
+            }
+            templateRepository.save(template);
+        }
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        estatisticas.clear();
+        List<TemplateDTO> templates = templateService.listarTemplates(usuario.getId());
+        Assertions.assertEquals(TEMPLATES, templates.size());
+        templates.forEach(template -> Assertions.assertEquals(3, template.getCampos().size()));
+        Assertions.assertEquals("valor-0-0", templates.get(0).getCampos().stream()
+            .filter(campo -> campo.getNome().equals("campo0")).findFirst().orElseThrow().getValor());
+        Assertions.assertTrue(estatisticas.getPrepareStatementCount() <= 2,
+            "consultas executadas: " + estatisticas.getPrepareStatementCount());
+
+        estatisticas.clear();
+        List<TemplateDTO> encontrados = templateService.buscarTemplatesPorPadrao(usuario.getId(), "cadastro");
+        Assertions.assertEquals(TEMPLATES, encontrados.size());
+        encontrados.forEach(template -> Assertions.assertEquals(3, template.getCampos().size()));
+        Assertions.assertTrue(estatisticas.getPrepareStatementCount() <= 2,
+            "consultas executadas: " + estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void registroDeUsoPelaExtensaoNaoCarregaEntidades() throws Exception {
+        Usuario extensao = usuarioRepository.findByEmail("extensao@formsync.com")
+            .orElseGet(() -> usuarioRepository.save(Usuario.builder()
+                .nome("Usuário Extensão").email("extensao@formsync.com").senha("x").plano("PESSOAL").build()));
+        Usuario outro = usuarioRepository.save(Usuario.builder()
+            .nome("Outro").email("uso-outro@exemplo.com").senha("x").plano("PESSOAL").build());
+        Template template = templateRepository.save(new Template("Uso extensão", extensao));
+        Template alheio = templateRepository.save(new Template("Uso alheio", outro));
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        estatisticas.clear();
+        mockMvc.perform(post("/api/v1/public/templates/" + template.getId() + "/uso")
+                .header("X-Extension-Key", EXTENSION_KEY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"success\":true}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.totalUso").value(1));
+        Assertions.assertEquals(0, estatisticas.getEntityLoadCount(),
+            "entidades carregadas: " + estatisticas.getEntityLoadCount());
+
+        mockMvc.perform(post("/api/v1/public/templates/" + alheio.getId() + "/uso")
+                .header("X-Extension-Key", EXTENSION_KEY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"success\":true}"))
+            .andExpect(status().isForbidden());
+    }
+}
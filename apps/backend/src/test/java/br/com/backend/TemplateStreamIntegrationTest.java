@@ -0,0 +1,105 @@
+package br.com.backend;
+
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.Template;
+import br.com.backend.entity.Usuario;
+import br.com.backend.repository.TemplateRepository;
+import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.service.TemplateStreamService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = "app.templates.stream.page-size=2")
+public class TemplateStreamIntegrationTest {
+
+    private static final String EXTENSION_KEY = "ext_2024_preenche_rapido_secure_key_987654321";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TemplateStreamService templateStreamService;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private TemplateRepository templateRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void percorreTodasAsPaginasSemRepetirNemPerderTemplates() throws Exception {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("Stream").email("stream@exemplo.com").senha("x").plano("EMPRESARIAL").build());
+        List<Long> ativos = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ativos.add(templateRepository.save(template("Stream " + i, usuario, i)).getId());
+        }
+        Template inativo = template("Stream inativo", usuario, 9);
+        inativo.setAtivo(false);
+        inativo = templateRepository.save(inativo);
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        templateStreamService.escreverTemplatesAtivos(saida);
+        JsonNode lista = objectMapper.readTree(saida.toByteArray());
+
+        Map<Long, JsonNode> porId = new HashMap<>();
+        long anterior = 0;
+        for (JsonNode template : lista) {
+            long id = template.get("id").asLong();
+            Assertions.assertTrue(id > anterior, "templates fora de ordem ou repetidos");
+            anterior = id;
+            porId.put(id, template);
+        }
+
+        Assertions.assertFalse(porId.containsKey(inativo.getId()));
+        for (int i = 0; i < ativos.size(); i++) {
+            JsonNode template = porId.get(ativos.get(i));
+            Assertions.assertNotNull(template);
+            Assertions.assertEquals("Stream " + i, template.get("nome").asText());
+            Assertions.assertEquals(2, template.get("campos").size());
+            Assertions.assertEquals("valor-" + i, template.get("campos").get(0).get("valor").asText());
+            Assertions.assertEquals("email", template.get("campos").get(1).get("tipo").asText());
+        }
+
+        // O endpoint entrega exatamente o mesmo conteúdo
+        MvcResult resultado = mockMvc.perform(get("/api/v1/public/templates").header("X-Extension-Key", EXTENSION_KEY))
+            .andExpect(status().isOk())
+            .andReturn();
+        String corpo = mockMvc.perform(asyncDispatch(resultado))
+            .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        Assertions.assertEquals(lista, objectMapper.readTree(corpo));
+    }
+
+    private Template template(String nome, Usuario usuario, int indice) {
+        Template template = new Template(nome, usuario);
+        CampoTemplate nomeCampo = new CampoTemplate("nome", "text", null);
+        nomeCampo.setValor("valor-" + indice);
+        template.adicionarCampo(nomeCampo);
+        CampoTemplate email = new CampoTemplate("email", "email", null);
+        email.setValor("stream" + indice + "@exemplo.com");
+        template.adicionarCampo(email);
+        return template;
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.backend;
+
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.Template;
+import br.com.backend.entity.Usuario;
+import br.com.backend.repository.TemplateRepository;
+import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.service.TemplateSyncService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "app.sync.cursor-overlap-seconds=0")
+public class TemplateSyncIntegrationTest {
+
+    @Autowired
+    private TemplateSyncService templateSyncService;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private TemplateRepository templateRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void retornaApenasAlteracoesETombstonesDesdeOCursor() throws Exception {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("Sync").email("sync@exemplo.com").senha("x").plano("EMPRESARIAL").build());
+        Template pessoal = templateRepository.save(template("Pessoal", usuario));
+        Template trabalho = templateRepository.save(template("Trabalho", usuario));
+
+        Map<String, Object> snapshot = templateSyncService.sincronizar(usuario.getId(), null);
+        Assertions.assertEquals(true, snapshot.get("completo"));
+        Assertions.assertEquals(2, ((List<?>) snapshot.get("templates")).size());
+
+        Thread.sleep(20);
+        pessoal.setNome("Pessoal alterado");
+        templateRepository.save(pessoal);
+        trabalho.setAtivo(false);
+        templateRepository.save(trabalho);
+
+        Map<String, Object> delta = templateSyncService.sincronizar(usuario.getId(), (String) snapshot.get("cursor"));
+        List<Map<String, Object>> alterados = (List<Map<String, Object>>) delta.get("templates");
+        List<Map<String, Object>> removidos = (List<Map<String, Object>>) delta.get("removidos");
+        Assertions.assertEquals(false, delta.get("completo"));
+        Assertions.assertEquals(1, alterados.size());
+        Assertions.assertEquals("Pessoal alterado", alterados.get(0).get("nome"));
+        Assertions.assertEquals(1, ((List<?>) alterados.get(0).get("campos")).size());
+        Assertions.assertEquals(1, removidos.size());
+        Assertions.assertEquals(trabalho.getId(), removidos.get(0).get("id"));
+
+        Thread.sleep(20);
+        Map<String, Object> vazio = templateSyncService.sincronizar(usuario.getId(), (String) delta.get("cursor"));
+        Assertions.assertTrue(((List<?>) vazio.get("templates")).isEmpty());
+        Assertions.assertTrue(((List<?>) vazio.get("removidos")).isEmpty());
+    }
+
+    private Template template(String nome, Usuario usuario) {
+        Template template = new Template(nome, usuario);
+        CampoTemplate campo = new CampoTemplate("email", "email", null);
+        campo.setValor("sync@exemplo.com");
+        template.adicionarCampo(campo);
+        return template;
+    }
+}
@@ -0,0 +1,227 @@
+package br.com.backend;
+
+import br.com.backend.dto.CampoAnalyticsDTO;
+import br.com.backend.dto.SiteAnalyticsDTO;
+import br.com.backend.entity.CampoAnalytics;
+import br.com.backend.entity.CampoTemplate;
+import br.com.backend.entity.Template;
+import br.com.backend.entity.Usuario;
+import br.com.backend.repository.CampoTemplateRepository;
+import br.com.backend.repository.TemplateRepository;
+import br.com.backend.repository.UsuarioRepository;
+import br.com.backend.service.AnalyticsService;
+import br.com.backend.service.GravadorAnalytics;
+import br.com.backend.service.RollupAnalyticsService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Rankings de campos e sites: uma consulta cada, com nomes e LIMIT no banco, e o custo
+ * antes/depois com 100 mil linhas de analytics por usuário.
+ * O benchmark roda com: mvn test -Dtest=TopAnalyticsBenchmarkTest -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "app.analytics.rollup.interval=3600000",
+    "app.analytics.rollup.lag-seconds=0"
+})
+public class TopAnalyticsBenchmarkTest {
+
+    private static final int CAMPOS = 12;
+    private static final int LINHAS = 100_000;
+    private static final int SITES = 500;
+    private static final int ITERACOES = 20;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+    @Autowired
+    private GravadorAnalytics gravadorAnalytics;
+    @Autowired
+    private RollupAnalyticsService rollupAnalyticsService;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+    @Autowired
+    private TemplateRepository templateRepository;
+    @Autowired
+    private CampoTemplateRepository campoTemplateRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rankingsEmUmaConsultaCada() throws Exception {
+        Long usuarioId = criarTemplate("ranking@exemplo.com").getUsuario().getId();
+        List<Long> campos = idsDosCampos(usuarioId);
+        for (int i = 0; i < campos.size(); i++) {
+            gravadorAnalytics.somarUsosCampo(usuarioId, campos.get(i), i + 1);
+        }
+        // Campo já removido: continua no ranking, sem nome
+        gravadorAnalytics.somarUsosCampo(usuarioId, 987_654L, 100);
+
+        inserirSites(usuarioId, "a.com", 5);
+        inserirSites(usuarioId, "b.com", 3);
+        inserirSites(usuarioId, null, 1);
+        Thread.sleep(5);
+        rollupAnalyticsService.consolidar();
+        // Cauda ainda não consolidada passa b.com à frente
+        inserirSites(usuarioId, "b.com", 4);
+
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+        List<CampoAnalyticsDTO> topCampos = analyticsService.getCamposMaisUtilizados(usuarioId);
+        Assertions.assertEquals(1, estatisticas.getPrepareStatementCount());
+        Assertions.assertEquals(10, topCampos.size());
+        Assertions.assertEquals(987_654L, topCampos.get(0).getCampoTemplateId());
+        Assertions.assertNull(topCampos.get(0).getNomeCampo());
+        Assertions.assertEquals(campos.get(CAMPOS - 1), topCampos.get(1).getCampoTemplateId());
+        Assertions.assertEquals(CAMPOS, topCampos.get(1).getQuantidadeUsos());
+        Assertions.assertEquals("campo" + (CAMPOS - 1), topCampos.get(1).getNomeCampo());
+        Assertions.assertEquals("Cadastro", topCampos.get(1).getNomeTemplate());
+
+        estatisticas.clear();
+        List<SiteAnalyticsDTO> topSites = analyticsService.getSitesMaisAcessados(usuarioId);
+        Assertions.assertEquals(1, estatisticas.getPrepareStatementCount());
+        Assertions.assertEquals(List.of("b.com", "a.com"),
+            topSites.subList(0, 2).stream().map(SiteAnalyticsDTO::getDominio).collect(Collectors.toList()));
+        Assertions.assertEquals(7, topSites.get(0).getQuantidadePreenchimentos());
+        Assertions.assertEquals(30.0, topSites.get(0).getTempoMedio());
+        Assertions.assertNull(topSites.get(2).getDominio());
+        Assertions.assertEquals(1, topSites.get(2).getQuantidadePreenchimentos());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void compararRankingAnteriorEConsultaTopK() {
+        Long usuarioId = criarTemplate("benchmark-ranking@exemplo.com").getUsuario().getId();
+        List<Long> campos = idsDosCampos(usuarioId);
+
+        // 100 mil campos_analytics: os campos reais no topo, o resto com ids de campos já removidos
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> linhasCampos = new ArrayList<>(LINHAS);
+        for (int i = 0; i < LINHAS; i++) {
+            long campoId = i < campos.size() ? campos.get(i) : 1_000_000L + i;
+            int usos = i < campos.size() ? LINHAS + i : 1 + i % 1000;
+            linhasCampos.add(new Object[]{usuarioId, campoId, usos, agora, agora, agora});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO campos_analytics (usuario_id, campo_template_id, quantidade_usos, "
+            + "ultimo_uso, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)", linhasCampos);
+
+        // 100 mil preenchimentos em SITES domínios, consolidados exceto a cauda
+        List<Object[]> linhasSites = new ArrayList<>(LINHAS);
+        for (int i = 0; i < LINHAS; i++) {
+            linhasSites.add(new Object[]{usuarioId, "site" + (i % SITES) + ".com",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(i % 90)), agora});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO preenchimentos_analytics (usuario_id, site, campo_id, data_preenchimento, "
+            + "tempo_economizado, sucesso, created_at) VALUES (?, ?, NULL, ?, 30, true, ?)", linhasSites);
+        rollupAnalyticsService.consolidar();
+        inserirSites(usuarioId, "site0.com", 100);
+
+        medir("campos anterior", () -> transactionTemplate.execute(status -> camposAnterior(usuarioId)));
+        medir("campos top-k", () -> analyticsService.getCamposMaisUtilizados(usuarioId));
+        medir("sites anterior", () -> sitesAnterior(usuarioId));
+        medir("sites top-k", () -> analyticsService.getSitesMaisAcessados(usuarioId));
+
+        List<CampoAnalyticsDTO> anterior = transactionTemplate.execute(status -> camposAnterior(usuarioId));
+        List<CampoAnalyticsDTO> topK = analyticsService.getCamposMaisUtilizados(usuarioId);
+        for (int i = 0; i < topK.size(); i++) {
+            Assertions.assertEquals(anterior.get(i).getCampoTemplateId(), topK.get(i).getCampoTemplateId());
+            Assertions.assertEquals(anterior.get(i).getNomeCampo(), topK.get(i).getNomeCampo());
+        }
+    }
+
+    private void medir(String nome, Supplier<List<?>> operacao) {
+        for (int i = 0; i < ITERACOES / 4; i++) {
+            operacao.get();
+        }
+
+        List<?> sumidouro = null;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ITERACOES; i++) {
+            sumidouro = operacao.get();
+        }
+        long nanos = System.nanoTime() - inicio;
+
+        Assertions.assertEquals(10, sumidouro.size());
+        System.out.printf("📊 %-16s %10.2f ms/op%n", nome, nanos / 1_000_000.0 / ITERACOES);
+    }
+
+    // Implementação anterior: todas as linhas do usuário, corte em memória e um findById por campo
+    private List<CampoAnalyticsDTO> camposAnterior(Long usuarioId) {
+        return entityManager.createQuery("SELECT a FROM CampoAnalytics a WHERE a.usuarioId = :usuarioId "
+                + "ORDER BY a.quantidadeUsos DESC", CampoAnalytics.class)
+            .setParameter("usuarioId", usuarioId)
+            .getResultList().stream()
+            .limit(10)
+            .map(analytics -> {
+                CampoAnalyticsDTO dto = new CampoAnalyticsDTO();
+                dto.setCampoTemplateId(analytics.getCampoTemplateId());
+                campoTemplateRepository.findById(analytics.getCampoTemplateId()).ifPresent(campo -> {
+                    dto.setNomeCampo(campo.getNome());
+                    dto.setNomeTemplate(campo.getTemplate().getNome());
+                });
+                dto.setQuantidadeUsos(analytics.getQuantidadeUsos());
+                return dto;
+            })
+            .collect(Collectors.toList());
+    }
+
+    // Implementação anterior: GROUP BY sobre todo o histórico bruto e corte em memória
+    private List<Object[]> sitesAnterior(Long usuarioId) {
+        return entityManager.createQuery("SELECT p.site, COUNT(p), AVG(p.tempoEconomizado) FROM PreenchimentoAnalytics p "
+                + "WHERE p.usuarioId = :usuarioId GROUP BY p.site ORDER BY COUNT(p) DESC", Object[].class)
+            .setParameter("usuarioId", usuarioId)
+            .getResultList().stream()
+            .limit(10)
+            .collect(Collectors.toList());
+    }
+
+    private Template criarTemplate(String email) {
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+            .nome("Ranking").email(email).senha("x").plano("EMPRESARIAL").build());
+        Template template = new Template("Cadastro", usuario);
+        for (int c = 0; c < CAMPOS; c++) {
+            template.adicionarCampo(new CampoTemplate("campo" + c, "text", null));
+        }
+        return templateRepository.save(template);
+    }
+
+    private List<Long> idsDosCampos(Long usuarioId) {
+        return jdbcTemplate.queryForList("SELECT c.id FROM campos_template c JOIN templates t ON t.id = c.template_id "
+            + "WHERE t.usuario_id = ? ORDER BY c.id", Long.class, usuarioId);
+    }
+
+    private void inserirSites(Long usuarioId, String site, int quantidade) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < quantidade; i++) {
+            jdbcTemplate.update("INSERT INTO preenchimentos_analytics (usuario_id, site, campo_id, data_preenchimento, "
+                    + "tempo_economizado, sucesso, created_at) VALUES (?, ?, NULL, ?, 30, true, ?)",
+                usuarioId, site, agora, agora);
+        }
+    }
+}